@@ -0,0 +1,49 @@
+package com.the_qa_company.qendpoint.config;
+
+import com.the_qa_company.qendpoint.controller.Sparql;
+import com.the_qa_company.qendpoint.core.listener.MergeMetrics;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.stereotype.Component;
+
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Bind the merge metrics of the endpoint store to the actuator metrics
+ */
+@Component
+public class MergeMetricsBinder implements MeterBinder {
+	private final Sparql sparql;
+
+	public MergeMetricsBinder(Sparql sparql) {
+		this.sparql = sparql;
+	}
+
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		gauge(registry, "qendpoint.merge.merging", "if a merge is running", null, m -> m.isMerging() ? 1 : 0);
+		gauge(registry, "qendpoint.merge.count", "number of completed merges", null, MergeMetrics::getMergeCount);
+		gauge(registry, "qendpoint.merge.elapsed", "elapsed time of the current or last merge", "milliseconds",
+				MergeMetrics::getElapsedMillis);
+		gauge(registry, "qendpoint.merge.phase.progress", "progress of the current phase", "percent",
+				MergeMetrics::getPhaseProgress);
+		gauge(registry, "qendpoint.merge.phase.eta", "estimated remaining time of the current phase", "milliseconds",
+				MergeMetrics::getPhaseEtaMillis);
+		gauge(registry, "qendpoint.merge.triples.processed", "triples processed by the current phase", null,
+				MergeMetrics::getTriplesProcessed);
+		gauge(registry, "qendpoint.merge.bytes.written", "bytes written by the current or last merge", "bytes",
+				MergeMetrics::getBytesWritten);
+		gauge(registry, "qendpoint.merge.lock.wait", "time spent waiting for the locks by the merge", "milliseconds",
+				MergeMetrics::getLockWaitMillis);
+	}
+
+	private void gauge(MeterRegistry registry, String name, String description, String unit,
+			ToDoubleFunction<MergeMetrics> value) {
+		Gauge.builder(name, sparql, s -> {
+			// the store can be reloaded, read the current metrics
+			MergeMetrics metrics = s.getMergeMetrics();
+			return metrics == null ? Double.NaN : value.applyAsDouble(metrics);
+		}).description(description).baseUnit(unit).register(registry);
+	}
+}
@@ -1,6 +1,7 @@
 package com.the_qa_company.qendpoint.controller;
 
 import com.the_qa_company.qendpoint.compiler.CantParseQueryException;
+import com.the_qa_company.qendpoint.core.listener.MergeMetrics;
 import com.the_qa_company.qendpoint.store.EndpointStoreUtils;
 import com.the_qa_company.qendpoint.store.exception.EndpointStoreInputException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -212,6 +213,11 @@ public class EndpointController {
 		return ResponseEntity.status(HttpStatus.OK).body(sparql.isMerging());
 	}
 
+	@GetMapping("/merge_metrics")
+	public ResponseEntity<MergeMetrics.Snapshot> mergeMetrics() {
+		return ResponseEntity.status(HttpStatus.OK).body(sparql.mergeMetrics());
+	}
+
 	@GetMapping("/prefixes")
 	public ResponseEntity<Map<String, String>> prefixes() {
 		return ResponseEntity.status(HttpStatus.OK).body(sparql.getPrefixes());
@@ -22,6 +22,7 @@ import com.the_qa_company.qendpoint.core.enums.CompressionType;
 import com.the_qa_company.qendpoint.core.exceptions.ParserException;
 import com.the_qa_company.qendpoint.core.hdt.HDT;
 import com.the_qa_company.qendpoint.core.hdt.HDTManager;
+import com.the_qa_company.qendpoint.core.listener.MergeMetrics;
 import com.the_qa_company.qendpoint.core.options.HDTOptions;
 import com.the_qa_company.qendpoint.core.triples.TripleString;
 import com.the_qa_company.qendpoint.core.util.StopWatch;
@@ -36,12 +37,16 @@ import org.springframework.web.server.ServerWebInputException;
 
 import javax.annotation.PostConstruct;
 import javax.annotation.PreDestroy;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
 import java.net.URI;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -77,6 +82,10 @@ public class Sparql {
 
 	private static final Logger logger = LoggerFactory.getLogger(Sparql.class);
 	private static final SimpleDateFormat FORMAT = new SimpleDateFormat("yyyyMMdd-HHmmss");
+	/**
+	 * JMX name of the merge metrics of the endpoint store
+	 */
+	public static final String MERGE_METRICS_MBEAN_NAME = "com.the_qa_company.qendpoint:type=MergeMetrics";
 
 	private static Path backupIfExists(Path p) throws IOException {
 		if (Files.exists(p)) {
@@ -292,6 +301,9 @@ public class Sparql {
 			init = false;
 			sparqlRepository.shutDown();
 			sparqlRepository = null;
+			if (endpoint != null) {
+				unregisterMergeMetrics();
+			}
 			endpoint = null;
 		}
 	}
@@ -327,6 +339,7 @@ public class Sparql {
 
 			if (source instanceof EndpointStore) {
 				endpoint = (EndpointStore) source;
+				registerMergeMetrics(endpoint.getMergeMetrics());
 			} else {
 				assert !compiledSail.getOptions().getStorageMode().equals(SailCompilerSchema.ENDPOINTSTORE_STORAGE);
 			}
@@ -390,6 +403,51 @@ public class Sparql {
 		return new IsDumpingResult(endpoint.isDumping());
 	}
 
+	/**
+	 * @return the progress and timing metrics of the merges of the store
+	 */
+	public MergeMetrics.Snapshot mergeMetrics() {
+		if (endpoint == null) {
+			throw new ServerWebInputException("No endpoint store, bad config?");
+		}
+		return endpoint.getMergeMetrics().snapshot();
+	}
+
+	/**
+	 * @return the merge metrics of the store, null if the store isn't an
+	 *         endpoint store
+	 */
+	public MergeMetrics getMergeMetrics() {
+		EndpointStore store = endpoint;
+		return store == null ? null : store.getMergeMetrics();
+	}
+
+	private static void registerMergeMetrics(MergeMetrics metrics) {
+		try {
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			ObjectName name = new ObjectName(MERGE_METRICS_MBEAN_NAME);
+			if (server.isRegistered(name)) {
+				// previous store of a reload
+				server.unregisterMBean(name);
+			}
+			server.registerMBean(metrics, name);
+		} catch (JMException e) {
+			logger.warn("Can't register the merge metrics MBean", e);
+		}
+	}
+
+	private static void unregisterMergeMetrics() {
+		try {
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			ObjectName name = new ObjectName(MERGE_METRICS_MBEAN_NAME);
+			if (server.isRegistered(name)) {
+				server.unregisterMBean(name);
+			}
+		} catch (JMException e) {
+			logger.warn("Can't unregister the merge metrics MBean", e);
+		}
+	}
+
 	/**
 	 * @return if the store is merging
 	 */
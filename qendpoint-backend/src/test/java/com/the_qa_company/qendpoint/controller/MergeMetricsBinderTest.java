@@ -0,0 +1,101 @@
+package com.the_qa_company.qendpoint.controller;
+
+import com.the_qa_company.qendpoint.Application;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = Application.class, webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = "management.endpoints.web.exposure.include=metrics")
+@DirtiesContext
+public class MergeMetricsBinderTest {
+	private static final List<String> GAUGES = List.of("qendpoint.merge.merging", "qendpoint.merge.count",
+			"qendpoint.merge.elapsed", "qendpoint.merge.phase.progress", "qendpoint.merge.phase.eta",
+			"qendpoint.merge.triples.processed", "qendpoint.merge.bytes.written", "qendpoint.merge.lock.wait");
+
+	@Autowired
+	Sparql sparql;
+
+	@Autowired
+	MeterRegistry registry;
+
+	@Autowired
+	TestRestTemplate rest;
+
+	@Value("${locationEndpoint}")
+	String locationEndpoint;
+
+	@Before
+	public void setup() throws IOException {
+		sparql.shutdown();
+		// remove previous data
+		try {
+			FileSystemUtils.deleteRecursively(Paths.get(locationEndpoint));
+		} catch (IOException e) {
+			//
+		}
+	}
+
+	@After
+	public void complete() throws IOException {
+		sparql.shutdown();
+	}
+
+	private double gauge(String name) {
+		return registry.get(name).gauge().value();
+	}
+
+	@Test
+	public void registryTest() throws IOException {
+		// no store, no value
+		for (String name : GAUGES) {
+			assertTrue(name, Double.isNaN(gauge(name)));
+		}
+
+		sparql.initializeEndpointStore(true);
+		assertNotNull(sparql.getMergeMetrics());
+		for (String name : GAUGES) {
+			assertFalse(name, Double.isNaN(gauge(name)));
+		}
+		assertEquals(0, gauge("qendpoint.merge.merging"), 0);
+		assertEquals(sparql.getMergeMetrics().getMergeCount(), gauge("qendpoint.merge.count"), 0);
+
+		// the gauges read the metrics of the reloaded store
+		sparql.shutdown();
+		assertTrue(Double.isNaN(gauge("qendpoint.merge.count")));
+		sparql.initializeEndpointStore(true);
+		assertFalse(Double.isNaN(gauge("qendpoint.merge.count")));
+	}
+
+	@Test
+	public void actuatorTest() throws IOException {
+		sparql.initializeEndpointStore(true);
+		for (String name : GAUGES) {
+			ResponseEntity<String> response = rest.getForEntity("/actuator/metrics/" + name, String.class);
+			assertEquals(name, HttpStatus.OK, response.getStatusCode());
+			assertNotNull(name, response.getBody());
+			assertTrue(response.getBody(), response.getBody().contains("\"name\":\"" + name + "\""));
+			assertTrue(response.getBody(), response.getBody().contains("\"statistic\":\"VALUE\""));
+		}
+	}
+}
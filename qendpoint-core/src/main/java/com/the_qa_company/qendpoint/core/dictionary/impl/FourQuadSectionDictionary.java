@@ -114,11 +114,11 @@ public class FourQuadSectionDictionary extends FourSectionDictionaryBig {
 
 		IntermediateListener iListener = new IntermediateListener(listener);
 
-		shared = DictionarySectionFactory.loadFrom(input, iListener);
-		subjects = DictionarySectionFactory.loadFrom(input, iListener);
-		predicates = DictionarySectionFactory.loadFrom(input, iListener);
-		objects = DictionarySectionFactory.loadFrom(input, iListener);
-		graphs = DictionarySectionFactory.loadFrom(input, iListener);
+		shared = DictionarySectionFactory.loadFrom(input, iListener, spec);
+		subjects = DictionarySectionFactory.loadFrom(input, iListener, spec);
+		predicates = DictionarySectionFactory.loadFrom(input, iListener, spec);
+		objects = DictionarySectionFactory.loadFrom(input, iListener, spec);
+		graphs = DictionarySectionFactory.loadFrom(input, iListener, spec);
 	}
 
 	@Override
@@ -130,11 +130,11 @@ public class FourQuadSectionDictionary extends FourSectionDictionaryBig {
 		}
 
 		IntermediateListener iListener = new IntermediateListener(listener);
-		shared = DictionarySectionFactory.loadFrom(in, f, iListener);
-		subjects = DictionarySectionFactory.loadFrom(in, f, iListener);
-		predicates = DictionarySectionFactory.loadFrom(in, f, iListener);
-		objects = DictionarySectionFactory.loadFrom(in, f, iListener);
-		graphs = DictionarySectionFactory.loadFrom(in, f, iListener);
+		shared = DictionarySectionFactory.loadFrom(in, f, iListener, spec);
+		subjects = DictionarySectionFactory.loadFrom(in, f, iListener, spec);
+		predicates = DictionarySectionFactory.loadFrom(in, f, iListener, spec);
+		objects = DictionarySectionFactory.loadFrom(in, f, iListener, spec);
+		graphs = DictionarySectionFactory.loadFrom(in, f, iListener, spec);
 
 		// Use cache only for predicates. Preload only up to 100K predicates.
 		// FIXME: DISABLED
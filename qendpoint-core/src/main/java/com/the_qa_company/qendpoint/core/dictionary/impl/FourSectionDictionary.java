@@ -119,10 +119,10 @@ public class FourSectionDictionary extends BaseDictionary {
 
 		IntermediateListener iListener = new IntermediateListener(listener);
 
-		shared = DictionarySectionFactory.loadFrom(input, iListener);
-		subjects = DictionarySectionFactory.loadFrom(input, iListener);
-		predicates = DictionarySectionFactory.loadFrom(input, iListener);
-		objects = DictionarySectionFactory.loadFrom(input, iListener);
+		shared = DictionarySectionFactory.loadFrom(input, iListener, spec);
+		subjects = DictionarySectionFactory.loadFrom(input, iListener, spec);
+		predicates = DictionarySectionFactory.loadFrom(input, iListener, spec);
+		objects = DictionarySectionFactory.loadFrom(input, iListener, spec);
 	}
 
 	@Override
@@ -135,13 +135,13 @@ public class FourSectionDictionary extends BaseDictionary {
 
 		IntermediateListener iListener = new IntermediateListener(listener);
 		in.printIndex("shared");
-		shared = DictionarySectionFactory.loadFrom(in, f, iListener);
+		shared = DictionarySectionFactory.loadFrom(in, f, iListener, spec);
 		in.printIndex("subjects");
-		subjects = DictionarySectionFactory.loadFrom(in, f, iListener);
+		subjects = DictionarySectionFactory.loadFrom(in, f, iListener, spec);
 		in.printIndex("predicates");
-		predicates = DictionarySectionFactory.loadFrom(in, f, iListener);
+		predicates = DictionarySectionFactory.loadFrom(in, f, iListener, spec);
 		in.printIndex("objects");
-		objects = DictionarySectionFactory.loadFrom(in, f, iListener);
+		objects = DictionarySectionFactory.loadFrom(in, f, iListener, spec);
 
 		// Use cache only for predicates. Preload only up to 100K predicates.
 		// FIXME: DISABLED
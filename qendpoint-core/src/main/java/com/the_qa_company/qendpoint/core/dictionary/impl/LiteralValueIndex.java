@@ -0,0 +1,550 @@
+package com.the_qa_company.qendpoint.core.dictionary.impl;
+
+import com.the_qa_company.qendpoint.core.dictionary.DictionarySection;
+import com.the_qa_company.qendpoint.core.util.disk.LongArrayDisk;
+import com.the_qa_company.qendpoint.core.util.io.IOUtil;
+
+import javax.xml.datatype.DatatypeConfigurationException;
+import javax.xml.datatype.DatatypeConstants;
+import javax.xml.datatype.DatatypeFactory;
+import javax.xml.datatype.XMLGregorianCalendar;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.TimeZone;
+
+/**
+ * Order preserving index of the numeric and temporal typed literals of a
+ * {@link MultipleLangBaseDictionary}. The object ids of the literals of a
+ * {@link ValueKind} are sorted by their parsed value and stored with this value
+ * in a file mapped in memory, a range of values is a range of positions of this
+ * order.
+ * <p>
+ * The literals of the indexed datatypes that can't be parsed are kept as
+ * exceptions, they are in no range.
+ */
+public class LiteralValueIndex implements Closeable {
+	private static final long COOKIE = 0x5145505649445831L;
+	private static final int HEADER_SIZE = 6;
+	private static final int SECTION_SIZE = 3;
+	private static final String XSD = "http://www.w3.org/2001/XMLSchema#";
+	/**
+	 * number of values sorted in memory before being merged on disk
+	 */
+	private static final int SORT_CHUNK_SIZE = 1 << 18;
+
+	/**
+	 * kind of the indexed values, the values of a kind are comparable
+	 */
+	public enum ValueKind {
+		/**
+		 * numeric literal, the value is the double value of the literal
+		 */
+		NUMERIC("integer", "decimal", "double", "float", "long", "int", "short", "byte", "nonNegativeInteger",
+				"nonPositiveInteger", "negativeInteger", "positiveInteger", "unsignedLong", "unsignedInt",
+				"unsignedShort", "unsignedByte"),
+		/**
+		 * temporal literal, the value is the epoch millis of the literal, the
+		 * literals without timezone are read in UTC
+		 */
+		TEMPORAL("dateTime", "dateTimeStamp", "date");
+
+		/**
+		 * max shift of a temporal value without timezone in millis, a range of
+		 * temporal values compared with values without timezone should be
+		 * widened by this shift
+		 */
+		public static final long TEMPORAL_TIMEZONE_SHIFT = 14L * 60 * 60 * 1000;
+		private static final TimeZone UTC = TimeZone.getTimeZone("UTC");
+		private static final DatatypeFactory DATATYPE_FACTORY;
+
+		static {
+			try {
+				DATATYPE_FACTORY = DatatypeFactory.newInstance();
+			} catch (DatatypeConfigurationException e) {
+				throw new ExceptionInInitializerError(e);
+			}
+		}
+
+		private final Set<String> datatypes;
+
+		ValueKind(String... datatypes) {
+			this.datatypes = Set.of(Arrays.stream(datatypes).map(dt -> "<" + XSD + dt + ">").toArray(String[]::new));
+		}
+
+		/**
+		 * get the kind of a datatype
+		 *
+		 * @param datatype the datatype, between '&lt;' and '&gt;'
+		 * @return the kind, null if the datatype isn't indexed
+		 */
+		public static ValueKind ofDatatype(CharSequence datatype) {
+			String dt = datatype.toString();
+			for (ValueKind kind : values()) {
+				if (kind.datatypes.contains(dt)) {
+					return kind;
+				}
+			}
+			return null;
+		}
+
+		/**
+		 * parse the label of a literal of this kind
+		 *
+		 * @param label the label, without quotes
+		 * @return the value, NaN if the label can't be parsed
+		 */
+		public double parse(CharSequence label) {
+			String str = label.toString().trim();
+			try {
+				if (this == TEMPORAL) {
+					XMLGregorianCalendar calendar = DATATYPE_FACTORY.newXMLGregorianCalendar(str);
+					TimeZone zone = calendar.getTimezone() == DatatypeConstants.FIELD_UNDEFINED ? UTC : null;
+					return calendar.toGregorianCalendar(zone, Locale.ROOT, null).getTimeInMillis();
+				}
+				return switch (str) {
+				case "INF", "+INF" -> Double.POSITIVE_INFINITY;
+				case "-INF" -> Double.NEGATIVE_INFINITY;
+				case "NaN" -> Double.NaN;
+				default -> {
+					// reject the java only syntaxes (Infinity, hex, suffixes)
+					for (int i = 0; i < str.length(); i++) {
+						char c = str.charAt(i);
+						if (!(c >= '0' && c <= '9') && c != '.' && c != '-' && c != '+' && c != 'e' && c != 'E') {
+							yield Double.NaN;
+						}
+					}
+					yield Double.parseDouble(str);
+				}
+				};
+			} catch (IllegalArgumentException e) {
+				return Double.NaN;
+			}
+		}
+	}
+
+	/**
+	 * range of positions of a kind
+	 *
+	 * @param kind  the kind
+	 * @param start the first position (inclusive)
+	 * @param end   the last position (exclusive)
+	 */
+	public record Range(ValueKind kind, long start, long end) {
+		/**
+		 * @return the number of ids in the range
+		 */
+		public long size() {
+			return end - start;
+		}
+	}
+
+	/**
+	 * load the index of a dictionary, the index is created if the file doesn't
+	 * exist or if it was created for another dictionary
+	 *
+	 * @param location   the location of the index file
+	 * @param dictionary the dictionary
+	 * @return the index
+	 * @throws IOException can't read or write the index
+	 */
+	public static LiteralValueIndex loadOrCreate(Path location, MultipleLangBaseDictionary dictionary)
+			throws IOException {
+		return loadOrCreate(location, dictionary, SORT_CHUNK_SIZE);
+	}
+
+	/**
+	 * load the index of a dictionary, the index is created if the file doesn't
+	 * exist or if it was created for another dictionary
+	 *
+	 * @param location   the location of the index file
+	 * @param dictionary the dictionary
+	 * @param chunkSize  the number of values sorted in memory
+	 * @return the index
+	 * @throws IOException can't read or write the index
+	 */
+	static LiteralValueIndex loadOrCreate(Path location, MultipleLangBaseDictionary dictionary, int chunkSize)
+			throws IOException {
+		long signature = signature(dictionary);
+		if (Files.exists(location)) {
+			long size = Files.size(location) / Long.BYTES;
+			if (size >= HEADER_SIZE) {
+				LongArrayDisk array = new LongArrayDisk(location, size, false);
+				if (array.get(0) == COOKIE && array.get(1) == signature) {
+					return new LiteralValueIndex(array);
+				}
+				array.close();
+			}
+			Files.delete(location);
+		}
+		return create(location, dictionary, signature, chunkSize);
+	}
+
+	private static List<MultipleLangBaseDictionary.ObjectIdLocationData> indexedSections(
+			MultipleLangBaseDictionary dictionary) {
+		List<MultipleLangBaseDictionary.ObjectIdLocationData> sections = new ArrayList<>();
+		for (int i = 0; i < dictionary.getObjectsSectionCount(); i++) {
+			MultipleLangBaseDictionary.ObjectIdLocationData section = dictionary.getObjectsSectionFromId(i);
+			if (section.type() == MultipleLangBaseDictionary.ObjectIdLocationType.TYPE
+					&& ValueKind.ofDatatype(section.name()) != null) {
+				sections.add(section);
+			}
+		}
+		return sections;
+	}
+
+	private static long signature(MultipleLangBaseDictionary dictionary) {
+		long signature = dictionary.getNobjects();
+		for (MultipleLangBaseDictionary.ObjectIdLocationData section : indexedSections(dictionary)) {
+			signature = signature * 31 + section.name().toString().hashCode();
+			signature = signature * 31 + section.location();
+			long count = section.section().getNumberOfElements();
+			signature = signature * 31 + count;
+			// the bounds of the section in case of a section of the same size
+			signature = signature * 31 + section.section().extract(1).toString().hashCode();
+			signature = signature * 31 + section.section().extract(count).toString().hashCode();
+		}
+		return signature;
+	}
+
+	/**
+	 * create the index, the ids and the values are written and sorted in
+	 * temporary files next to the index, only a chunk of values is kept in
+	 * memory
+	 */
+	private static LiteralValueIndex create(Path location, MultipleLangBaseDictionary dictionary, long signature,
+			int chunkSize) throws IOException {
+		List<MultipleLangBaseDictionary.ObjectIdLocationData> sections = indexedSections(dictionary);
+		ValueKind[] kinds = ValueKind.values();
+		Path work = location.resolveSibling(location.getFileName() + ".work");
+		List<Closeable> arrays = new ArrayList<>();
+		try {
+			LongArrayDisk[] ids = new LongArrayDisk[kinds.length];
+			LongArrayDisk[] values = new LongArrayDisk[kinds.length];
+			long[] counts = new long[kinds.length];
+			long total = 0;
+			for (ValueKind kind : kinds) {
+				long size = sections.stream().filter(s -> ValueKind.ofDatatype(s.name()) == kind)
+						.mapToLong(s -> s.section().getNumberOfElements()).sum();
+				total += size;
+				ids[kind.ordinal()] = new LongArrayDisk(work.resolve(kind + ".ids"), size);
+				arrays.add(ids[kind.ordinal()]);
+				values[kind.ordinal()] = new LongArrayDisk(work.resolve(kind + ".values"), size);
+				arrays.add(values[kind.ordinal()]);
+			}
+			LongArrayDisk exceptions = new LongArrayDisk(work.resolve("exceptions"), total);
+			arrays.add(exceptions);
+			long exceptionCount = 0;
+
+			for (MultipleLangBaseDictionary.ObjectIdLocationData section : sections) {
+				ValueKind kind = ValueKind.ofDatatype(section.name());
+				DictionarySection dictionarySection = section.section();
+				long id = section.location();
+				Iterator<? extends CharSequence> it = dictionarySection.getSortedEntries();
+				while (it.hasNext()) {
+					CharSequence entry = it.next();
+					id++;
+					double value = kind.parse(removeQuotes(entry));
+					if (Double.isNaN(value)) {
+						exceptions.set(exceptionCount++, id);
+						continue;
+					}
+					long index = counts[kind.ordinal()]++;
+					ids[kind.ordinal()].set(index, id);
+					values[kind.ordinal()].set(index, Double.doubleToRawLongBits(value));
+				}
+			}
+
+			long size = HEADER_SIZE + (long) sections.size() * SECTION_SIZE + exceptionCount;
+			for (ValueKind kind : kinds) {
+				long count = counts[kind.ordinal()];
+				LongArrayDisk idsBuffer = new LongArrayDisk(work.resolve(kind + ".ids.buffer"), count);
+				arrays.add(idsBuffer);
+				LongArrayDisk valuesBuffer = new LongArrayDisk(work.resolve(kind + ".values.buffer"), count);
+				arrays.add(valuesBuffer);
+				if (sort(values[kind.ordinal()], ids[kind.ordinal()], valuesBuffer, idsBuffer, count, chunkSize)) {
+					values[kind.ordinal()] = valuesBuffer;
+					ids[kind.ordinal()] = idsBuffer;
+				}
+				size += 2L * count;
+			}
+
+			LongArrayDisk array = new LongArrayDisk(location, size, true);
+			try {
+				array.set(1, signature);
+				array.set(2, sections.size());
+				array.set(3, exceptionCount);
+				for (ValueKind kind : kinds) {
+					array.set(4 + kind.ordinal(), counts[kind.ordinal()]);
+				}
+				long index = HEADER_SIZE;
+				for (MultipleLangBaseDictionary.ObjectIdLocationData section : sections) {
+					array.set(index++, section.location());
+					array.set(index++, section.location() + section.section().getNumberOfElements());
+					array.set(index++, ValueKind.ofDatatype(section.name()).ordinal());
+				}
+				// the ids are sorted by section
+				for (long i = 0; i < exceptionCount; i++) {
+					array.set(index++, exceptions.get(i));
+				}
+				for (ValueKind kind : kinds) {
+					long count = counts[kind.ordinal()];
+					for (long i = 0; i < count; i++) {
+						array.set(index++, ids[kind.ordinal()].get(i));
+					}
+					for (long i = 0; i < count; i++) {
+						array.set(index++, values[kind.ordinal()].get(i));
+					}
+				}
+				// written last to mark the index as complete
+				array.set(0, COOKIE);
+			} catch (Throwable t) {
+				try {
+					array.close();
+				} catch (Throwable t2) {
+					t.addSuppressed(t2);
+				}
+				throw t;
+			}
+			return new LiteralValueIndex(array);
+		} finally {
+			try {
+				IOUtil.closeAll(arrays);
+			} finally {
+				if (Files.exists(work)) {
+					IOUtil.deleteDirRecurse(work);
+				}
+			}
+		}
+	}
+
+	private static CharSequence removeQuotes(CharSequence entry) {
+		int start = 0;
+		int end = entry.length();
+		if (end > 0 && entry.charAt(0) == '"') {
+			start++;
+		}
+		if (end > start && entry.charAt(end - 1) == '"') {
+			end--;
+		}
+		return entry.subSequence(start, end);
+	}
+
+	/**
+	 * sort the values and their ids by value, the chunks of values are sorted
+	 * in memory and merged with sequential passes between the arrays and the
+	 * buffers
+	 *
+	 * @return true if the sorted values are in the buffers, false if they are
+	 *         in the arrays
+	 */
+	private static boolean sort(LongArrayDisk values, LongArrayDisk ids, LongArrayDisk valuesBuffer,
+			LongArrayDisk idsBuffer, long count, int chunkSize) {
+		double[] chunkValues = new double[(int) Math.min(count, chunkSize)];
+		long[] chunkIds = new long[chunkValues.length];
+		for (long start = 0; start < count; start += chunkSize) {
+			int size = (int) Math.min(chunkSize, count - start);
+			for (int i = 0; i < size; i++) {
+				chunkValues[i] = Double.longBitsToDouble(values.get(start + i));
+				chunkIds[i] = ids.get(start + i);
+			}
+			sort(chunkValues, chunkIds, size);
+			for (int i = 0; i < size; i++) {
+				values.set(start + i, Double.doubleToRawLongBits(chunkValues[i]));
+				ids.set(start + i, chunkIds[i]);
+			}
+		}
+
+		LongArrayDisk fromValues = values;
+		LongArrayDisk fromIds = ids;
+		LongArrayDisk toValues = valuesBuffer;
+		LongArrayDisk toIds = idsBuffer;
+		boolean inBuffer = false;
+		for (long width = chunkSize; width < count; width *= 2) {
+			for (long start = 0; start < count; start += 2 * width) {
+				long mid = Math.min(start + width, count);
+				long end = Math.min(start + 2 * width, count);
+				long i = start;
+				long j = mid;
+				for (long k = start; k < end; k++) {
+					if (i < mid && (j >= end || Double.longBitsToDouble(fromValues.get(i)) <= Double
+							.longBitsToDouble(fromValues.get(j)))) {
+						toValues.set(k, fromValues.get(i));
+						toIds.set(k, fromIds.get(i++));
+					} else {
+						toValues.set(k, fromValues.get(j));
+						toIds.set(k, fromIds.get(j++));
+					}
+				}
+			}
+			LongArrayDisk tmpValues = fromValues;
+			LongArrayDisk tmpIds = fromIds;
+			fromValues = toValues;
+			fromIds = toIds;
+			toValues = tmpValues;
+			toIds = tmpIds;
+			inBuffer = !inBuffer;
+		}
+		return inBuffer;
+	}
+
+	/**
+	 * sort the values and their ids by value in memory
+	 */
+	private static void sort(double[] values, long[] ids, int count) {
+		double[] valuesBuffer = new double[count];
+		long[] idsBuffer = new long[count];
+		// bottom-up merge sort, stable to keep the ids of a value sorted
+		for (int width = 1; width < count; width *= 2) {
+			for (int start = 0; start < count; start += 2 * width) {
+				int mid = Math.min(start + width, count);
+				int end = Math.min(start + 2 * width, count);
+				int i = start;
+				int j = mid;
+				for (int k = start; k < end; k++) {
+					if (i < mid && (j >= end || values[i] <= values[j])) {
+						valuesBuffer[k] = values[i];
+						idsBuffer[k] = ids[i++];
+					} else {
+						valuesBuffer[k] = values[j];
+						idsBuffer[k] = ids[j++];
+					}
+				}
+			}
+			System.arraycopy(valuesBuffer, 0, values, 0, count);
+			System.arraycopy(idsBuffer, 0, ids, 0, count);
+		}
+	}
+
+	private final LongArrayDisk array;
+	private final long sectionCount;
+	private final long exceptionCount;
+	private final long[] counts;
+	private final long[] starts;
+
+	private LiteralValueIndex(LongArrayDisk array) {
+		this.array = array;
+		sectionCount = array.get(2);
+		exceptionCount = array.get(3);
+		ValueKind[] kinds = ValueKind.values();
+		counts = new long[kinds.length];
+		starts = new long[kinds.length];
+		long index = HEADER_SIZE + sectionCount * SECTION_SIZE + exceptionCount;
+		for (ValueKind kind : kinds) {
+			counts[kind.ordinal()] = array.get(4 + kind.ordinal());
+			starts[kind.ordinal()] = index;
+			index += 2 * counts[kind.ordinal()];
+		}
+	}
+
+	/**
+	 * get the kind of the literal of an object id
+	 *
+	 * @param id the object id
+	 * @return the kind, null if the literal isn't indexed
+	 */
+	public ValueKind getKind(long id) {
+		for (long i = 0; i < sectionCount; i++) {
+			long index = HEADER_SIZE + i * SECTION_SIZE;
+			if (id > array.get(index) && id <= array.get(index + 1)) {
+				if (isException(id)) {
+					return null;
+				}
+				return ValueKind.values()[(int) array.get(index + 2)];
+			}
+		}
+		return null;
+	}
+
+	private boolean isException(long id) {
+		long low = HEADER_SIZE + sectionCount * SECTION_SIZE;
+		long high = low + exceptionCount - 1;
+		while (low <= high) {
+			long mid = (low + high) >>> 1;
+			long midId = array.get(mid);
+			if (midId < id) {
+				low = mid + 1;
+			} else if (midId > id) {
+				high = mid - 1;
+			} else {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * @param kind the kind
+	 * @return the number of indexed literals of this kind
+	 */
+	public long getCount(ValueKind kind) {
+		return counts[kind.ordinal()];
+	}
+
+	/**
+	 * get the object id at a position of the order of a kind
+	 *
+	 * @param kind     the kind
+	 * @param position the position
+	 * @return the object id
+	 */
+	public long getId(ValueKind kind, long position) {
+		return array.get(starts[kind.ordinal()] + position);
+	}
+
+	/**
+	 * get the value at a position of the order of a kind
+	 *
+	 * @param kind     the kind
+	 * @param position the position
+	 * @return the value
+	 */
+	public double getValue(ValueKind kind, long position) {
+		return Double.longBitsToDouble(array.get(starts[kind.ordinal()] + counts[kind.ordinal()] + position));
+	}
+
+	/**
+	 * get the range of the literals with a value between two bounds
+	 *
+	 * @param kind the kind of the literals
+	 * @param min  the min value (inclusive)
+	 * @param max  the max value (inclusive)
+	 * @return the range
+	 */
+	public Range getRange(ValueKind kind, double min, double max) {
+		long start = lowerBound(kind, min, false);
+		long end = lowerBound(kind, max, true);
+		return new Range(kind, start, Math.max(start, end));
+	}
+
+	/**
+	 * @return the first position with a value greater than or equal (or greater
+	 *         than if strict) to the value
+	 */
+	private long lowerBound(ValueKind kind, double value, boolean strict) {
+		long low = 0;
+		long high = counts[kind.ordinal()];
+		while (low < high) {
+			long mid = (low + high) >>> 1;
+			double midValue = getValue(kind, mid);
+			if (midValue < value || (strict && midValue == value)) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		return low;
+	}
+
+	@Override
+	public void close() throws IOException {
+		array.close();
+	}
+}
@@ -550,4 +550,19 @@ public abstract class MultipleLangBaseDictionary implements DictionaryPrivate {
 	public ObjectIdLocationData getObjectsSectionFromId(int id) {
 		return objectIdLocationsSec[id];
 	}
+
+	/**
+	 * get the section of the literals of a language, the ids of the literals
+	 * are in the range ]location, location + section size]
+	 *
+	 * @param language the language, without the '@'
+	 * @return the section location, null if the dictionary doesn't contain a
+	 *         literal with this language
+	 */
+	public ObjectIdLocationData getLanguageSection(CharSequence language) {
+		if (languagesLocations == null) {
+			return null;
+		}
+		return languagesLocations.get(ByteString.of(language));
+	}
 }
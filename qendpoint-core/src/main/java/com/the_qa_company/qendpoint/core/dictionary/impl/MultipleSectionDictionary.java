@@ -165,7 +165,7 @@ public class MultipleSectionDictionary extends MultipleBaseDictionary {
 			types.add(new CompactString(type));
 		}
 		for (ByteString type : types) {
-			this.objects.put(type, DictionarySectionFactory.loadFrom(input, listener));
+			this.objects.put(type, DictionarySectionFactory.loadFrom(input, listener, spec));
 		}
 	}
 
@@ -181,7 +181,7 @@ public class MultipleSectionDictionary extends MultipleBaseDictionary {
 		input.printIndex("sections");
 		for (ByteString type : types) {
 			input.printIndex("sections/" + type);
-			this.objects.put(type, DictionarySectionFactory.loadFrom(input, f, listener));
+			this.objects.put(type, DictionarySectionFactory.loadFrom(input, f, listener, spec));
 		}
 
 	}
@@ -198,9 +198,9 @@ public class MultipleSectionDictionary extends MultipleBaseDictionary {
 
 		IntermediateListener iListener = new IntermediateListener(listener);
 
-		shared = DictionarySectionFactory.loadFrom(input, iListener);
-		subjects = DictionarySectionFactory.loadFrom(input, iListener);
-		predicates = DictionarySectionFactory.loadFrom(input, iListener);
+		shared = DictionarySectionFactory.loadFrom(input, iListener, spec);
+		subjects = DictionarySectionFactory.loadFrom(input, iListener, spec);
+		predicates = DictionarySectionFactory.loadFrom(input, iListener, spec);
 
 		readLiteralsMap(input, listener);
 	}
@@ -214,9 +214,9 @@ public class MultipleSectionDictionary extends MultipleBaseDictionary {
 		}
 
 		IntermediateListener iListener = new IntermediateListener(listener);
-		shared = DictionarySectionFactory.loadFrom(in, f, iListener);
-		subjects = DictionarySectionFactory.loadFrom(in, f, iListener);
-		predicates = DictionarySectionFactory.loadFrom(in, f, iListener);
+		shared = DictionarySectionFactory.loadFrom(in, f, iListener, spec);
+		subjects = DictionarySectionFactory.loadFrom(in, f, iListener, spec);
+		predicates = DictionarySectionFactory.loadFrom(in, f, iListener, spec);
 
 		mapLiteralsMap(in, f, listener);
 
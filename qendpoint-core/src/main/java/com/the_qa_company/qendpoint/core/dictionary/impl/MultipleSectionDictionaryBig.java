@@ -150,7 +150,7 @@ public class MultipleSectionDictionaryBig extends MultipleBaseDictionary {
 			types.add(new CompactString(IOUtil.readSizedBuffer(input, listener)));
 		}
 		for (ByteString type : types) {
-			this.objects.put(type, DictionarySectionFactory.loadFrom(input, listener));
+			this.objects.put(type, DictionarySectionFactory.loadFrom(input, listener, spec));
 		}
 	}
 
@@ -164,7 +164,7 @@ public class MultipleSectionDictionaryBig extends MultipleBaseDictionary {
 		input.printIndex("sections");
 		for (ByteString type : types) {
 			input.printIndex("sections/" + type);
-			this.objects.put(type, DictionarySectionFactory.loadFrom(input, f, listener));
+			this.objects.put(type, DictionarySectionFactory.loadFrom(input, f, listener, spec));
 		}
 
 	}
@@ -181,9 +181,9 @@ public class MultipleSectionDictionaryBig extends MultipleBaseDictionary {
 
 		IntermediateListener iListener = new IntermediateListener(listener);
 
-		shared = DictionarySectionFactory.loadFrom(input, iListener);
-		subjects = DictionarySectionFactory.loadFrom(input, iListener);
-		predicates = DictionarySectionFactory.loadFrom(input, iListener);
+		shared = DictionarySectionFactory.loadFrom(input, iListener, spec);
+		subjects = DictionarySectionFactory.loadFrom(input, iListener, spec);
+		predicates = DictionarySectionFactory.loadFrom(input, iListener, spec);
 
 		readLiteralsMap(input, listener);
 	}
@@ -198,11 +198,11 @@ public class MultipleSectionDictionaryBig extends MultipleBaseDictionary {
 
 		IntermediateListener iListener = new IntermediateListener(listener);
 		in.printIndex("shared");
-		shared = DictionarySectionFactory.loadFrom(in, f, iListener);
+		shared = DictionarySectionFactory.loadFrom(in, f, iListener, spec);
 		in.printIndex("subjects");
-		subjects = DictionarySectionFactory.loadFrom(in, f, iListener);
+		subjects = DictionarySectionFactory.loadFrom(in, f, iListener, spec);
 		in.printIndex("predicates");
-		predicates = DictionarySectionFactory.loadFrom(in, f, iListener);
+		predicates = DictionarySectionFactory.loadFrom(in, f, iListener, spec);
 
 		mapLiteralsMap(in, f, listener);
 
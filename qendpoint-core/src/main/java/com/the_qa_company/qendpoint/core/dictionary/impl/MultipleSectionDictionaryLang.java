@@ -90,13 +90,13 @@ public class MultipleSectionDictionaryLang extends MultipleLangBaseDictionary {
 
 		IntermediateListener iListener = new IntermediateListener(listener);
 
-		shared = DictionarySectionFactory.loadFrom(input, iListener);
-		subjects = DictionarySectionFactory.loadFrom(input, iListener);
-		predicates = DictionarySectionFactory.loadFrom(input, iListener);
-		nonTyped = DictionarySectionFactory.loadFrom(input, iListener);
+		shared = DictionarySectionFactory.loadFrom(input, iListener, spec);
+		subjects = DictionarySectionFactory.loadFrom(input, iListener, spec);
+		predicates = DictionarySectionFactory.loadFrom(input, iListener, spec);
+		nonTyped = DictionarySectionFactory.loadFrom(input, iListener, spec);
 
 		if (supportGraphs()) {
-			graph = DictionarySectionFactory.loadFrom(input, iListener);
+			graph = DictionarySectionFactory.loadFrom(input, iListener, spec);
 		}
 
 		readLiteralsMaps(input, listener);
@@ -111,13 +111,13 @@ public class MultipleSectionDictionaryLang extends MultipleLangBaseDictionary {
 		}
 
 		IntermediateListener iListener = new IntermediateListener(listener);
-		shared = DictionarySectionFactory.loadFrom(in, f, iListener);
-		subjects = DictionarySectionFactory.loadFrom(in, f, iListener);
-		predicates = DictionarySectionFactory.loadFrom(in, f, iListener);
-		nonTyped = DictionarySectionFactory.loadFrom(in, f, iListener);
+		shared = DictionarySectionFactory.loadFrom(in, f, iListener, spec);
+		subjects = DictionarySectionFactory.loadFrom(in, f, iListener, spec);
+		predicates = DictionarySectionFactory.loadFrom(in, f, iListener, spec);
+		nonTyped = DictionarySectionFactory.loadFrom(in, f, iListener, spec);
 
 		if (supportGraphs()) {
-			graph = DictionarySectionFactory.loadFrom(in, f, iListener);
+			graph = DictionarySectionFactory.loadFrom(in, f, iListener, spec);
 		}
 
 		mapLiteralsMaps(in, f, listener);
@@ -267,7 +267,8 @@ public class MultipleSectionDictionaryLang extends MultipleLangBaseDictionary {
 			default -> throw new IOException(format("Find bad literal section type %x", type));
 			};
 			ByteString uriKey = new CompactString(IOUtil.readSizedBuffer(input, listener));
-			DictionarySectionPrivate old = location.put(uriKey, DictionarySectionFactory.loadFrom(input, listener));
+			DictionarySectionPrivate old = location.put(uriKey,
+					DictionarySectionFactory.loadFrom(input, listener, spec));
 
 			if (old != null) {
 				old.close(); // wtf?
@@ -288,7 +289,8 @@ public class MultipleSectionDictionaryLang extends MultipleLangBaseDictionary {
 			default -> throw new IOException(format("Find bad literal section type %x", type));
 			};
 			ByteString uriKey = new CompactString(IOUtil.readSizedBuffer(input, listener));
-			DictionarySectionPrivate old = location.put(uriKey, DictionarySectionFactory.loadFrom(input, f, listener));
+			DictionarySectionPrivate old = location.put(uriKey,
+					DictionarySectionFactory.loadFrom(input, f, listener, spec));
 
 			if (old != null) {
 				old.close(); // wtf?
@@ -52,6 +52,22 @@ public class DictionarySectionFactory {
 	}
 
 	public static DictionarySectionPrivate loadFrom(InputStream input, ProgressListener listener) throws IOException {
+		return loadFrom(input, listener, HDTOptions.empty());
+	}
+
+	/**
+	 * load a section, the front-coded sections use the shared block cache of
+	 * the specification
+	 *
+	 * @param input    the input
+	 * @param listener the listener
+	 * @param spec     the specification
+	 * @return the section
+	 * @throws IOException can't read the section
+	 * @see PFCBlockCache#of(HDTOptions)
+	 */
+	public static DictionarySectionPrivate loadFrom(InputStream input, ProgressListener listener, HDTOptions spec)
+			throws IOException {
 		if (!input.markSupported()) {
 			throw new IllegalArgumentException(
 					"Need support for mark()/reset(). Please wrap the InputStream with a BufferedInputStream");
@@ -68,13 +84,17 @@ public class DictionarySectionFactory {
 		case PFCDictionarySection.TYPE_INDEX:
 			try {
 				// First try load using the standard PFC
-				section = new PFCDictionarySection(HDTOptions.of());
-				section.load(input, listener);
+				PFCDictionarySection pfc = new PFCDictionarySection(HDTOptions.of());
+				pfc.load(input, listener);
+				pfc.setBlockCache(PFCBlockCache.of(spec));
+				section = pfc;
 			} catch (IllegalArgumentException e) {
 				// The PFC Could not load the file because it is too big, use
 				// PFCBig
-				section = new PFCDictionarySectionBig(HDTOptions.of());
-				section.load(input, listener);
+				PFCDictionarySectionBig pfc = new PFCDictionarySectionBig(HDTOptions.of());
+				pfc.load(input, listener);
+				pfc.setBlockCache(PFCBlockCache.of(spec));
+				section = pfc;
 			}
 			return section;
 		case StreamDictionarySection.TYPE_INDEX:
@@ -89,6 +109,24 @@ public class DictionarySectionFactory {
 
 	public static DictionarySectionPrivate loadFrom(CountInputStream input, File f, ProgressListener listener)
 			throws IOException {
+		return loadFrom(input, f, listener, HDTOptions.empty());
+	}
+
+	/**
+	 * map a section, the front-coded sections use the shared block cache of the
+	 * specification
+	 *
+	 * @param input    the input
+	 * @param f        the mapped file
+	 * @param listener the listener
+	 * @param spec     the specification
+	 * @return the section
+	 * @throws IOException can't read the section
+	 * @see PFCBlockCache#of(HDTOptions)
+	 * @see PFCBlockIndex
+	 */
+	public static DictionarySectionPrivate loadFrom(CountInputStream input, File f, ProgressListener listener,
+			HDTOptions spec) throws IOException {
 		input.mark(64);
 		int dictType = input.read();
 		input.reset();
@@ -97,7 +135,11 @@ public class DictionarySectionFactory {
 
 		switch (dictType) {
 		case PFCDictionarySection.TYPE_INDEX:
-			return new PFCDictionarySectionMap(input, f);
+			PFCDictionarySectionMap section = new PFCDictionarySectionMap(input, f,
+					(int) spec.getInt(HDTOptionsKeys.DICTIONARY_PFC_BLOCK_INDEX_SAMPLE_RATE_KEY,
+							PFCBlockIndex.DEFAULT_SAMPLE_RATE));
+			section.setBlockCache(PFCBlockCache.of(spec));
+			return section;
 		case StreamDictionarySection.TYPE_INDEX:
 			return new StreamDictionarySectionMap(input, f);
 		default:
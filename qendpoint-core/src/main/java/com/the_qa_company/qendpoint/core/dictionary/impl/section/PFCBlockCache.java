@@ -0,0 +1,319 @@
+package com.the_qa_company.qendpoint.core.dictionary.impl.section;
+
+import com.the_qa_company.qendpoint.core.options.HDTOptions;
+import com.the_qa_company.qendpoint.core.options.HDTOptionsKeys;
+import com.the_qa_company.qendpoint.core.util.string.ByteString;
+import com.the_qa_company.qendpoint.core.util.string.CompactString;
+import com.the_qa_company.qendpoint.core.util.string.ReplazableString;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache of the decoded blocks of the front-coded dictionary sections, the cache
+ * is shared by the sections and the threads using the same memory budget. The
+ * blocks are stored in shards with a CLOCK eviction, a read of a cached block
+ * only takes the lock of its shard if it is missing.
+ *
+ * @see HDTOptionsKeys#DICTIONARY_PFC_BLOCK_CACHE_SIZE_KEY
+ */
+public class PFCBlockCache {
+	private static final Map<Long, PFCBlockCache> SHARED = new ConcurrentHashMap<>();
+	private static final int BLOCK_BITS = 40;
+	private static final long MAX_SECTION_ID = (1L << (Long.SIZE - 1 - BLOCK_BITS)) - 1;
+
+	/**
+	 * get the shared cache of the memory budget of a specification
+	 *
+	 * @param spec the specification
+	 * @return the cache, null if the cache is disabled
+	 * @see HDTOptionsKeys#DICTIONARY_PFC_BLOCK_CACHE_SIZE_KEY
+	 */
+	public static PFCBlockCache of(HDTOptions spec) {
+		long maxMemory = spec.getInt(HDTOptionsKeys.DICTIONARY_PFC_BLOCK_CACHE_SIZE_KEY, 0);
+		if (maxMemory <= 0) {
+			return null;
+		}
+		return SHARED.computeIfAbsent(maxMemory, PFCBlockCache::new);
+	}
+
+	/**
+	 * decoder of the blocks of a section
+	 */
+	@FunctionalInterface
+	public interface BlockDecoder {
+		/**
+		 * decode a block
+		 *
+		 * @param block the block index
+		 * @return the decoded block
+		 */
+		DecodedBlock decode(long block);
+	}
+
+	/**
+	 * strings of a decoded block, stored in a single byte array
+	 */
+	public static class DecodedBlock {
+		private final byte[] data;
+		private final int[] offsets;
+		// CLOCK reference bit, set without synchronization by the readers
+		private boolean referenced;
+
+		private DecodedBlock(byte[] data, int[] offsets) {
+			this.data = data;
+			this.offsets = offsets;
+		}
+
+		/**
+		 * @return the number of strings of the block
+		 */
+		public int count() {
+			return offsets.length - 1;
+		}
+
+		/**
+		 * get a string of the block
+		 *
+		 * @param index the index of the string in the block
+		 * @return the string
+		 */
+		public CharSequence get(int index) {
+			return new CompactString(Arrays.copyOfRange(data, offsets[index], offsets[index + 1])).getDelayed();
+		}
+
+		/**
+		 * search a string in the block
+		 *
+		 * @param str the string
+		 * @return the index of the string in the block, -1 if the block doesn't
+		 *         contain it
+		 */
+		public int indexOf(ByteString str) {
+			byte[] buffer = str.getBuffer();
+			int length = str.length();
+			for (int i = 0; i < count(); i++) {
+				int start = offsets[i];
+				if (offsets[i + 1] - start == length && Arrays.equals(data, start, start + length, buffer, 0, length)) {
+					return i;
+				}
+			}
+			return -1;
+		}
+
+		/**
+		 * @return an estimation of the memory used by the block in bytes
+		 */
+		public long memorySize() {
+			// headers of the object and of the arrays
+			return 64L + data.length + (long) offsets.length * Integer.BYTES;
+		}
+	}
+
+	/**
+	 * builder of a decoded block
+	 */
+	public static class DecodedBlockBuilder {
+		private byte[] data;
+		private int[] offsets;
+		private int count;
+
+		/**
+		 * @param blocksize the max number of strings of the block
+		 */
+		public DecodedBlockBuilder(int blocksize) {
+			data = new byte[blocksize * 32];
+			offsets = new int[blocksize + 1];
+		}
+
+		/**
+		 * add a string to the block
+		 *
+		 * @param str the string
+		 */
+		public void add(ReplazableString str) {
+			int start = offsets[count];
+			int length = str.length();
+			if (start + length > data.length) {
+				data = Arrays.copyOf(data, Math.max(data.length * 2, start + length));
+			}
+			System.arraycopy(str.getBuffer(), 0, data, start, length);
+			if (count + 1 >= offsets.length) {
+				offsets = Arrays.copyOf(offsets, offsets.length * 2);
+			}
+			offsets[++count] = start + length;
+		}
+
+		/**
+		 * @return the block
+		 */
+		public DecodedBlock build() {
+			return new DecodedBlock(Arrays.copyOf(data, offsets[count]), Arrays.copyOf(offsets, count + 1));
+		}
+	}
+
+	private static class Shard {
+		private final Map<Long, DecodedBlock> blocks = new ConcurrentHashMap<>();
+		// CLOCK ring of the keys, only modified with the lock of the shard
+		private final List<Long> ring = new ArrayList<>();
+		private final long maxMemory;
+		private long memory;
+		private int hand;
+
+		private Shard(long maxMemory) {
+			this.maxMemory = maxMemory;
+		}
+
+		private synchronized void put(Long key, DecodedBlock block) {
+			if (blocks.putIfAbsent(key, block) != null) {
+				return;
+			}
+			ring.add(key);
+			memory += block.memorySize();
+			while (memory > maxMemory && !ring.isEmpty()) {
+				if (hand >= ring.size()) {
+					hand = 0;
+				}
+				Long candidate = ring.get(hand);
+				DecodedBlock candidateBlock = blocks.get(candidate);
+				if (candidateBlock.referenced) {
+					// second chance
+					candidateBlock.referenced = false;
+					hand++;
+					continue;
+				}
+				// replace the evicted key with the last key of the ring
+				Long last = ring.remove(ring.size() - 1);
+				if (hand < ring.size()) {
+					ring.set(hand, last);
+				}
+				blocks.remove(candidate);
+				memory -= candidateBlock.memorySize();
+			}
+		}
+
+		private synchronized void removeSection(long sectionId) {
+			int j = 0;
+			for (int i = 0; i < ring.size(); i++) {
+				Long key = ring.get(i);
+				if (key >>> BLOCK_BITS == sectionId) {
+					memory -= blocks.remove(key).memorySize();
+				} else {
+					ring.set(j++, key);
+				}
+			}
+			ring.subList(j, ring.size()).clear();
+			if (hand >= ring.size()) {
+				hand = 0;
+			}
+		}
+	}
+
+	private final AtomicLong sectionIds = new AtomicLong();
+	private final Shard[] shards;
+	private final long maxMemory;
+
+	/**
+	 * create a cache, {@link #of(HDTOptions)} should be used to share the cache
+	 *
+	 * @param maxMemory the max memory used by the blocks in bytes
+	 */
+	public PFCBlockCache(long maxMemory) {
+		this.maxMemory = maxMemory;
+		int shardCount = Math.min(Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 4), 64);
+		shards = new Shard[shardCount];
+		for (int i = 0; i < shardCount; i++) {
+			shards[i] = new Shard(maxMemory / shardCount);
+		}
+	}
+
+	/**
+	 * @return a new id for a section using this cache
+	 */
+	public long newSectionId() {
+		return sectionIds.getAndIncrement();
+	}
+
+	/**
+	 * remove the blocks of a section, should be called when the section is
+	 * closed, the blocks of the sections of the closed HDTs would otherwise use
+	 * the memory of the cache until their eviction
+	 *
+	 * @param sectionId the section id
+	 */
+	public void removeSection(long sectionId) {
+		if (sectionId > MAX_SECTION_ID) {
+			return;
+		}
+		for (Shard shard : shards) {
+			shard.removeSection(sectionId);
+		}
+	}
+
+	/**
+	 * get a decoded block, the block is decoded and added to the cache if it
+	 * isn't cached
+	 *
+	 * @param sectionId the section id
+	 * @param block     the block index
+	 * @param decoder   the decoder of the section
+	 * @return the decoded block
+	 */
+	public DecodedBlock getBlock(long sectionId, long block, BlockDecoder decoder) {
+		if (sectionId > MAX_SECTION_ID || block >= 1L << BLOCK_BITS) {
+			return decoder.decode(block);
+		}
+		Long key = (sectionId << BLOCK_BITS) | block;
+		Shard shard = shards[(int) (mix(key) & (shards.length - 1))];
+		DecodedBlock decoded = shard.blocks.get(key);
+		if (decoded != null) {
+			decoded.referenced = true;
+			return decoded;
+		}
+		decoded = decoder.decode(block);
+		shard.put(key, decoded);
+		return decoded;
+	}
+
+	/**
+	 * @return the max memory used by the blocks in bytes
+	 */
+	public long getMaxMemory() {
+		return maxMemory;
+	}
+
+	/**
+	 * @return the memory used by the cached blocks in bytes
+	 */
+	public long getMemory() {
+		long memory = 0;
+		for (Shard shard : shards) {
+			synchronized (shard) {
+				memory += shard.memory;
+			}
+		}
+		return memory;
+	}
+
+	/**
+	 * @return the number of cached blocks
+	 */
+	public long size() {
+		long size = 0;
+		for (Shard shard : shards) {
+			size += shard.blocks.size();
+		}
+		return size;
+	}
+
+	private static long mix(long key) {
+		key ^= key >>> 33;
+		key *= 0xff51afd7ed558ccdL;
+		key ^= key >>> 33;
+		return key;
+	}
+}
@@ -0,0 +1,165 @@
+package com.the_qa_company.qendpoint.core.dictionary.impl.section;
+
+import com.the_qa_company.qendpoint.core.options.HDTOptionsKeys;
+import com.the_qa_company.qendpoint.core.util.io.BigMappedByteBuffer;
+import com.the_qa_company.qendpoint.core.util.string.ByteString;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * In-memory index of the headers of a sample of the blocks of a mapped
+ * front-coded section, only the first bytes of the headers are stored. The
+ * locate of a string first searches the sampled headers in memory, the search
+ * in the mapped file is then done between two sampled blocks.
+ *
+ * @see HDTOptionsKeys#DICTIONARY_PFC_BLOCK_INDEX_SAMPLE_RATE_KEY
+ */
+public class PFCBlockIndex {
+	/**
+	 * default number of blocks between two sampled blocks
+	 */
+	public static final int DEFAULT_SAMPLE_RATE = 1024;
+	/**
+	 * max number of bytes of a header stored in memory, the IRIs can share long
+	 * prefixes, so the headers are usually stored completely
+	 */
+	public static final int PREFIX_SIZE = 256;
+	/**
+	 * result of {@link #compare(ByteString, int)} if the stored prefix of the
+	 * header can't be used to compare the string
+	 */
+	public static final int UNKNOWN = Integer.MIN_VALUE;
+
+	/**
+	 * create the index of a mapped section
+	 *
+	 * @param section    the section
+	 * @param sampleRate the number of blocks between two sampled blocks
+	 * @return the index, null if the section doesn't have enough blocks to be
+	 *         sampled
+	 */
+	static PFCBlockIndex create(PFCDictionarySectionMap section, int sampleRate) {
+		// the last element of the blocks is the end of the data
+		long numBlocks = section.blocks.getNumberOfElements() - 1;
+		if (sampleRate <= 0 || numBlocks <= sampleRate) {
+			return null;
+		}
+		long samples = (numBlocks - 1) / sampleRate + 1;
+		if (samples > Integer.MAX_VALUE - 1) {
+			throw new IllegalArgumentException("Too many sampled blocks: " + samples);
+		}
+		int[] prefixOffsets = new int[(int) samples + 1];
+		byte[] data = new byte[(int) Math.min(samples * 64, Integer.MAX_VALUE - 16)];
+		BitSet complete = new BitSet((int) samples);
+
+		for (int sample = 0; sample < samples; sample++) {
+			long block = (long) sample * sampleRate;
+			int bufferIndex = (int) (block / PFCDictionarySectionMap.BLOCKS_PER_BYTEBUFFER);
+			BigMappedByteBuffer buffer = section.buffers[bufferIndex];
+			long offset = section.blocks.get(block) - section.posFirst[bufferIndex];
+			int start = prefixOffsets[sample];
+			if (data.length - start < PREFIX_SIZE) {
+				data = Arrays.copyOf(data,
+						(int) Math.min((long) data.length * 2 + PREFIX_SIZE, Integer.MAX_VALUE - 16));
+			}
+
+			int length = 0;
+			boolean end = false;
+			long capacity = buffer.capacity() - offset;
+			while (length <= PREFIX_SIZE && length < capacity) {
+				byte b = buffer.get(offset + length);
+				if (b == 0) {
+					end = true;
+					break;
+				}
+				if (length == PREFIX_SIZE) {
+					break;
+				}
+				data[start + length++] = b;
+			}
+			if (end) {
+				complete.set(sample);
+			}
+			prefixOffsets[sample + 1] = start + length;
+		}
+
+		return new PFCBlockIndex(sampleRate, Arrays.copyOf(data, prefixOffsets[(int) samples]), prefixOffsets,
+				complete);
+	}
+
+	private final int sampleRate;
+	private final byte[] data;
+	private final int[] offsets;
+	private final BitSet complete;
+
+	private PFCBlockIndex(int sampleRate, byte[] data, int[] offsets, BitSet complete) {
+		this.sampleRate = sampleRate;
+		this.data = data;
+		this.offsets = offsets;
+		this.complete = complete;
+	}
+
+	/**
+	 * @return the number of sampled blocks
+	 */
+	public int size() {
+		return offsets.length - 1;
+	}
+
+	/**
+	 * get the block of a sample
+	 *
+	 * @param sample the sample index
+	 * @return the block index
+	 */
+	public long getBlock(int sample) {
+		return (long) sample * sampleRate;
+	}
+
+	/**
+	 * compare a string with the header of a sampled block
+	 *
+	 * @param str    the string
+	 * @param sample the sample index
+	 * @return the comparison like
+	 *         {@link com.the_qa_company.qendpoint.core.util.string.ByteStringUtil#strcmp(CharSequence, BigMappedByteBuffer, long)},
+	 *         {@link #UNKNOWN} if the header needs to be read in the section
+	 */
+	public int compare(ByteString str, int sample) {
+		byte[] buffer = str.getBuffer();
+		int length = str.length();
+		int start = offsets[sample];
+		int prefixLength = offsets[sample + 1] - start;
+
+		int n = Math.min(length, prefixLength);
+		for (int i = 0; i < n; i++) {
+			int v1 = buffer[i] & 0xFF;
+			int v2 = data[start + i] & 0xFF;
+			if (v1 != v2) {
+				return v1 - v2;
+			}
+			if (v1 == 0) {
+				return 0;
+			}
+		}
+
+		boolean headerEnd = complete.get(sample);
+		if (length < prefixLength || (length == prefixLength && !headerEnd)) {
+			// the string is a prefix of the header
+			return -1;
+		}
+		if (!headerEnd) {
+			// the header continues after the stored prefix
+			return UNKNOWN;
+		}
+		return length == prefixLength ? 0 : 1;
+	}
+
+	/**
+	 * @return an estimation of the memory used by the index in bytes
+	 */
+	public long memorySize() {
+		return data.length + (long) offsets.length * Integer.BYTES + complete.size() / 8;
+	}
+}
@@ -62,6 +62,9 @@ public class PFCDictionarySection implements DictionarySectionPrivate {
 	protected int blocksize;
 	protected int numstrings;
 	protected SequenceLog64 blocks = new SequenceLog64();
+	// cache of the decoded blocks, null if disabled
+	private PFCBlockCache blockCache;
+	private long blockCacheId;
 
 	public PFCDictionarySection(HDTOptions spec) {
 		this.blocksize = (int) spec.getInt("pfc.blocksize");
@@ -204,11 +207,27 @@ public class PFCDictionarySection implements DictionarySectionPrivate {
 		return 0;
 	}
 
+	/**
+	 * set the cache of the decoded blocks of this section
+	 *
+	 * @param blockCache the cache, null to disable it
+	 */
+	public void setBlockCache(PFCBlockCache blockCache) {
+		this.blockCache = blockCache;
+		if (blockCache != null) {
+			blockCacheId = blockCache.newSectionId();
+		}
+	}
+
 	public int locateInBlock(int block, ByteString str) {
 		if (block >= blocks.getNumberOfElements()) {
 			return 0;
 		}
 
+		if (blockCache != null) {
+			return Math.max(0, blockCache.getBlock(blockCacheId, block, this::decodeBlock).indexOf(str));
+		}
+
 		int pos = (int) blocks.get(block);
 		ReplazableString tempString = new ReplazableString();
 
@@ -275,6 +294,9 @@ public class PFCDictionarySection implements DictionarySectionPrivate {
 
 		int block = (int) ((id - 1) / blocksize);
 		int stringid = (int) ((id - 1) % blocksize);
+		if (blockCache != null) {
+			return blockCache.getBlock(blockCacheId, block, this::decodeBlock).get(stringid);
+		}
 		int pos = (int) blocks.get(block);
 		int len = ByteStringUtil.strlen(text, pos);
 
@@ -291,6 +313,27 @@ public class PFCDictionarySection implements DictionarySectionPrivate {
 		return new CompactString(tempString).getDelayed();
 	}
 
+	private PFCBlockCache.DecodedBlock decodeBlock(long block) {
+		int pos = (int) blocks.get(block);
+		int len = ByteStringUtil.strlen(text, pos);
+
+		PFCBlockCache.DecodedBlockBuilder builder = new PFCBlockCache.DecodedBlockBuilder(blocksize);
+		long count = Math.min(blocksize, numstrings - block * blocksize);
+		Mutable<Long> delta = new Mutable<>(0L);
+		ReplazableString tempString = new ReplazableString();
+		tempString.append(text, pos, len);
+		builder.add(tempString);
+
+		for (long i = 1; i < count; i++) {
+			pos += len + 1;
+			pos += VByte.decode(text, pos, delta);
+			len = ByteStringUtil.strlen(text, pos);
+			tempString.replace(delta.getValue().intValue(), text, pos, len);
+			builder.add(tempString);
+		}
+		return builder.build();
+	}
+
 //	private void dumpAll() {
 //		for(int i=0;i<blocks.getNumberOfElements();i++) {
 //			dumpBlock(i);
@@ -458,6 +501,10 @@ public class PFCDictionarySection implements DictionarySectionPrivate {
 
 	@Override
 	public void close() throws IOException {
+		if (blockCache != null) {
+			blockCache.removeSection(blockCacheId);
+			blockCache = null;
+		}
 		text = null;
 		blocks.close();
 		blocks = null;
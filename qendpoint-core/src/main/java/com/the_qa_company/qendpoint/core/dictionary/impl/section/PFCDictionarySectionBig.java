@@ -74,6 +74,9 @@ public class PFCDictionarySectionBig implements DictionarySectionPrivate {
 	protected int blocksize;
 	protected long numstrings;
 	protected long size;
+	// cache of the decoded blocks, null if disabled
+	private PFCBlockCache blockCache;
+	private long blockCacheId;
 	static int filecounter = 0;
 
 	public PFCDictionarySectionBig(HDTOptions spec) {
@@ -272,7 +275,22 @@ public class PFCDictionarySectionBig implements DictionarySectionPrivate {
 		return 0;
 	}
 
+	/**
+	 * set the cache of the decoded blocks of this section
+	 *
+	 * @param blockCache the cache, null to disable it
+	 */
+	public void setBlockCache(PFCBlockCache blockCache) {
+		this.blockCache = blockCache;
+		if (blockCache != null) {
+			blockCacheId = blockCache.newSectionId();
+		}
+	}
+
 	protected long locateInBlock(long blocknum, ByteString str) {
+		if (blockCache != null) {
+			return Math.max(0, blockCache.getBlock(blockCacheId, blocknum, this::decodeBlock).indexOf(str));
+		}
 
 		ReplazableString tempString = new ReplazableString();
 
@@ -340,6 +358,10 @@ public class PFCDictionarySectionBig implements DictionarySectionPrivate {
 		long blockid = (id - 1) / blocksize;
 		long nstring = (id - 1) % blocksize;
 
+		if (blockCache != null) {
+			return blockCache.getBlock(blockCacheId, blockid, this::decodeBlock).get((int) nstring);
+		}
+
 		BigByteBuffer block = data[(int) (blockid / BLOCK_PER_BUFFER)];
 		long pos = (blocks.get(blockid) - posFirst[(int) (blockid / BLOCK_PER_BUFFER)]);
 
@@ -360,6 +382,28 @@ public class PFCDictionarySectionBig implements DictionarySectionPrivate {
 		return new CompactString(tempString).getDelayed();
 	}
 
+	private PFCBlockCache.DecodedBlock decodeBlock(long blockid) {
+		BigByteBuffer block = data[(int) (blockid / BLOCK_PER_BUFFER)];
+		long pos = (blocks.get(blockid) - posFirst[(int) (blockid / BLOCK_PER_BUFFER)]);
+		int len = (int) ByteStringUtil.strlen(block, pos);
+
+		PFCBlockCache.DecodedBlockBuilder builder = new PFCBlockCache.DecodedBlockBuilder(blocksize);
+		long count = Math.min(blocksize, numstrings - blockid * blocksize);
+		Mutable<Long> delta = new Mutable<>(0L);
+		ReplazableString tempString = new ReplazableString();
+		tempString.append(block, pos, len);
+		builder.add(tempString);
+
+		for (long i = 1; i < count; i++) {
+			pos += len + 1;
+			pos += VByte.decode(block, pos, delta);
+			len = (int) ByteStringUtil.strlen(block, pos);
+			tempString.replace(delta.getValue().intValue(), block, pos, len);
+			builder.add(tempString);
+		}
+		return builder.build();
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * @see hdt.dictionary.DictionarySection#size()
@@ -502,6 +546,10 @@ public class PFCDictionarySectionBig implements DictionarySectionPrivate {
 
 	@Override
 	public void close() throws IOException {
+		if (blockCache != null) {
+			blockCache.removeSection(blockCacheId);
+			blockCache = null;
+		}
 		data = null;
 		posFirst = null;
 		// the constructor will not initialize blocks, so it can be null
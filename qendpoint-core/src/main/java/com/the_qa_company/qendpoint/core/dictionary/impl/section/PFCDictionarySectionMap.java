@@ -73,9 +73,28 @@ public class PFCDictionarySectionMap implements DictionarySectionPrivate, Closea
 	private final File f;
 	private final long startOffset;
 	private final long endOffset;
+	// cache of the decoded blocks, null if disabled
+	private PFCBlockCache blockCache;
+	private long blockCacheId;
+	// sampled headers of the blocks, null if the section is too small
+	private final PFCBlockIndex blockIndex;
 
-	@SuppressWarnings("resource")
 	public PFCDictionarySectionMap(CountInputStream input, File f) throws IOException {
+		this(input, f, PFCBlockIndex.DEFAULT_SAMPLE_RATE);
+	}
+
+	/**
+	 * map a section
+	 *
+	 * @param input      the input
+	 * @param f          the mapped file
+	 * @param sampleRate the number of blocks between two blocks of the
+	 *                   in-memory block index, 0 to disable the index
+	 * @throws IOException can't read the section
+	 * @see PFCBlockIndex
+	 */
+	@SuppressWarnings("resource")
+	public PFCDictionarySectionMap(CountInputStream input, File f, int sampleRate) throws IOException {
 		this.f = f;
 		startOffset = input.getTotalBytes();
 
@@ -131,6 +150,25 @@ public class PFCDictionarySectionMap implements DictionarySectionPrivate, Closea
 			block += BLOCKS_PER_BYTEBUFFER;
 			buffer++;
 		}
+
+		blockIndex = PFCBlockIndex.create(this, sampleRate);
+	}
+
+	/**
+	 * set the cache of the decoded blocks of this section
+	 *
+	 * @param blockCache the cache, null to disable it
+	 */
+	public void setBlockCache(PFCBlockCache blockCache) {
+		this.blockCache = blockCache;
+		if (blockCache != null) {
+			blockCacheId = blockCache.newSectionId();
+		}
+	}
+
+	private int compareBlock(ByteString str, long block) {
+		BigMappedByteBuffer buffer = buffers[(int) (block / BLOCKS_PER_BYTEBUFFER)];
+		return ByteStringUtil.strcmp(str, buffer, blocks.get(block) - posFirst[(int) (block / BLOCKS_PER_BYTEBUFFER)]);
 	}
 
 	private long locateBlock(ByteString str) {
@@ -142,6 +180,35 @@ public class PFCDictionarySectionMap implements DictionarySectionPrivate, Closea
 		long high = blocks.getNumberOfElements() - 1;
 		long max = high;
 
+		if (blockIndex != null) {
+			// search the sampled headers first to only read the mapped headers
+			// between two sampled blocks
+			int sampleLow = 0;
+			int sampleHigh = blockIndex.size() - 1;
+			while (sampleLow <= sampleHigh) {
+				int mid = (sampleLow + sampleHigh) >>> 1;
+
+				int cmp = blockIndex.compare(str, mid);
+				if (cmp == PFCBlockIndex.UNKNOWN) {
+					cmp = compareBlock(str, blockIndex.getBlock(mid));
+				}
+				if (cmp < 0) {
+					sampleHigh = mid - 1;
+				} else if (cmp > 0) {
+					sampleLow = mid + 1;
+				} else {
+					return blockIndex.getBlock(mid); // key found
+				}
+			}
+			if (sampleHigh < 0) {
+				return -1; // lower than the first block
+			}
+			low = blockIndex.getBlock(sampleHigh) + 1;
+			if (sampleHigh + 1 < blockIndex.size()) {
+				high = blockIndex.getBlock(sampleHigh + 1) - 1;
+			}
+		}
+
 		while (low <= high) {
 			long mid = low + (high - low) / 2;
 
@@ -149,9 +216,7 @@ public class PFCDictionarySectionMap implements DictionarySectionPrivate, Closea
 			if (mid == max) {
 				cmp = -1;
 			} else {
-				BigMappedByteBuffer buffer = buffers[(int) (mid / BLOCKS_PER_BYTEBUFFER)];
-				cmp = ByteStringUtil.strcmp(str, buffer,
-						blocks.get(mid) - posFirst[(int) (mid / BLOCKS_PER_BYTEBUFFER)]);
+				cmp = compareBlock(str, mid);
 			}
 			if (cmp < 0) {
 				high = mid - 1;
@@ -200,6 +265,10 @@ public class PFCDictionarySectionMap implements DictionarySectionPrivate, Closea
 			return 0;
 		}
 
+		if (blockCache != null) {
+			return Math.max(0, blockCache.getBlock(blockCacheId, block, this::decodeBlock).indexOf(str));
+		}
+
 		ReplazableString tempString = new ReplazableString();
 
 		long idInBlock = 0;
@@ -265,6 +334,9 @@ public class PFCDictionarySectionMap implements DictionarySectionPrivate, Closea
 		}
 
 		long block = (id - 1) / blocksize;
+		if (blockCache != null) {
+			return blockCache.getBlock(blockCacheId, block, this::decodeBlock).get((int) ((id - 1) % blocksize));
+		}
 		BigMappedByteBuffer buffer = buffers[(int) (block / BLOCKS_PER_BYTEBUFFER)].duplicate();
 		buffer.position(blocks.get(block) - posFirst[(int) (block / BLOCKS_PER_BYTEBUFFER)]);
 
@@ -284,6 +356,27 @@ public class PFCDictionarySectionMap implements DictionarySectionPrivate, Closea
 		}
 	}
 
+	private PFCBlockCache.DecodedBlock decodeBlock(long block) {
+		BigMappedByteBuffer buffer = buffers[(int) (block / BLOCKS_PER_BYTEBUFFER)].duplicate();
+		buffer.position(blocks.get(block) - posFirst[(int) (block / BLOCKS_PER_BYTEBUFFER)]);
+
+		PFCBlockCache.DecodedBlockBuilder builder = new PFCBlockCache.DecodedBlockBuilder(blocksize);
+		long count = Math.min(blocksize, numstrings - block * blocksize);
+		try {
+			ReplazableString tempString = new ReplazableString();
+			tempString.replace(buffer, 0);
+			builder.add(tempString);
+			for (long i = 1; i < count; i++) {
+				long delta = VByte.decode(buffer);
+				tempString.replace(buffer, (int) delta);
+				builder.add(tempString);
+			}
+		} catch (IOException e) {
+			throw new RuntimeException("Can't decode the block " + block, e);
+		}
+		return builder.build();
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * @see hdt.dictionary.DictionarySection#size()
@@ -351,6 +444,10 @@ public class PFCDictionarySectionMap implements DictionarySectionPrivate, Closea
 
 	@Override
 	public void close() throws IOException {
+		if (blockCache != null) {
+			blockCache.removeSection(blockCacheId);
+			blockCache = null;
+		}
 		blocks.close();
 		if (buffers != null) {
 			for (BigMappedByteBuffer buffer : buffers) {
@@ -1,23 +1,44 @@
 package com.the_qa_company.qendpoint.core.iterator.utils;
 
 import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.Supplier;
 
 /**
- * Synchronise an iterator
+ * Synchronise an iterator, the elements are fetched by batch under the lock and
+ * distributed to the threads without lock.
  *
  * @param <E> iterator type
  * @author Antoine Willerval
  */
 public class AsyncIteratorFetcher<E> implements Supplier<E> {
+	/**
+	 * default number of elements fetched with one lock
+	 */
+	public static final int DEFAULT_BATCH_SIZE = 128;
+
 	private final Iterator<E> iterator;
 	private final Lock lock = new ReentrantLock();
-	private boolean end;
+	private final int batchSize;
+	private volatile Batch<E> batch = new Batch<>(new Object[0], 0);
+	private volatile boolean end;
 
 	public AsyncIteratorFetcher(Iterator<E> iterator) {
+		this(iterator, DEFAULT_BATCH_SIZE);
+	}
+
+	/**
+	 * @param iterator  the iterator to synchronise
+	 * @param batchSize the number of elements fetched with one lock
+	 */
+	public AsyncIteratorFetcher(Iterator<E> iterator, int batchSize) {
+		if (batchSize <= 0) {
+			throw new IllegalArgumentException("batchSize must be positive: " + batchSize);
+		}
 		this.iterator = iterator;
+		this.batchSize = batchSize;
 	}
 
 	/**
@@ -25,16 +46,39 @@ public class AsyncIteratorFetcher<E> implements Supplier<E> {
 	 */
 	@Override
 	public E get() {
-		lock.lock();
-		try {
-			if (iterator.hasNext()) {
-				return iterator.next();
+		while (true) {
+			Batch<E> current = batch;
+			E next = current.next();
+			if (next != null) {
+				return next;
+			}
+			lock.lock();
+			try {
+				// another thread might have already fetched a new batch
+				if (batch == current) {
+					Batch<E> newBatch = fetchBatch();
+					if (newBatch == null) {
+						end = true;
+						return null;
+					}
+					batch = newBatch;
+				}
+			} finally {
+				lock.unlock();
 			}
-			end = true;
+		}
+	}
+
+	private Batch<E> fetchBatch() {
+		Object[] elements = new Object[batchSize];
+		int size = 0;
+		while (size < elements.length && iterator.hasNext()) {
+			elements[size++] = iterator.next();
+		}
+		if (size == 0) {
 			return null;
-		} finally {
-			lock.unlock();
 		}
+		return new Batch<>(elements, size);
 	}
 
 	/**
@@ -43,4 +87,30 @@ public class AsyncIteratorFetcher<E> implements Supplier<E> {
 	public boolean isEnd() {
 		return end;
 	}
+
+	private static class Batch<E> {
+		private final Object[] elements;
+		private final int size;
+		private final AtomicInteger index = new AtomicInteger();
+
+		private Batch(Object[] elements, int size) {
+			this.elements = elements;
+			this.size = size;
+		}
+
+		/**
+		 * @return the next element of the batch, null if the batch is empty
+		 */
+		@SuppressWarnings("unchecked")
+		E next() {
+			if (index.get() >= size) {
+				return null;
+			}
+			int i = index.getAndIncrement();
+			if (i >= size) {
+				return null;
+			}
+			return (E) elements[i];
+		}
+	}
 }
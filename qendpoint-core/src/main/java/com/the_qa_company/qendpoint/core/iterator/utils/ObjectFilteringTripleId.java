@@ -0,0 +1,105 @@
+package com.the_qa_company.qendpoint.core.iterator.utils;
+
+import com.the_qa_company.qendpoint.core.enums.ResultEstimationType;
+import com.the_qa_company.qendpoint.core.enums.TripleComponentOrder;
+import com.the_qa_company.qendpoint.core.exceptions.NotImplementedException;
+import com.the_qa_company.qendpoint.core.triples.IteratorTripleID;
+import com.the_qa_company.qendpoint.core.triples.TripleID;
+
+import java.util.function.LongPredicate;
+
+/**
+ * Iterator keeping the triples with an object id matching a filter, the
+ * position of the last triple is the position of the last kept triple
+ */
+public class ObjectFilteringTripleId implements IteratorTripleID {
+	private final IteratorTripleID iterator;
+	private final LongPredicate objectFilter;
+	private TripleID next;
+
+	public ObjectFilteringTripleId(IteratorTripleID iterator, LongPredicate objectFilter) {
+		this.iterator = iterator;
+		this.objectFilter = objectFilter;
+	}
+
+	@Override
+	public boolean hasPrevious() {
+		throw new NotImplementedException();
+	}
+
+	@Override
+	public TripleID previous() {
+		throw new NotImplementedException();
+	}
+
+	@Override
+	public void goToStart() {
+		throw new NotImplementedException();
+	}
+
+	@Override
+	public boolean canGoTo() {
+		return false;
+	}
+
+	@Override
+	public void goTo(long pos) {
+		throw new NotImplementedException();
+	}
+
+	@Override
+	public long estimatedNumResults() {
+		return iterator.estimatedNumResults();
+	}
+
+	@Override
+	public ResultEstimationType numResultEstimation() {
+		return ResultEstimationType.UP_TO;
+	}
+
+	@Override
+	public TripleComponentOrder getOrder() {
+		return iterator.getOrder();
+	}
+
+	@Override
+	public long getLastTriplePosition() {
+		return iterator.getLastTriplePosition();
+	}
+
+	@Override
+	public boolean isLastTriplePositionBoundToOrder() {
+		return iterator.isLastTriplePositionBoundToOrder();
+	}
+
+	@Override
+	public boolean hasNext() {
+		if (next != null) {
+			return true;
+		}
+		while (iterator.hasNext()) {
+			TripleID val = iterator.next();
+
+			if (objectFilter.test(val.getObject())) {
+				next = val;
+				return true;
+			}
+		}
+		return false;
+	}
+
+	@Override
+	public TripleID next() {
+		if (!hasNext()) {
+			return null;
+		}
+		TripleID newVal = next;
+		next = null;
+		return newVal;
+	}
+
+	@Override
+	public void remove() {
+		throw new NotImplementedException();
+	}
+}
@@ -0,0 +1,280 @@
+package com.the_qa_company.qendpoint.core.listener;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Progress and timing metrics of a merge process, the merge is described by
+ * steps and phases, a phase can report its progress as a
+ * {@link ProgressListener} or with its number of processed triples. The metrics
+ * can be read from any thread.
+ */
+public class MergeMetrics implements ProgressListener, MergeMetricsMXBean {
+	/**
+	 * snapshot of the metrics
+	 *
+	 * @param merging               if a merge is running
+	 * @param mergeCount            the number of completed merges
+	 * @param step                  the current step
+	 * @param subStep               the current sub-step
+	 * @param phase                 the current phase
+	 * @param elapsedMillis         the elapsed time of the merge
+	 * @param phaseElapsedMillis    the elapsed time of the phase
+	 * @param phaseProgress         the progress of the phase in percents, -1 if
+	 *                              unknown
+	 * @param phaseEtaMillis        the estimated remaining time of the phase,
+	 *                              -1 if unknown
+	 * @param triplesProcessed      the triples processed by the phase
+	 * @param bytesWritten          the bytes written by the merge
+	 * @param lockWaitMillis        the time spent waiting for the locks
+	 * @param currentLockWaitMillis the time spent in the current wait for a
+	 *                              lock
+	 * @param phaseTimes            the time of the completed phases
+	 */
+	public record Snapshot(boolean merging, long mergeCount, String step, String subStep, String phase,
+			long elapsedMillis, long phaseElapsedMillis, double phaseProgress, long phaseEtaMillis,
+			long triplesProcessed, long bytesWritten, long lockWaitMillis, long currentLockWaitMillis,
+			Map<String, Long> phaseTimes) {}
+
+	private volatile boolean merging;
+	private volatile String step;
+	private volatile String subStep;
+	private volatile String phase;
+	private volatile long mergeStart;
+	private volatile long mergeEnd;
+	private volatile long phaseStart;
+	private volatile float progress = -1;
+	private volatile long expectedTriples = -1;
+	private volatile long lockWaitStart;
+	private final AtomicLong mergeCount = new AtomicLong();
+	private final AtomicLong triplesProcessed = new AtomicLong();
+	private final AtomicLong bytesWritten = new AtomicLong();
+	private final AtomicLong lockWait = new AtomicLong();
+	private final Map<String, Long> phaseTimes = Collections.synchronizedMap(new LinkedHashMap<>());
+
+	private static long toMillis(long nanos) {
+		return TimeUnit.NANOSECONDS.toMillis(nanos);
+	}
+
+	/**
+	 * start a new merge, reset the metrics of the previous merge
+	 */
+	public void startMerge() {
+		long now = System.nanoTime();
+		step = null;
+		subStep = null;
+		phase = null;
+		mergeStart = now;
+		mergeEnd = 0;
+		phaseStart = now;
+		progress = -1;
+		expectedTriples = -1;
+		lockWaitStart = 0;
+		triplesProcessed.set(0);
+		bytesWritten.set(0);
+		lockWait.set(0);
+		phaseTimes.clear();
+		merging = true;
+	}
+
+	/**
+	 * end the current merge
+	 */
+	public void endMerge() {
+		mergeEnd = System.nanoTime();
+		merging = false;
+		mergeCount.incrementAndGet();
+	}
+
+	/**
+	 * set the current step, the sub-step is removed
+	 *
+	 * @param step the step
+	 */
+	public void setStep(String step) {
+		this.step = step;
+		this.subStep = null;
+	}
+
+	/**
+	 * @param subStep the sub-step of the current step, null for none
+	 */
+	public void setSubStep(String subStep) {
+		this.subStep = subStep;
+	}
+
+	/**
+	 * start a new phase, the progress of the previous phase is reset
+	 *
+	 * @param phase           the phase
+	 * @param expectedTriples the number of triples to process in this phase, -1
+	 *                        if unknown
+	 */
+	public void startPhase(String phase, long expectedTriples) {
+		this.phase = phase;
+		this.phaseStart = System.nanoTime();
+		this.progress = -1;
+		this.expectedTriples = expectedTriples;
+		this.triplesProcessed.set(0);
+	}
+
+	/**
+	 * set the time of a completed phase, a phase can be completed by another
+	 * thread than the current phase
+	 *
+	 * @param phase  the phase
+	 * @param millis the time of the phase in milliseconds
+	 */
+	public void completedPhase(String phase, long millis) {
+		phaseTimes.put(phase, millis);
+	}
+
+	/**
+	 * add processed triples to the current phase
+	 *
+	 * @param count the number of triples
+	 */
+	public void addTriplesProcessed(long count) {
+		triplesProcessed.addAndGet(count);
+	}
+
+	/**
+	 * add written bytes to the merge
+	 *
+	 * @param bytes the number of bytes
+	 */
+	public void addBytesWritten(long bytes) {
+		bytesWritten.addAndGet(bytes);
+	}
+
+	/**
+	 * start to wait for a lock
+	 *
+	 * @see #endLockWait()
+	 */
+	public void startLockWait() {
+		lockWaitStart = System.nanoTime();
+	}
+
+	/**
+	 * end the wait started with {@link #startLockWait()}
+	 */
+	public void endLockWait() {
+		long start = lockWaitStart;
+		if (start != 0) {
+			lockWait.addAndGet(System.nanoTime() - start);
+			lockWaitStart = 0;
+		}
+	}
+
+	@Override
+	public void notifyProgress(float level, String message) {
+		progress = level;
+	}
+
+	@Override
+	public boolean isMerging() {
+		return merging;
+	}
+
+	@Override
+	public long getMergeCount() {
+		return mergeCount.get();
+	}
+
+	@Override
+	public String getStep() {
+		return step;
+	}
+
+	@Override
+	public String getSubStep() {
+		return subStep;
+	}
+
+	@Override
+	public String getPhase() {
+		return phase;
+	}
+
+	@Override
+	public long getElapsedMillis() {
+		long start = mergeStart;
+		if (start == 0) {
+			return 0;
+		}
+		return toMillis((merging ? System.nanoTime() : mergeEnd) - start);
+	}
+
+	@Override
+	public long getPhaseElapsedMillis() {
+		if (phase == null) {
+			return 0;
+		}
+		return toMillis((merging ? System.nanoTime() : mergeEnd) - phaseStart);
+	}
+
+	@Override
+	public double getPhaseProgress() {
+		long expected = expectedTriples;
+		if (expected > 0) {
+			return Math.min(100.0, 100.0 * triplesProcessed.get() / expected);
+		}
+		return progress;
+	}
+
+	@Override
+	public long getPhaseEtaMillis() {
+		if (!merging) {
+			return -1;
+		}
+		double phaseProgress = getPhaseProgress();
+		if (phaseProgress <= 0) {
+			return -1;
+		}
+		return (long) (getPhaseElapsedMillis() * (100.0 - phaseProgress) / phaseProgress);
+	}
+
+	@Override
+	public long getTriplesProcessed() {
+		return triplesProcessed.get();
+	}
+
+	@Override
+	public long getBytesWritten() {
+		return bytesWritten.get();
+	}
+
+	@Override
+	public long getLockWaitMillis() {
+		return toMillis(lockWait.get()) + getCurrentLockWaitMillis();
+	}
+
+	@Override
+	public long getCurrentLockWaitMillis() {
+		long start = lockWaitStart;
+		if (start == 0) {
+			return 0;
+		}
+		return toMillis(System.nanoTime() - start);
+	}
+
+	@Override
+	public Map<String, Long> getPhaseTimes() {
+		synchronized (phaseTimes) {
+			return new LinkedHashMap<>(phaseTimes);
+		}
+	}
+
+	/**
+	 * @return a snapshot of the metrics
+	 */
+	public Snapshot snapshot() {
+		return new Snapshot(isMerging(), getMergeCount(), getStep(), getSubStep(), getPhase(), getElapsedMillis(),
+				getPhaseElapsedMillis(), getPhaseProgress(), getPhaseEtaMillis(), getTriplesProcessed(),
+				getBytesWritten(), getLockWaitMillis(), getCurrentLockWaitMillis(), getPhaseTimes());
+	}
+}
@@ -0,0 +1,82 @@
+package com.the_qa_company.qendpoint.core.listener;
+
+import java.util.Map;
+
+/**
+ * JMX view of the {@link MergeMetrics} of a merge process
+ */
+public interface MergeMetricsMXBean {
+	/**
+	 * @return if a merge is running
+	 */
+	boolean isMerging();
+
+	/**
+	 * @return the number of completed merges
+	 */
+	long getMergeCount();
+
+	/**
+	 * @return the step of the current merge, null if no merge was started
+	 */
+	String getStep();
+
+	/**
+	 * @return the sub-step of the current step, null if none
+	 */
+	String getSubStep();
+
+	/**
+	 * @return the phase of the current merge, null if no merge was started
+	 */
+	String getPhase();
+
+	/**
+	 * @return the elapsed time of the current or last merge in milliseconds
+	 */
+	long getElapsedMillis();
+
+	/**
+	 * @return the elapsed time of the current phase in milliseconds
+	 */
+	long getPhaseElapsedMillis();
+
+	/**
+	 * @return the progress of the current phase in percents, -1 if unknown
+	 */
+	double getPhaseProgress();
+
+	/**
+	 * @return the estimated remaining time of the current phase in
+	 *         milliseconds, -1 if unknown
+	 */
+	long getPhaseEtaMillis();
+
+	/**
+	 * @return the number of triples processed by the current phase
+	 */
+	long getTriplesProcessed();
+
+	/**
+	 * @return the number of bytes written by the current or last merge
+	 */
+	long getBytesWritten();
+
+	/**
+	 * @return the time spent waiting for the locks by the current or last merge
+	 *         in milliseconds, including the current wait
+	 */
+	long getLockWaitMillis();
+
+	/**
+	 * @return the time spent in the current wait for a lock in milliseconds, 0
+	 *         if the merge isn't waiting for a lock
+	 */
+	long getCurrentLockWaitMillis();
+
+	/**
+	 * @return the completed phases of the current or last merge with their time
+	 *         in milliseconds
+	 */
+	Map<String, Long> getPhaseTimes();
+}
@@ -275,6 +275,20 @@ public class HDTOptionsKeys {
 	 */
 	@Key(type = Key.Type.BOOLEAN, desc = "Use the canonical NT file parser, removing checks")
 	public static final String NT_SIMPLE_PARSER_KEY = "parser.ntSimpleParser";
+	/**
+	 * Key for setting the number of workers parsing the chunks of a file with
+	 * the canonical NTriple file simple parser, 1 for no parallel parsing, 0
+	 * for the number of processors, default 1. Number value
+	 */
+	@Key(type = Key.Type.NUMBER, desc = "Number of workers of the simple parser")
+	public static final String NT_SIMPLE_PARSER_WORKERS_KEY = "parser.ntSimpleParser.workers";
+	/**
+	 * Key for setting the size in bytes of the chunks parsed by the workers of
+	 * the simple parser, a chunk is extended to contain at least one line,
+	 * default 4MB. Number value
+	 */
+	@Key(type = Key.Type.NUMBER, desc = "Chunk size of the parallel simple parser")
+	public static final String NT_SIMPLE_PARSER_CHUNK_SIZE_KEY = "parser.ntSimpleParser.chunkSize";
 	/**
 	 * No crc check with deltafile reader, default to false. Boolean value
 	 */
@@ -396,6 +410,21 @@ public class HDTOptionsKeys {
 	@Key(type = Key.Type.ENUM, desc = "Ignore MSDL RDFTYPE INDEX")
 	public static final String DICTIONARY_MSDL_NO_RDFTYPE_INDEX = "dictionary.msdl.nordftypeindex";
 
+	/**
+	 * Memory budget in bytes of the cache of the decoded blocks of the PFC
+	 * sections when loading/mapping an HDT, 0 to disable the cache, default 0
+	 */
+	@Key(type = Key.Type.NUMBER, desc = "Memory budget in bytes of the decoded PFC blocks cache, 0 to disable")
+	public static final String DICTIONARY_PFC_BLOCK_CACHE_SIZE_KEY = "dictionary.pfc.blockCache.size";
+
+	/**
+	 * Number of blocks between two blocks of the in-memory index of the block
+	 * headers of the mapped PFC sections, 0 to disable the index, default
+	 * {@link com.the_qa_company.qendpoint.core.dictionary.impl.section.PFCBlockIndex#DEFAULT_SAMPLE_RATE}
+	 */
+	@Key(type = Key.Type.NUMBER, desc = "Sample rate of the in-memory index of the mapped PFC block headers, 0 to disable")
+	public static final String DICTIONARY_PFC_BLOCK_INDEX_SAMPLE_RATE_KEY = "dictionary.pfc.blockIndex.sampleRate";
+
 	@Key(type = Key.Type.ENUM, desc = "Write section type for disk algorithm")
 	public static final String DISK_WRITE_SECTION_TYPE_KEY = "disk.writeSectionType";
 	@Value(key = DISK_WRITE_SECTION_TYPE_KEY, desc = "PFC section")
@@ -585,6 +614,27 @@ public class HDTOptionsKeys {
 	@Key(type = Key.Type.STRING, desc = "Prefixes to index dataset, default: none")
 	public static final String LOADER_PREFIXES = "loader.prefixes";
 
+	/**
+	 * Key for the join algorithm of the query tools created with
+	 * {@link com.the_qa_company.qendpoint.core.search.HDTQueryToolFactory#createQueryTool(com.the_qa_company.qendpoint.core.hdt.HDT, HDTOptions)},
+	 * value can be {@link #QUERY_TOOL_JOIN_VALUE_NESTED} or
+	 * {@link #QUERY_TOOL_JOIN_VALUE_LEAPFROG}, default nested
+	 */
+	@Key(type = Key.Type.ENUM, desc = "Join algorithm of the query tool")
+	public static final String QUERY_TOOL_JOIN_KEY = "query.join";
+	/**
+	 * Value for {@link #QUERY_TOOL_JOIN_KEY}, join the patterns with nested
+	 * loops, default value
+	 */
+	@Value(key = QUERY_TOOL_JOIN_KEY, desc = "Nested loop join")
+	public static final String QUERY_TOOL_JOIN_VALUE_NESTED = "nested";
+	/**
+	 * Value for {@link #QUERY_TOOL_JOIN_KEY}, join the patterns with a
+	 * worst-case optimal leapfrog join
+	 */
+	@Value(key = QUERY_TOOL_JOIN_KEY, desc = "Worst-case optimal leapfrog join")
+	public static final String QUERY_TOOL_JOIN_VALUE_LEAPFROG = "leapfrog";
+
 	// use tree-map to have a better order
 	private static final Map<String, Option> OPTION_MAP = new TreeMap<>();
 
@@ -20,6 +20,8 @@ package com.the_qa_company.qendpoint.core.rdf.parsers;
 
 import com.the_qa_company.qendpoint.core.enums.RDFNotation;
 import com.the_qa_company.qendpoint.core.exceptions.ParserException;
+import com.the_qa_company.qendpoint.core.options.HDTOptions;
+import com.the_qa_company.qendpoint.core.options.HDTOptionsKeys;
 import com.the_qa_company.qendpoint.core.quad.QuadString;
 import com.the_qa_company.qendpoint.core.rdf.RDFParserCallback;
 import com.the_qa_company.qendpoint.core.triples.TripleString;
@@ -31,12 +33,50 @@ import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * @author mario.arias
  */
 public class RDFParserSimple implements RDFParserCallback {
 	private static final Logger log = LoggerFactory.getLogger(RDFParserSimple.class);
+	private static final int DEFAULT_CHUNK_SIZE = 4 * 1024 * 1024;
+	private static final int MAX_CHUNK_SIZE = Integer.MAX_VALUE - 8;
+
+	private final int workers;
+	private final int chunkSize;
+
+	public RDFParserSimple() {
+		this(HDTOptions.EMPTY);
+	}
+
+	public RDFParserSimple(HDTOptions spec) {
+		long workersValue = spec.getInt(HDTOptionsKeys.NT_SIMPLE_PARSER_WORKERS_KEY, 1);
+		if (workersValue == 0) {
+			// use processor count for 0 to be full parallel
+			workers = Runtime.getRuntime().availableProcessors();
+		} else if (workersValue < 0 || workersValue >= Integer.MAX_VALUE / 2) {
+			throw new IllegalArgumentException(
+					"Invalid value for " + HDTOptionsKeys.NT_SIMPLE_PARSER_WORKERS_KEY + ": " + workersValue);
+		} else {
+			workers = (int) workersValue;
+		}
+		long chunkSizeValue = spec.getInt(HDTOptionsKeys.NT_SIMPLE_PARSER_CHUNK_SIZE_KEY, DEFAULT_CHUNK_SIZE);
+		if (chunkSizeValue <= 0 || chunkSizeValue > MAX_CHUNK_SIZE) {
+			throw new IllegalArgumentException(
+					"Invalid value for " + HDTOptionsKeys.NT_SIMPLE_PARSER_CHUNK_SIZE_KEY + ": " + chunkSizeValue);
+		}
+		chunkSize = (int) chunkSizeValue;
+	}
 
 	/*
 	 * (non-Javadoc)
@@ -47,6 +87,16 @@ public class RDFParserSimple implements RDFParserCallback {
 	@Override
 	public void doParse(String fileName, String baseUri, RDFNotation notation, boolean keepBNode, RDFCallback callback)
 			throws ParserException {
+		if (workers > 1) {
+			InputStream input;
+			try {
+				input = IOUtil.getFileInputStream(fileName);
+			} catch (IOException e) {
+				throw new ParserException(e);
+			}
+			doParseParallel(input, notation, callback);
+			return;
+		}
 		BufferedReader reader;
 		try {
 			reader = IOUtil.getFileReader(fileName);
@@ -64,6 +114,10 @@ public class RDFParserSimple implements RDFParserCallback {
 	@Override
 	public void doParse(InputStream input, String baseUri, RDFNotation notation, boolean keepBNode,
 			RDFCallback callback) throws ParserException {
+		if (workers > 1) {
+			doParseParallel(input, notation, callback);
+			return;
+		}
 		try (BufferedReader reader = new BufferedReader(new InputStreamReader(input))) {
 			doParse(reader, baseUri, notation, keepBNode, callback);
 		} catch (IOException e) {
@@ -84,28 +138,7 @@ public class RDFParserSimple implements RDFParserCallback {
 				triple = new TripleString();
 			}
 			while ((line = reader.readLine()) != null) {
-				// trim, find start
-				int start = 0;
-				while (start < line.length()) {
-					char c = line.charAt(start);
-					if (c != ' ' && c != '\t') {
-						break;
-					}
-					start++;
-				}
-				// trim, find end
-				int end = line.length() - 1;
-				while (end >= 0) {
-					char c = line.charAt(end);
-					if (c != ' ' && c != '\t') {
-						break;
-					}
-					end--;
-				}
-				// check that we have at least one element and this line isn't a
-				// comment
-				if (start + 1 < end && line.charAt(start) != '#') {
-					triple.read(line, start, end, readQuad);
+				if (readLine(line, triple, readQuad)) {
 					if (!triple.hasEmpty()) {
 						// System.out.println(triple);
 						callback.processTriple(triple, 0);
@@ -120,4 +153,250 @@ public class RDFParserSimple implements RDFParserCallback {
 			throw new ParserException(e);
 		}
 	}
+
+	/**
+	 * read a line into a triple
+	 *
+	 * @param line     the line
+	 * @param triple   the triple to fill
+	 * @param readQuad read the graph of the line
+	 * @return false if the line is empty or is a comment, true if the triple
+	 *         was read
+	 * @throws ParserException if the line can't be parsed
+	 */
+	private static boolean readLine(String line, TripleString triple, boolean readQuad) throws ParserException {
+		// trim, find start
+		int start = 0;
+		while (start < line.length()) {
+			char c = line.charAt(start);
+			if (c != ' ' && c != '\t') {
+				break;
+			}
+			start++;
+		}
+		// trim, find end
+		int end = line.length() - 1;
+		while (end >= 0) {
+			char c = line.charAt(end);
+			if (c != ' ' && c != '\t') {
+				break;
+			}
+			end--;
+		}
+		// check that we have at least one element and this line isn't a
+		// comment
+		if (start + 1 < end && line.charAt(start) != '#') {
+			triple.read(line, start, end, readQuad);
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * parse the input by splitting it into chunks of lines parsed by a pool of
+	 * workers, the triples are sent to the callback by the current thread in
+	 * the order of the input
+	 */
+	private void doParseParallel(InputStream input, RDFNotation notation, RDFCallback callback) throws ParserException {
+		boolean readQuad = notation == RDFNotation.NQUAD;
+		Charset charset = Charset.defaultCharset();
+		ExecutorService executorService = Executors.newFixedThreadPool(workers);
+		// chunks being parsed, in the order of the input
+		Deque<Future<Chunk>> parsing = new ArrayDeque<>();
+		// chunks sent to the callback, reused to read the next chunks
+		Deque<Chunk> free = new ArrayDeque<>();
+		try (input) {
+			ChunkReader reader = new ChunkReader(input);
+			long numLine = 1;
+			while (true) {
+				Chunk chunk = free.isEmpty() ? new Chunk(chunkSize) : free.poll();
+				if (!reader.read(chunk)) {
+					break;
+				}
+				parsing.add(executorService.submit(() -> chunk.parse(readQuad, charset)));
+				if (parsing.size() >= workers * 2) {
+					Chunk parsed = parsing.poll().get();
+					numLine = parsed.process(numLine, callback);
+					free.add(parsed);
+				}
+			}
+			while (!parsing.isEmpty()) {
+				numLine = parsing.poll().get().process(numLine, callback);
+			}
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof ParserException pe) {
+				throw pe;
+			}
+			log.error("Unexpected exception.", e.getCause());
+			throw new ParserException(e.getCause());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new ParserException(e);
+		} catch (Exception e) {
+			log.error("Unexpected exception.", e);
+			throw new ParserException(e);
+		} finally {
+			executorService.shutdownNow();
+		}
+	}
+
+	/**
+	 * reader splitting an input into chunks ending at the end of a line, the
+	 * lines are ending with \n, \r or \r\n like for
+	 * {@link BufferedReader#readLine()}
+	 */
+	private static class ChunkReader {
+		private final InputStream input;
+		// bytes read after the last line of the previous chunk
+		private byte[] next = new byte[0];
+		private int nextLength;
+		private boolean end;
+
+		private ChunkReader(InputStream input) {
+			this.input = input;
+		}
+
+		/**
+		 * read the next chunk
+		 *
+		 * @param chunk the chunk to fill
+		 * @return false if the end of the input was reached
+		 * @throws IOException read exception
+		 */
+		boolean read(Chunk chunk) throws IOException {
+			if (end && nextLength == 0) {
+				return false;
+			}
+			byte[] buffer = chunk.buffer;
+			if (buffer.length < nextLength) {
+				buffer = new byte[nextLength];
+			}
+			System.arraycopy(next, 0, buffer, 0, nextLength);
+			int length = nextLength;
+			nextLength = 0;
+			while (true) {
+				if (!end && length < buffer.length) {
+					length += input.readNBytes(buffer, length, buffer.length - length);
+					// readNBytes only returns less bytes at the end of the
+					// input
+					end = length < buffer.length;
+				}
+				if (end) {
+					chunk.buffer = buffer;
+					chunk.length = length;
+					return length != 0;
+				}
+				int last = length - 1;
+				if (buffer[last] == '\r') {
+					// can be the start of a \r\n line end, kept with the
+					// next chunk
+					last--;
+				}
+				while (last >= 0 && buffer[last] != '\n' && buffer[last] != '\r') {
+					last--;
+				}
+				if (last == -1) {
+					// no line end in the buffer, the line is bigger than the
+					// chunk
+					if (buffer.length == MAX_CHUNK_SIZE) {
+						throw new IOException("Line too long");
+					}
+					buffer = Arrays.copyOf(buffer, (int) Math.min(MAX_CHUNK_SIZE, buffer.length * 2L));
+					continue;
+				}
+				nextLength = length - last - 1;
+				if (next.length < nextLength) {
+					next = new byte[buffer.length];
+				}
+				System.arraycopy(buffer, last + 1, next, 0, nextLength);
+				chunk.buffer = buffer;
+				chunk.length = last + 1;
+				return true;
+			}
+		}
+	}
+
+	/**
+	 * chunk of lines of the input with its parsed triples
+	 */
+	private static class Chunk {
+		private byte[] buffer;
+		private int length;
+		// parsed triples, reused by the next chunks
+		private final List<TripleString> triples = new ArrayList<>();
+		private int triplesCount;
+		private int lines;
+		// relative index and content of the lines which can't be parsed
+		private final List<Integer> ignoredLines = new ArrayList<>();
+		private final List<String> ignoredLinesContent = new ArrayList<>();
+
+		private Chunk(int size) {
+			buffer = new byte[size];
+		}
+
+		/**
+		 * parse the lines of the chunk
+		 *
+		 * @param readQuad read the graph of the lines
+		 * @param charset  charset of the input
+		 * @return this
+		 * @throws ParserException if a line can't be parsed
+		 */
+		Chunk parse(boolean readQuad, Charset charset) throws ParserException {
+			triplesCount = 0;
+			lines = 0;
+			ignoredLines.clear();
+			ignoredLinesContent.clear();
+			int start = 0;
+			while (start < length) {
+				int end = start;
+				while (end < length && buffer[end] != '\n' && buffer[end] != '\r') {
+					end++;
+				}
+				String line = new String(buffer, start, end - start, charset);
+
+				TripleString triple;
+				if (triplesCount == triples.size()) {
+					triple = readQuad ? new QuadString() : new TripleString();
+					triples.add(triple);
+				} else {
+					triple = triples.get(triplesCount);
+				}
+				if (readLine(line, triple, readQuad)) {
+					if (!triple.hasEmpty()) {
+						triplesCount++;
+					} else {
+						ignoredLines.add(lines);
+						ignoredLinesContent.add(line);
+					}
+				}
+				lines++;
+				// the lines are ending with \n, \r or \r\n
+				if (end + 1 < length && buffer[end] == '\r' && buffer[end + 1] == '\n') {
+					start = end + 2;
+				} else {
+					start = end + 1;
+				}
+			}
+			return this;
+		}
+
+		/**
+		 * send the parsed triples to a callback
+		 *
+		 * @param numLine  the line of the input of the start of the chunk
+		 * @param callback the callback
+		 * @return the line of the input of the end of the chunk
+		 */
+		long process(long numLine, RDFCallback callback) {
+			for (int i = 0; i < triplesCount; i++) {
+				callback.processTriple(triples.get(i), 0);
+			}
+			for (int i = 0; i < ignoredLines.size(); i++) {
+				log.warn("Could not parse triple at line " + (numLine + ignoredLines.get(i))
+						+ ", ignored and not processed.\n" + ignoredLinesContent.get(i));
+			}
+			return numLine + lines;
+		}
+	}
 }
@@ -1,6 +1,7 @@
 package com.the_qa_company.qendpoint.core.search;
 
 import com.the_qa_company.qendpoint.core.hdt.HDT;
+import com.the_qa_company.qendpoint.core.options.HDTOptions;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -47,10 +48,23 @@ public abstract class HDTQueryToolFactory {
 	 * @return HDTQueryTool
 	 */
 	public static HDTQueryTool createQueryTool(HDT hdt) {
+		return createQueryTool(hdt, HDTOptions.empty());
+	}
+
+	/**
+	 * create a query tool from an HDT
+	 *
+	 * @param hdt  hdt
+	 * @param spec the query tool options
+	 * @return HDTQueryTool
+	 * @see com.the_qa_company.qendpoint.core.options.HDTOptionsKeys#QUERY_TOOL_JOIN_KEY
+	 */
+	public static HDTQueryTool createQueryTool(HDT hdt, HDTOptions spec) {
 		Objects.requireNonNull(hdt, "hdt can't be null!");
+		Objects.requireNonNull(spec, "spec can't be null!");
 		HDTQueryToolFactory generic = null;
 		for (HDTQueryToolFactory toolFactory : getFactories()) {
-			HDTQueryTool tool = toolFactory.newGenericQueryTool(hdt);
+			HDTQueryTool tool = toolFactory.newGenericQueryTool(hdt, spec);
 			if (tool != null) {
 				return tool;
 			}
@@ -63,7 +77,7 @@ public abstract class HDTQueryToolFactory {
 					"Can't find service to handle " + hdt.getClass() + "! Did you add the core to the libraries?");
 		}
 
-		HDTQueryTool tool = generic.newGenericQueryTool(hdt);
+		HDTQueryTool tool = generic.newGenericQueryTool(hdt, spec);
 		assert tool != null : "generic tool can't be null!";
 		return tool;
 	}
@@ -91,4 +105,16 @@ public abstract class HDTQueryToolFactory {
 	 * @return HDTQueryTool
 	 */
 	public abstract HDTQueryTool newGenericQueryTool(HDT hdt);
+
+	/**
+	 * create a generic query tool from an HDT, this tool shouldn't be linked
+	 * with the HDT implementation, by default the options are ignored
+	 *
+	 * @param hdt  hdt
+	 * @param spec the query tool options
+	 * @return HDTQueryTool
+	 */
+	public HDTQueryTool newGenericQueryTool(HDT hdt, HDTOptions spec) {
+		return newGenericQueryTool(hdt);
+	}
 }
@@ -2,6 +2,8 @@ package com.the_qa_company.qendpoint.core.search;
 
 import com.the_qa_company.qendpoint.core.hdt.HDT;
 import com.the_qa_company.qendpoint.core.hdt.HDTVocabulary;
+import com.the_qa_company.qendpoint.core.options.HDTOptions;
+import com.the_qa_company.qendpoint.core.options.HDTOptionsKeys;
 import com.the_qa_company.qendpoint.core.triples.impl.BitmapTriples;
 
 import java.util.Objects;
@@ -19,6 +21,17 @@ public class HDTQueryToolFactoryImpl extends HDTQueryToolFactory {
 		return new SimpleQueryTool(hdt);
 	}
 
+	@Override
+	public HDTQueryTool newGenericQueryTool(HDT hdt, HDTOptions spec) {
+		Objects.requireNonNull(hdt, "hdt can't be null!");
+		String join = spec.get(HDTOptionsKeys.QUERY_TOOL_JOIN_KEY, HDTOptionsKeys.QUERY_TOOL_JOIN_VALUE_NESTED);
+		return switch (join) {
+		case HDTOptionsKeys.QUERY_TOOL_JOIN_VALUE_NESTED -> new SimpleQueryTool(hdt);
+		case HDTOptionsKeys.QUERY_TOOL_JOIN_VALUE_LEAPFROG -> new LeapfrogQueryTool(hdt);
+		default -> throw new IllegalArgumentException("No query tool implementation for join " + join);
+		};
+	}
+
 	@Override
 	public boolean hasGenericTool() {
 		return true;
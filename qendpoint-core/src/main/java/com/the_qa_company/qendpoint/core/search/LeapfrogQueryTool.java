@@ -0,0 +1,27 @@
+package com.the_qa_company.qendpoint.core.search;
+
+import com.the_qa_company.qendpoint.core.hdt.HDT;
+import com.the_qa_company.qendpoint.core.search.query.LeapfrogJoinQueryIterator;
+
+import java.util.Iterator;
+
+/**
+ * Implementation of {@link SimpleQueryTool} using a worst-case optimal leapfrog
+ * join, the queries the leapfrog join can't evaluate are evaluated with the
+ * nested join.
+ *
+ * @see LeapfrogJoinQueryIterator
+ */
+public class LeapfrogQueryTool extends SimpleQueryTool {
+	public LeapfrogQueryTool(HDT hdt) {
+		super(hdt);
+	}
+
+	@Override
+	public Iterator<HDTQueryResult> query(HDTQuery q) {
+		if (!LeapfrogJoinQueryIterator.canEvaluate(q)) {
+			return super.query(q);
+		}
+		return new LeapfrogJoinQueryIterator(getHDT(), q, q.getTimeout());
+	}
+}
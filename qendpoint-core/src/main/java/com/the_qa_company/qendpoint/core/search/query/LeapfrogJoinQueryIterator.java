@@ -0,0 +1,486 @@
+package com.the_qa_company.qendpoint.core.search.query;
+
+import com.the_qa_company.qendpoint.core.enums.DictionarySectionRole;
+import com.the_qa_company.qendpoint.core.hdt.HDT;
+import com.the_qa_company.qendpoint.core.iterator.utils.FetcherIterator;
+import com.the_qa_company.qendpoint.core.search.HDTQuery;
+import com.the_qa_company.qendpoint.core.search.HDTQueryResult;
+import com.the_qa_company.qendpoint.core.search.component.HDTComponent;
+import com.the_qa_company.qendpoint.core.search.component.HDTComponentTriple;
+import com.the_qa_company.qendpoint.core.search.component.SimpleHDTConstant;
+import com.the_qa_company.qendpoint.core.search.exception.HDTSearchTimeoutException;
+import com.the_qa_company.qendpoint.core.search.result.MapHDTQueryResult;
+import com.the_qa_company.qendpoint.core.triples.IteratorTripleID;
+import com.the_qa_company.qendpoint.core.triples.TripleID;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Worst-case optimal join of the patterns of a query with a leapfrog
+ * intersection. The variables are bound one by one, the values of a variable
+ * are the intersection of the sorted id lists of the patterns using it with the
+ * values of the previous variables. The lists too large compared to the
+ * smallest list aren't read, their values are checked with a search in the
+ * triples.
+ * <p>
+ * The queries using a variable as a predicate and as a subject/object can't be
+ * evaluated, see {@link #canEvaluate(HDTQuery)}.
+ */
+public class LeapfrogJoinQueryIterator extends FetcherIterator<HDTQueryResult> {
+	/**
+	 * ratio between the estimated size of a list and the smallest list of a
+	 * variable to check the values of the list with a search instead of reading
+	 * the list
+	 */
+	public static final long LARGE_LIST_RATIO = 8;
+
+	private static final int SUBJECT = 0;
+	private static final int PREDICATE = 1;
+	private static final int OBJECT = 2;
+
+	/**
+	 * test if a query can be evaluated with this iterator
+	 *
+	 * @param query the query
+	 * @return true if the query can be evaluated, false otherwise
+	 */
+	public static boolean canEvaluate(HDTQuery query) {
+		Map<String, Integer> roles = new LinkedHashMap<>();
+		for (HDTComponentTriple pattern : query.getPatterns()) {
+			HDTComponent[] components = { pattern.getSubject(), pattern.getPredicate(), pattern.getObject() };
+			for (int i = 0; i < components.length; i++) {
+				if (components[i] == null || !components[i].isVariable()) {
+					continue;
+				}
+				int mask = i == PREDICATE ? 1 : 2;
+				if ((roles.merge(components[i].asVariable().getName(), mask, (a, b) -> a | b)) == 3) {
+					// the predicate ids can't be compared with the
+					// subject/object ids
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	private static class Variable {
+		final SimpleHDTConstant constant;
+		final List<Atom> atoms = new ArrayList<>();
+		DictionarySectionRole role;
+		long maxId = Long.MAX_VALUE;
+
+		Variable(SimpleHDTConstant constant) {
+			this.constant = constant;
+		}
+	}
+
+	private static class Atom {
+		// constant ids, 0 for the variables
+		final long[] ids = new long[3];
+		// variable of each component, null for the constants
+		final Variable[] variables = new Variable[3];
+	}
+
+	private static class Level {
+		long[][] lists;
+		int[] positions;
+		Atom[] probes;
+	}
+
+	private final HDT hdt;
+	private final long timeout;
+	private final MapHDTQueryResult result = new MapHDTQueryResult();
+	private final List<Atom> atoms = new ArrayList<>();
+	private final Variable[] variables;
+	private final Level[] levels;
+	// value of the variables, indexed by their binding order
+	private final long[] values;
+	// the binding order of the variables
+	private final Map<Variable, Integer> order = new LinkedHashMap<>();
+	private boolean started;
+	private boolean end;
+	// number of triples read to create the lists
+	private long readTriples;
+
+	public LeapfrogJoinQueryIterator(HDT hdt, HDTQuery query, long timeout) {
+		this.hdt = hdt;
+		if (timeout == 0) {
+			this.timeout = Long.MAX_VALUE;
+		} else {
+			long current = System.currentTimeMillis();
+			if (Long.MAX_VALUE - timeout > current) {
+				this.timeout = current + timeout;
+			} else {
+				// too big, act like the user is asking an infinite timeout
+				this.timeout = Long.MAX_VALUE;
+			}
+		}
+		if (!canEvaluate(query)) {
+			throw new IllegalArgumentException("Can't evaluate a variable used as predicate and subject/object");
+		}
+
+		long nshared = hdt.getDictionary().getNshared();
+		Map<String, Variable> variableMap = new LinkedHashMap<>();
+		for (HDTComponentTriple pattern : query.getPatterns()) {
+			Atom atom = new Atom();
+			HDTComponent[] components = { pattern.getSubject(), pattern.getPredicate(), pattern.getObject() };
+			for (int i = 0; i < components.length; i++) {
+				HDTComponent component = components[i];
+				DictionarySectionRole role = switch (i) {
+				case SUBJECT -> DictionarySectionRole.SUBJECT;
+				case PREDICATE -> DictionarySectionRole.PREDICATE;
+				default -> DictionarySectionRole.OBJECT;
+				};
+				if (component == null) {
+					continue;
+				}
+				if (component.isConstant()) {
+					long id = component.asConstant().getId(role);
+					if (id < 0 || (id == 0 && !component.asConstant().getValue().isEmpty())) {
+						// the constant isn't in the HDT
+						end = true;
+					}
+					atom.ids[i] = id;
+					continue;
+				}
+				String name = component.asVariable().getName();
+				Variable variable = variableMap.computeIfAbsent(name, n -> {
+					SimpleHDTConstant constant = new SimpleHDTConstant(hdt, "");
+					result.set(n, constant);
+					return new Variable(constant);
+				});
+				if (variable.role == null) {
+					variable.role = role;
+				} else if (variable.role != role) {
+					// subject and object, only the shared ids are in both
+					// sections
+					variable.role = DictionarySectionRole.SUBJECT;
+					variable.maxId = nshared;
+				}
+				atom.variables[i] = variable;
+				if (!variable.atoms.contains(atom)) {
+					variable.atoms.add(atom);
+				}
+			}
+			atoms.add(atom);
+		}
+
+		variables = sortVariables(variableMap.values());
+		for (int i = 0; i < variables.length; i++) {
+			order.put(variables[i], i);
+		}
+		levels = new Level[variables.length];
+		for (int i = 0; i < levels.length; i++) {
+			levels[i] = new Level();
+		}
+		values = new long[variables.length];
+
+		if (!end) {
+			// check the patterns without variables
+			for (Atom atom : atoms) {
+				if (atom.variables[SUBJECT] == null && atom.variables[PREDICATE] == null
+						&& atom.variables[OBJECT] == null && !search(atom, -1).hasNext()) {
+					end = true;
+					break;
+				}
+			}
+		}
+	}
+
+	/**
+	 * sort the variables, the next variable is a variable sharing a pattern
+	 * with the previous variables with the smallest pattern
+	 *
+	 * @param vars the variables
+	 * @return the sorted variables
+	 */
+	private Variable[] sortVariables(Iterable<Variable> vars) {
+		Map<Atom, Long> estimations = new LinkedHashMap<>();
+		for (Atom atom : atoms) {
+			estimations.put(atom, end ? 0 : search(atom, -1).estimatedNumResults());
+		}
+		List<Variable> remaining = new ArrayList<>();
+		vars.forEach(remaining::add);
+		List<Variable> sorted = new ArrayList<>(remaining.size());
+		while (!remaining.isEmpty()) {
+			Variable best = null;
+			boolean bestConnected = false;
+			long bestEstimation = Long.MAX_VALUE;
+			for (Variable variable : remaining) {
+				boolean connected = false;
+				long estimation = Long.MAX_VALUE;
+				for (Atom atom : variable.atoms) {
+					estimation = Math.min(estimation, estimations.get(atom));
+					for (Variable other : atom.variables) {
+						if (other != null && sorted.contains(other)) {
+							connected = true;
+							break;
+						}
+					}
+				}
+				if (best == null || (connected && !bestConnected)
+						|| (connected == bestConnected && (estimation < bestEstimation
+								|| (estimation == bestEstimation && variable.atoms.size() > best.atoms.size())))) {
+					best = variable;
+					bestConnected = connected;
+					bestEstimation = estimation;
+				}
+			}
+			remaining.remove(best);
+			sorted.add(best);
+		}
+		return sorted.toArray(new Variable[0]);
+	}
+
+	/**
+	 * @return the number of triples read to create the lists of the variables,
+	 *         the values of the large lists are searched instead
+	 */
+	long getReadTriples() {
+		return readTriples;
+	}
+
+	private void checkTimeout() {
+		if (System.currentTimeMillis() > timeout) {
+			throw new HDTSearchTimeoutException();
+		}
+	}
+
+	/**
+	 * search the triples of a pattern using the values of the variables bound
+	 * before a level
+	 *
+	 * @param atom  the pattern
+	 * @param level the level, the variables of the level and after are unbound,
+	 *              -1 to use the values of all the variables
+	 * @return the triples
+	 */
+	private IteratorTripleID search(Atom atom, int level) {
+		long[] ids = new long[3];
+		for (int i = 0; i < 3; i++) {
+			Variable variable = atom.variables[i];
+			if (variable == null) {
+				ids[i] = atom.ids[i];
+			} else {
+				Integer index = order.get(variable);
+				if (index != null && (level == -1 || index < level)) {
+					ids[i] = values[index];
+				}
+			}
+		}
+		return hdt.getTriples().search(new TripleID(ids[SUBJECT], ids[PREDICATE], ids[OBJECT]));
+	}
+
+	/**
+	 * read the sorted values of a variable in the triples of a pattern
+	 *
+	 * @param atom     the pattern
+	 * @param variable the variable
+	 * @param it       the triples of the pattern
+	 * @return the sorted values without duplicates
+	 */
+	private long[] readList(Atom atom, Variable variable, IteratorTripleID it) {
+		long[] list = new long[(int) Math.max(16, Math.min(it.estimatedNumResults(), 1 << 16))];
+		int size = 0;
+		boolean sorted = true;
+		while (it.hasNext()) {
+			TripleID triple = it.next();
+			readTriples++;
+			long value = 0;
+			boolean match = true;
+			for (int i = 0; i < 3; i++) {
+				if (atom.variables[i] != variable) {
+					continue;
+				}
+				long componentValue = switch (i) {
+				case SUBJECT -> triple.getSubject();
+				case PREDICATE -> triple.getPredicate();
+				default -> triple.getObject();
+				};
+				if (value != 0 && value != componentValue) {
+					// variable used twice in the pattern
+					match = false;
+					break;
+				}
+				value = componentValue;
+			}
+			if (!match || value > variable.maxId) {
+				continue;
+			}
+			if (size > 0) {
+				if (list[size - 1] == value) {
+					continue;
+				}
+				if (list[size - 1] > value) {
+					sorted = false;
+				}
+			}
+			if (size == list.length) {
+				list = Arrays.copyOf(list, list.length * 2);
+			}
+			list[size++] = value;
+		}
+		if (sorted) {
+			return Arrays.copyOf(list, size);
+		}
+		Arrays.sort(list, 0, size);
+		int distinct = 0;
+		for (int i = 0; i < size; i++) {
+			if (distinct == 0 || list[distinct - 1] != list[i]) {
+				list[distinct++] = list[i];
+			}
+		}
+		return Arrays.copyOf(list, distinct);
+	}
+
+	private void openLevel(int level) {
+		Variable variable = variables[level];
+		Level state = levels[level];
+		int count = variable.atoms.size();
+		IteratorTripleID[] its = new IteratorTripleID[count];
+		int smallest = 0;
+		long minEstimation = Long.MAX_VALUE;
+		for (int i = 0; i < count; i++) {
+			its[i] = search(variable.atoms.get(i), level);
+			long estimation = its[i].estimatedNumResults();
+			if (estimation < minEstimation) {
+				minEstimation = estimation;
+				smallest = i;
+			}
+		}
+
+		// the smallest list is always read, the other lists are compared to it
+		List<long[]> lists = new ArrayList<>();
+		List<Atom> probes = new ArrayList<>();
+		lists.add(readList(variable.atoms.get(smallest), variable, its[smallest]));
+		long maxListEstimation = minEstimation > Long.MAX_VALUE / LARGE_LIST_RATIO ? Long.MAX_VALUE
+				: minEstimation * LARGE_LIST_RATIO;
+		for (int i = 0; i < count; i++) {
+			if (i == smallest) {
+				continue;
+			}
+			Atom atom = variable.atoms.get(i);
+			if (its[i].estimatedNumResults() <= maxListEstimation) {
+				lists.add(readList(atom, variable, its[i]));
+			} else {
+				probes.add(atom);
+			}
+		}
+		state.lists = lists.toArray(new long[0][]);
+		state.positions = new int[state.lists.length];
+		state.probes = probes.toArray(new Atom[0]);
+	}
+
+	/**
+	 * find the first position of a list with a value greater or equal to a key
+	 *
+	 * @param list  the list
+	 * @param from  the first position to search
+	 * @param value the key
+	 * @return the position, list.length if all the values are lower
+	 */
+	private static int seek(long[] list, int from, long value) {
+		// galloping search, the key is usually close
+		int bound = 1;
+		while (from + bound < list.length && list[from + bound] < value) {
+			bound <<= 1;
+		}
+		int index = Arrays.binarySearch(list, from + (bound >> 1), Math.min(from + bound + 1, list.length), value);
+		return index >= 0 ? index : -index - 1;
+	}
+
+	/**
+	 * find the next value of the variable of a level
+	 *
+	 * @param level the level
+	 * @return the value, 0 if there is no next value
+	 */
+	private long nextValue(int level) {
+		Level state = levels[level];
+		long[][] lists = state.lists;
+		int[] positions = state.positions;
+
+		while (true) {
+			checkTimeout();
+			long max = 0;
+			for (int i = 0; i < lists.length; i++) {
+				if (positions[i] >= lists[i].length) {
+					return 0;
+				}
+				max = Math.max(max, lists[i][positions[i]]);
+			}
+
+			// leapfrog, move the lists to the max value until they all agree
+			int agree = 0;
+			for (int i = 0; agree < lists.length; i = (i + 1) % lists.length) {
+				positions[i] = seek(lists[i], positions[i], max);
+				if (positions[i] >= lists[i].length) {
+					return 0;
+				}
+				long value = lists[i][positions[i]];
+				if (value == max) {
+					agree++;
+				} else {
+					max = value;
+					agree = 1;
+				}
+			}
+			for (int i = 0; i < lists.length; i++) {
+				positions[i]++;
+			}
+
+			values[level] = max;
+			boolean match = true;
+			for (Atom probe : state.probes) {
+				if (!search(probe, level + 1).hasNext()) {
+					match = false;
+					break;
+				}
+			}
+			if (match) {
+				return max;
+			}
+		}
+	}
+
+	@Override
+	protected HDTQueryResult getNext() {
+		if (end) {
+			return null;
+		}
+		if (variables.length == 0) {
+			// only constant patterns, all checked in the constructor
+			end = true;
+			return result;
+		}
+		int level;
+		if (!started) {
+			started = true;
+			level = 0;
+			openLevel(0);
+		} else {
+			level = variables.length - 1;
+		}
+
+		while (level >= 0) {
+			long value = nextValue(level);
+			if (value == 0) {
+				level--;
+				continue;
+			}
+			if (level == variables.length - 1) {
+				for (int i = 0; i < variables.length; i++) {
+					variables[i].constant.setId(variables[i].role, values[i]);
+				}
+				return result;
+			}
+			openLevel(++level);
+		}
+		end = true;
+		return null;
+	}
+}
@@ -3,6 +3,7 @@ package com.the_qa_company.qendpoint.core.storage.merge;
 import com.the_qa_company.qendpoint.core.compact.bitmap.Bitmap;
 import com.the_qa_company.qendpoint.core.hdt.HDT;
 import com.the_qa_company.qendpoint.core.hdt.HDTManager;
+import com.the_qa_company.qendpoint.core.listener.MergeMetrics;
 import com.the_qa_company.qendpoint.core.listener.ProgressListener;
 import com.the_qa_company.qendpoint.core.options.ControlInfo;
 import com.the_qa_company.qendpoint.core.options.ControlInformation;
@@ -46,6 +47,7 @@ public class QEPCoreMergeThread extends Thread {
 	private final double epsilon;
 	private final MergeFindFunc mergeFindFunc;
 	private final boolean progressMerge;
+	private final MergeMetrics metrics = new MergeMetrics();
 
 	public QEPCoreMergeThread(QEPCore core, HDTOptions options) {
 		super("QEPCoreMerge #" + core.getLocation().toString().hashCode());
@@ -66,6 +68,13 @@ public class QEPCoreMergeThread extends Thread {
 		}
 	}
 
+	/**
+	 * @return the progress and timing metrics of the merges
+	 */
+	public MergeMetrics getMetrics() {
+		return metrics;
+	}
+
 	/**
 	 * @return the file where the merge information are loaded
 	 */
@@ -193,9 +202,13 @@ public class QEPCoreMergeThread extends Thread {
 				}
 				runMerge = false;
 			}
-			ProgressListener listener = progressMerge ? core.getListener() : ProgressListener.ignore();
+			ProgressListener listener = (progressMerge ? core.getListener() : ProgressListener.ignore())
+					.combine(metrics);
+			metrics.startMerge();
 			// we can start the merge process
 			try (QEPCoreContext context = core.createSearchContext()) {
+				metrics.setStep(STEP_HDC);
+				metrics.startPhase("cluster", -1);
 				listener.notifyProgress(0, "searching merge cluster...");
 				Collection<QEPDatasetContext> dss = context.getContexts();
 
@@ -206,6 +219,7 @@ public class QEPCoreMergeThread extends Thread {
 					listener.notifyProgress(100, "merge cluster too small " + cluster.size() + "/" + clusterSize);
 					continue; // the cluster isn't big enough
 				}
+				metrics.completedPhase("cluster", metrics.getPhaseElapsedMillis());
 
 				// write cluster file
 				saveMergeFile(STEP_HDC, HDTOptions.of(OPT_DSIDS, cluster.stream().map(w -> w.ctx.dataset().id())
@@ -232,10 +246,17 @@ public class QEPCoreMergeThread extends Thread {
 						// set the work dir
 						HDTOptionsKeys.HDTCAT_LOCATION, workDir);
 
+				long triples = ds.stream().mapToLong(hdt -> hdt.getTriples().getNumberOfElements()).sum();
+				metrics.startPhase("diffcat", -1);
 				listener.notifyProgress(10, "starting datasets merge process");
 				try (HDT diffCat = HDTManager.diffBitCatHDTObject(ds, dsDelete, options,
 						listener.sub(10, 70, "diffcat: "), false)) {
+					metrics.completedPhase("diffcat", metrics.getPhaseElapsedMillis());
+					metrics.startPhase("save", -1);
 					diffCat.saveToHDT(output, listener.sub(70, 75, "saving diffcat: "));
+					metrics.addTriplesProcessed(triples);
+					metrics.addBytesWritten(Files.size(output));
+					metrics.completedPhase("save", metrics.getPhaseElapsedMillis());
 
 					// start linking
 					String newDatasetId = core.createNewDatasetId();
@@ -283,6 +304,8 @@ public class QEPCoreMergeThread extends Thread {
 					a.addSuppressed(b);
 					return a;
 				});
+			} finally {
+				metrics.endMerge();
 			}
 		}
 		synchronized (endMergeEventObj) {
@@ -103,4 +103,27 @@ public interface IteratorTripleID extends Iterator<TripleID> {
 	default boolean isLastTriplePositionBoundToOrder() {
 		return false;
 	}
+
+	/**
+	 * Return the position of the first result if the results are the triples of
+	 * the contiguous range of positions [first, first + estimatedNumResults())
+	 * in the order of {@link #getOrder()}, the estimation being exact.
+	 *
+	 * @return position, -1 if the results aren't a range of positions
+	 * @see #goToTriplePosition(long)
+	 */
+	default long getFirstTriplePosition() {
+		return -1;
+	}
+
+	/**
+	 * Go to a position of the range of the results, the next call to next()
+	 * will return the triple at this position. Only use whenever
+	 * {@link #getFirstTriplePosition()} isn't -1.
+	 *
+	 * @param pos position in [first, first + estimatedNumResults()]
+	 */
+	default void goToTriplePosition(long pos) {
+		throw new UnsupportedOperationException();
+	}
 }
@@ -284,6 +284,38 @@ public class BitmapTriplesIterator implements SuppliableIteratorTripleID {
 		nextZ = adjZ.last(posY) + 1;
 	}
 
+	@Override
+	public long getFirstTriplePosition() {
+		if (numResultEstimation() != ResultEstimationType.EXACT) {
+			return -1;
+		}
+		return minZ;
+	}
+
+	@Override
+	public void goToTriplePosition(long pos) {
+		if (pos < minZ || pos > maxZ || numResultEstimation() != ResultEstimationType.EXACT) {
+			throw new IndexOutOfBoundsException(
+					"Cannot go to position " + pos + " outside of the range [" + minZ + ", " + maxZ + "]");
+		}
+
+		if (pos == maxZ) {
+			// end of the range
+			posZ = maxZ;
+			return;
+		}
+
+		posZ = pos;
+		posY = adjZ.findListIndex(posZ);
+
+		z = adjZ.get(posZ);
+		y = adjY.get(posY);
+		x = adjY.findListIndex(posY) + 1;
+
+		nextY = adjY.last(x - 1) + 1;
+		nextZ = adjZ.last(posY) + 1;
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * @see hdt.iterator.IteratorTripleID#getOrder()
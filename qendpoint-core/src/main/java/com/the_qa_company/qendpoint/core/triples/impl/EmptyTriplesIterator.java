@@ -69,6 +69,18 @@ public class EmptyTriplesIterator implements SuppliableIteratorTripleID {
 		throw new NoSuchElementException();
 	}
 
+	@Override
+	public long getFirstTriplePosition() {
+		return 0;
+	}
+
+	@Override
+	public void goToTriplePosition(long pos) {
+		if (pos != 0) {
+			throw new IndexOutOfBoundsException("Cannot go to position " + pos + " of an empty iterator");
+		}
+	}
+
 	@Override
 	public void remove() {
 		throw new UnsupportedOperationException();
@@ -0,0 +1,112 @@
+package com.the_qa_company.qendpoint.core.dictionary.impl;
+
+import com.the_qa_company.qendpoint.core.enums.TripleComponentRole;
+import com.the_qa_company.qendpoint.core.exceptions.ParserException;
+import com.the_qa_company.qendpoint.core.hdt.HDT;
+import com.the_qa_company.qendpoint.core.hdt.HDTManager;
+import com.the_qa_company.qendpoint.core.listener.ProgressListener;
+import com.the_qa_company.qendpoint.core.options.HDTOptions;
+import com.the_qa_company.qendpoint.core.options.HDTOptionsKeys;
+import com.the_qa_company.qendpoint.core.triples.TripleString;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class LiteralValueIndexTest {
+	private static final String XSD = "http://www.w3.org/2001/XMLSchema#";
+
+	@Rule
+	public TemporaryFolder tempDir = TemporaryFolder.builder().assureDeletion().build();
+
+	private static String typed(String label, String datatype) {
+		return "\"" + label + "\"^^<" + XSD + datatype + ">";
+	}
+
+	private static Set<String> labels(HDT hdt, LiteralValueIndex index, LiteralValueIndex.Range range) {
+		Set<String> labels = new HashSet<>();
+		for (long i = range.start(); i < range.end(); i++) {
+			labels.add(hdt.getDictionary().idToString(index.getId(range.kind(), i), TripleComponentRole.OBJECT)
+					.toString());
+		}
+		return labels;
+	}
+
+	@Test
+	public void indexTest() throws IOException, ParserException {
+		Path root = tempDir.newFolder().toPath();
+		List<TripleString> triples = new ArrayList<>();
+		String[] objects = { typed("12", "integer"), typed("-3", "integer"), typed("100", "integer"),
+				typed("007", "integer"), typed("2.5", "decimal"), typed("1E3", "double"), typed("INF", "double"),
+				typed("NaN", "double"), typed("bad", "integer"), typed("2020-01-01T00:00:00Z", "dateTime"),
+				typed("2021-06-15T12:00:00+02:00", "dateTime"), typed("2019-03-01", "date"), "\"12\"", "\"12\"@en" };
+		for (int i = 0; i < objects.length; i++) {
+			triples.add(new TripleString("http://example.org/s" + i, "http://example.org/p", objects[i]));
+		}
+		Path hdtPath = root.resolve("test.hdt");
+		try (HDT hdt = HDTManager.generateHDT(triples.iterator(), "http://example.org/#", HDTOptions
+				.of(HDTOptionsKeys.DICTIONARY_TYPE_KEY, HDTOptionsKeys.DICTIONARY_TYPE_VALUE_MULTI_OBJECTS_LANG),
+				ProgressListener.ignore())) {
+			hdt.saveToHDT(hdtPath);
+		}
+
+		Path indexPath = root.resolve("test.hdt.valueindex");
+		try (HDT hdt = HDTManager.mapHDT(hdtPath)) {
+			MultipleLangBaseDictionary dictionary = (MultipleLangBaseDictionary) hdt.getDictionary();
+			for (int pass = 0; pass < 2; pass++) {
+				// the second pass reads the index created by the first pass,
+				// the
+				// small chunks are merged on disk
+				try (LiteralValueIndex index = LiteralValueIndex.loadOrCreate(indexPath, dictionary, 2)) {
+					assertTrue(Files.exists(indexPath));
+					assertFalse(Files.exists(root.resolve("test.hdt.valueindex.work")));
+					assertEquals(7, index.getCount(LiteralValueIndex.ValueKind.NUMERIC));
+					assertEquals(3, index.getCount(LiteralValueIndex.ValueKind.TEMPORAL));
+
+					for (LiteralValueIndex.ValueKind kind : LiteralValueIndex.ValueKind.values()) {
+						for (long i = 1; i < index.getCount(kind); i++) {
+							assertTrue(index.getValue(kind, i - 1) <= index.getValue(kind, i));
+						}
+					}
+
+					LiteralValueIndex.Range range = index.getRange(LiteralValueIndex.ValueKind.NUMERIC, 2.5, 100);
+					assertEquals(Set.of(typed("2.5", "decimal"), typed("007", "integer"), typed("12", "integer"),
+							typed("100", "integer")), labels(hdt, index, range));
+					assertEquals(0, index.getRange(LiteralValueIndex.ValueKind.NUMERIC, 13, 99).size());
+					assertEquals(Set.of(typed("INF", "double")), labels(hdt, index,
+							index.getRange(LiteralValueIndex.ValueKind.NUMERIC, 1001, Double.POSITIVE_INFINITY)));
+
+					long from = index.getRange(LiteralValueIndex.ValueKind.TEMPORAL, 0, Long.MAX_VALUE).start();
+					assertEquals(typed("2019-03-01", "date"),
+							hdt.getDictionary().idToString(index.getId(LiteralValueIndex.ValueKind.TEMPORAL, from),
+									TripleComponentRole.OBJECT).toString());
+					// 2021-06-15T10:00:00Z
+					assertEquals(1, index
+							.getRange(LiteralValueIndex.ValueKind.TEMPORAL, 1623751200000.0, 1623751200000.0).size());
+
+					assertEquals(LiteralValueIndex.ValueKind.NUMERIC, index.getKind(
+							hdt.getDictionary().stringToId(typed("12", "integer"), TripleComponentRole.OBJECT)));
+					assertEquals(LiteralValueIndex.ValueKind.TEMPORAL, index.getKind(
+							hdt.getDictionary().stringToId(typed("2019-03-01", "date"), TripleComponentRole.OBJECT)));
+					assertNull(index.getKind(
+							hdt.getDictionary().stringToId(typed("bad", "integer"), TripleComponentRole.OBJECT)));
+					assertNull(index.getKind(
+							hdt.getDictionary().stringToId(typed("NaN", "double"), TripleComponentRole.OBJECT)));
+					assertNull(index.getKind(hdt.getDictionary().stringToId("\"12\"", TripleComponentRole.OBJECT)));
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,114 @@
+package com.the_qa_company.qendpoint.core.dictionary.impl.section;
+
+import com.the_qa_company.qendpoint.core.dictionary.DictionarySectionPrivate;
+import com.the_qa_company.qendpoint.core.listener.ProgressListener;
+import com.the_qa_company.qendpoint.core.options.HDTOptions;
+import com.the_qa_company.qendpoint.core.options.HDTOptionsKeys;
+import com.the_qa_company.qendpoint.core.util.LargeFakeDataSetStreamSupplier;
+import com.the_qa_company.qendpoint.core.util.io.CountInputStream;
+import com.the_qa_company.qendpoint.core.util.string.CharSequenceComparator;
+import com.the_qa_company.qendpoint.core.util.string.CompactString;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class PFCBlockCacheTest {
+	@Rule
+	public TemporaryFolder tempDir = TemporaryFolder.builder().assureDeletion().build();
+
+	private static void assertSection(List<CharSequence> list, DictionarySectionPrivate sec) {
+		assertEquals(list.size(), sec.getNumberOfElements());
+		// twice to read the cached blocks
+		for (int pass = 0; pass < 2; pass++) {
+			for (int i = 0; i < list.size(); i++) {
+				assertEquals("bad string for id #" + (i + 1), list.get(i).toString(), sec.extract(i + 1).toString());
+				assertEquals("bad id for " + list.get(i), i + 1, sec.locate(list.get(i)));
+			}
+			for (int i = list.size() - 1; i >= 0; i -= 7) {
+				assertEquals(i + 1, sec.locate(list.get(i)));
+			}
+		}
+		assertEquals(0, sec.locate("\"not in the section\""));
+	}
+
+	@Test
+	public void cacheTest() throws IOException {
+		Path root = tempDir.newFolder().toPath();
+		Path res = root.resolve("res.bin");
+
+		LargeFakeDataSetStreamSupplier su = LargeFakeDataSetStreamSupplier.createSupplierWithMaxTriples(10000, 42);
+		TreeSet<CharSequence> set = new TreeSet<>(CharSequenceComparator.getInstance());
+		su.createObjectsStream().forEachRemaining(s -> set.add(new CompactString(s)));
+		List<CharSequence> list = new ArrayList<>(set);
+
+		try (WriteDictionarySection write = new WriteDictionarySection(HDTOptions.of(), res, 4096)) {
+			write.load(list.iterator(), list.size(), ProgressListener.ignore());
+			write.save(res);
+		}
+
+		assertNull(PFCBlockCache.of(HDTOptions.of()));
+		assertNull(PFCBlockCache.of(HDTOptions.of(HDTOptionsKeys.DICTIONARY_PFC_BLOCK_CACHE_SIZE_KEY, 0)));
+
+		// no cache, a cache with all the blocks and a cache evicting the blocks
+		for (long budget : new long[] { 0, 64L * 1024 * 1024, 4096 }) {
+			HDTOptions spec = HDTOptions.of(HDTOptionsKeys.DICTIONARY_PFC_BLOCK_CACHE_SIZE_KEY, budget);
+			PFCBlockCache cache = PFCBlockCache.of(spec);
+
+			try (CountInputStream cis = new CountInputStream(new BufferedInputStream(Files.newInputStream(res)))) {
+				try (DictionarySectionPrivate sec = DictionarySectionFactory.loadFrom(cis, res.toFile(),
+						ProgressListener.ignore(), spec)) {
+					assertTrue(sec instanceof PFCDictionarySectionMap);
+					assertSection(list, sec);
+					assertCacheUsed(cache, budget);
+				}
+			}
+			// the blocks of the closed sections are removed
+			assertEmpty(cache);
+
+			try (CountInputStream cis = new CountInputStream(new BufferedInputStream(Files.newInputStream(res)))) {
+				try (DictionarySectionPrivate sec = DictionarySectionFactory.loadFrom(cis, ProgressListener.ignore(),
+						spec)) {
+					assertTrue(sec instanceof PFCDictionarySection);
+					assertSection(list, sec);
+					assertCacheUsed(cache, budget);
+				}
+			}
+			assertEmpty(cache);
+
+			if (budget == 0) {
+				assertNull(cache);
+			} else {
+				assertNotNull(cache);
+			}
+		}
+	}
+
+	private static void assertCacheUsed(PFCBlockCache cache, long budget) {
+		if (cache == null) {
+			return;
+		}
+		assertTrue(budget == 4096 || cache.size() > 0);
+		assertTrue(cache.getMemory() <= cache.getMaxMemory());
+	}
+
+	private static void assertEmpty(PFCBlockCache cache) {
+		if (cache == null) {
+			return;
+		}
+		assertEquals(0, cache.size());
+		assertEquals(0, cache.getMemory());
+	}
+}
@@ -0,0 +1,77 @@
+package com.the_qa_company.qendpoint.core.dictionary.impl.section;
+
+import com.the_qa_company.qendpoint.core.dictionary.DictionarySectionPrivate;
+import com.the_qa_company.qendpoint.core.listener.ProgressListener;
+import com.the_qa_company.qendpoint.core.options.HDTOptions;
+import com.the_qa_company.qendpoint.core.options.HDTOptionsKeys;
+import com.the_qa_company.qendpoint.core.util.LargeFakeDataSetStreamSupplier;
+import com.the_qa_company.qendpoint.core.util.io.CountInputStream;
+import com.the_qa_company.qendpoint.core.util.string.CharSequenceComparator;
+import com.the_qa_company.qendpoint.core.util.string.CompactString;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+
+import static org.junit.Assert.assertEquals;
+
+public class PFCBlockIndexTest {
+	@Rule
+	public TemporaryFolder tempDir = TemporaryFolder.builder().assureDeletion().build();
+
+	@Test
+	public void locateTest() throws IOException {
+		Path root = tempDir.newFolder().toPath();
+		Path res = root.resolve("res.bin");
+
+		LargeFakeDataSetStreamSupplier su = LargeFakeDataSetStreamSupplier.createSupplierWithMaxTriples(10000, 42);
+		TreeSet<CharSequence> set = new TreeSet<>(CharSequenceComparator.getInstance());
+		su.createObjectsStream().forEachRemaining(s -> set.add(new CompactString(s)));
+		// headers longer than the stored prefix
+		String longPrefix = "http://example.org/" + "a".repeat(PFCBlockIndex.PREFIX_SIZE);
+		for (int i = 0; i < 500; i++) {
+			set.add(new CompactString(longPrefix + i));
+		}
+		List<CharSequence> list = new ArrayList<>(set);
+
+		// strings between, before and after the strings of the section
+		List<CharSequence> missing = new ArrayList<>();
+		missing.add(new CompactString(""));
+		missing.add(new CompactString("ÿ"));
+		for (int i = 0; i < list.size(); i += 3) {
+			String str = list.get(i).toString();
+			for (CharSequence s : List.of(str + "0", str + "ÿ", str.substring(0, str.length() - 1))) {
+				if (!set.contains(new CompactString(s))) {
+					missing.add(new CompactString(s));
+				}
+			}
+		}
+
+		try (WriteDictionarySection write = new WriteDictionarySection(HDTOptions.of("pfc.blocksize", 4), res, 4096)) {
+			write.load(list.iterator(), list.size(), ProgressListener.ignore());
+			write.save(res);
+		}
+
+		for (int sampleRate : new int[] { 0, 1, 3, 16, PFCBlockIndex.DEFAULT_SAMPLE_RATE }) {
+			HDTOptions spec = HDTOptions.of(HDTOptionsKeys.DICTIONARY_PFC_BLOCK_INDEX_SAMPLE_RATE_KEY, sampleRate);
+			try (CountInputStream cis = new CountInputStream(new BufferedInputStream(Files.newInputStream(res)));
+					DictionarySectionPrivate sec = DictionarySectionFactory.loadFrom(cis, res.toFile(),
+							ProgressListener.ignore(), spec)) {
+				for (int i = 0; i < list.size(); i++) {
+					assertEquals("bad id for " + list.get(i) + " with rate " + sampleRate, i + 1,
+							sec.locate(list.get(i)));
+				}
+				for (CharSequence s : missing) {
+					assertEquals("found " + s + " with rate " + sampleRate, 0, sec.locate(s));
+				}
+			}
+		}
+	}
+}
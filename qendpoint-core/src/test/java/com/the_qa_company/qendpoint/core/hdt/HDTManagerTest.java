@@ -2025,6 +2025,12 @@ public class HDTManagerTest {
 							if (role == OBJECT) {
 								CharSequence lang = LiteralsUtils.getLanguage(component).orElse(null);
 								assertEquals("bad lang", lang, dict.languageOfId(id));
+								if (lang != null) {
+									MultipleLangBaseDictionary.ObjectIdLocationData sec = dict.getLanguageSection(lang);
+									assertNotNull("no lang section", sec);
+									assertTrue("bad lang section", id > sec.location()
+											&& id <= sec.location() + sec.section().getNumberOfElements());
+								}
 
 								CharSequence type = LiteralsUtils.getType(component);
 								assertEquals("bad type", type, dict.dataTypeOfId(id));
@@ -0,0 +1,48 @@
+package com.the_qa_company.qendpoint.core.iterator.utils;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.*;
+
+public class AsyncIteratorFetcherTest {
+	@Test
+	public void fetchTest() throws InterruptedException {
+		int count = 100_000;
+		AsyncIteratorFetcher<Integer> fetcher = new AsyncIteratorFetcher<>(IntStream.range(0, count).boxed().iterator(),
+				17);
+
+		List<List<Integer>> fetched = new ArrayList<>();
+		List<Thread> threads = new ArrayList<>();
+		for (int i = 0; i < 8; i++) {
+			List<Integer> list = new ArrayList<>();
+			fetched.add(list);
+			threads.add(new Thread(() -> {
+				Integer next;
+				while ((next = fetcher.get()) != null) {
+					list.add(next);
+				}
+			}));
+		}
+		threads.forEach(Thread::start);
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		assertTrue(fetcher.isEnd());
+		assertNull(fetcher.get());
+
+		// each element is fetched once
+		BitSet seen = new BitSet(count);
+		for (List<Integer> list : fetched) {
+			for (int element : list) {
+				assertFalse(seen.get(element));
+				seen.set(element);
+			}
+		}
+		assertEquals(count, seen.cardinality());
+	}
+}
@@ -0,0 +1,94 @@
+package com.the_qa_company.qendpoint.core.listener;
+
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.Map;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class MergeMetricsTest {
+	@Test
+	public void metricsTest() throws InterruptedException {
+		MergeMetrics metrics = new MergeMetrics();
+		assertFalse(metrics.isMerging());
+		assertNull(metrics.getPhase());
+		assertEquals(-1, metrics.getPhaseEtaMillis());
+
+		metrics.startMerge();
+		metrics.setStep("step1");
+		metrics.startPhase("dump", 200);
+		metrics.addTriplesProcessed(50);
+		assertEquals(25.0, metrics.getPhaseProgress(), 0.001);
+		Thread.sleep(5);
+		assertTrue(metrics.getPhaseEtaMillis() >= 0);
+
+		// progress of a listener without expected triples
+		metrics.startPhase("cat", -1);
+		assertEquals(0, metrics.getTriplesProcessed());
+		assertEquals(-1, metrics.getPhaseProgress(), 0.001);
+		metrics.notifyProgress(40, "cat");
+		assertEquals(40, metrics.getPhaseProgress(), 0.001);
+
+		metrics.setSubStep("rename");
+		metrics.setStep("step2");
+		assertNull(metrics.getSubStep());
+
+		metrics.startLockWait();
+		Thread.sleep(5);
+		assertTrue(metrics.getCurrentLockWaitMillis() > 0);
+		metrics.endLockWait();
+		assertEquals(0, metrics.getCurrentLockWaitMillis());
+		long lockWait = metrics.getLockWaitMillis();
+		assertTrue(lockWait > 0);
+
+		metrics.addBytesWritten(42);
+		metrics.completedPhase("dump", 10);
+		metrics.completedPhase("cat", 20);
+		metrics.endMerge();
+
+		MergeMetrics.Snapshot snapshot = metrics.snapshot();
+		assertFalse(snapshot.merging());
+		assertEquals(1, snapshot.mergeCount());
+		assertEquals("step2", snapshot.step());
+		assertEquals("cat", snapshot.phase());
+		assertEquals(42, snapshot.bytesWritten());
+		assertEquals(lockWait, snapshot.lockWaitMillis());
+		assertEquals(-1, snapshot.phaseEtaMillis());
+		assertEquals(List.of("dump", "cat"), List.copyOf(snapshot.phaseTimes().keySet()));
+
+		// the metrics are reset by a new merge
+		metrics.startMerge();
+		assertTrue(metrics.isMerging());
+		assertEquals(0, metrics.getBytesWritten());
+		assertEquals(0, metrics.getLockWaitMillis());
+		assertTrue(metrics.getPhaseTimes().isEmpty());
+	}
+
+	@Test
+	public void mbeanTest() throws Exception {
+		MergeMetrics metrics = new MergeMetrics();
+		metrics.startMerge();
+		metrics.setStep("step1");
+		metrics.completedPhase("dump", 10);
+
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		ObjectName name = new ObjectName("com.the_qa_company.qendpoint:type=MergeMetricsTest");
+		server.registerMBean(metrics, name);
+		try {
+			assertEquals(true, server.getAttribute(name, "Merging"));
+			assertEquals("step1", server.getAttribute(name, "Step"));
+			assertTrue(server.getAttribute(name, "PhaseTimes") != null);
+		} finally {
+			server.unregisterMBean(name);
+		}
+		assertEquals(Map.of("dump", 10L), metrics.getPhaseTimes());
+	}
+}
@@ -2,6 +2,8 @@ package com.the_qa_company.qendpoint.core.rdf.parsers;
 
 import com.the_qa_company.qendpoint.core.enums.RDFNotation;
 import com.the_qa_company.qendpoint.core.exceptions.ParserException;
+import com.the_qa_company.qendpoint.core.options.HDTOptions;
+import com.the_qa_company.qendpoint.core.options.HDTOptionsKeys;
 import com.the_qa_company.qendpoint.core.rdf.RDFParserCallback;
 import com.the_qa_company.qendpoint.core.triples.TripleString;
 import com.the_qa_company.qendpoint.core.util.LargeFakeDataSetStreamSupplier;
@@ -11,15 +13,20 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.junit.runners.Suite;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.PipedInputStream;
 import java.io.PipedOutputStream;
 import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
 
 @RunWith(Suite.class)
 @Suite.SuiteClasses({ RDFParserSimpleTest.NTriplesTest.class, RDFParserSimpleTest.NQuadTest.class,
-		RDFParserSimpleTest.NQuadNoGraphTest.class })
+		RDFParserSimpleTest.NQuadNoGraphTest.class, RDFParserSimpleTest.NTriplesParallelTest.class,
+		RDFParserSimpleTest.NQuadParallelTest.class, RDFParserSimpleTest.LineEndTest.class })
 public class RDFParserSimpleTest {
 	public static abstract class AbstractRDFParserSimpleTest extends AbstractNTriplesParserTest {
 		protected final RDFNotation notation;
@@ -86,6 +93,49 @@ public class RDFParserSimpleTest {
 		}
 	}
 
+	public static class LineEndTest {
+		private static List<TripleString> parse(RDFParserSimple parser, String text) throws ParserException {
+			List<TripleString> triples = new ArrayList<>();
+			parser.doParse(new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8)), "http://example.org/#",
+					RDFNotation.NTRIPLES, true, (triple, pos) -> triples.add(new TripleString(triple)));
+			return triples;
+		}
+
+		@Test
+		public void lineEndTest() throws ParserException, IOException {
+			List<TripleString> expected = new ArrayList<>();
+			for (int i = 0; i < 200; i++) {
+				expected.add(
+						new TripleString("http://example.org/s" + i, "http://example.org/p", "\"object " + i + "\""));
+			}
+			List<RDFParserSimple> parsers = List.of(new RDFParserSimple(),
+					new RDFParserSimple(HDTOptions.of(HDTOptionsKeys.NT_SIMPLE_PARSER_WORKERS_KEY, 2,
+							HDTOptionsKeys.NT_SIMPLE_PARSER_CHUNK_SIZE_KEY, 100)),
+					new RDFParserSimple(HDTOptions.of(HDTOptionsKeys.NT_SIMPLE_PARSER_WORKERS_KEY, 2,
+							HDTOptionsKeys.NT_SIMPLE_PARSER_CHUNK_SIZE_KEY, 16)));
+
+			for (String lineEnd : List.of("\n", "\r\n", "\r")) {
+				StringBuilder text = new StringBuilder();
+				for (TripleString triple : expected) {
+					text.append(triple.asNtriple().toString().trim()).append(lineEnd);
+				}
+				for (RDFParserSimple parser : parsers) {
+					Assert.assertEquals(expected, parse(parser, text.toString()));
+				}
+			}
+
+			// mixed line ends and empty lines
+			StringBuilder text = new StringBuilder();
+			String[] lineEnds = { "\n", "\r\n", "\r", "\r\n\r\n", "\n\r" };
+			for (int i = 0; i < expected.size(); i++) {
+				text.append(expected.get(i).asNtriple().toString().trim()).append(lineEnds[i % lineEnds.length]);
+			}
+			for (RDFParserSimple parser : parsers) {
+				Assert.assertEquals(expected, parse(parser, text.toString()));
+			}
+		}
+	}
+
 	public static class NTriplesTest extends AbstractRDFParserSimpleTest {
 		public NTriplesTest() {
 			super(RDFNotation.NTRIPLES);
@@ -120,4 +170,22 @@ public class RDFParserSimpleTest {
 		}
 	}
 
+	public static class NTriplesParallelTest extends NTriplesTest {
+		@Override
+		protected RDFParserCallback createParser() {
+			// small chunks to test the lines split between chunks
+			return new RDFParserSimple(HDTOptions.of(HDTOptionsKeys.NT_SIMPLE_PARSER_WORKERS_KEY, 4,
+					HDTOptionsKeys.NT_SIMPLE_PARSER_CHUNK_SIZE_KEY, 1000));
+		}
+	}
+
+	public static class NQuadParallelTest extends NQuadTest {
+		@Override
+		protected RDFParserCallback createParser() {
+			// chunks smaller than a line
+			return new RDFParserSimple(HDTOptions.of(HDTOptionsKeys.NT_SIMPLE_PARSER_WORKERS_KEY, 0,
+					HDTOptionsKeys.NT_SIMPLE_PARSER_CHUNK_SIZE_KEY, 16));
+		}
+	}
+
 }
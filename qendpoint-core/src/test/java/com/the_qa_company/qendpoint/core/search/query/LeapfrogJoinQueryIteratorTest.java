@@ -0,0 +1,158 @@
+package com.the_qa_company.qendpoint.core.search.query;
+
+import com.the_qa_company.qendpoint.core.exceptions.NotFoundException;
+import com.the_qa_company.qendpoint.core.exceptions.ParserException;
+import com.the_qa_company.qendpoint.core.hdt.HDT;
+import com.the_qa_company.qendpoint.core.hdt.HDTManager;
+import com.the_qa_company.qendpoint.core.listener.ProgressListener;
+import com.the_qa_company.qendpoint.core.options.HDTOptions;
+import com.the_qa_company.qendpoint.core.options.HDTOptionsKeys;
+import com.the_qa_company.qendpoint.core.search.HDTQuery;
+import com.the_qa_company.qendpoint.core.search.HDTQueryResult;
+import com.the_qa_company.qendpoint.core.search.HDTQueryTool;
+import com.the_qa_company.qendpoint.core.search.HDTQueryToolFactory;
+import com.the_qa_company.qendpoint.core.search.LeapfrogQueryTool;
+import com.the_qa_company.qendpoint.core.triples.TripleString;
+import com.the_qa_company.qendpoint.core.triples.impl.utils.HDTTestUtils;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class LeapfrogJoinQueryIteratorTest {
+	private static Set<Map<String, String>> results(Iterator<HDTQueryResult> it) {
+		Set<Map<String, String>> results = new HashSet<>();
+		while (it.hasNext()) {
+			HDTQueryResult result = it.next();
+			Map<String, String> map = new HashMap<>();
+			for (String name : result.getVariableNames()) {
+				map.put(name, result.getComponent(name).stringValue());
+			}
+			assertTrue("duplicated result " + map, results.add(map));
+		}
+		return results;
+	}
+
+	private static HDT createHDT() throws IOException, ParserException {
+		Random rnd = new Random(42);
+		List<TripleString> triples = new ArrayList<>();
+		for (int i = 0; i < 400; i++) {
+			String s = "n" + rnd.nextInt(30);
+			String p = "p" + rnd.nextInt(3);
+			String o = rnd.nextInt(5) == 0 ? "\"v" + rnd.nextInt(10) + "\"" : "n" + rnd.nextInt(30);
+			triples.add(new TripleString(s, p, o));
+		}
+		// nodes only used as subject or as object
+		triples.add(new TripleString("s1", "p0", "n1"));
+		triples.add(new TripleString("n1", "p0", "o1"));
+		triples.add(new TripleString("n2", "p1", "n2"));
+		return HDTManager.generateHDT(triples.iterator(), HDTTestUtils.BASE_URI, HDTOptions.of(),
+				ProgressListener.ignore());
+	}
+
+	@Test
+	public void joinTest() throws ParserException, IOException {
+		try (HDT hdt = createHDT()) {
+			HDTQueryTool tool = HDTQueryToolFactory.createQueryTool(hdt);
+
+			List<HDTQuery> queries = List.of(
+					// triangle
+					tool.createQuery(tool.triple("?a", "<p0>", "?b"), tool.triple("?b", "<p0>", "?c"),
+							tool.triple("?c", "<p0>", "?a")),
+					// star
+					tool.createQuery(tool.triple("?s", "<p0>", "?o1"), tool.triple("?s", "<p1>", "?o2"),
+							tool.triple("?s", "<p2>", "?o3")),
+					// path with a constant
+					tool.createQuery(tool.triple("<n1>", "<p0>", "?x"), tool.triple("?x", "<p1>", "?y")),
+					// variable predicate
+					tool.createQuery(tool.triple("?s", "?p", "?o"), tool.triple("?o", "<p1>", "<n2>")),
+					// cycle of 4 with two predicates
+					tool.createQuery(tool.triple("?a", "<p1>", "?b"), tool.triple("?b", "<p2>", "?c"),
+							tool.triple("?c", "<p1>", "?d"), tool.triple("?d", "<p2>", "?a")),
+					// object only join
+					tool.createQuery(tool.triple("?a", "<p0>", "?o"), tool.triple("?b", "<p2>", "?o"),
+							tool.triple("<n3>", "<p1>", "?a")));
+
+			for (HDTQuery query : queries) {
+				assertTrue(LeapfrogJoinQueryIterator.canEvaluate(query));
+				Set<Map<String, String>> expected = results(new NestedJoinQueryIterator(hdt, query, 0));
+				Set<Map<String, String>> actual = results(new LeapfrogJoinQueryIterator(hdt, query, 0));
+				assertEquals(query.toString(), expected, actual);
+			}
+			// the path and cycle queries have results
+			assertFalse(results(new LeapfrogJoinQueryIterator(hdt, queries.get(0), 0)).isEmpty());
+			assertFalse(results(new LeapfrogJoinQueryIterator(hdt, queries.get(2), 0)).isEmpty());
+		}
+	}
+
+	@Test
+	public void largeFirstAtomTest() throws ParserException, IOException {
+		List<TripleString> triples = new ArrayList<>();
+		for (int i = 0; i < 200; i++) {
+			triples.add(new TripleString("n" + i, "large", "o" + i));
+		}
+		triples.add(new TripleString("n5", "small", "o5"));
+		try (HDT hdt = HDTManager.generateHDT(triples.iterator(), HDTTestUtils.BASE_URI, HDTOptions.of(),
+				ProgressListener.ignore())) {
+			HDTQueryTool tool = HDTQueryToolFactory.createQueryTool(hdt);
+			// the first pattern is the large one
+			HDTQuery query = tool.createQuery(tool.triple("?s", "<large>", "?o"), tool.triple("<n5>", "<small>", "?o"));
+
+			LeapfrogJoinQueryIterator it = new LeapfrogJoinQueryIterator(hdt, query, 0);
+			assertEquals(Set.of(Map.of("s", "n5", "o", "o5")), results(it));
+			assertEquals(results(new NestedJoinQueryIterator(hdt, query, 0)),
+					results(new LeapfrogJoinQueryIterator(hdt, query, 0)));
+			// the large pattern is searched for ?o and read only for ?s
+			assertEquals(2, it.getReadTriples());
+		}
+	}
+
+	@Test
+	public void specialPatternTest() throws ParserException, IOException, NotFoundException {
+		try (HDT hdt = createHDT()) {
+			HDTQueryTool tool = HDTQueryToolFactory.createQueryTool(hdt,
+					HDTOptions.of(HDTOptionsKeys.QUERY_TOOL_JOIN_KEY, HDTOptionsKeys.QUERY_TOOL_JOIN_VALUE_LEAPFROG));
+			assertTrue(tool instanceof LeapfrogQueryTool);
+
+			// no variable
+			assertEquals(Set.of(Map.of()), results(tool.query(tool.createQuery(tool.triple("<s1>", "<p0>", "<n1>")))));
+			assertEquals(Set.of(), results(tool.query(tool.createQuery(tool.triple("<s1>", "<p1>", "<n1>")))));
+
+			// unknown constants
+			assertEquals(Set.of(), results(tool.query(tool.createQuery(tool.triple("<missing>", "<p0>", "?x")))));
+			assertEquals(Set.of(), results(tool.query(tool.createQuery(tool.triple("<n1>", "<missing>", "?x")))));
+
+			// variable used twice in a pattern
+			Set<Map<String, String>> loops = results(tool.query(tool.createQuery(tool.triple("?x", "<p1>", "?x"))));
+			assertTrue(loops.contains(Map.of("x", "n2")));
+			for (Map<String, String> loop : loops) {
+				assertTrue(hdt.search(loop.get("x"), "p1", loop.get("x")).hasNext());
+			}
+
+			// subject/object join, the subject only and object only terms
+			// (s1, o1) can't be joined
+			HDTQuery subjectObject = tool.createQuery(tool.triple("?a", "<p0>", "<n1>"),
+					tool.triple("<n1>", "<p0>", "?a"));
+			Set<Map<String, String>> subjectObjectResults = results(tool.query(subjectObject));
+			assertEquals(results(new NestedJoinQueryIterator(hdt, subjectObject, 0)), subjectObjectResults);
+			assertFalse(subjectObjectResults.contains(Map.of("a", "s1")));
+			assertFalse(subjectObjectResults.contains(Map.of("a", "o1")));
+
+			// predicate and subject variable, evaluated by the nested join
+			HDTQuery mixed = tool.createQuery(tool.triple("?s", "?p", "<n1>"), tool.triple("?p", "?p2", "?o"));
+			assertFalse(LeapfrogJoinQueryIterator.canEvaluate(mixed));
+			assertEquals(results(new NestedJoinQueryIterator(hdt, mixed, 0)), results(tool.query(mixed)));
+		}
+	}
+}
@@ -10,6 +10,7 @@ import com.the_qa_company.qendpoint.core.iterator.DictionaryTranslateIteratorBuf
 import com.the_qa_company.qendpoint.core.iterator.SequentialSearchIteratorTripleID;
 import com.the_qa_company.qendpoint.core.options.HDTOptionsKeys;
 import com.the_qa_company.qendpoint.core.options.HDTSpecification;
+import com.the_qa_company.qendpoint.core.triples.IteratorTripleID;
 import com.the_qa_company.qendpoint.core.triples.IteratorTripleString;
 import com.the_qa_company.qendpoint.core.triples.TripleID;
 import com.the_qa_company.qendpoint.core.triples.TripleString;
@@ -339,4 +340,52 @@ public class BitmapTriplesIteratorPositionTest extends AbstractMapMemoryTest {
 		searchTPSTest(1, 1, 1); // Tested pattern: SPO
 	}
 
+	@Test
+	public void rangeTest() throws IOException {
+		try (HDTTestUtils data = new HDTTestUtils(tempDir.newFile(), subjects, predicates, objects, shared, spec,
+				false)) {
+			List<TripleID> triples = new ArrayList<>();
+			IteratorTripleID all = data.hdt.getTriples().searchAll();
+			while (all.hasNext()) {
+				triples.add(all.next().clone());
+			}
+
+			Set<TripleID> patterns = new LinkedHashSet<>();
+			patterns.add(new TripleID());
+			for (TripleID triple : triples) {
+				patterns.add(new TripleID(triple.getSubject(), 0, 0));
+				patterns.add(new TripleID(triple.getSubject(), triple.getPredicate(), 0));
+				patterns.add(triple);
+			}
+
+			for (TripleID pattern : patterns) {
+				IteratorTripleID it = data.hdt.getTriples().search(pattern);
+				long first = it.getFirstTriplePosition();
+				Assert.assertNotEquals("pattern " + pattern, -1, first);
+				long count = it.estimatedNumResults();
+
+				List<TripleID> results = new ArrayList<>();
+				while (it.hasNext()) {
+					TripleID triple = it.next().clone();
+					Assert.assertEquals(first + results.size(), it.getLastTriplePosition());
+					results.add(triple);
+				}
+				Assert.assertEquals("pattern " + pattern, count, results.size());
+
+				for (int i = 0; i <= results.size(); i++) {
+					it.goToTriplePosition(first + i);
+					if (i == results.size()) {
+						Assert.assertFalse(it.hasNext());
+					} else {
+						Assert.assertTrue(it.hasNext());
+						Assert.assertEquals(results.get(i), it.next());
+						Assert.assertEquals(first + i, it.getLastTriplePosition());
+						if (i + 1 < results.size()) {
+							Assert.assertEquals(results.get(i + 1), it.next());
+						}
+					}
+				}
+			}
+		}
+	}
 }
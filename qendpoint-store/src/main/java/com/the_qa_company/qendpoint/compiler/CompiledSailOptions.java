@@ -39,6 +39,9 @@ public class CompiledSailOptions {
 	private HDTOptions hdtSpec;
 	private int timeoutUpdate;
 	private int timeoutQuery;
+	private int queryCacheSize;
+	private int queryCacheTTL;
+	private int parsedQueryCacheSize;
 	private Map<String, String> hdtOptions;
 
 	public CompiledSailOptions() {
@@ -58,6 +61,9 @@ public class CompiledSailOptions {
 			hdtSpec = debugOptions.hdtSpec;
 			timeoutUpdate = debugOptions.timeoutUpdate;
 			timeoutQuery = debugOptions.timeoutQuery;
+			queryCacheSize = debugOptions.queryCacheSize;
+			queryCacheTTL = debugOptions.queryCacheTTL;
+			parsedQueryCacheSize = debugOptions.parsedQueryCacheSize;
 			hdtOptions = debugOptions.hdtOptions;
 			dumpLocation = debugOptions.dumpLocation;
 			return;
@@ -77,6 +83,9 @@ public class CompiledSailOptions {
 		hdtSpec = HDTOptions.empty();
 		timeoutUpdate = SailCompilerSchema.TIMEOUT_UPDATE.getHandler().defaultValue();
 		timeoutQuery = SailCompilerSchema.TIMEOUT_QUERY.getHandler().defaultValue();
+		queryCacheSize = SailCompilerSchema.QUERY_CACHE_SIZE.getHandler().defaultValue();
+		queryCacheTTL = SailCompilerSchema.QUERY_CACHE_TTL.getHandler().defaultValue();
+		parsedQueryCacheSize = SailCompilerSchema.PARSED_QUERY_CACHE_SIZE.getHandler().defaultValue();
 		hdtOptions = Map.of();
 		dumpLocation = Path.of("dump");
 	}
@@ -100,6 +109,10 @@ public class CompiledSailOptions {
 				.of(reader.searchPropertyValue(SailCompilerSchema.MAIN, SailCompilerSchema.HDT_SPEC_PROPERTY));
 		timeoutUpdate = reader.searchPropertyValue(SailCompilerSchema.MAIN, SailCompilerSchema.TIMEOUT_UPDATE);
 		timeoutQuery = reader.searchPropertyValue(SailCompilerSchema.MAIN, SailCompilerSchema.TIMEOUT_QUERY);
+		queryCacheSize = reader.searchPropertyValue(SailCompilerSchema.MAIN, SailCompilerSchema.QUERY_CACHE_SIZE);
+		queryCacheTTL = reader.searchPropertyValue(SailCompilerSchema.MAIN, SailCompilerSchema.QUERY_CACHE_TTL);
+		parsedQueryCacheSize = reader.searchPropertyValue(SailCompilerSchema.MAIN,
+				SailCompilerSchema.PARSED_QUERY_CACHE_SIZE);
 		hdtOptions = reader.search(SailCompilerSchema.MAIN, SailCompilerSchema.GEN_HDT_OPTION_PARAM).stream()
 				.map(SailCompiler::asResource).collect(
 						Collectors.toMap(
@@ -295,6 +308,30 @@ public class CompiledSailOptions {
 		this.timeoutQuery = timeoutQuery;
 	}
 
+	public int getQueryCacheSize() {
+		return queryCacheSize;
+	}
+
+	public void setQueryCacheSize(int queryCacheSize) {
+		this.queryCacheSize = queryCacheSize;
+	}
+
+	public int getQueryCacheTTL() {
+		return queryCacheTTL;
+	}
+
+	public void setQueryCacheTTL(int queryCacheTTL) {
+		this.queryCacheTTL = queryCacheTTL;
+	}
+
+	public int getParsedQueryCacheSize() {
+		return parsedQueryCacheSize;
+	}
+
+	public void setParsedQueryCacheSize(int parsedQueryCacheSize) {
+		this.parsedQueryCacheSize = parsedQueryCacheSize;
+	}
+
 	public Map<String, String> getHdtOptions() {
 		return hdtOptions;
 	}
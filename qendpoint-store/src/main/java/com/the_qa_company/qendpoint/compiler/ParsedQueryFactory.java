@@ -0,0 +1,94 @@
+package com.the_qa_company.qendpoint.compiler;
+
+import org.eclipse.rdf4j.query.BooleanQuery;
+import org.eclipse.rdf4j.query.GraphQuery;
+import org.eclipse.rdf4j.query.TupleQuery;
+import org.eclipse.rdf4j.query.parser.ParsedBooleanQuery;
+import org.eclipse.rdf4j.query.parser.ParsedGraphQuery;
+import org.eclipse.rdf4j.query.parser.ParsedTupleQuery;
+import org.eclipse.rdf4j.repository.RepositoryConnection;
+import org.eclipse.rdf4j.repository.sail.SailBooleanQuery;
+import org.eclipse.rdf4j.repository.sail.SailGraphQuery;
+import org.eclipse.rdf4j.repository.sail.SailRepositoryConnection;
+import org.eclipse.rdf4j.repository.sail.SailTupleQuery;
+
+/**
+ * Factory of the queries of a connection from already parsed queries. The
+ * parsed queries can be shared by the executions, each query is using a copy of
+ * the expression. The queries of a connection not using a sail are parsed again
+ * from the source string.
+ */
+public final class ParsedQueryFactory {
+	/**
+	 * create a tuple query
+	 *
+	 * @param connection  the connection
+	 * @param parsedQuery the parsed query, not modified
+	 * @return query
+	 */
+	public static TupleQuery prepareTupleQuery(RepositoryConnection connection, ParsedTupleQuery parsedQuery) {
+		if (!(connection instanceof SailRepositoryConnection sailConnection)) {
+			return connection.prepareTupleQuery(parsedQuery.getSourceString());
+		}
+		ParsedTupleQuery copy = new ParsedTupleQuery(parsedQuery.getSourceString(), parsedQuery.getTupleExpr().clone());
+		copy.setDataset(parsedQuery.getDataset());
+		return new SailTupleQuery(copy, sailConnection);
+	}
+
+	/**
+	 * create a boolean query
+	 *
+	 * @param connection  the connection
+	 * @param parsedQuery the parsed query, not modified
+	 * @return query
+	 */
+	public static BooleanQuery prepareBooleanQuery(RepositoryConnection connection, ParsedBooleanQuery parsedQuery) {
+		if (!(connection instanceof SailRepositoryConnection sailConnection)) {
+			return connection.prepareBooleanQuery(parsedQuery.getSourceString());
+		}
+		ParsedBooleanQuery copy = new ParsedBooleanQuery(parsedQuery.getSourceString(),
+				parsedQuery.getTupleExpr().clone());
+		copy.setDataset(parsedQuery.getDataset());
+		return new ParsedSailBooleanQuery(copy, sailConnection);
+	}
+
+	/**
+	 * create a graph query
+	 *
+	 * @param connection  the connection
+	 * @param parsedQuery the parsed query, not modified
+	 * @return query
+	 */
+	public static GraphQuery prepareGraphQuery(RepositoryConnection connection, ParsedGraphQuery parsedQuery) {
+		if (!(connection instanceof SailRepositoryConnection sailConnection)) {
+			return connection.prepareGraphQuery(parsedQuery.getSourceString());
+		}
+		ParsedGraphQuery copy = new ParsedGraphQuery(parsedQuery.getSourceString(), parsedQuery.getTupleExpr().clone(),
+				parsedQuery.getQueryNamespaces());
+		copy.setDataset(parsedQuery.getDataset());
+		return new ParsedSailGraphQuery(copy, sailConnection);
+	}
+
+	/**
+	 * boolean query of a parsed query, the constructor of
+	 * {@link SailBooleanQuery} isn't public
+	 */
+	private static class ParsedSailBooleanQuery extends SailBooleanQuery {
+		private ParsedSailBooleanQuery(ParsedBooleanQuery parsedQuery, SailRepositoryConnection connection) {
+			super(parsedQuery, connection);
+		}
+	}
+
+	/**
+	 * graph query of a parsed query, the constructor of {@link SailGraphQuery}
+	 * isn't public
+	 */
+	private static class ParsedSailGraphQuery extends SailGraphQuery {
+		private ParsedSailGraphQuery(ParsedGraphQuery parsedQuery, SailRepositoryConnection connection) {
+			super(parsedQuery, connection);
+		}
+	}
+
+	private ParsedQueryFactory() {
+	}
+}
@@ -0,0 +1,224 @@
+package com.the_qa_company.qendpoint.compiler;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Cache of the serialized results of the queries executed by a
+ * {@link SparqlRepository}. The results are stored per query and accept format,
+ * an entry is invalidated when the data version of the store changes, after its
+ * time to live or when the cache is full.
+ */
+public class QueryResultCache {
+	/**
+	 * key of a cached result
+	 *
+	 * @param query    the trimmed query, with the config lines
+	 * @param params   the query parameters
+	 * @param format   the accept header
+	 * @param language the accept language header
+	 */
+	public record Key(String query, String params, String format, String language) {
+		private long size() {
+			return 2L * (length(query) + length(params) + length(format) + length(language));
+		}
+
+		private static int length(String s) {
+			return s == null ? 0 : s.length();
+		}
+	}
+
+	/**
+	 * cached result
+	 *
+	 * @param result   the serialized result
+	 * @param mimeType the mime type of the result
+	 */
+	public record CachedResult(byte[] result, String mimeType) {}
+
+	private record Entry(CachedResult result, long version, long expiration, long size) {}
+
+	private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+	private final long maxSize;
+	private final long ttl;
+	private long size;
+
+	/**
+	 * create a cache
+	 *
+	 * @param maxSize the maximum size of the cache in bytes
+	 * @param ttl     the time to live of an entry in seconds
+	 */
+	public QueryResultCache(long maxSize, long ttl) {
+		this.maxSize = maxSize;
+		this.ttl = TimeUnit.SECONDS.toNanos(ttl);
+	}
+
+	/**
+	 * get a cached result
+	 *
+	 * @param key     the key
+	 * @param version the current data version of the store
+	 * @return the result, null if the result isn't cached or expired
+	 */
+	public synchronized CachedResult get(Key key, long version) {
+		Entry entry = entries.get(key);
+		if (entry == null) {
+			return null;
+		}
+		if (entry.version != version || System.nanoTime() - entry.expiration > 0) {
+			entries.remove(key);
+			size -= entry.size;
+			return null;
+		}
+		return entry.result;
+	}
+
+	/**
+	 * put a result in the cache, the least recently used entries are removed if
+	 * the cache is full
+	 *
+	 * @param key      the key
+	 * @param version  the data version of the store before the evaluation
+	 * @param result   the serialized result
+	 * @param mimeType the mime type of the result
+	 */
+	public synchronized void put(Key key, long version, byte[] result, String mimeType) {
+		long entrySize = key.size() + result.length;
+		if (entrySize > maxSize) {
+			return;
+		}
+		Entry old = entries.put(key,
+				new Entry(new CachedResult(result, mimeType), version, System.nanoTime() + ttl, entrySize));
+		if (old != null) {
+			size -= old.size;
+		}
+		size += entrySize;
+		Iterator<Entry> it = entries.values().iterator();
+		while (size > maxSize && it.hasNext()) {
+			size -= it.next().size;
+			it.remove();
+		}
+	}
+
+	/**
+	 * remove all the entries
+	 */
+	public synchronized void clear() {
+		entries.clear();
+		size = 0;
+	}
+
+	/**
+	 * @return the number of cached results
+	 */
+	public synchronized int size() {
+		return entries.size();
+	}
+
+	/**
+	 * @return the size of the cached results in bytes
+	 */
+	public synchronized long getSizeBytes() {
+		return size;
+	}
+
+	/**
+	 * create a stream writing a result and copying it to put it in the cache
+	 *
+	 * @param key        the key of the result
+	 * @param version    the data version of the store before the evaluation
+	 * @param out        the output stream of the result
+	 * @param mimeSetter the mime setter of the result
+	 * @return stream
+	 */
+	public ResultCapture capture(Key key, long version, OutputStream out, Consumer<String> mimeSetter) {
+		return new ResultCapture(key, version, out, mimeSetter);
+	}
+
+	/**
+	 * stream writing a result and copying it to put it in the cache, the copy
+	 * is stopped if the result is bigger than the cache
+	 */
+	public class ResultCapture extends OutputStream {
+		private final Key key;
+		private final long version;
+		private final OutputStream out;
+		private final Consumer<String> mimeSetter;
+		private ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+		private String mimeType;
+
+		private ResultCapture(Key key, long version, OutputStream out, Consumer<String> mimeSetter) {
+			this.key = key;
+			this.version = version;
+			this.out = out;
+			this.mimeSetter = mimeSetter;
+		}
+
+		/**
+		 * set the mime type of the result
+		 *
+		 * @param mimeType mime type
+		 */
+		public void setMimeType(String mimeType) {
+			this.mimeType = mimeType;
+			mimeSetter.accept(mimeType);
+		}
+
+		private void copy(byte[] b, int off, int len) {
+			if (buffer == null) {
+				return;
+			}
+			if (buffer.size() + len > maxSize) {
+				// too big for the cache
+				buffer = null;
+				return;
+			}
+			buffer.write(b, off, len);
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			out.write(b);
+			if (buffer != null) {
+				if (buffer.size() + 1 > maxSize) {
+					// too big for the cache
+					buffer = null;
+				} else {
+					buffer.write(b);
+				}
+			}
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			out.write(b, off, len);
+			copy(b, off, len);
+		}
+
+		@Override
+		public void flush() throws IOException {
+			out.flush();
+		}
+
+		@Override
+		public void close() throws IOException {
+			out.close();
+		}
+
+		/**
+		 * put the written result in the cache, should be called after a
+		 * complete evaluation
+		 */
+		public void save() {
+			if (buffer != null && mimeType != null) {
+				put(key, version, buffer.toByteArray(), mimeType);
+			}
+		}
+	}
+}
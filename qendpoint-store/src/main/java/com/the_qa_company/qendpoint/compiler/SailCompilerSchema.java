@@ -261,6 +261,21 @@ public class SailCompilerSchema {
 	 */
 	public static final Property<Integer, NumberTypeValueHandler> TIMEOUT_QUERY = propertyInt("timeoutQuery",
 			"the maximum time for non-update query, in second", 300, 0);
+	/**
+	 * mdlc:queryCacheSize
+	 */
+	public static final Property<Integer, NumberTypeValueHandler> QUERY_CACHE_SIZE = propertyInt("queryCacheSize",
+			"the maximum size of the query result cache, in bytes, 0 to disable the cache", 0, 0);
+	/**
+	 * mdlc:queryCacheTTL
+	 */
+	public static final Property<Integer, NumberTypeValueHandler> QUERY_CACHE_TTL = propertyInt("queryCacheTTL",
+			"the time to live of the cached query results, in second", 60, 1);
+	/**
+	 * mdlc:parsedQueryCacheSize
+	 */
+	public static final Property<Integer, NumberTypeValueHandler> PARSED_QUERY_CACHE_SIZE = propertyInt(
+			"parsedQueryCacheSize", "the maximum number of parsed queries to cache, 0 to disable the cache", 1000, 0);
 
 	/**
 	 * mdlc:hdtPassMode property
@@ -1,16 +1,28 @@
 package com.the_qa_company.qendpoint.compiler;
 
 import com.github.jsonldjava.shaded.com.google.common.base.Stopwatch;
+import com.the_qa_company.qendpoint.core.exceptions.ParserException;
+import com.the_qa_company.qendpoint.core.hdt.HDT;
+import com.the_qa_company.qendpoint.core.hdt.HDTManager;
+import com.the_qa_company.qendpoint.core.iterator.utils.CatIterator;
+import com.the_qa_company.qendpoint.core.options.HDTOptionsKeys;
+import com.the_qa_company.qendpoint.core.quad.QuadString;
+import com.the_qa_company.qendpoint.core.triples.TripleString;
+import com.the_qa_company.qendpoint.core.util.LRUCache;
 import com.the_qa_company.qendpoint.core.util.StopWatch;
 import com.the_qa_company.qendpoint.store.EndpointStore;
 import com.the_qa_company.qendpoint.store.EndpointStoreConnection;
+import com.the_qa_company.qendpoint.store.EndpointStoreUtils;
 import com.the_qa_company.qendpoint.store.exception.EndpointStoreInputException;
 import com.the_qa_company.qendpoint.utils.FormatUtils;
+import com.the_qa_company.qendpoint.utils.MapIterator;
+import com.the_qa_company.qendpoint.utils.OverrideHDTOptions;
 import com.the_qa_company.qendpoint.utils.RDFStreamUtils;
 import com.the_qa_company.qendpoint.utils.rdf.*;
 import com.the_qa_company.qendpoint.utils.sail.SourceSailConnectionWrapper;
 import jakarta.json.Json;
 import jakarta.json.stream.JsonGenerator;
+import org.apache.commons.io.file.PathUtils;
 import org.eclipse.rdf4j.model.Namespace;
 import org.eclipse.rdf4j.model.Statement;
 import org.eclipse.rdf4j.model.util.Values;
@@ -36,6 +48,7 @@ import org.slf4j.LoggerFactory;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.*;
@@ -51,13 +64,34 @@ import java.util.stream.Collectors;
  */
 public class SparqlRepository {
 	private static final Logger logger = LoggerFactory.getLogger(SparqlRepository.class);
+	private static final Pattern MINUS_PATTERN = Pattern.compile("MINUS \\{(.*\\n)+.+}\\n\\s+}");
 	private final CompiledSail compiledSail;
 	private final SailRepository repository;
 	private final Map<String, Namespace> defaultPrefixes = new TreeMap<>();
+	private final QueryResultCache queryResultCache;
+	private final Map<String, ParsedQuery> parsedQueryCache;
 
 	public SparqlRepository(CompiledSail compiledSail) {
 		this.compiledSail = Objects.requireNonNull(compiledSail, "compiledSail can't be null!");
 		this.repository = new SailRepository(compiledSail);
+		int cacheSize = compiledSail.getOptions().getQueryCacheSize();
+		if (cacheSize <= 0) {
+			queryResultCache = null;
+		} else if (compiledSail.getSource() instanceof EndpointStore) {
+			queryResultCache = new QueryResultCache(cacheSize, compiledSail.getOptions().getQueryCacheTTL());
+		} else {
+			logger.warn("The query result cache is only available with an endpoint store, the cache is disabled");
+			queryResultCache = null;
+		}
+		int parsedCacheSize = compiledSail.getOptions().getParsedQueryCacheSize();
+		parsedQueryCache = parsedCacheSize > 0 ? Collections.synchronizedMap(new LRUCache<>(parsedCacheSize)) : null;
+	}
+
+	/**
+	 * @return the query result cache, null if the cache is disabled
+	 */
+	public QueryResultCache getQueryResultCache() {
+		return queryResultCache;
 	}
 
 	/**
@@ -416,7 +450,7 @@ public class SparqlRepository {
 				}
 			}
 		}
-		return (ClosableResult<GraphQueryResult>) res.getResult();
+		return (ClosableResult<GraphQueryResult>) res;
 	}
 
 	private static EndpointStoreConnection getTimeoutEndpointConnection(RepositoryConnection start) {
@@ -490,11 +524,34 @@ public class SparqlRepository {
 	private ClosableResult<?> execute0(RepositoryConnection customConnection, String sparqlQuery, int timeout,
 			String acceptHeader, String acceptLanguageHeader, Consumer<String> mimeSetter, OutputStream out,
 			String queryParam) {
+		// the config lines and the cache key are read from the trimmed query
+		sparqlQuery = sparqlQuery.trim();
 
 		if (sparqlQuery.isEmpty()) {
 			throw new EndpointStoreInputException("Empty query");
 		}
 
+		QueryResultCache.ResultCapture capture = null;
+		if (queryResultCache != null && out != null && customConnection == null) {
+			// the custom connections can contain uncommitted changes
+			QueryResultCache.Key key = new QueryResultCache.Key(sparqlQuery, queryParam, acceptHeader,
+					acceptLanguageHeader);
+			long version = ((EndpointStore) compiledSail.getSource()).getDataVersion();
+			QueryResultCache.CachedResult cached = queryResultCache.get(key, version);
+			if (cached != null) {
+				mimeSetter.accept(cached.mimeType());
+				try {
+					out.write(cached.result());
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+				return null;
+			}
+			capture = queryResultCache.capture(key, version, out, mimeSetter);
+			out = capture;
+			mimeSetter = capture::setMimeType;
+		}
+
 		RepositoryConnection connectionCloseable;
 		RepositoryConnection connection;
 		boolean connectionClosed = false;
@@ -595,25 +652,16 @@ public class SparqlRepository {
 					sparqlQuery = sparqlQuery.substring(start);
 				}
 			}
-			sparqlQuery = applyPrefixes(sparqlQuery);
-			sparqlQuery = sparqlQuery.replaceAll("MINUS \\{(.*\\n)+.+}\\n\\s+}", "");
-
-			logger.info("Running given sparql query: {}", sparqlQuery);
-
-			ParsedQuery parsedQuery;
+			ParsedQuery parsedQuery = parseQuery(sparqlQuery);
 
-			try {
-				parsedQuery = QueryParserUtil.parseQuery(QueryLanguage.SPARQL, sparqlQuery, null);
-			} catch (RuntimeException re) {
-				throw new CantParseQueryException(re);
-			}
+			logger.info("Running given sparql query: {}", parsedQuery.getSourceString());
 
 			if (compiledSail.getOptions().isDebugShowPlans()) {
 				System.out.println(parsedQuery);
 			}
 
 			if (parsedQuery instanceof ParsedTupleQuery) {
-				TupleQuery query = connection.prepareTupleQuery(sparqlQuery);
+				TupleQuery query = ParsedQueryFactory.prepareTupleQuery(connection, (ParsedTupleQuery) parsedQuery);
 				if (epCo != null) {
 					epCo.setConnectionTimeout(rTimeout * 1_000L);
 				} else {
@@ -653,6 +701,9 @@ public class SparqlRepository {
 							assert writer instanceof QueryResultCounter;
 							logger.info("Complete query with {} triples", ((QueryResultCounter) writer).getCount());
 						}
+						if (capture != null) {
+							capture.save();
+						}
 						if (customConnection == null) {
 							connection.close();
 						}
@@ -671,7 +722,8 @@ public class SparqlRepository {
 					}
 				}
 			} else if (parsedQuery instanceof ParsedBooleanQuery) {
-				BooleanQuery query = connection.prepareBooleanQuery(sparqlQuery);
+				BooleanQuery query = ParsedQueryFactory.prepareBooleanQuery(connection,
+						(ParsedBooleanQuery) parsedQuery);
 				try {
 					if (epCo != null) {
 						epCo.setConnectionTimeout(rTimeout * 1_000L);
@@ -703,6 +755,9 @@ public class SparqlRepository {
 						}
 
 						writer.handleBoolean(query.evaluate());
+						if (capture != null) {
+							capture.save();
+						}
 						if (customConnection == null) {
 							connection.close();
 						}
@@ -716,7 +771,7 @@ public class SparqlRepository {
 					throw new RuntimeException(q);
 				}
 			} else if (parsedQuery instanceof ParsedGraphQuery) {
-				GraphQuery query = connection.prepareGraphQuery(sparqlQuery);
+				GraphQuery query = ParsedQueryFactory.prepareGraphQuery(connection, (ParsedGraphQuery) parsedQuery);
 				if (epCo != null) {
 					epCo.setConnectionTimeout(rTimeout * 1_000L);
 				} else {
@@ -735,6 +790,9 @@ public class SparqlRepository {
 						if (compiledSail.getOptions().isDebugShowCount()) {
 							logger.info("Complete query with {} triples", ((RDFHandlerCounter) handler).getCount());
 						}
+						if (capture != null) {
+							capture.save();
+						}
 						if (customConnection == null) {
 							connection.close();
 						}
@@ -763,6 +821,38 @@ public class SparqlRepository {
 		}
 	}
 
+	/**
+	 * apply the default prefixes to a query and parse it, the parsed queries
+	 * are cached with the query before the application of the prefixes
+	 *
+	 * @param sparqlQuery the query, without the config lines
+	 * @return parsed query, shouldn't be modified
+	 * @throws CantParseQueryException if the query can't be parsed
+	 */
+	private ParsedQuery parseQuery(String sparqlQuery) {
+		if (parsedQueryCache != null) {
+			ParsedQuery cached = parsedQueryCache.get(sparqlQuery);
+			if (cached != null) {
+				return cached;
+			}
+		}
+
+		String query = applyPrefixes(sparqlQuery);
+		query = MINUS_PATTERN.matcher(query).replaceAll("");
+
+		ParsedQuery parsedQuery;
+		try {
+			parsedQuery = QueryParserUtil.parseQuery(QueryLanguage.SPARQL, query, null);
+		} catch (RuntimeException re) {
+			throw new CantParseQueryException(re);
+		}
+
+		if (parsedQueryCache != null) {
+			parsedQueryCache.put(sparqlQuery, parsedQuery);
+		}
+		return parsedQuery;
+	}
+
 	/**
 	 * execute a sparql update query
 	 *
@@ -831,7 +921,10 @@ public class SparqlRepository {
 
 	/**
 	 * load a file using updates, will split the file into split of size
-	 * {@link CompiledSailOptions#getRdf4jSplitUpdate()}
+	 * {@link CompiledSailOptions#getRdf4jSplitUpdate()}. If the source is an
+	 * {@link EndpointStore} without lucene sail and the file contains more than
+	 * {@link EndpointStore#OPTION_QENDPOINT_LOAD_HDT_THRESHOLD} statements, the
+	 * file is converted into an HDT merged with the store instead.
 	 *
 	 * @param inputStream file stream
 	 * @param filename    file name to get the compression and the rdf type
@@ -848,6 +941,23 @@ public class SparqlRepository {
 						() -> new EndpointStoreInputException("file format not supported " + filename)),
 				true);
 
+		if (compiledSail.getSource() instanceof EndpointStore endpoint && !hasLuceneSail()) {
+			int threshold = endpoint.getHDTSpec().getInt32(EndpointStore.OPTION_QENDPOINT_LOAD_HDT_THRESHOLD,
+					EndpointStore.DEFAULT_QENDPOINT_LOAD_HDT_THRESHOLD);
+			if (threshold > 0) {
+				List<Statement> head = new ArrayList<>();
+				while (head.size() < threshold && it.hasNext()) {
+					head.add(it.next());
+				}
+				if (it.hasNext()) {
+					loadFileAsHDT(endpoint, CatIterator.of(head.iterator(), it), filename);
+					logger.info("NT file loaded in {}", timeWatch.stopAndShow());
+					return;
+				}
+				it = head.iterator();
+			}
+		}
+
 		long triples = 0;
 		long total = 0;
 		while (it.hasNext()) {
@@ -876,6 +986,53 @@ public class SparqlRepository {
 		logger.info("NT file loaded in {}", timeWatch.stopAndShow());
 	}
 
+	/**
+	 * convert the statements into an HDT with the disk generator and merge it
+	 * with the endpoint store
+	 *
+	 * @param endpoint   the endpoint store
+	 * @param statements the statements to load
+	 * @param filename   file name to get the base URI
+	 * @throws IOException generation or merge exception
+	 */
+	private void loadFileAsHDT(EndpointStore endpoint, Iterator<? extends Statement> statements, String filename)
+			throws IOException {
+		Path location = endpoint.getEndpointFiles().getLocationHdtPath().resolve("loader");
+		Path hdtFile = location.resolve("load.hdt");
+		boolean graph = endpoint.getHdt().getDictionary().supportGraphs();
+
+		OverrideHDTOptions oopt = new OverrideHDTOptions(endpoint.getHDTSpec());
+		oopt.setOverride(HDTOptionsKeys.LOADER_TYPE_KEY, HDTOptionsKeys.LOADER_TYPE_VALUE_DISK);
+		oopt.setOverride(HDTOptionsKeys.LOADER_DISK_LOCATION_KEY, location.resolve("gen"));
+		oopt.setOverride(HDTOptionsKeys.LOADER_DISK_FUTURE_HDT_LOCATION_KEY, location.resolve("wip.hdt"));
+		// the mapped triples are already new String instances
+		oopt.setOverride(HDTOptionsKeys.LOADER_DISK_NO_COPY_ITERATOR_KEY, true);
+		try {
+			Iterator<TripleString> it = new MapIterator<>(statements, stm -> {
+				if (graph) {
+					return new QuadString(stm.getSubject().toString(), stm.getPredicate().toString(),
+							stm.getObject().toString(), stm.getContext() == null ? "" : stm.getContext().toString());
+				}
+				return new TripleString(stm.getSubject().toString(), stm.getPredicate().toString(),
+						stm.getObject().toString());
+			});
+			try (HDT hdt = HDTManager.generateHDT(it, EndpointStoreUtils.baseURIFromFilename(filename), oopt, null)) {
+				hdt.saveToHDT(hdtFile.toAbsolutePath().toString(), null);
+			} catch (ParserException e) {
+				throw new IOException(e);
+			}
+			logger.info("HDT generated, merging it with the store");
+			endpoint.mergeHDT(hdtFile);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while merging the HDT", e);
+		} finally {
+			if (Files.exists(location)) {
+				PathUtils.deleteDirectory(location);
+			}
+		}
+	}
+
 	/**
 	 * add default prefixes
 	 *
@@ -953,6 +1110,13 @@ public class SparqlRepository {
 
 	private void syncPrefix() {
 		// sync prefixes, will be important when the prefix PR will be available
+		if (queryResultCache != null) {
+			// the cached results were computed with the old prefixes
+			queryResultCache.clear();
+		}
+		if (parsedQueryCache != null) {
+			parsedQueryCache.clear();
+		}
 	}
 
 	/**
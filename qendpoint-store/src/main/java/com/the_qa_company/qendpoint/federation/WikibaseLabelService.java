@@ -1,5 +1,9 @@
 package com.the_qa_company.qendpoint.federation;
 
+import com.the_qa_company.qendpoint.core.dictionary.impl.MultipleLangBaseDictionary;
+import com.the_qa_company.qendpoint.core.util.LRUCache;
+import com.the_qa_company.qendpoint.model.HDTValue;
+import com.the_qa_company.qendpoint.store.EndpointTripleSource;
 import org.eclipse.rdf4j.common.iteration.CloseableIteration;
 import org.eclipse.rdf4j.model.IRI;
 import org.eclipse.rdf4j.model.Literal;
@@ -11,6 +15,7 @@ import org.eclipse.rdf4j.model.base.CoreDatatype;
 import org.eclipse.rdf4j.model.impl.SimpleValueFactory;
 import org.eclipse.rdf4j.model.vocabulary.RDFS;
 import org.eclipse.rdf4j.model.vocabulary.SKOS;
+import org.eclipse.rdf4j.query.Binding;
 import org.eclipse.rdf4j.query.BindingSet;
 import org.eclipse.rdf4j.query.QueryEvaluationException;
 import org.eclipse.rdf4j.query.algebra.Service;
@@ -23,8 +28,13 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Set;
+import java.util.TreeSet;
 
 /**
  * This implements a federated service that mimics the Wikibase query service
@@ -37,9 +47,36 @@ public class WikibaseLabelService implements FederatedService {
 	private static final Logger logger = LoggerFactory.getLogger(WikibaseLabelService.class);
 
 	static final ValueFactory vf = SimpleValueFactory.getInstance();
+	/**
+	 * number of bindings of a block, the labels of a block are fetched together
+	 */
+	static final int BLOCK_SIZE = 256;
+	/**
+	 * max number of (entity, language) labels kept by a service
+	 */
+	static final int LABEL_CACHE_SIZE = 10_000;
+	private static final IRI[] EXPANSION_PROPERTIES = { RDFS.LABEL, SKOS.ALT_LABEL,
+			vf.createIRI("https://schema.org/description") };
+	private static final String[] EXPANSION_NAME_SUFFIXES = { "Label", "AltLabel", "Description" };
+	// HDT entities first, in the HDT order
+	private static final Comparator<Resource> ENTITY_COMPARATOR = (r1, r2) -> {
+		if (r1 instanceof HDTValue h1 && h1.isValidHDTId()) {
+			if (r2 instanceof HDTValue h2 && h2.isValidHDTId()) {
+				return HDTValue.compare(h1, h2);
+			}
+			return -1;
+		}
+		if (r2 instanceof HDTValue h2 && h2.isValidHDTId()) {
+			return 1;
+		}
+		return r1.toString().compareTo(r2.toString());
+	};
 	private final TripleSource tripleSource;
 	private final String userLocales;
 	private List<String> userLocalesParsed;
+	// labels of the entities in a language, one label by expansion property
+	private final Map<EntityLanguage, String[]> labelCache = Collections
+			.synchronizedMap(new LRUCache<>(LABEL_CACHE_SIZE));
 
 	WikibaseLabelService(TripleSource tripleSource, String userLocales) {
 		this.tripleSource = tripleSource;
@@ -147,30 +184,10 @@ public class WikibaseLabelService implements FederatedService {
 				if (statement.getObjectVar().getValue().isLiteral()) {
 					Literal literal = (Literal) statement.getObjectVar().getValue();
 					if (literal.getCoreDatatype() == CoreDatatype.XSD.STRING) {
-						List<String> languages = getAskedLanguage(literal.getLabel());
+						List<String> languages = getAskedLanguage(literal.getLabel()).stream().distinct().toList();
 
 						if (languages.size() > 0) {
-							return new CloseableIteration<>() {
-								@Override
-								public void close() throws QueryEvaluationException {
-									closeableIteration.close();
-								}
-
-								@Override
-								public boolean hasNext() throws QueryEvaluationException {
-									return closeableIteration.hasNext();
-								}
-
-								@Override
-								public BindingSet next() throws QueryEvaluationException {
-									return expandBindingSet(closeableIteration.next(), languages);
-								}
-
-								@Override
-								public void remove() throws QueryEvaluationException {
-									closeableIteration.remove();
-								}
-							};
+							return new LabelIteration(closeableIteration, languages);
 						}
 					}
 
@@ -180,53 +197,196 @@ public class WikibaseLabelService implements FederatedService {
 		throw new QueryEvaluationException();
 	}
 
+	/**
+	 * get the HDT object id ranges of the literals of languages, only available
+	 * with a {@link MultipleLangBaseDictionary}
+	 *
+	 * @param languages the languages
+	 * @return the ranges ]start, end] of the languages, null if not available
+	 */
+	private long[] getLanguageRanges(List<String> languages) {
+		if (!(tripleSource instanceof EndpointTripleSource endpointTripleSource) || !(endpointTripleSource
+				.getEndpointStore().getHdt().getDictionary() instanceof MultipleLangBaseDictionary dictionary)) {
+			return null;
+		}
+		long[] ranges = new long[languages.size() * 2];
+		for (int i = 0; i < languages.size(); i++) {
+			MultipleLangBaseDictionary.ObjectIdLocationData section = dictionary.getLanguageSection(languages.get(i));
+			if (section != null) {
+				ranges[i * 2] = section.location();
+				ranges[i * 2 + 1] = section.location() + section.section().getNumberOfElements();
+			}
+		}
+		return ranges;
+	}
+
+	/**
+	 * get the language index of a value without reading its label if the value
+	 * is a HDT literal
+	 *
+	 * @param value     the value
+	 * @param languages the languages
+	 * @param ranges    the ranges of the languages, null if not available
+	 * @return the index of the language in the languages, -1 if the value isn't
+	 *         a literal with one of these languages
+	 */
+	private static int languageIndex(Value value, List<String> languages, long[] ranges) {
+		if (!value.isLiteral()) {
+			return -1;
+		}
+		if (ranges != null && value instanceof HDTValue hdtValue && hdtValue.isValidHDTId()) {
+			long id = hdtValue.getHDTId();
+			for (int i = 0; i < ranges.length; i += 2) {
+				if (id > ranges[i] && id <= ranges[i + 1]) {
+					return i / 2;
+				}
+			}
+			return -1;
+		}
+		return ((Literal) value).getLanguage().map(languages::indexOf).orElse(-1);
+	}
+
+	/**
+	 * fetch the labels of an entity in the languages and put them in the cache
+	 *
+	 * @param entity    the entity
+	 * @param languages the languages
+	 * @param ranges    the ranges of the languages, null if not available
+	 */
+	private void fetchLabels(Resource entity, List<String> languages, long[] ranges) {
+		String[][] labels = new String[languages.size()][EXPANSION_PROPERTIES.length];
+		for (int e = 0; e < EXPANSION_PROPERTIES.length; e++) {
+			int found = 0;
+			try (CloseableIteration<? extends Statement> iteration = tripleSource.getStatements(entity,
+					EXPANSION_PROPERTIES[e], null)) {
+				while (found < languages.size() && iteration.hasNext()) {
+					Value object = iteration.next().getObject();
+					int index = languageIndex(object, languages, ranges);
+					// only the first label of each language is read
+					if (index != -1 && labels[index][e] == null) {
+						labels[index][e] = ((Literal) object).getLabel();
+						found++;
+					}
+				}
+			}
+		}
+		for (int i = 0; i < languages.size(); i++) {
+			labelCache.put(new EntityLanguage(entity, languages.get(i)), labels[i]);
+		}
+	}
+
 	private BindingSet expandBindingSet(BindingSet bindingSet, List<String> languages) {
 		ArrayList<String> namesWithLabels = new ArrayList<>();
 		ArrayList<Value> valuesWithLabels = new ArrayList<>();
-		// according to https://en.wikibooks.org/wiki/SPARQL/SERVICE_-_Label 3
-		// properties have to be expanded
-		IRI[] expantionProperties = new IRI[] { RDFS.LABEL, SKOS.ALT_LABEL,
-				vf.createIRI("https://schema.org/description") };
-		String[] expantionNameSuffix = new String[] { "Label", "AltLabel", "Description" };
-		for (int e = 0; e < 3; e++) {
-			String[] languageLabels = new String[languages.size()];
-			for (String name : bindingSet.getBindingNames()) {
-				namesWithLabels.add(name);
-				valuesWithLabels.add(bindingSet.getBinding(name).getValue());
-				namesWithLabels.add(name + expantionNameSuffix[e]);
-				if (bindingSet.getBinding(name).getValue() instanceof Resource) {
-					try (CloseableIteration<? extends Statement> iteration = tripleSource.getStatements(
-							(Resource) bindingSet.getBinding(name).getValue(), expantionProperties[e], null)) {
-						while (iteration.hasNext()) {
-							Statement next = iteration.next();
-							if (next.getObject().isLiteral()) {
-								Literal literal = (Literal) next.getObject();
-								if (literal.getLanguage().isPresent()) {
-									for (int i = 0; i < languages.size(); i++) {
-										if (literal.getLanguage().get().equals(languages.get(i))) {
-											languageLabels[i] = literal.getLabel();
-										}
-									}
-								}
-							}
-						}
-					}
-				}
-				boolean found = false;
-				for (String languageLabel : languageLabels) {
-					if (languageLabel != null) {
-						valuesWithLabels.add(vf.createLiteral(languageLabel));
-						found = true;
-						break;
-					}
+		for (String name : bindingSet.getBindingNames()) {
+			Value value = bindingSet.getValue(name);
+			namesWithLabels.add(name);
+			valuesWithLabels.add(value);
+			// according to https://en.wikibooks.org/wiki/SPARQL/SERVICE_-_Label
+			// 3 properties have to be expanded
+			for (int e = 0; e < EXPANSION_PROPERTIES.length; e++) {
+				namesWithLabels.add(name + EXPANSION_NAME_SUFFIXES[e]);
+				valuesWithLabels.add(vf.createLiteral(getLabel(value, languages, e)));
+			}
+		}
+		return new ListBindingSet(namesWithLabels, valuesWithLabels);
+	}
 
+	private String getLabel(Value value, List<String> languages, int property) {
+		if (value instanceof Resource) {
+			for (String language : languages) {
+				String[] labels = labelCache.get(new EntityLanguage(value, language));
+				if (labels != null && labels[property] != null) {
+					return labels[property];
 				}
-				if (!found) {
-					valuesWithLabels.add(vf.createLiteral(""));
+			}
+		}
+		return "";
+	}
+
+	private boolean isCached(Value value, List<String> languages) {
+		for (String language : languages) {
+			if (!labelCache.containsKey(new EntityLanguage(value, language))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * key of the label cache
+	 *
+	 * @param entity   the entity
+	 * @param language the language of the labels
+	 */
+	private record EntityLanguage(Value entity, String language) {}
+
+	/**
+	 * iteration expanding the bindings by blocks, the labels of the entities of
+	 * a block are fetched in the order of the HDT before the expansion
+	 */
+	private class LabelIteration implements CloseableIteration<BindingSet> {
+		private final CloseableIteration<BindingSet> iteration;
+		private final List<String> languages;
+		private final long[] ranges;
+		private final List<BindingSet> block = new ArrayList<>();
+		private int blockIndex;
+
+		private LabelIteration(CloseableIteration<BindingSet> iteration, List<String> languages) {
+			this.iteration = iteration;
+			this.languages = languages;
+			this.ranges = getLanguageRanges(languages);
+		}
+
+		@Override
+		public boolean hasNext() throws QueryEvaluationException {
+			if (blockIndex < block.size()) {
+				return true;
+			}
+			block.clear();
+			blockIndex = 0;
+			while (block.size() < BLOCK_SIZE && iteration.hasNext()) {
+				block.add(iteration.next());
+			}
+			if (block.isEmpty()) {
+				return false;
+			}
+			// fetch the labels of the entities not in the cache, sorted to
+			// read the HDT in order
+			Set<Resource> entities = new TreeSet<>(ENTITY_COMPARATOR);
+			for (BindingSet bindingSet : block) {
+				for (Binding binding : bindingSet) {
+					if (binding.getValue() instanceof Resource entity && !isCached(entity, languages)) {
+						entities.add(entity);
+					}
 				}
 			}
+			for (Resource entity : entities) {
+				fetchLabels(entity, languages, ranges);
+			}
+			for (int i = 0; i < block.size(); i++) {
+				block.set(i, expandBindingSet(block.get(i), languages));
+			}
+			return true;
+		}
+
+		@Override
+		public BindingSet next() throws QueryEvaluationException {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			return block.get(blockIndex++);
+		}
+
+		@Override
+		public void remove() throws QueryEvaluationException {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public void close() throws QueryEvaluationException {
+			iteration.close();
 		}
-		return new ListBindingSet(namesWithLabels, valuesWithLabels);
 	}
 
 	@Override
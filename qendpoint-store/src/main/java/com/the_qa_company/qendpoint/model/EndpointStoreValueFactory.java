@@ -108,7 +108,8 @@ public class EndpointStoreValueFactory extends AbstractValueFactory {
 	@Override
 	public Literal createLiteral(String value, IRI datatype) {
 		if (datatype instanceof SimpleIRIHDT) {
-			((SimpleIRIHDT) datatype).convertToNonHDTIRI();
+			// the HDT values can be shared, use a non HDT copy
+			datatype = super.createIRI(datatype.stringValue());
 		}
 		return super.createLiteral(value, datatype);
 	}
@@ -21,6 +21,11 @@ public class SimpleBNodeHDT extends AbstractBNode implements HDTValue {
 		this.id = id;
 	}
 
+	public SimpleBNodeHDT(HDT hdt, int position, long id, String idValue) {
+		this(hdt, position, id);
+		this.idValue = idValue;
+	}
+
 	@Override
 	public String getID() {
 		if (idValue == null) {
@@ -50,6 +50,11 @@ public class SimpleIRIHDT extends AbstractIRI implements HDTValue {
 		this.localNameIdx = -1;
 	}
 
+	public SimpleIRIHDT(HDT hdt, int position, long id, String iriString) {
+		this(hdt, position, id);
+		this.iriString = iriString;
+	}
+
 	public SimpleIRIHDT(HDT hdt, String iriString) {
 		assert iriString != null;
 		this.hdt = hdt;
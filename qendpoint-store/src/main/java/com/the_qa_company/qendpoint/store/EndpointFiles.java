@@ -223,6 +223,30 @@ public class EndpointFiles {
 		return getHDTIndexV11(locationHdt, hdtIndexName);
 	}
 
+	/**
+	 * @return the statistics file of the HDT
+	 */
+	@ParsedStringValue("hdt.statistics")
+	public String getHDTStatistics() {
+		return getHDTIndex() + ".stats";
+	}
+
+	/**
+	 * @return the value index file of the literals of the HDT
+	 */
+	@ParsedStringValue("hdt.valueindex")
+	public String getHDTValueIndex() {
+		return getHDTIndex() + ".valueindex";
+	}
+
+	/**
+	 * @return the value index file of the literals of the new HDT
+	 */
+	@ParsedStringValue("hdt.new.valueindex")
+	public String getHDTNewValueIndex() {
+		return getHDTNewIndex() + ".valueindex";
+	}
+
 	public List<String> getHDTIndexNames() {
 		return getHDTIndexNames(locationHdt, hdtIndexName);
 	}
@@ -315,6 +339,14 @@ public class EndpointFiles {
 		return locationHdt + "temp.hdt";
 	}
 
+	/**
+	 * @return the loaded HDT file waiting to be merged with the next merge
+	 */
+	@ParsedStringValue("store.loadHDT")
+	public String getHDTLoadOutput() {
+		return locationHdt + "load.hdt";
+	}
+
 	/**
 	 * @return the previous merge file marker
 	 */
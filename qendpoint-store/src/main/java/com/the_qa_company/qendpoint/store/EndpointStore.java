@@ -4,11 +4,14 @@ import com.the_qa_company.qendpoint.core.compact.bitmap.ModifiableMultiLayerBitm
 import com.the_qa_company.qendpoint.core.compact.bitmap.MultiLayerBitmap;
 import com.the_qa_company.qendpoint.core.compact.bitmap.MultiLayerBitmapWrapper;
 import com.the_qa_company.qendpoint.core.dictionary.Dictionary;
+import com.the_qa_company.qendpoint.core.dictionary.impl.LiteralValueIndex;
+import com.the_qa_company.qendpoint.core.dictionary.impl.MultipleLangBaseDictionary;
 import com.the_qa_company.qendpoint.core.enums.TripleComponentOrder;
 import com.the_qa_company.qendpoint.core.enums.TripleComponentRole;
 import com.the_qa_company.qendpoint.core.exceptions.ParserException;
 import com.the_qa_company.qendpoint.core.hdt.HDT;
 import com.the_qa_company.qendpoint.core.hdt.HDTManager;
+import com.the_qa_company.qendpoint.core.listener.MergeMetrics;
 import com.the_qa_company.qendpoint.core.options.HDTOptions;
 import com.the_qa_company.qendpoint.core.options.HDTOptionsKeys;
 import com.the_qa_company.qendpoint.core.triples.IteratorTripleID;
@@ -61,6 +64,7 @@ import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.util.EnumSet;
 import java.util.Iterator;
 import java.util.Optional;
@@ -93,6 +97,76 @@ public class EndpointStore extends AbstractNotifyingSail {
 	 * disable delete bitmaps, default false
 	 */
 	public static final String OPTION_QENDPOINT_DELETE_DISABLE = "qendpoint.delete.disable";
+	/**
+	 * max number of HDT values cached by a connection, 0 to disable the cache,
+	 * default {@link #DEFAULT_QENDPOINT_VALUE_CACHE_SIZE}
+	 */
+	public static final String OPTION_QENDPOINT_VALUE_CACHE_SIZE = "qendpoint.valuecache.size";
+	/**
+	 * default value for {@link #OPTION_QENDPOINT_VALUE_CACHE_SIZE}
+	 */
+	public static final int DEFAULT_QENDPOINT_VALUE_CACHE_SIZE = 4096;
+	/**
+	 * compute the per-predicate statistics of the HDT and save them next to the
+	 * HDT to estimate the cardinality of the patterns, default false
+	 */
+	public static final String OPTION_QENDPOINT_STATISTICS = "qendpoint.statistics";
+	/**
+	 * max number of pattern cardinalities cached for the HDT, 0 to disable the
+	 * cache, default {@link #DEFAULT_QENDPOINT_STATISTICS_CACHE_SIZE}
+	 */
+	public static final String OPTION_QENDPOINT_STATISTICS_CACHE_SIZE = "qendpoint.statistics.cache.size";
+	/**
+	 * default value for {@link #OPTION_QENDPOINT_STATISTICS_CACHE_SIZE}
+	 */
+	public static final int DEFAULT_QENDPOINT_STATISTICS_CACHE_SIZE = 10_000;
+	/**
+	 * size in bits of the filter of the (subject, predicate) and (predicate,
+	 * object) pairs used by the delta, 0 to disable the filter, default
+	 * {@link #DEFAULT_QENDPOINT_DELTA_FILTER_SIZE}
+	 */
+	public static final String OPTION_QENDPOINT_DELTA_FILTER_SIZE = "qendpoint.deltafilter.size";
+	/**
+	 * default value for {@link #OPTION_QENDPOINT_DELTA_FILTER_SIZE}
+	 */
+	public static final int DEFAULT_QENDPOINT_DELTA_FILTER_SIZE = 1 << 24;
+	/**
+	 * number of statements added by a connection buffered before checking their
+	 * existence in the HDT in one ordered sweep, 0 to check each statement when
+	 * it is added, default {@link #DEFAULT_QENDPOINT_BULK_INSERT_BUFFER}
+	 */
+	public static final String OPTION_QENDPOINT_BULK_INSERT_BUFFER = "qendpoint.bulkinsert.buffer";
+	/**
+	 * default value for {@link #OPTION_QENDPOINT_BULK_INSERT_BUFFER}
+	 */
+	public static final int DEFAULT_QENDPOINT_BULK_INSERT_BUFFER = 10_000;
+	/**
+	 * number of statements of a loaded file after which the file is converted
+	 * into an HDT merged with the store instead of being added to the native
+	 * store, 0 to always use the native store, default
+	 * {@link #DEFAULT_QENDPOINT_LOAD_HDT_THRESHOLD}
+	 */
+	public static final String OPTION_QENDPOINT_LOAD_HDT_THRESHOLD = "qendpoint.load.hdt.threshold";
+	/**
+	 * default value for {@link #OPTION_QENDPOINT_LOAD_HDT_THRESHOLD}
+	 */
+	public static final int DEFAULT_QENDPOINT_LOAD_HDT_THRESHOLD = 100_000;
+	/**
+	 * max number of optimized query plans shared by the connections, 0 to
+	 * disable the cache, default
+	 * {@link #DEFAULT_QENDPOINT_QUERY_PLAN_CACHE_SIZE}
+	 */
+	public static final String OPTION_QENDPOINT_QUERY_PLAN_CACHE_SIZE = "qendpoint.queryplan.cache.size";
+	/**
+	 * default value for {@link #OPTION_QENDPOINT_QUERY_PLAN_CACHE_SIZE}
+	 */
+	public static final int DEFAULT_QENDPOINT_QUERY_PLAN_CACHE_SIZE = 1000;
+	/**
+	 * create a value index of the numeric and temporal literals of the HDT to
+	 * push the range filters over these literals to the HDT, only used with a
+	 * multi section dictionary, default false
+	 */
+	public static final String OPTION_QENDPOINT_VALUE_INDEX = "qendpoint.valueindex";
 	private static final AtomicLong ENDPOINT_DEBUG_ID_GEN = new AtomicLong();
 	private static final Logger logger = LoggerFactory.getLogger(EndpointStore.class);
 	private final long debugId;
@@ -104,6 +178,18 @@ public class EndpointStore extends AbstractNotifyingSail {
 
 	// some cached information about the HDT store
 	private HDTProps hdtProps;
+	// statistics of the HDT store
+	private HDTStatistics hdtStatistics;
+	// value index of the literals of the HDT, null if disabled
+	private LiteralValueIndex valueIndex;
+	// counters of the delta
+	private EndpointStoreDeltaStatistics deltaStatistics;
+	// pairs used by the delta, null if disabled
+	private volatile EndpointStoreDeltaFilter deltaFilter;
+	// version of the data, updated after each change of the store
+	private final AtomicLong dataVersion = new AtomicLong();
+	// optimized query plans, null if disabled
+	private final EndpointStoreQueryPlanCache queryPlanCache;
 
 	// stores to store the delta
 	public AbstractNotifyingSail nativeStoreA;
@@ -185,6 +271,9 @@ public class EndpointStore extends AbstractNotifyingSail {
 		// load HDT file
 		this.spec = (spec = HDTOptions.ofNullable(spec));
 		deleteDisabled = spec.getBoolean(OPTION_QENDPOINT_DELETE_DISABLE, false);
+		int planCacheSize = spec.getInt32(OPTION_QENDPOINT_QUERY_PLAN_CACHE_SIZE,
+				DEFAULT_QENDPOINT_QUERY_PLAN_CACHE_SIZE);
+		queryPlanCache = planCacheSize > 0 ? new EndpointStoreQueryPlanCache(planCacheSize) : null;
 		validOrders = getHDTSpec().getEnumSet(HDTOptionsKeys.BITMAPTRIPLES_INDEX_OTHERS, TripleComponentOrder.class);
 		validOrders.add(TripleComponentOrder.SPO); // we need at least SPO
 
@@ -252,6 +341,18 @@ public class EndpointStore extends AbstractNotifyingSail {
 
 		initDeleteArray();
 
+		// the delta counters are only exact if they start with an empty delta
+		boolean emptyDelta = mergeThread.isEmpty()
+				&& (deleteDisabled || getDeleteBitMap(TripleComponentOrder.SPO).getHandle().countOnes() == 0);
+		if (emptyDelta) {
+			try (SailConnection connectionA = nativeStoreA.getConnection();
+					SailConnection connectionB = nativeStoreB.getConnection()) {
+				emptyDelta = !connectionA.hasStatement(null, null, null, false)
+						&& !connectionB.hasStatement(null, null, null, false);
+			}
+		}
+		this.deltaStatistics = new EndpointStoreDeltaStatistics(emptyDelta);
+
 		// initialize the count of the triples
 		mergeThread.ifPresent(thread -> {
 			isMergeTriggered = true;
@@ -336,9 +437,19 @@ public class EndpointStore extends AbstractNotifyingSail {
 		reloadBitX();
 		reloadBitY();
 		reloadBitZ();
+		int filterSize = spec.getInt32(OPTION_QENDPOINT_DELTA_FILTER_SIZE, DEFAULT_QENDPOINT_DELTA_FILTER_SIZE);
+		EndpointStoreDeltaFilter filter = filterSize > 0 ? new EndpointStoreDeltaFilter(filterSize) : null;
 		// if the bitmaps have not been initialized with the native store
 		if (this.bitX.countOnes() == 0 && this.bitY.countOnes() == 0 && this.bitZ.countOnes() == 0) {
+			// the filter is filled with the bitmaps
+			this.deltaFilter = filter;
 			initBitmaps();
+		} else {
+			this.deltaFilter = null;
+			if (filter != null) {
+				initDeltaFilter(filter);
+				this.deltaFilter = filter;
+			}
 		}
 	}
 
@@ -352,9 +463,103 @@ public class EndpointStore extends AbstractNotifyingSail {
 		}
 		this.setHdt(hdt);
 		this.setHdtProps(new HDTProps(hdt));
+		this.hdtStatistics = createStatistics(hdt);
+		resetValueIndex(hdt);
+		if (queryPlanCache != null) {
+			// the plans were created with the ids of the previous HDT
+			queryPlanCache.clear();
+		}
 		initNativeStoreDictionary();
 		this.setValueFactory(new EndpointStoreValueFactory(hdt));
 		this.hdtConverter = new HDTConverter(this);
+		markDataChanged();
+	}
+
+	/**
+	 * @return the version of the data of the store, the version is updated
+	 *         after each committed change, deletion or HDT swap
+	 */
+	public long getDataVersion() {
+		return dataVersion.get();
+	}
+
+	/**
+	 * update the version of the data of the store
+	 */
+	void markDataChanged() {
+		dataVersion.incrementAndGet();
+	}
+
+	/**
+	 * create the statistics of an HDT, read from the statistics file if
+	 * {@link #OPTION_QENDPOINT_STATISTICS} is enabled
+	 *
+	 * @param hdt the HDT
+	 * @return statistics
+	 * @throws IOException can't read or write the statistics file
+	 */
+	HDTStatistics createStatistics(HDT hdt) throws IOException {
+		int cacheSize = spec.getInt32(OPTION_QENDPOINT_STATISTICS_CACHE_SIZE, DEFAULT_QENDPOINT_STATISTICS_CACHE_SIZE);
+		if (!spec.getBoolean(OPTION_QENDPOINT_STATISTICS, false)) {
+			return HDTStatistics.of(hdt, cacheSize);
+		}
+		return HDTStatistics.loadOrCompute(hdt, Path.of(endpointFiles.getHDTStatistics()), cacheSize);
+	}
+
+	/**
+	 * compute the statistics of an HDT and save them into the statistics file
+	 * if {@link #OPTION_QENDPOINT_STATISTICS} is enabled, the file is then read
+	 * by {@link #createStatistics(HDT)} without scanning the triples again
+	 *
+	 * @param hdt the HDT
+	 * @throws IOException can't write the statistics file
+	 */
+	void saveStatistics(HDT hdt) throws IOException {
+		if (spec.getBoolean(OPTION_QENDPOINT_STATISTICS, false)) {
+			HDTStatistics.compute(hdt, 0).save(Path.of(endpointFiles.getHDTStatistics()));
+		}
+	}
+
+	/**
+	 * create the value index of a new HDT into the new value index file if
+	 * {@link #OPTION_QENDPOINT_VALUE_INDEX} is enabled, the file is then moved
+	 * and read by {@link #resetHDT(HDT, boolean)} without reading the literals
+	 * again
+	 *
+	 * @param hdt the new HDT
+	 * @throws IOException can't write the index file
+	 */
+	void createValueIndex(HDT hdt) throws IOException {
+		if (spec.getBoolean(OPTION_QENDPOINT_VALUE_INDEX, false)
+				&& hdt.getDictionary() instanceof MultipleLangBaseDictionary dictionary) {
+			LiteralValueIndex.loadOrCreate(Path.of(endpointFiles.getHDTNewValueIndex()), dictionary).close();
+		}
+	}
+
+	/**
+	 * load or create the value index of an HDT if
+	 * {@link #OPTION_QENDPOINT_VALUE_INDEX} is enabled, the index of the
+	 * previous HDT is closed and replaced by the index created by
+	 * {@link #createValueIndex(HDT)} if any
+	 *
+	 * @param hdt the HDT
+	 * @throws IOException can't read or write the index file
+	 */
+	private void resetValueIndex(HDT hdt) throws IOException {
+		if (valueIndex != null) {
+			valueIndex.close();
+			valueIndex = null;
+		}
+		Path location = Path.of(endpointFiles.getHDTValueIndex());
+		Path newLocation = Path.of(endpointFiles.getHDTNewValueIndex());
+		if (Files.exists(newLocation)) {
+			Files.move(newLocation, location, StandardCopyOption.REPLACE_EXISTING);
+		}
+		if (spec.getBoolean(OPTION_QENDPOINT_VALUE_INDEX, false)
+				&& hdt.getDictionary() instanceof MultipleLangBaseDictionary dictionary) {
+			// created again if the file isn't the index of this HDT
+			valueIndex = LiteralValueIndex.loadOrCreate(location, dictionary);
+		}
 	}
 
 	/**
@@ -505,7 +710,7 @@ public class EndpointStore extends AbstractNotifyingSail {
 			} finally {
 				try {
 					try {
-						Closer.closeAll(hdt, bitX, bitY, bitZ, deleteBitMap);
+						Closer.closeAll(hdt, valueIndex, bitX, bitY, bitZ, deleteBitMap);
 					} finally {
 						if (rdfWriterTempTriples != null) {
 							rdfWriterTempTriples.getWriter().close();
@@ -636,6 +841,36 @@ public class EndpointStore extends AbstractNotifyingSail {
 		return hdtProps;
 	}
 
+	/**
+	 * @return the statistics of the current HDT, recreated after each merge
+	 */
+	public HDTStatistics getHdtStatistics() {
+		return hdtStatistics;
+	}
+
+	/**
+	 * @return the value index of the literals of the current HDT, null if
+	 *         {@link #OPTION_QENDPOINT_VALUE_INDEX} is disabled or if the HDT
+	 *         doesn't use a multi section dictionary
+	 */
+	public LiteralValueIndex getValueIndex() {
+		return valueIndex;
+	}
+
+	/**
+	 * @return the cache of the optimized query plans, null if disabled
+	 */
+	public EndpointStoreQueryPlanCache getQueryPlanCache() {
+		return queryPlanCache;
+	}
+
+	/**
+	 * @return the counters of the delta, used by the query planner
+	 */
+	public EndpointStoreDeltaStatistics getDeltaStatistics() {
+		return deltaStatistics;
+	}
+
 	public void setHdtProps(HDTProps hdtProps) {
 		this.hdtProps = hdtProps;
 	}
@@ -930,6 +1165,30 @@ public class EndpointStore extends AbstractNotifyingSail {
 		}
 	}
 
+	// fill the filter with the triples of the native stores, the frozen store
+	// can contain triples if a merge is restarted
+	private void initDeltaFilter(EndpointStoreDeltaFilter filter) {
+		logger.debug("Filling the delta filter");
+		HDTConverter converter = new HDTConverter(this);
+		for (RepositoryConnection connection : new RepositoryConnection[] { getConnectionToChangingStore(),
+				getConnectionToFreezedStore() }) {
+			try (connection; RepositoryResult<Statement> statements = connection.getStatements(null, null, null)) {
+				for (Statement statement : statements) {
+					filter.add(getHDTId(converter.rdf4jToHdtIDsubject(statement.getSubject())),
+							getHDTId(converter.rdf4jToHdtIDpredicate(statement.getPredicate())),
+							getHDTId(converter.rdf4jToHdtIDobject(statement.getObject())));
+				}
+			}
+		}
+	}
+
+	private static long getHDTId(Value value) {
+		if (value instanceof HDTValue hv) {
+			return hv.getHDTId();
+		}
+		return -1;
+	}
+
 	public void modifyBitmaps(Resource subject, IRI predicate, Value object) {
 		// mark in HDT the store the subject, predicate, objects that are used
 		// in rdf4j
@@ -964,12 +1223,28 @@ public class EndpointStore extends AbstractNotifyingSail {
 
 		if (object != -1 && object != 0) {
 			if (object <= this.hdt.getDictionary().getNshared()) {
-				return this.getBitX().access(object - 1);
-			} else {
-				return this.getBitZ().access(object - hdt.getDictionary().getNshared() - 1);
+				if (!this.getBitX().access(object - 1)) {
+					return false;
+				}
+			} else if (!this.getBitZ().access(object - hdt.getDictionary().getNshared() - 1)) {
+				return false;
 			}
 		}
-		return true;
+		return deltaPairMightExist(subject, predicate, object);
+	}
+
+	/**
+	 * test the pairs of a pattern against the pairs used by the delta
+	 *
+	 * @param subject   subject id
+	 * @param predicate predicate id
+	 * @param object    object id
+	 * @return false if no triple of the delta can match the pattern, true if it
+	 *         can or if the delta filter is disabled
+	 */
+	public boolean deltaPairMightExist(long subject, long predicate, long object) {
+		EndpointStoreDeltaFilter filter = deltaFilter;
+		return filter == null || filter.mightContain(subject, predicate, object);
 	}
 
 	public void modifyBitmaps(long subject, long predicate, long object) {
@@ -988,6 +1263,10 @@ public class EndpointStore extends AbstractNotifyingSail {
 				this.getBitZ().set(object - hdt.getDictionary().getNshared() - 1, true);
 			}
 		}
+		EndpointStoreDeltaFilter filter = deltaFilter;
+		if (filter != null) {
+			filter.add(subject, predicate, object);
+		}
 	}
 
 	/**
@@ -1004,6 +1283,49 @@ public class EndpointStore extends AbstractNotifyingSail {
 		mergeStore(ignoreEmpty, true);
 	}
 
+	/**
+	 * merge an HDT file with the store, the file is moved into the store and
+	 * merged with the delta, if a merge is already running, the method waits
+	 * for its end before starting a new one.
+	 *
+	 * @param hdtFile the HDT file to merge, moved by this method
+	 * @throws IOException          if the file can't be moved or if the merge
+	 *                              failed
+	 * @throws InterruptedException if the wait of the merge is interrupted
+	 */
+	public void mergeHDT(Path hdtFile) throws IOException, InterruptedException {
+		Path loadFile = Path.of(endpointFiles.getHDTLoadOutput());
+		MergeRunnable.MergeThread<?> thread;
+		while (true) {
+			synchronized (this) {
+				if (!isMergeTriggered) {
+					if (Files.exists(loadFile)) {
+						throw new IOException("An HDT is already waiting to be merged: " + loadFile);
+					}
+					Files.move(hdtFile, loadFile);
+					try {
+						mergeStore(true, true);
+					} catch (MergeStartException e) {
+						Files.move(loadFile, hdtFile);
+						throw new IOException("Can't start the merge of the HDT", e);
+					}
+					thread = mergerThread;
+					break;
+				}
+				thread = mergerThread;
+				if (thread == null || !thread.isAlive()) {
+					throw new IOException("The store is merging, but no merge thread is running");
+				}
+			}
+			// wait for the end of the current merge
+			thread.join();
+		}
+		thread.join();
+		if (Files.exists(loadFile)) {
+			throw new IOException("The merge of the HDT failed, it will be merged with the next merge");
+		}
+	}
+
 	/**
 	 * ask for a dump of the store with a merge
 	 *
@@ -1163,6 +1485,13 @@ public class EndpointStore extends AbstractNotifyingSail {
 		return mergeRunnable;
 	}
 
+	/**
+	 * @return the progress and timing metrics of the merges of this store
+	 */
+	public MergeMetrics getMergeMetrics() {
+		return mergeRunnable.getMetrics();
+	}
+
 	public EndpointFiles getEndpointFiles() {
 		return endpointFiles;
 	}
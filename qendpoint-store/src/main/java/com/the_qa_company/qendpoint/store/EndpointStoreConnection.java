@@ -1,9 +1,12 @@
 package com.the_qa_company.qendpoint.store;
 
 import com.the_qa_company.qendpoint.compiler.ConfigSailConnection;
+import com.the_qa_company.qendpoint.core.compact.bitmap.AdjacencyList;
 import com.the_qa_company.qendpoint.core.compact.bitmap.MultiLayerBitmapWrapper;
 import com.the_qa_company.qendpoint.core.enums.TripleComponentOrder;
+import com.the_qa_company.qendpoint.model.HDTValue;
 import com.the_qa_company.qendpoint.store.exception.EndpointTimeoutException;
+import com.the_qa_company.qendpoint.utils.BitArrayDisk;
 import org.eclipse.rdf4j.common.concurrent.locks.Lock;
 import org.eclipse.rdf4j.common.iteration.CloseableIteration;
 import org.eclipse.rdf4j.common.iteration.ExceptionConvertingIteration;
@@ -29,16 +32,21 @@ import org.eclipse.rdf4j.sail.base.SailSourceConnection;
 import com.the_qa_company.qendpoint.core.enums.TripleComponentRole;
 import com.the_qa_company.qendpoint.core.triples.IteratorTripleID;
 import com.the_qa_company.qendpoint.core.triples.TripleID;
+import com.the_qa_company.qendpoint.core.triples.impl.BitmapTriplesIndex;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Timer;
 import java.util.TimerTask;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.ToLongFunction;
 
 public class EndpointStoreConnection extends SailSourceConnection implements ConfigSailConnection {
 	private static final Timer TIMEOUT_TIMER = new Timer("EndpointStoreConnectionTimer", true);
@@ -59,6 +67,12 @@ public class EndpointStoreConnection extends SailSourceConnection implements Con
 	private CloseTask closeTask;
 	private final AtomicBoolean timeout = new AtomicBoolean();
 	private final Map<String, String> config = new HashMap<>();
+	// statements added by the transaction, inserted with ordered existence
+	// checks when the buffer is full or before the next read
+	private final List<BufferedStatement> insertBuffer = new ArrayList<>();
+	private final int insertBufferSize;
+	private final EndpointStoreConnectionListener listenerA;
+	private final EndpointStoreConnectionListener listenerB;
 
 	public EndpointStoreConnection(EndpointStore endpoint) throws InterruptedException {
 		super(endpoint, endpoint.getCurrentSailStore(), new StrictEvaluationStrategyFactory());
@@ -105,16 +119,19 @@ public class EndpointStoreConnection extends SailSourceConnection implements Con
 		}
 
 		// create the listener
-		SailConnectionListener listener = new EndpointStoreConnectionListener();
-		this.connA_read.addConnectionListener(listener);
-		this.connA_write.addConnectionListener(listener);
-		this.connB_read.addConnectionListener(listener);
-		this.connB_write.addConnectionListener(listener);
+		this.listenerA = new EndpointStoreConnectionListener(false);
+		this.listenerB = new EndpointStoreConnectionListener(true);
+		this.connA_read.addConnectionListener(listenerA);
+		this.connA_write.addConnectionListener(listenerA);
+		this.connB_read.addConnectionListener(listenerB);
+		this.connB_write.addConnectionListener(listenerB);
 
 		// each endpointStoreConnection has a triple source ( ideally it should
 		// be in the query preparer as in rdf4j..)
 		this.tripleSource = new EndpointTripleSource(this, endpoint);
 		this.queryPreparer = new EndpointStoreQueryPreparer(endpoint, tripleSource, this);
+		this.insertBufferSize = endpoint.getHDTSpec().getInt32(EndpointStore.OPTION_QENDPOINT_BULK_INSERT_BUFFER,
+				EndpointStore.DEFAULT_QENDPOINT_BULK_INSERT_BUFFER);
 	}
 
 	@Override
@@ -155,6 +172,7 @@ public class EndpointStoreConnection extends SailSourceConnection implements Con
 	@Override
 	protected CloseableIteration<? extends BindingSet> evaluateInternal(TupleExpr tupleExpr, Dataset dataset,
 			BindingSet bindings, boolean includeInferred) throws SailException {
+		flushInsertBuffer();
 		return queryPreparer.evaluate(tupleExpr, dataset, bindings, includeInferred, 0);
 	}
 
@@ -188,6 +206,7 @@ public class EndpointStoreConnection extends SailSourceConnection implements Con
 		if (timeout.get()) {
 			throw new EndpointTimeoutException();
 		}
+		flushInsertBuffer();
 		CloseableIteration<? extends Statement> result = tripleSource.getStatements(subj, pred, obj, contexts);
 
 		return new ExceptionConvertingIteration<Statement, SailException>(result) {
@@ -198,6 +217,158 @@ public class EndpointStoreConnection extends SailSourceConnection implements Con
 		};
 	}
 
+	/**
+	 * add a triple to the current native store if it isn't already in the other
+	 * native store during a merge
+	 */
+	private void addNativeStatement(Resource newSubj, IRI newPred, Value newObj, long subjectID, long predicateID,
+			long objectID) {
+		// check if we need to search over the other native connection
+		if (endpoint.isMerging()) {
+			if (endpoint.shouldSearchOverRDF4J(subjectID, predicateID, objectID)) {
+				try (CloseableIteration<? extends Statement> other = getOtherConnectionRead().getStatements(newSubj,
+						newPred, newObj, false)) {
+					if (other.hasNext()) {
+						return;
+					}
+				}
+			}
+		}
+		// here we need uris using the internal IDs
+		getCurrentConnectionWrite().addStatement(newSubj, newPred, newObj);
+
+		// // modify the bitmaps if the IRIs used are in HDT
+		this.endpoint.modifyBitmaps(subjectID, predicateID, objectID);
+		// increase the number of statements
+		this.endpoint.triplesCount++;
+	}
+
+	/**
+	 * insert the buffered statements, the statements are sorted by ids and the
+	 * statements of a subject are searched in the HDT with one sweep of its SPO
+	 * adjacency list
+	 */
+	private void flushInsertBuffer() {
+		if (insertBuffer.isEmpty()) {
+			return;
+		}
+		HDTConverter converter = this.endpoint.getHdtConverter();
+		// the same values are often used by the statements of a load
+		Map<Value, Long> subjectIds = new HashMap<>();
+		Map<Value, Long> predicateIds = new HashMap<>();
+		Map<Value, Long> objectIds = new HashMap<>();
+		for (BufferedStatement statement : insertBuffer) {
+			statement.subjectID = getId(subjectIds, statement.subj, v -> converter.subjectToID((Resource) v));
+			statement.predicateID = getId(predicateIds, statement.pred, v -> converter.predicateToID((IRI) v));
+			statement.objectID = getId(objectIds, statement.obj, converter::objectToID);
+		}
+		insertBuffer.sort(Comparator.comparingLong((BufferedStatement st) -> st.subjectID)
+				.thenComparingLong(st -> st.predicateID).thenComparingLong(st -> st.objectID));
+
+		int start = 0;
+		while (start < insertBuffer.size()) {
+			long subjectID = insertBuffer.get(start).subjectID;
+			int end = start + 1;
+			while (end < insertBuffer.size() && insertBuffer.get(end).subjectID == subjectID) {
+				end++;
+			}
+			markExistingInHDT(insertBuffer.subList(start, end));
+			start = end;
+		}
+
+		BufferedStatement last = null;
+		for (BufferedStatement statement : insertBuffer) {
+			if (statement.existsInHDT || (last != null && statement.isInHDT() && statement.subjectID == last.subjectID
+					&& statement.predicateID == last.predicateID && statement.objectID == last.objectID)) {
+				continue; // already in HDT or duplicated
+			}
+			last = statement;
+			Resource newSubj = statement.subjectID == -1 ? statement.subj
+					: converter.subjectIdToIRI(statement.subjectID);
+			IRI newPred = statement.predicateID == -1 ? statement.pred
+					: converter.predicateIdToIRI(statement.predicateID);
+			Value newObj = statement.objectID == -1 ? statement.obj : converter.objectIdToIRI(statement.objectID);
+			addNativeStatement(newSubj, newPred, newObj, statement.subjectID, statement.predicateID,
+					statement.objectID);
+		}
+		insertBuffer.clear();
+	}
+
+	private static long getId(Map<Value, Long> cache, Value value, ToLongFunction<Value> toId) {
+		if (value instanceof HDTValue) {
+			// no lookup, and the HDT values of different sections can be equal
+			return toId.applyAsLong(value);
+		}
+		return cache.computeIfAbsent(value, toId::applyAsLong);
+	}
+
+	/**
+	 * mark a triple as deleted, the check and the update are atomic so only one
+	 * of the connections deleting the same triple sees the change
+	 *
+	 * @param bitmap   the delete bitmap
+	 * @param layer    the graph layer
+	 * @param position the triple position
+	 * @return true if the triple wasn't deleted
+	 */
+	private static boolean markDeleted(MultiLayerBitmapWrapper.MultiLayerModBitmapWrapper bitmap, long layer,
+			long position) {
+		return bitmap.<BitArrayDisk>getHandle().update(bitmap.getLayersCount() * position + layer, true);
+	}
+
+	/**
+	 * mark the statements of a subject existing in the HDT
+	 *
+	 * @param statements statements of the same subject, sorted by predicate and
+	 *                   object
+	 */
+	private void markExistingInHDT(List<BufferedStatement> statements) {
+		List<BufferedStatement> candidates = new ArrayList<>();
+		for (BufferedStatement statement : statements) {
+			if (statement.isInHDT()) {
+				candidates.add(statement);
+			}
+		}
+		if (candidates.isEmpty()) {
+			return;
+		}
+		long subjectID = candidates.get(0).subjectID;
+		if (candidates.size() == 1) {
+			BufferedStatement statement = candidates.get(0);
+			statement.existsInHDT = !tripleDoesntExistInHDT(
+					new TripleID(subjectID, statement.predicateID, statement.objectID));
+			return;
+		}
+
+		if (!(endpoint.getHdt().getTriples() instanceof BitmapTriplesIndex index)
+				|| index.getOrder() != TripleComponentOrder.SPO
+				|| subjectID > index.getAdjacencyListY().countListsX()) {
+			// no adjacency list sorted by predicate and object
+			for (BufferedStatement statement : candidates) {
+				statement.existsInHDT = !tripleDoesntExistInHDT(
+						new TripleID(subjectID, statement.predicateID, statement.objectID));
+			}
+			return;
+		}
+		AdjacencyList adjY = index.getAdjacencyListY();
+		AdjacencyList adjZ = index.getAdjacencyListZ();
+		long minY = adjY.find(subjectID - 1);
+		long maxY = adjY.last(subjectID - 1);
+		for (BufferedStatement statement : candidates) {
+			// the candidates are sorted, the next predicates are after the
+			// last one found
+			long posY = adjY.binSearch(statement.predicateID, minY, maxY);
+			if (posY == -1) {
+				continue;
+			}
+			minY = posY;
+			long posZ = adjZ.binSearch(statement.objectID, adjZ.find(posY), adjZ.last(posY));
+			if (posZ != -1) {
+				statement.existsInHDT = !isDeletedInHDT(posZ);
+			}
+		}
+	}
+
 	@Override
 	public void setNamespaceInternal(String prefix, String name) throws SailException {
 		// super.setNamespaceInternal(prefix,name);
@@ -243,6 +414,14 @@ public class EndpointStoreConnection extends SailSourceConnection implements Con
 
 		isWriteConnection = true;
 
+		if (insertBufferSize > 0 && contexts.length == 0 && !this.endpoint.getHdt().getDictionary().supportGraphs()) {
+			insertBuffer.add(new BufferedStatement(subj, pred, obj));
+			if (insertBuffer.size() >= insertBufferSize) {
+				flushInsertBuffer();
+			}
+			return;
+		}
+
 		// System.out.println(subj.stringValue()+" - "+ pred.stringValue() + " -
 		// "+ obj.stringValue());
 		Resource newSubj;
@@ -275,24 +454,7 @@ public class EndpointStoreConnection extends SailSourceConnection implements Con
 			// HDT or not
 			TripleID tripleID = new TripleID(subjectID, predicateID, objectID);
 			if (tripleDoesntExistInHDT(tripleID)) {
-				// check if we need to search over the other native connection
-				if (endpoint.isMerging()) {
-					if (endpoint.shouldSearchOverRDF4J(subjectID, predicateID, objectID)) {
-						try (CloseableIteration<? extends Statement> other = getOtherConnectionRead()
-								.getStatements(newSubj, newPred, newObj, false)) {
-							if (other.hasNext()) {
-								return;
-							}
-						}
-					}
-				}
-				// here we need uris using the internal IDs
-				getCurrentConnectionWrite().addStatement(newSubj, newPred, newObj);
-
-				// // modify the bitmaps if the IRIs used are in HDT
-				this.endpoint.modifyBitmaps(subjectID, predicateID, objectID);
-				// increase the number of statements
-				this.endpoint.triplesCount++;
+				addNativeStatement(newSubj, newPred, newObj, subjectID, predicateID, objectID);
 			}
 		} else if (contexts.length <= 1) {
 			long graphID;
@@ -391,7 +553,9 @@ public class EndpointStoreConnection extends SailSourceConnection implements Con
 
 	@Override
 	protected void clearInternal(Resource... contexts) throws SailException {
+		flushInsertBuffer();
 		getCurrentConnectionWrite().clear(contexts);
+		endpoint.markDataChanged();
 	}
 
 	@Override
@@ -406,13 +570,20 @@ public class EndpointStoreConnection extends SailSourceConnection implements Con
 
 	@Override
 	protected void commitInternal() throws SailException {
+		flushInsertBuffer();
 		super.commitInternal();
 		this.connA_write.commit();
 		this.connB_write.commit();
+		listenerA.commitDeltaUpdate();
+		listenerB.commitDeltaUpdate();
+		if (isWriteConnection) {
+			endpoint.markDataChanged();
+		}
 	}
 
 	@Override
 	public void flush() throws SailException {
+		flushInsertBuffer();
 		super.flush();
 		if (isWriteConnection) {
 			try {
@@ -427,6 +598,7 @@ public class EndpointStoreConnection extends SailSourceConnection implements Con
 
 	@Override
 	public void flushUpdates() throws SailException {
+		flushInsertBuffer();
 		super.flushUpdates();
 		this.connA_write.flush();
 		this.connB_write.flush();
@@ -455,6 +627,8 @@ public class EndpointStoreConnection extends SailSourceConnection implements Con
 
 	@Override
 	protected void endUpdateInternal(UpdateContext op) throws SailException {
+		// insert the statements while the update lock is hold
+		flushInsertBuffer();
 		// @todo: is this not strange that both are prepared?
 		this.connA_write.endUpdate(op);
 		this.connB_write.endUpdate(op);
@@ -466,12 +640,19 @@ public class EndpointStoreConnection extends SailSourceConnection implements Con
 
 	@Override
 	protected void rollbackInternal() throws SailException {
+		insertBuffer.clear();
+		listenerA.deltaUpdate.clear();
+		listenerB.deltaUpdate.clear();
 		getCurrentConnectionWrite().rollback();
 	}
 
 	@Override
 	protected void closeInternal() throws SailException {
 		logger.debug("Number of times native store was called:" + this.tripleSource.getCount());
+		if (logger.isDebugEnabled()) {
+			HDTValueCache cache = this.tripleSource.getValueCache();
+			logger.debug("HDT value cache hit/miss: {}/{}", cache.getHitCount(), cache.getMissCount());
+		}
 		if (isWriteConnection) {
 			try {
 				endpoint.flushWrites();
@@ -499,6 +680,7 @@ public class EndpointStoreConnection extends SailSourceConnection implements Con
 
 	@Override
 	protected long sizeInternal(Resource... contexts) throws SailException {
+		flushInsertBuffer();
 		// return endpoint.getNativeStoreConnection().size(contexts);
 		long sizeNativeA = connA_read.size(contexts);
 		long sizeNativeB = connB_read.size(contexts);
@@ -526,6 +708,10 @@ public class EndpointStoreConnection extends SailSourceConnection implements Con
 		}
 
 		isWriteConnection = true;
+		// the statement can be in the buffer
+		flushInsertBuffer();
+		// the deletions of the HDT triples are visible before the commit
+		endpoint.markDataChanged();
 
 		Resource newSubj;
 		IRI newPred;
@@ -590,20 +776,41 @@ public class EndpointStoreConnection extends SailSourceConnection implements Con
 		IteratorTripleID iter = endpoint.getHdt().getTriples().search(tripleID);
 		// if iterator is empty then the given triple doesn't exist in HDT
 		if (iter.hasNext()) {
-			TripleID tid = iter.next();
-			if (endpoint.isDeleteDisabled()) {
-				return false;
-			}
-			long index = iter.getLastTriplePosition();
-			MultiLayerBitmapWrapper.MultiLayerModBitmapWrapper dbm = this.endpoint.getDeleteBitMap(
-					iter.isLastTriplePositionBoundToOrder() ? iter.getOrder() : TripleComponentOrder.SPO);
-			return dbm != null && dbm.access(endpoint.getHdt().getDictionary().supportGraphs()
-					? (tid.isQuad() ? tid.getGraph() : endpoint.getHdtProps().getDefaultGraph()) - 1
-					: 0, index);
+			return isDeletedInHDT(iter, iter.next());
 		}
 		return true;
 	}
 
+	/**
+	 * @param iter the iterator returning the triple
+	 * @param tid  the last triple returned by the iterator
+	 * @return if the triple is marked as deleted
+	 */
+	private boolean isDeletedInHDT(IteratorTripleID iter, TripleID tid) {
+		if (endpoint.isDeleteDisabled()) {
+			return false;
+		}
+		long index = iter.getLastTriplePosition();
+		MultiLayerBitmapWrapper.MultiLayerModBitmapWrapper dbm = this.endpoint
+				.getDeleteBitMap(iter.isLastTriplePositionBoundToOrder() ? iter.getOrder() : TripleComponentOrder.SPO);
+		return dbm != null && dbm.access(endpoint.getHdt().getDictionary().supportGraphs()
+				? (tid.isQuad() ? tid.getGraph() : endpoint.getHdtProps().getDefaultGraph()) - 1
+				: 0, index);
+	}
+
+	/**
+	 * @param position position of a triple in the SPO order, in the default
+	 *                 graph
+	 * @return if the triple is deleted
+	 */
+	private boolean isDeletedInHDT(long position) {
+		if (endpoint.isDeleteDisabled()) {
+			return false;
+		}
+		MultiLayerBitmapWrapper.MultiLayerModBitmapWrapper dbm = endpoint.getDeleteBitMap(TripleComponentOrder.SPO);
+		return dbm != null && dbm.access(0, position);
+	}
+
 	private boolean quadDoesntExistInHDT(TripleID tripleID) {
 		IteratorTripleID iter = endpoint.getHdt().getTriples().search(tripleID);
 		// if iterator is empty then the given triple 't' doesn't exist in HDT
@@ -656,12 +863,12 @@ public class EndpointStoreConnection extends SailSourceConnection implements Con
 							layer = 0;
 						}
 
-						if (!this.endpoint.getDeleteBitMap(sorder).access(layer, index)) {
-							this.endpoint.getDeleteBitMap(sorder).set(layer, index, true);
+						if (markDeleted(this.endpoint.getDeleteBitMap(sorder), layer, index)) {
 							if (this.endpoint.isMerging()) {
 								this.endpoint.getTempDeleteBitMap(sorder).set(layer, index, true);
 							}
 							if (order == TripleComponentOrder.SPO) {
+								this.endpoint.getDeltaStatistics().hdtTripleDeleted(p);
 								notifyStatementRemoved(
 										this.endpoint.getValueFactory().createStatement(subj, pred, obj));
 							}
@@ -685,13 +892,13 @@ public class EndpointStoreConnection extends SailSourceConnection implements Con
 							assert iter.isLastTriplePositionBoundToOrder();
 							TripleComponentOrder sorder = iter.getOrder();
 
-							if (!this.endpoint.getDeleteBitMap(sorder).access(removedId.getGraph() - 1, index)) {
-								this.endpoint.getDeleteBitMap(sorder).set(removedId.getGraph() - 1, index, true);
+							if (markDeleted(this.endpoint.getDeleteBitMap(sorder), removedId.getGraph() - 1, index)) {
 								if (this.endpoint.isMerging()) {
 									this.endpoint.getTempDeleteBitMap(sorder).set(removedId.getGraph() - 1, index,
 											true);
 								}
 								if (order == TripleComponentOrder.SPO) {
+									this.endpoint.getDeltaStatistics().hdtTripleDeleted(p);
 									notifyStatementRemoved(
 											this.endpoint.getValueFactory().createStatement(subj, pred, obj, context));
 								}
@@ -826,12 +1033,30 @@ public class EndpointStoreConnection extends SailSourceConnection implements Con
 	}
 
 	private class EndpointStoreConnectionListener implements SailConnectionListener {
+		private final boolean storeB;
+		// changes of the delta statistics, applied on commit
+		private final EndpointStoreDeltaStatistics.Update deltaUpdate = new EndpointStoreDeltaStatistics.Update();
+
+		private EndpointStoreConnectionListener(boolean storeB) {
+			this.storeB = storeB;
+		}
+
 		private boolean shouldHandle() {
 			return !endpoint.isMerging() || !endpoint.isNotificationsFreeze();
 		}
 
+		private boolean isFrozenStore() {
+			// the changing store is B if the stores are switched
+			return storeB != endpoint.switchStore;
+		}
+
+		private void commitDeltaUpdate() {
+			endpoint.getDeltaStatistics().apply(isFrozenStore(), deltaUpdate);
+		}
+
 		@Override
 		public void statementAdded(Statement st) {
+			deltaUpdate.add(endpoint.getHdtConverter().rdf4jPredicateToHdtID(st.getPredicate()), st.getPredicate(), 1);
 			if (shouldHandle()) {
 				EndpointStoreConnection.this.notifyStatementAdded(st);
 			}
@@ -839,9 +1064,33 @@ public class EndpointStoreConnection extends SailSourceConnection implements Con
 
 		@Override
 		public void statementRemoved(Statement st) {
+			deltaUpdate.add(endpoint.getHdtConverter().rdf4jPredicateToHdtID(st.getPredicate()), st.getPredicate(), -1);
 			if (shouldHandle()) {
 				EndpointStoreConnection.this.notifyStatementRemoved(st);
 			}
 		}
 	}
+
+	private static class BufferedStatement {
+		private final Resource subj;
+		private final IRI pred;
+		private final Value obj;
+		private long subjectID;
+		private long predicateID;
+		private long objectID;
+		private boolean existsInHDT;
+
+		private BufferedStatement(Resource subj, IRI pred, Value obj) {
+			this.subj = subj;
+			this.pred = pred;
+			this.obj = obj;
+		}
+
+		/**
+		 * @return if all the components are in the HDT dictionary
+		 */
+		private boolean isInHDT() {
+			return subjectID != -1 && predicateID != -1 && objectID != -1;
+		}
+	}
 }
@@ -0,0 +1,120 @@
+package com.the_qa_company.qendpoint.store;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * Blocked Bloom filter of the (subject, predicate) and (predicate, object) HDT
+ * id pairs used by the triples of the delta. The bitmaps of the endpoint only
+ * know if a component is used by the delta, this filter is used to skip the
+ * native stores for a pattern binding two components never used together.
+ * <p>
+ * Each key is mapped to one 64-bit word in which {@link #BITS_PER_KEY} bits are
+ * set, a lookup reads only one word. The words are updated with compare and set
+ * operations, so the filter can be updated by multiple connections at the same
+ * time. The filter can return false positives, but never false negatives.
+ * </p>
+ */
+public class EndpointStoreDeltaFilter {
+	private static final VarHandle WORDS = MethodHandles.arrayElementVarHandle(long[].class);
+	private static final int BITS_PER_KEY = 4;
+	private static final long SUBJECT_PREDICATE_SEED = 0x9E3779B97F4A7C15L;
+	private static final long PREDICATE_OBJECT_SEED = 0xC2B2AE3D27D4EB4FL;
+
+	private static long mix(long h) {
+		// murmur3 finalizer
+		h ^= h >>> 33;
+		h *= 0xFF51AFD7ED558CCDL;
+		h ^= h >>> 33;
+		h *= 0xC4CEB9FE1A85EC53L;
+		h ^= h >>> 33;
+		return h;
+	}
+
+	private static long hash(long seed, long id1, long id2) {
+		return mix(mix(id1 + seed) ^ (id2 * 0x9E3779B97F4A7C15L));
+	}
+
+	private final long[] words;
+	private final int wordMask;
+
+	/**
+	 * create a filter
+	 *
+	 * @param bits the size of the filter in bits, rounded to a power of 2 of at
+	 *             least 64 bits
+	 */
+	public EndpointStoreDeltaFilter(long bits) {
+		long wordCount = Math.max(1, Math.min(1L << 30, bits / Long.SIZE));
+		int size = Integer.highestOneBit((int) wordCount);
+		this.words = new long[size];
+		this.wordMask = size - 1;
+	}
+
+	/**
+	 * add the pairs of a triple of the delta, the components not in the HDT
+	 * (-1) or unbound (0) aren't added
+	 *
+	 * @param subject   subject id
+	 * @param predicate predicate id
+	 * @param object    object id
+	 */
+	public void add(long subject, long predicate, long object) {
+		if (predicate <= 0) {
+			return;
+		}
+		if (subject > 0) {
+			add(hash(SUBJECT_PREDICATE_SEED, subject, predicate));
+		}
+		if (object > 0) {
+			add(hash(PREDICATE_OBJECT_SEED, predicate, object));
+		}
+	}
+
+	/**
+	 * test if a pattern can match triples of the delta, the unbound (0) or
+	 * unknown (-1) components are ignored
+	 *
+	 * @param subject   subject id
+	 * @param predicate predicate id
+	 * @param object    object id
+	 * @return false if the pattern can't match a triple of the delta
+	 */
+	public boolean mightContain(long subject, long predicate, long object) {
+		if (predicate <= 0) {
+			return true;
+		}
+		if (subject > 0 && !contains(hash(SUBJECT_PREDICATE_SEED, subject, predicate))) {
+			return false;
+		}
+		return object <= 0 || contains(hash(PREDICATE_OBJECT_SEED, predicate, object));
+	}
+
+	private static long mask(long hash) {
+		long mask = 0;
+		for (int i = 0; i < BITS_PER_KEY; i++) {
+			mask |= 1L << (hash >>> (i * 6));
+		}
+		return mask;
+	}
+
+	private void add(long hash) {
+		int index = (int) (hash >>> 32) & wordMask;
+		long mask = mask(hash);
+		if (((long) WORDS.getVolatile(words, index) & mask) != mask) {
+			WORDS.getAndBitwiseOr(words, index, mask);
+		}
+	}
+
+	private boolean contains(long hash) {
+		long mask = mask(hash);
+		return ((long) WORDS.getAcquire(words, (int) (hash >>> 32) & wordMask) & mask) == mask;
+	}
+
+	/**
+	 * @return the size of the filter in bytes
+	 */
+	public long getSizeBytes() {
+		return words.length * 8L;
+	}
+}
@@ -0,0 +1,253 @@
+package com.the_qa_company.qendpoint.store;
+
+import com.the_qa_company.qendpoint.core.dictionary.Dictionary;
+import com.the_qa_company.qendpoint.core.enums.TripleComponentRole;
+import org.eclipse.rdf4j.model.Value;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-predicate counters of the delta of the endpoint, the triples inserted in
+ * the native stores and the HDT triples marked as deleted. They are updated by
+ * the connections and used by the query planner to correct the HDT estimations
+ * without reading the native stores.
+ * <p>
+ * The predicates are identified by their HDT id, or by their IRI if they aren't
+ * in the HDT. The insertions are buffered by the connections in an
+ * {@link Update} and applied on commit, the HDT deletions are applied directly
+ * like the delete bitmaps.
+ * </p>
+ * <p>
+ * The counters of the inserted triples are split in two generations, one for
+ * the changing store and one for the frozen store during a merge, the frozen
+ * generation is dropped at the end of the merge with the frozen store. The
+ * deleted triples are counted in the same way, the deletions made during a
+ * merge are kept for the new HDT.
+ * </p>
+ * <p>
+ * The counters are only exact if they were created with an empty delta, if the
+ * store was opened with a non empty delta, {@link #isComplete()} returns false
+ * until the delta is merged.
+ * </p>
+ */
+public class EndpointStoreDeltaStatistics {
+	private static class Counters {
+		private final Map<Long, LongAdder> hdtPredicates = new ConcurrentHashMap<>();
+		private final Map<String, LongAdder> predicates = new ConcurrentHashMap<>();
+		private final LongAdder total = new LongAdder();
+		private final boolean complete;
+
+		private Counters(boolean complete) {
+			this.complete = complete;
+		}
+
+		private void add(long predicateId, long delta) {
+			hdtPredicates.computeIfAbsent(predicateId, k -> new LongAdder()).add(delta);
+			total.add(delta);
+		}
+
+		private void add(String predicate, long delta) {
+			predicates.computeIfAbsent(predicate, k -> new LongAdder()).add(delta);
+			total.add(delta);
+		}
+
+		private long get(long predicateId, Value predicate) {
+			if (predicateId == 0) {
+				return total.sum();
+			}
+			LongAdder count;
+			if (predicateId > 0) {
+				count = hdtPredicates.get(predicateId);
+			} else if (predicate != null) {
+				count = predicates.get(predicate.stringValue());
+			} else {
+				count = null;
+			}
+			return count == null ? 0 : count.sum();
+		}
+
+		/**
+		 * map the HDT ids of the counters to the ids of a new HDT, the
+		 * predicates not in the new HDT are identified by their IRI
+		 */
+		private Counters remap(Dictionary oldDictionary, Dictionary newDictionary) {
+			Counters counters = new Counters(complete);
+			hdtPredicates.forEach((id, count) -> {
+				CharSequence predicate = oldDictionary.idToString(id, TripleComponentRole.PREDICATE);
+				if (predicate != null) {
+					counters.add(newDictionary, predicate.toString(), count.sum());
+				}
+			});
+			predicates.forEach((predicate, count) -> counters.add(newDictionary, predicate, count.sum()));
+			return counters;
+		}
+
+		private void add(Dictionary dictionary, String predicate, long delta) {
+			long id = dictionary.stringToId(predicate, TripleComponentRole.PREDICATE);
+			if (id > 0) {
+				add(id, delta);
+			} else {
+				add(predicate, delta);
+			}
+		}
+	}
+
+	/**
+	 * insertions and removals of a connection in a native store, applied to the
+	 * counters when the connection is committed
+	 */
+	public static class Update {
+		private final Map<Long, long[]> hdtPredicates = new HashMap<>();
+		private final Map<String, long[]> predicates = new HashMap<>();
+
+		/**
+		 * add a change
+		 *
+		 * @param predicateId the HDT id of the predicate, -1 if it isn't in the
+		 *                    HDT
+		 * @param predicate   the predicate, used if the HDT id is -1
+		 * @param delta       the number of inserted (positive) or removed
+		 *                    (negative) triples
+		 */
+		public void add(long predicateId, Value predicate, long delta) {
+			long[] count;
+			if (predicateId > 0) {
+				count = hdtPredicates.computeIfAbsent(predicateId, k -> new long[1]);
+			} else {
+				count = predicates.computeIfAbsent(predicate.stringValue(), k -> new long[1]);
+			}
+			count[0] += delta;
+		}
+
+		/**
+		 * @return if the update doesn't contain any change
+		 */
+		public boolean isEmpty() {
+			return hdtPredicates.isEmpty() && predicates.isEmpty();
+		}
+
+		/**
+		 * remove all the changes
+		 */
+		public void clear() {
+			hdtPredicates.clear();
+			predicates.clear();
+		}
+	}
+
+	private static long sum(Counters current, Counters previous, long predicateId, Value predicate) {
+		long count = current.get(predicateId, predicate);
+		if (previous != null) {
+			count += previous.get(predicateId, predicate);
+		}
+		// the removed triples can be counted without their insertion
+		return Math.max(0, count);
+	}
+
+	private volatile Counters inserted;
+	private volatile Counters frozenInserted;
+	private volatile Counters deleted;
+	private volatile Counters mergeDeleted;
+
+	/**
+	 * create the counters
+	 *
+	 * @param complete if the delta is empty, otherwise the counters are
+	 *                 incomplete until the next merge
+	 */
+	public EndpointStoreDeltaStatistics(boolean complete) {
+		inserted = new Counters(complete);
+		deleted = new Counters(complete);
+	}
+
+	/**
+	 * apply the committed changes of a connection in a native store, the update
+	 * is cleared
+	 *
+	 * @param frozenStore if the changes were made in the frozen store
+	 * @param update      the changes
+	 */
+	public void apply(boolean frozenStore, Update update) {
+		if (update.isEmpty()) {
+			return;
+		}
+		Counters counters = frozenStore ? frozenInserted : inserted;
+		if (counters != null) {
+			update.hdtPredicates.forEach((id, count) -> counters.add(id, count[0]));
+			update.predicates.forEach((predicate, count) -> counters.add(predicate, count[0]));
+		}
+		update.clear();
+	}
+
+	/**
+	 * an HDT triple was marked as deleted
+	 *
+	 * @param predicateId the HDT id of the predicate of the triple
+	 */
+	public void hdtTripleDeleted(long predicateId) {
+		deleted.add(predicateId, 1);
+		Counters merge = mergeDeleted;
+		if (merge != null) {
+			merge.add(predicateId, 1);
+		}
+	}
+
+	/**
+	 * the changing store was frozen by a merge
+	 */
+	public synchronized void startMerge() {
+		frozenInserted = inserted;
+		inserted = new Counters(true);
+		mergeDeleted = new Counters(true);
+	}
+
+	/**
+	 * the frozen store was merged in the HDT, its triples and the deletes made
+	 * before the merge are removed from the counters, the HDT ids of the other
+	 * counters are mapped to the new HDT
+	 *
+	 * @param oldDictionary the dictionary of the merged HDT
+	 * @param newDictionary the dictionary of the new HDT
+	 */
+	public synchronized void endMerge(Dictionary oldDictionary, Dictionary newDictionary) {
+		Counters merge = mergeDeleted;
+		if (merge != null) {
+			deleted = merge.remap(oldDictionary, newDictionary);
+		}
+		inserted = inserted.remap(oldDictionary, newDictionary);
+		frozenInserted = null;
+		mergeDeleted = null;
+	}
+
+	/**
+	 * @return if the counters describe the full delta
+	 */
+	public boolean isComplete() {
+		Counters frozen = frozenInserted;
+		return inserted.complete && deleted.complete && (frozen == null || frozen.complete);
+	}
+
+	/**
+	 * @param predicateId the HDT id of the predicate, 0 for all the predicates,
+	 *                    -1 if the predicate isn't in the HDT
+	 * @param predicate   the predicate, used if the HDT id is -1
+	 * @return the number of triples in the native stores with this predicate
+	 */
+	public long getInserted(long predicateId, Value predicate) {
+		return sum(inserted, frozenInserted, predicateId, predicate);
+	}
+
+	/**
+	 * @param predicateId the HDT id of the predicate, 0 for all the predicates
+	 * @return the number of HDT triples deleted with this predicate
+	 */
+	public long getDeleted(long predicateId) {
+		if (predicateId < 0) {
+			return 0;
+		}
+		return sum(deleted, null, predicateId, null);
+	}
+}
@@ -1,17 +1,34 @@
 package com.the_qa_company.qendpoint.store;
 
+import org.eclipse.rdf4j.query.algebra.Join;
 import org.eclipse.rdf4j.query.algebra.StatementPattern;
+import org.eclipse.rdf4j.query.algebra.TupleExpr;
+import org.eclipse.rdf4j.query.algebra.Var;
 import org.eclipse.rdf4j.query.algebra.evaluation.impl.EvaluationStatistics;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
 public class EndpointStoreEvaluationStatistics extends EvaluationStatistics {
 
 	private final EndpointStoreEvaluationStatisticsHDT endpointStoreEvaluationStatisticsHDT;
 	private final EvaluationStatistics nativeEvaluationStatistics;
+	private final EndpointStoreDeltaStatistics deltaStatistics;
 
 	public EndpointStoreEvaluationStatistics(EndpointStoreEvaluationStatisticsHDT endpointStoreEvaluationStatisticsHDT,
 			EvaluationStatistics nativeEvaluationStatistics) {
+		this(endpointStoreEvaluationStatisticsHDT, nativeEvaluationStatistics, null);
+	}
+
+	public EndpointStoreEvaluationStatistics(EndpointStoreEvaluationStatisticsHDT endpointStoreEvaluationStatisticsHDT,
+			EvaluationStatistics nativeEvaluationStatistics, EndpointStoreDeltaStatistics deltaStatistics) {
 		this.endpointStoreEvaluationStatisticsHDT = endpointStoreEvaluationStatisticsHDT;
 		this.nativeEvaluationStatistics = nativeEvaluationStatistics;
+		this.deltaStatistics = deltaStatistics;
 	}
 
 	@Override
@@ -23,11 +40,124 @@ public class EndpointStoreEvaluationStatistics extends EvaluationStatistics {
 		@Override
 		protected double getCardinality(StatementPattern sp) {
 			double hdtCard = endpointStoreEvaluationStatisticsHDT.getCardinality(sp);
-			double nativeCard = nativeEvaluationStatistics.getCardinality(sp);
+			double nativeCard = getNativeCardinality(sp);
 			if (hdtCard == Integer.MAX_VALUE && nativeCard > 0)
 				hdtCard = 0;
 			return hdtCard + nativeCard;
 		}
+
+		@Override
+		public void meet(Join node) {
+			List<StatementPattern> patterns = new ArrayList<>();
+			if (!endpointStoreEvaluationStatisticsHDT.hasPredicateStatistics() || !collectPatterns(node, patterns)) {
+				super.meet(node);
+				return;
+			}
+			double star = getStarCardinality(patterns);
+			cardinality = star >= 0 ? star : getJoinCardinality(patterns);
+		}
+
+		private boolean collectPatterns(TupleExpr expr, List<StatementPattern> patterns) {
+			if (expr instanceof Join join) {
+				return collectPatterns(join.getLeftArg(), patterns) && collectPatterns(join.getRightArg(), patterns);
+			}
+			if (expr instanceof StatementPattern sp) {
+				patterns.add(sp);
+				return true;
+			}
+			return false;
+		}
+
+		/**
+		 * estimate a star join (?s p1 ?o1 . ?s p2 ?o2 ...) with the
+		 * characteristic sets, the number of subjects having all the predicates
+		 * is multiplied by the average number of objects per subject of each
+		 * predicate
+		 */
+		private double getStarCardinality(List<StatementPattern> patterns) {
+			Var subject = patterns.get(0).getSubjectVar();
+			if (subject.hasValue()) {
+				return -1;
+			}
+			Set<String> names = new HashSet<>();
+			names.add(subject.getName());
+			for (StatementPattern sp : patterns) {
+				Var object = sp.getObjectVar();
+				if (!sp.getSubjectVar().getName().equals(subject.getName()) || !sp.getPredicateVar().hasValue()
+						|| object.hasValue() || !names.add(object.getName())
+						|| (sp.getContextVar() != null && sp.getContextVar().hasValue())) {
+					return -1;
+				}
+			}
+			long subjects = endpointStoreEvaluationStatisticsHDT.getSubjectsWithPredicates(patterns);
+			if (subjects < 0) {
+				return -1;
+			}
+			double card = subjects;
+			for (StatementPattern sp : patterns) {
+				double distinctSubjects = endpointStoreEvaluationStatisticsHDT.getDistinctValues(sp, subject.getName());
+				if (distinctSubjects <= 0) {
+					return -1;
+				}
+				card *= Math.max(1, getCardinality(sp) / distinctSubjects);
+			}
+			return card;
+		}
+
+		/**
+		 * estimate a join with the distinct values of the join variables, each
+		 * join divides the product of the cardinalities by the max number of
+		 * distinct values of the shared variables
+		 */
+		private double getJoinCardinality(List<StatementPattern> patterns) {
+			double card = 0;
+			boolean first = true;
+			Map<String, Double> distinct = new HashMap<>();
+			for (StatementPattern sp : patterns) {
+				double spCard = getCardinality(sp);
+				Map<String, Double> spDistinct = new HashMap<>();
+				for (Var var : sp.getVarList()) {
+					if (var.hasValue()) {
+						continue;
+					}
+					double values = endpointStoreEvaluationStatisticsHDT.getDistinctValues(sp, var.getName());
+					if (values < 0 || values > spCard) {
+						// unknown, at most one value per triple
+						values = spCard;
+					}
+					spDistinct.merge(var.getName(), values, Math::min);
+				}
+				if (first) {
+					first = false;
+					card = spCard;
+					distinct.putAll(spDistinct);
+					continue;
+				}
+				double denominator = 1;
+				for (Map.Entry<String, Double> e : spDistinct.entrySet()) {
+					Double values = distinct.get(e.getKey());
+					if (values == null) {
+						distinct.put(e.getKey(), e.getValue());
+					} else {
+						denominator *= Math.max(1, Math.max(values, e.getValue()));
+						distinct.put(e.getKey(), Math.min(values, e.getValue()));
+					}
+				}
+				card = card * spCard / denominator;
+			}
+			return card;
+		}
+
+		private double getNativeCardinality(StatementPattern sp) {
+			if (deltaStatistics != null && deltaStatistics.isComplete() && !sp.getSubjectVar().hasValue()
+					&& !sp.getObjectVar().hasValue()
+					&& (sp.getContextVar() == null || !sp.getContextVar().hasValue())) {
+				// only the predicate can be bound, the counters are exact
+				return deltaStatistics.getInserted(endpointStoreEvaluationStatisticsHDT.getPredicateId(sp),
+						sp.getPredicateVar().getValue());
+			}
+			return nativeEvaluationStatistics.getCardinality(sp);
+		}
 	}
 
 }
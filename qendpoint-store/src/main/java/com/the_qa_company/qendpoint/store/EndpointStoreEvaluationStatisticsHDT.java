@@ -6,7 +6,8 @@ import org.eclipse.rdf4j.model.Value;
 import org.eclipse.rdf4j.query.algebra.StatementPattern;
 import org.eclipse.rdf4j.query.algebra.Var;
 import org.eclipse.rdf4j.query.algebra.evaluation.impl.EvaluationStatistics;
-import com.the_qa_company.qendpoint.core.triples.TripleID;
+
+import java.util.List;
 
 public class EndpointStoreEvaluationStatisticsHDT extends EvaluationStatistics {
 	private final EndpointStore endpoint;
@@ -20,6 +21,86 @@ public class EndpointStoreEvaluationStatisticsHDT extends EvaluationStatistics {
 		return new HDTCardinalityCalculator();
 	}
 
+	/**
+	 * @return if the per-predicate statistics of the HDT can be used to
+	 *         estimate the joins
+	 */
+	public boolean hasPredicateStatistics() {
+		return endpoint.getHdtStatistics().hasPredicateStatistics();
+	}
+
+	/**
+	 * @param sp the pattern
+	 * @return the HDT id of the predicate of the pattern, 0 if the predicate
+	 *         isn't bound, -1 if it isn't in the HDT
+	 */
+	public long getPredicateId(StatementPattern sp) {
+		Value value = getVarValue(sp.getPredicateVar());
+		if (value == null) {
+			return 0;
+		}
+		if (!(value instanceof IRI predicate)) {
+			return -1;
+		}
+		long predId = endpoint.getHdtConverter().predicateToID(predicate);
+		return predId > 0 ? predId : -1;
+	}
+
+	private long getBoundPredicateId(StatementPattern sp) {
+		long predId = getPredicateId(sp);
+		return predId > 0 ? predId : -1;
+	}
+
+	private static Value getVarValue(Var var) {
+		return var == null ? null : var.getValue();
+	}
+
+	/**
+	 * estimate the number of distinct values of a variable of a pattern with
+	 * the per-predicate statistics of the HDT, the predicate should be bound
+	 * and the other component unbound
+	 *
+	 * @param sp   the pattern
+	 * @param name the variable name
+	 * @return the estimated number of distinct values, -1 if unknown
+	 */
+	public double getDistinctValues(StatementPattern sp, String name) {
+		long predId = getBoundPredicateId(sp);
+		if (predId == -1) {
+			return -1;
+		}
+		HDTStatistics statistics = endpoint.getHdtStatistics();
+		Var subject = sp.getSubjectVar();
+		Var object = sp.getObjectVar();
+		if (!subject.hasValue() && !object.hasValue() && !subject.getName().equals(object.getName())) {
+			if (subject.getName().equals(name)) {
+				return statistics.getPredicateDistinctSubjects(predId);
+			}
+			if (object.getName().equals(name)) {
+				return statistics.getPredicateDistinctObjects(predId);
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * estimate the number of subjects of the HDT having all the predicates of
+	 * patterns with the characteristic sets
+	 *
+	 * @param patterns the patterns, the predicates should be bound
+	 * @return the estimated number of subjects, -1 if unknown
+	 */
+	public long getSubjectsWithPredicates(List<StatementPattern> patterns) {
+		long[] predicates = new long[patterns.size()];
+		for (int i = 0; i < predicates.length; i++) {
+			predicates[i] = getBoundPredicateId(patterns.get(i));
+			if (predicates[i] == -1) {
+				return -1;
+			}
+		}
+		return endpoint.getHdtStatistics().estimateSubjectsWithPredicates(predicates);
+	}
+
 	protected class HDTCardinalityCalculator extends CardinalityCalculator {
 
 		@Override
@@ -28,26 +109,32 @@ public class EndpointStoreEvaluationStatisticsHDT extends EvaluationStatistics {
 			Value predicate = getConstantValue(sp.getPredicateVar());
 			Value object = getConstantValue(sp.getObjectVar());
 
-			HDTConverter hdtConverter = new HDTConverter(endpoint);
+			HDTConverter hdtConverter = endpoint.getHdtConverter();
 			long subId = hdtConverter.subjectToID((Resource) subject);
 			long predId = hdtConverter.predicateToID((IRI) predicate);
 			long objId = hdtConverter.objectToID(object);
 
-			double cardinality;
-
-			if (subId == 0 && predId == 0 && objId == 0) {
-				/*
-				 * apparently we got all variables in the triple so we'll not
-				 * search the whole knowledge base to get the cardinality so put
-				 * we put a high card to put this triple on last in the ordering
-				 * scenario
-				 */
-				cardinality = Double.MAX_VALUE;
-			} else {
-				cardinality = endpoint.getHdt().getTriples().search(new TripleID(subId, predId, objId))
-						.estimatedNumResults();
+			// the native store cardinality is added by
+			// EndpointStoreEvaluationStatistics
+			HDTStatistics statistics = endpoint.getHdtStatistics();
+			double cardinality = statistics.estimateCardinality(subId, predId, objId);
+
+			EndpointStoreDeltaStatistics delta = endpoint.getDeltaStatistics();
+			if (cardinality == 0 || cardinality == Double.MAX_VALUE || !delta.isComplete()) {
+				return cardinality;
+			}
+
+			// remove the deleted triples of the predicate
+			long deleted = delta.getDeleted(predId);
+			if (deleted == 0) {
+				return cardinality;
+			}
+			double total = predId == 0 ? endpoint.getHdt().getTriples().getNumberOfElements()
+					: statistics.estimateCardinality(0, predId, 0);
+			if (total <= deleted) {
+				return 0;
 			}
-			return cardinality;
+			return cardinality * (1 - deleted / total);
 		}
 
 		protected Value getConstantValue(Var var) {
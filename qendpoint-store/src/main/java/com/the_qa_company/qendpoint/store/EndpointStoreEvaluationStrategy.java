@@ -0,0 +1,398 @@
+package com.the_qa_company.qendpoint.store;
+
+import com.the_qa_company.qendpoint.core.enums.TripleComponentRole;
+import org.eclipse.rdf4j.common.iteration.CloseableIteration;
+import org.eclipse.rdf4j.common.iteration.ConvertingIteration;
+import org.eclipse.rdf4j.common.iteration.LookAheadIteration;
+import org.eclipse.rdf4j.common.iteration.OffsetIteration;
+import org.eclipse.rdf4j.common.iteration.SingletonIteration;
+import org.eclipse.rdf4j.model.IRI;
+import org.eclipse.rdf4j.model.Resource;
+import org.eclipse.rdf4j.model.Statement;
+import org.eclipse.rdf4j.model.Value;
+import org.eclipse.rdf4j.model.base.CoreDatatype;
+import org.eclipse.rdf4j.query.Binding;
+import org.eclipse.rdf4j.query.BindingSet;
+import org.eclipse.rdf4j.query.Dataset;
+import org.eclipse.rdf4j.query.MutableBindingSet;
+import org.eclipse.rdf4j.query.QueryEvaluationException;
+import org.eclipse.rdf4j.query.algebra.BindingSetAssignment;
+import org.eclipse.rdf4j.query.algebra.Join;
+import org.eclipse.rdf4j.query.algebra.StatementPattern;
+import org.eclipse.rdf4j.query.algebra.TupleExpr;
+import org.eclipse.rdf4j.query.algebra.Var;
+import org.eclipse.rdf4j.query.algebra.evaluation.QueryEvaluationStep;
+import org.eclipse.rdf4j.query.algebra.evaluation.federation.FederatedServiceResolver;
+import org.eclipse.rdf4j.query.algebra.evaluation.impl.EvaluationStatistics;
+import org.eclipse.rdf4j.query.algebra.evaluation.impl.ExtendedEvaluationStrategy;
+import org.eclipse.rdf4j.query.algebra.evaluation.impl.QueryEvaluationContext;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+/**
+ * Evaluation strategy of the {@link EndpointStore}, evaluate the nodes of the
+ * {@link StatementPatternPushdownOptimizer} with the
+ * {@link EndpointTripleSource}. The HDT rows of the statement patterns are
+ * bound without creating a statement per row, the bound HDT values are read
+ * from the value cache and decode their string when it is read. The joins of a
+ * VALUES clause with a pattern search the statements of all the values with one
+ * batch.
+ */
+public class EndpointStoreEvaluationStrategy extends ExtendedEvaluationStrategy {
+	private final EndpointTripleSource tripleSource;
+
+	public EndpointStoreEvaluationStrategy(EndpointTripleSource tripleSource, Dataset dataset,
+			FederatedServiceResolver serviceResolver, long iterationCacheSyncThreshold,
+			EvaluationStatistics evaluationStatistics) {
+		super(tripleSource, dataset, serviceResolver, iterationCacheSyncThreshold, evaluationStatistics);
+		this.tripleSource = tripleSource;
+	}
+
+	@Override
+	public QueryEvaluationStep precompile(TupleExpr expr, QueryEvaluationContext context)
+			throws QueryEvaluationException {
+		if (expr instanceof StatementPatternCount count) {
+			return precompileCount(count, context);
+		}
+		if (expr instanceof StatementPatternOffset offset) {
+			return precompileOffset(offset, context);
+		}
+		if (expr instanceof StatementPatternValueRange range) {
+			return precompileValueRange(range, context);
+		}
+		if (expr instanceof Join join && !join.isMergeJoin() && join.getLeftArg() instanceof BindingSetAssignment values
+				&& join.getRightArg() instanceof StatementPattern pattern) {
+			QueryEvaluationStep step = precompileValuesJoin(join, values, pattern, context);
+			if (step != null) {
+				return step;
+			}
+		}
+		return super.precompile(expr, context);
+	}
+
+	@Override
+	protected QueryEvaluationStep prepare(StatementPattern node, QueryEvaluationContext context)
+			throws QueryEvaluationException {
+		QueryEvaluationStep patternStep = super.prepare(node, context);
+		if (!PatternBinder.canBind(node) || dataset != null || context.getDataset() != null) {
+			return patternStep;
+		}
+		PatternBinder binder = new PatternBinder(node, context);
+
+		return bindings -> {
+			PatternValues values = PatternValues.of(node, bindings);
+			if (values == null) {
+				return patternStep.evaluate(bindings);
+			}
+			return binder.bind(tripleSource.getStatements(values.subject, values.predicate, values.object), bindings);
+		};
+	}
+
+	private QueryEvaluationStep precompileCount(StatementPatternCount node, QueryEvaluationContext context) {
+		QueryEvaluationStep group = precompile(node.getGroup(), context);
+		StatementPattern pattern = node.getStatementPattern();
+		BiConsumer<Value, MutableBindingSet> setCount = context.setBinding(node.getCountName());
+
+		return bindings -> {
+			PatternValues values = PatternValues.of(pattern, bindings);
+			if (values == null) {
+				return group.evaluate(bindings);
+			}
+			long count = tripleSource.countStatements(values.subject, values.predicate, values.object);
+			if (count == -1) {
+				return group.evaluate(bindings);
+			}
+			MutableBindingSet result = context.createBindingSet(bindings);
+			setCount.accept(
+					tripleSource.getValueFactory().createLiteral(Long.toString(count), CoreDatatype.XSD.INTEGER),
+					result);
+			return new SingletonIteration<>(result);
+		};
+	}
+
+	private QueryEvaluationStep precompileOffset(StatementPatternOffset node, QueryEvaluationContext context) {
+		StatementPattern pattern = node.getStatementPattern();
+		QueryEvaluationStep patternStep = precompile(pattern, context);
+		long offset = node.getOffset();
+		PatternBinder binder = new PatternBinder(pattern, context);
+
+		return bindings -> {
+			PatternValues values = PatternValues.of(pattern, bindings);
+			CloseableIteration<? extends Statement> statements = values == null ? null
+					: tripleSource.getStatements(offset, values.subject, values.predicate, values.object);
+			if (statements == null) {
+				return new OffsetIteration<>(patternStep.evaluate(bindings), offset);
+			}
+			return binder.bind(statements, bindings);
+		};
+	}
+
+	private QueryEvaluationStep precompileValueRange(StatementPatternValueRange node, QueryEvaluationContext context) {
+		StatementPattern pattern = node.getStatementPattern();
+		QueryEvaluationStep patternStep = precompile(pattern, context);
+		PatternBinder binder = new PatternBinder(pattern, context);
+		// the filter of the range is created once for all the bindings
+		EndpointTripleSource.ValueRange valueRange = new EndpointTripleSource.ValueRange(node.getKind(), node.getMin(),
+				node.getMax());
+
+		return bindings -> {
+			PatternValues values = PatternValues.of(pattern, bindings);
+			CloseableIteration<? extends Statement> statements = values == null || values.object != null ? null
+					: tripleSource.getValueRangeStatements(valueRange, values.subject, values.predicate);
+			if (statements == null) {
+				return patternStep.evaluate(bindings);
+			}
+			return binder.bind(statements, bindings);
+		};
+	}
+
+	/**
+	 * join of a VALUES clause with a pattern using one of its variables, the
+	 * statements of all the values are searched with one batch in the order of
+	 * the HDT ids instead of one search per row
+	 *
+	 * @return the step, null if the join can't be evaluated with a batch
+	 */
+	private QueryEvaluationStep precompileValuesJoin(Join join, BindingSetAssignment values, StatementPattern pattern,
+			QueryEvaluationContext context) {
+		if (!PatternBinder.canBind(pattern) || dataset != null || context.getDataset() != null) {
+			return null;
+		}
+		Set<String> names = values.getBindingNames();
+		Var[] vars = { pattern.getSubjectVar(), pattern.getPredicateVar(), pattern.getObjectVar() };
+		int joinIndex = -1;
+		for (int i = 0; i < vars.length; i++) {
+			if (!vars[i].hasValue() && names.contains(vars[i].getName())) {
+				if (joinIndex != -1) {
+					return null; // more than one variable of the values
+				}
+				joinIndex = i;
+			}
+		}
+		if (joinIndex == -1) {
+			return null;
+		}
+		QueryEvaluationStep joinStep = super.precompile(join, context);
+		PatternBinder binder = new PatternBinder(pattern, context);
+		TripleComponentRole role = PatternBinder.ROLES[joinIndex];
+		String joinName = vars[joinIndex].getName();
+		Map<String, BiConsumer<Value, MutableBindingSet>> rowSetters = new HashMap<>();
+		for (String name : names) {
+			rowSetters.put(name, context.setBinding(name));
+		}
+
+		return bindings -> {
+			if (bindings.hasBinding(joinName)) {
+				return joinStep.evaluate(bindings);
+			}
+			PatternValues patternValues = PatternValues.of(pattern, bindings);
+			if (patternValues == null) {
+				return joinStep.evaluate(bindings);
+			}
+			// the compatible rows by value of the join variable
+			Map<Value, List<BindingSet>> rowsByValue = new IdentityHashMap<>();
+			List<Value> joinValues = new ArrayList<>();
+			List<List<BindingSet>> rows = new ArrayList<>();
+			for (BindingSet row : values.getBindingSets()) {
+				Value value = row.getValue(joinName);
+				if (value == null) {
+					return joinStep.evaluate(bindings);
+				}
+				if (!compatible(row, bindings)) {
+					continue;
+				}
+				rowsByValue.computeIfAbsent(value, key -> {
+					List<BindingSet> valueRows = new ArrayList<>();
+					joinValues.add(key);
+					rows.add(valueRows);
+					return valueRows;
+				}).add(row);
+			}
+			return binder.bindRows(tripleSource.getBatchStatements(role, joinValues, patternValues.subject,
+					patternValues.predicate, patternValues.object), rows, rowSetters, bindings);
+		};
+	}
+
+	private static boolean compatible(BindingSet row, BindingSet bindings) {
+		for (Binding binding : row) {
+			Value value = bindings.getValue(binding.getName());
+			if (value != null && !value.equals(binding.getValue())) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * binder of the statements of a pattern to its variables
+	 */
+	private static class PatternBinder {
+		private static final TripleComponentRole[] ROLES = { TripleComponentRole.SUBJECT, TripleComponentRole.PREDICATE,
+				TripleComponentRole.OBJECT };
+		private final QueryEvaluationContext context;
+		private final Var[] vars;
+		private final BiConsumer<Value, MutableBindingSet>[] setters;
+
+		@SuppressWarnings("unchecked")
+		PatternBinder(StatementPattern pattern, QueryEvaluationContext context) {
+			this.context = context;
+			vars = new Var[] { pattern.getSubjectVar(), pattern.getPredicateVar(), pattern.getObjectVar() };
+			setters = new BiConsumer[vars.length];
+			for (int i = 0; i < vars.length; i++) {
+				// the variables with a value set by an optimizer are still
+				// bound
+				setters[i] = vars[i].isConstant() ? null : context.setBinding(vars[i].getName());
+			}
+		}
+
+		/**
+		 * @param pattern the pattern
+		 * @return if the statements of the pattern can be bound without
+		 *         comparing their components, no context and no variable used
+		 *         twice
+		 */
+		static boolean canBind(StatementPattern pattern) {
+			if (pattern.getContextVar() != null || pattern.getStatementOrder() != null) {
+				return false;
+			}
+			Set<String> names = new HashSet<>();
+			for (Var var : new Var[] { pattern.getSubjectVar(), pattern.getPredicateVar(), pattern.getObjectVar() }) {
+				if (!var.isConstant() && !names.add(var.getName())) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		/**
+		 * @param statements the statements of the values of the pattern
+		 * @param rows       the rows of each value
+		 * @param rowSetters the setters of the variables of the rows
+		 * @param bindings   the bindings of the evaluation
+		 * @return the bindings of the statements joined with the rows of their
+		 *         value
+		 */
+		CloseableIteration<BindingSet> bindRows(EndpointTripleSource.BatchStatements statements,
+				List<List<BindingSet>> rows, Map<String, BiConsumer<Value, MutableBindingSet>> rowSetters,
+				BindingSet bindings) {
+			boolean[] bind = new boolean[vars.length];
+			for (int i = 0; i < vars.length; i++) {
+				bind[i] = setters[i] != null && !bindings.hasBinding(vars[i].getName())
+						&& !rowSetters.containsKey(vars[i].getName());
+			}
+			return new LookAheadIteration<>() {
+				private List<BindingSet> valueRows = List.of();
+				private int rowIndex;
+
+				@Override
+				protected BindingSet getNextElement() {
+					while (rowIndex >= valueRows.size()) {
+						if (!statements.nextRow()) {
+							return null;
+						}
+						valueRows = rows.get(statements.getValueIndex());
+						rowIndex = 0;
+					}
+					MutableBindingSet result = context.createBindingSet(bindings);
+					for (Binding binding : valueRows.get(rowIndex++)) {
+						if (!bindings.hasBinding(binding.getName())) {
+							rowSetters.get(binding.getName()).accept(binding.getValue(), result);
+						}
+					}
+					for (int i = 0; i < ROLES.length; i++) {
+						if (bind[i]) {
+							setters[i].accept(statements.getComponent(ROLES[i]), result);
+						}
+					}
+					return result;
+				}
+
+				@Override
+				protected void handleClose() {
+					statements.close();
+				}
+			};
+		}
+
+		/**
+		 * @param statements the statements of the pattern
+		 * @param bindings   the bindings of the evaluation
+		 * @return the bindings of the statements
+		 */
+		CloseableIteration<BindingSet> bind(CloseableIteration<? extends Statement> statements, BindingSet bindings) {
+			boolean[] bind = new boolean[vars.length];
+			for (int i = 0; i < vars.length; i++) {
+				bind[i] = setters[i] != null && !bindings.hasBinding(vars[i].getName());
+			}
+			if (statements instanceof EndpointStoreTripleIterator rows) {
+				// the rows are read without statement, only the components of
+				// the variables are read
+				return new LookAheadIteration<>() {
+					@Override
+					protected BindingSet getNextElement() {
+						if (!rows.nextRow()) {
+							return null;
+						}
+						MutableBindingSet result = context.createBindingSet(bindings);
+						for (int i = 0; i < ROLES.length; i++) {
+							if (bind[i]) {
+								setters[i].accept(rows.getComponent(ROLES[i]), result);
+							}
+						}
+						return result;
+					}
+
+					@Override
+					protected void handleClose() {
+						rows.close();
+					}
+				};
+			}
+			return new ConvertingIteration<Statement, BindingSet>(statements) {
+				@Override
+				protected BindingSet convert(Statement statement) {
+					MutableBindingSet result = context.createBindingSet(bindings);
+					Value[] components = { statement.getSubject(), statement.getPredicate(), statement.getObject() };
+					for (int i = 0; i < components.length; i++) {
+						if (bind[i]) {
+							setters[i].accept(components[i], result);
+						}
+					}
+					return result;
+				}
+			};
+		}
+	}
+
+	/**
+	 * values of the components of a pattern, null for a wildcard
+	 */
+	private record PatternValues(Resource subject, IRI predicate, Value object) {
+		/**
+		 * @return the values, null if the pattern can't match a statement
+		 */
+		static PatternValues of(StatementPattern pattern, BindingSet bindings) {
+			Value subject = value(pattern.getSubjectVar(), bindings);
+			Value predicate = value(pattern.getPredicateVar(), bindings);
+			if ((subject != null && !(subject instanceof Resource))
+					|| (predicate != null && !(predicate instanceof IRI))) {
+				return null;
+			}
+			return new PatternValues((Resource) subject, (IRI) predicate, value(pattern.getObjectVar(), bindings));
+		}
+
+		private static Value value(Var var, BindingSet bindings) {
+			if (var.hasValue()) {
+				return var.getValue();
+			}
+			return bindings.getValue(var.getName());
+		}
+	}
+}
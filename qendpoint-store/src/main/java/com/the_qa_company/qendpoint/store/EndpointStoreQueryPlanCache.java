@@ -0,0 +1,128 @@
+package com.the_qa_company.qendpoint.store;
+
+import com.the_qa_company.qendpoint.core.util.LRUCache;
+import org.eclipse.rdf4j.query.Dataset;
+import org.eclipse.rdf4j.query.algebra.BNodeGenerator;
+import org.eclipse.rdf4j.query.algebra.FunctionCall;
+import org.eclipse.rdf4j.query.algebra.TupleExpr;
+import org.eclipse.rdf4j.query.algebra.evaluation.function.datetime.Now;
+import org.eclipse.rdf4j.query.algebra.evaluation.function.numeric.Rand;
+import org.eclipse.rdf4j.query.algebra.evaluation.function.rdfterm.STRUUID;
+import org.eclipse.rdf4j.query.algebra.evaluation.function.rdfterm.UUID;
+import org.eclipse.rdf4j.query.algebra.helpers.AbstractSimpleQueryModelVisitor;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Cache of the optimized query plans of an {@link EndpointStore}. The plans are
+ * shared by the connections, they are optimized without the bindings of the
+ * query to be reused by the queries only differing by their bindings. A plan
+ * contains HDT ids and is estimated with the HDT statistics, it is invalidated
+ * when the statistics of the store are changed. The plans of the expressions
+ * using non-deterministic functions aren't cached.
+ */
+public class EndpointStoreQueryPlanCache {
+	/**
+	 * key of a cached plan
+	 *
+	 * @param tupleExpr the expression before the optimization, compared by
+	 *                  structure
+	 * @param dataset   the dataset of the query
+	 * @param optimized if the optimizers were used to create the plan
+	 */
+	public record Key(TupleExpr tupleExpr, Dataset dataset, boolean optimized) {}
+
+	private record Plan(TupleExpr tupleExpr, HDTStatistics statistics) {}
+
+	/**
+	 * functions with a new value for each evaluation, folded by the optimizers
+	 */
+	private static final Set<String> NON_DETERMINISTIC_FUNCTIONS = Set.of(new Now().getURI(), new Rand().getURI(),
+			new UUID().getURI(), new STRUUID().getURI());
+
+	/**
+	 * test if the plan of an expression can be cached, the expressions using
+	 * NOW(), RAND(), UUID(), STRUUID() or BNODE() can't be reused by other
+	 * queries because their values are folded by the optimizers
+	 *
+	 * @param tupleExpr the expression before the optimization
+	 * @return true if the plan can be cached
+	 */
+	public static boolean isCacheable(TupleExpr tupleExpr) {
+		boolean[] cacheable = { true };
+		tupleExpr.visit(new AbstractSimpleQueryModelVisitor<RuntimeException>() {
+			@Override
+			public void meet(FunctionCall node) {
+				if (NON_DETERMINISTIC_FUNCTIONS.contains(node.getURI())) {
+					cacheable[0] = false;
+				} else {
+					super.meet(node);
+				}
+			}
+
+			@Override
+			public void meet(BNodeGenerator node) {
+				cacheable[0] = false;
+			}
+		});
+		return cacheable[0];
+	}
+
+	private final Map<Key, Plan> plans;
+
+	/**
+	 * create a cache
+	 *
+	 * @param size the maximum number of cached plans
+	 */
+	public EndpointStoreQueryPlanCache(int size) {
+		plans = Collections.synchronizedMap(new LRUCache<>(size));
+	}
+
+	/**
+	 * get a cached plan
+	 *
+	 * @param key        the key
+	 * @param statistics the current statistics of the HDT
+	 * @return a copy of the plan, null if the plan isn't cached or was created
+	 *         with other statistics
+	 */
+	public TupleExpr get(Key key, HDTStatistics statistics) {
+		Plan plan = plans.get(key);
+		if (plan == null) {
+			return null;
+		}
+		if (plan.statistics != statistics) {
+			plans.remove(key, plan);
+			return null;
+		}
+		return plan.tupleExpr.clone();
+	}
+
+	/**
+	 * put a plan in the cache, the key and the plan are copied
+	 *
+	 * @param key        the key
+	 * @param statistics the statistics of the HDT used to create the plan
+	 * @param tupleExpr  the optimized plan
+	 */
+	public void put(Key key, HDTStatistics statistics, TupleExpr tupleExpr) {
+		plans.put(new Key(key.tupleExpr.clone(), key.dataset, key.optimized), new Plan(tupleExpr.clone(), statistics));
+	}
+
+	/**
+	 * remove all the plans
+	 */
+	public void clear() {
+		plans.clear();
+	}
+
+	/**
+	 * @return the number of cached plans
+	 */
+	public int size() {
+		return plans.size();
+	}
+}
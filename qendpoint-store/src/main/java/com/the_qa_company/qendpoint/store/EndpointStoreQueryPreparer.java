@@ -20,7 +20,6 @@ import org.eclipse.rdf4j.query.algebra.evaluation.AbstractQueryPreparer;
 import org.eclipse.rdf4j.query.algebra.evaluation.EvaluationStrategy;
 import org.eclipse.rdf4j.query.algebra.evaluation.QueryEvaluationStep;
 import org.eclipse.rdf4j.query.algebra.evaluation.impl.EvaluationStatistics;
-import org.eclipse.rdf4j.query.algebra.evaluation.impl.ExtendedEvaluationStrategy;
 import org.eclipse.rdf4j.query.algebra.evaluation.optimizer.BindingAssignerOptimizer;
 import org.eclipse.rdf4j.query.algebra.evaluation.optimizer.CompareOptimizer;
 import org.eclipse.rdf4j.query.algebra.evaluation.optimizer.ConjunctiveConstraintSplitterOptimizer;
@@ -33,6 +32,7 @@ import org.eclipse.rdf4j.query.algebra.evaluation.optimizer.QueryJoinOptimizer;
 import org.eclipse.rdf4j.query.algebra.evaluation.optimizer.QueryModelNormalizerOptimizer;
 import org.eclipse.rdf4j.query.algebra.evaluation.optimizer.SameTermFilterOptimizer;
 import org.eclipse.rdf4j.query.explanation.Explanation;
+import org.eclipse.rdf4j.query.impl.EmptyBindingSet;
 import org.eclipse.rdf4j.query.impl.IteratingTupleQueryResult;
 import org.eclipse.rdf4j.query.parser.ParsedTupleQuery;
 import org.eclipse.rdf4j.query.parser.impl.AbstractParserQuery;
@@ -60,7 +60,7 @@ public class EndpointStoreQueryPreparer extends AbstractQueryPreparer {
 		cloneTupleExpression = true;
 
 		evaluationStatistics = new EndpointStoreEvaluationStatistics(new EndpointStoreEvaluationStatisticsHDT(endpoint),
-				endpoint.getCurrentSailStore().getEvaluationStatistics());
+				endpoint.getCurrentSailStore().getEvaluationStatistics(), endpoint.getDeltaStatistics());
 	}
 
 	public void setExplanationLevel(Explanation.Level level) {
@@ -99,13 +99,7 @@ public class EndpointStoreQueryPreparer extends AbstractQueryPreparer {
 	protected CloseableIteration<? extends BindingSet> evaluate(TupleExpr tupleExpr, Dataset dataset,
 			BindingSet bindings, boolean includeInferred, int maxExecutionTime) throws QueryEvaluationException {
 
-		if (this.cloneTupleExpression) {
-			tupleExpr = tupleExpr.clone();
-		}
-		if (!(tupleExpr instanceof QueryRoot)) {
-			tupleExpr = new QueryRoot(tupleExpr);
-		}
-		EvaluationStrategy strategy = new ExtendedEvaluationStrategy(getTripleSource(), dataset,
+		EvaluationStrategy strategy = new EndpointStoreEvaluationStrategy(getTripleSource(), dataset,
 				new SPARQLServiceWikibaseLabelResolver(tripleSource,
 						conn.getConfig(EndpointStore.QUERY_CONFIG_USER_LOCALES)),
 				0L, evaluationStatistics);
@@ -118,9 +112,50 @@ public class EndpointStoreQueryPreparer extends AbstractQueryPreparer {
 			strategy.setTrackTime(this.trackTime);
 		}
 
+		boolean optimize = !conn.hasConfig(EndpointStore.QUERY_CONFIG_NO_OPTIMIZER);
+		EndpointStoreQueryPlanCache planCache = endpoint.getQueryPlanCache();
+		// the explanations are using the tuple expression, the plan isn't
+		// cached
+		boolean usePlanCache = planCache != null && this.cloneTupleExpression
+				&& EndpointStoreQueryPlanCache.isCacheable(tupleExpr);
+
+		TupleExpr plan = null;
+		EndpointStoreQueryPlanCache.Key planKey = null;
+		HDTStatistics statistics = null;
+		if (usePlanCache) {
+			planKey = new EndpointStoreQueryPlanCache.Key(tupleExpr, dataset, optimize);
+			statistics = endpoint.getHdtStatistics();
+			plan = planCache.get(planKey, statistics);
+		}
+
+		if (plan == null) {
+			if (this.cloneTupleExpression) {
+				tupleExpr = tupleExpr.clone();
+			}
+			if (!(tupleExpr instanceof QueryRoot)) {
+				tupleExpr = new QueryRoot(tupleExpr);
+			}
+			// a cached plan is reused with other bindings, the bindings are
+			// only used during the evaluation
+			BindingSet optimizerBindings = usePlanCache ? EmptyBindingSet.getInstance() : bindings;
+			optimize(tupleExpr, dataset, optimizerBindings, strategy, optimize);
+
+			if (usePlanCache) {
+				planCache.put(planKey, statistics, tupleExpr);
+			}
+			plan = tupleExpr;
+		}
+
+		QueryEvaluationStep precompile = strategy.precompile(plan);
+
+		return precompile.evaluate(bindings);
+	}
+
+	private void optimize(TupleExpr tupleExpr, Dataset dataset, BindingSet bindings, EvaluationStrategy strategy,
+			boolean optimize) {
 		new VariableToIdSubstitution(endpoint).optimize(tupleExpr, dataset, bindings);
 
-		if (!conn.hasConfig(EndpointStore.QUERY_CONFIG_NO_OPTIMIZER)) {
+		if (optimize) {
 			new BindingAssignerOptimizer().optimize(tupleExpr, dataset, bindings);
 			new ConstantOptimizer(strategy).optimize(tupleExpr, dataset, bindings);
 			new CompareOptimizer().optimize(tupleExpr, dataset, bindings);
@@ -132,13 +167,10 @@ public class EndpointStoreQueryPreparer extends AbstractQueryPreparer {
 			new IterativeEvaluationOptimizer().optimize(tupleExpr, dataset, bindings);
 			new FilterOptimizer().optimize(tupleExpr, dataset, bindings);
 			new OrderLimitOptimizer().optimize(tupleExpr, dataset, bindings);
+			new StatementPatternPushdownOptimizer().optimize(tupleExpr, dataset, bindings);
 		}
 
 		new ServiceClauseOptimizer().optimize(tupleExpr, dataset, bindings);
-
-		QueryEvaluationStep precompile = strategy.precompile(tupleExpr);
-
-		return precompile.evaluate(bindings);
 	}
 
 	// @todo: this looks wrong, apperently if one wraps around the store
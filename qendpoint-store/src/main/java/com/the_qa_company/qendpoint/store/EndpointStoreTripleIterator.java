@@ -2,25 +2,34 @@ package com.the_qa_company.qendpoint.store;
 
 import com.the_qa_company.qendpoint.core.compact.bitmap.MultiLayerBitmapWrapper;
 import com.the_qa_company.qendpoint.core.enums.TripleComponentOrder;
+import com.the_qa_company.qendpoint.core.enums.TripleComponentRole;
 import com.the_qa_company.qendpoint.store.exception.EndpointTimeoutException;
 import com.the_qa_company.qendpoint.utils.BitArrayDisk;
 import org.eclipse.rdf4j.common.iteration.CloseableIteration;
 import org.eclipse.rdf4j.common.iteration.IndexReportingIterator;
+import org.eclipse.rdf4j.model.BNode;
 import org.eclipse.rdf4j.model.IRI;
+import org.eclipse.rdf4j.model.Literal;
 import org.eclipse.rdf4j.model.Resource;
 import org.eclipse.rdf4j.model.Statement;
 import org.eclipse.rdf4j.model.Value;
+import org.eclipse.rdf4j.model.ValueFactory;
+import org.eclipse.rdf4j.model.base.AbstractStatement;
+import org.eclipse.rdf4j.model.impl.SimpleValueFactory;
 import org.eclipse.rdf4j.query.QueryInterruptedException;
 import com.the_qa_company.qendpoint.core.triples.IteratorTripleID;
 import com.the_qa_company.qendpoint.core.triples.TripleID;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.Serial;
 import java.util.Objects;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 public class EndpointStoreTripleIterator implements CloseableIteration<Statement>, IndexReportingIterator {
 	private static final Logger logger = LoggerFactory.getLogger(EndpointStoreTripleIterator.class);
+	private static final int BATCH_SIZE = 256;
+	private static final int ROW_SIZE = 4;
 
 	private final AtomicBoolean closed = new AtomicBoolean();
 	private final EndpointStore endpoint;
@@ -29,6 +38,21 @@ public class EndpointStoreTripleIterator implements CloseableIteration<Statement
 	private final IteratorTripleID iterator;
 	private final CloseableIteration<? extends Statement> repositoryResult;
 	private Statement next;
+	/**
+	 * statement of the current element of {@link #nextRow()}, null for an HDT
+	 * row
+	 */
+	private Statement statement;
+	private long[] rows;
+	private int rowOffset;
+	/**
+	 * ids of the current batch, {@link #ROW_SIZE} ids (subject, predicate,
+	 * object, graph) per row, a new array is used for each batch because the
+	 * returned statements are reading it
+	 */
+	private long[] batch;
+	private int batchSize;
+	private int batchIndex;
 
 	public EndpointStoreTripleIterator(EndpointStoreConnection connection, EndpointTripleSource endpointTripleSource,
 			IteratorTripleID iter, CloseableIteration<? extends Statement> repositoryResult) {
@@ -44,37 +68,82 @@ public class EndpointStoreTripleIterator implements CloseableIteration<Statement
 		if (next != null) {
 			return true;
 		}
+		if (!fetch()) {
+			return false;
+		}
+		if (statement != null) {
+			next = statement;
+			if (logger.isTraceEnabled()) {
+				logger.trace("From RDF4j {} {} {}", next.getSubject(), next.getPredicate(), next.getObject());
+			}
+		} else {
+			// the values are only created if they are read, for example the
+			// constant components of the pattern aren't read
+			next = new HDTStatement(endpointTripleSource.getValueCache(), rows, rowOffset);
+			if (logger.isTraceEnabled()) {
+				logger.trace("From HDT   {} {} {} ", next.getSubject(), next.getPredicate(), next.getObject());
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * move to the next element without creating a statement for an HDT row, the
+	 * components of the element are read with
+	 * {@link #getComponent(TripleComponentRole)} until the next move
+	 *
+	 * @return false if there is no more element
+	 */
+	public boolean nextRow() {
+		if (next != null) {
+			// already read by hasNext
+			statement = next;
+			next = null;
+			return true;
+		}
+		return fetch();
+	}
+
+	/**
+	 * @param role the role of the component
+	 * @return the component of the current element of {@link #nextRow()}, null
+	 *         for the default graph
+	 */
+	public Value getComponent(TripleComponentRole role) {
+		if (statement != null) {
+			return switch (role) {
+			case SUBJECT -> statement.getSubject();
+			case PREDICATE -> statement.getPredicate();
+			case OBJECT -> statement.getObject();
+			case GRAPH -> statement.getContext();
+			};
+		}
+		long id = rows[rowOffset + role.ordinal()];
+		return id == 0 ? null : endpointTripleSource.getValueCache().get(role, id);
+	}
+
+	/**
+	 * read the next element, an HDT row is read in {@link #rows} at
+	 * {@link #rowOffset}, a statement of the delta in {@link #statement}
+	 *
+	 * @return false if there is no more element
+	 */
+	private boolean fetch() {
 		if (closed.get()) {
 			throw new QueryInterruptedException("closed iterator");
 		}
 		if (connection.isTimeout()) {
 			throw new EndpointTimeoutException();
 		}
-		boolean supportGraphs = endpoint.getHdt().getDictionary().supportGraphs();
-		// iterate over the result of hdt
-		while (iterator.hasNext()) {
-			TripleID tripleID = iterator.next();
-			TripleComponentOrder order = iterator.isLastTriplePositionBoundToOrder() ? iterator.getOrder()
-					: TripleComponentOrder.SPO;
-			MultiLayerBitmapWrapper.MultiLayerModBitmapWrapper dbm = endpoint.getDeleteBitMap(order);
-			if (endpoint.isDeleteDisabled() || dbm == null || dbm.<BitArrayDisk>getHandle().getMaxNumBits() == 0
-					|| !dbm.access(tripleID.isQuad() ? tripleID.getGraph() - 1 : 0, iterator.getLastTriplePosition())) {
-				Resource subject = endpoint.getHdtConverter().idToSubjectHDTResource(tripleID.getSubject());
-				IRI predicate = endpoint.getHdtConverter().idToPredicateHDTResource(tripleID.getPredicate());
-				Value object = endpoint.getHdtConverter().idToObjectHDTResource(tripleID.getObject());
-				if (logger.isTraceEnabled()) {
-					logger.trace("From HDT   {} {} {} ", subject, predicate, object);
-				}
-				if (supportGraphs) {
-					Resource ctx = tripleID.isQuad()
-							? endpoint.getHdtConverter().idToGraphHDTResource(tripleID.getGraph())
-							: null;
-					next = endpointTripleSource.getValueFactory().createStatement(subject, predicate, object, ctx);
-				} else {
-					next = endpointTripleSource.getValueFactory().createStatement(subject, predicate, object);
-				}
-				return true;
-			}
+		// iterate over the result of hdt, the ids are read by batch
+		while (batchIndex == batchSize && iterator.hasNext()) {
+			fillBatch();
+		}
+		if (batchIndex < batchSize) {
+			statement = null;
+			rows = batch;
+			rowOffset = batchIndex++ * ROW_SIZE;
+			return true;
 		}
 		// iterate over the result of rdf4j
 		if (this.repositoryResult.hasNext()) {
@@ -84,15 +153,43 @@ public class EndpointStoreTripleIterator implements CloseableIteration<Statement
 			Value newObject = endpoint.getHdtConverter().rdf4jToHdtIDobject(stm.getObject());
 			Resource newContext = endpoint.getHdtConverter().rdf4jToHdtIDcontext(stm.getContext());
 
-			next = endpointTripleSource.getValueFactory().createStatement(newSubj, newPred, newObject, newContext);
-			if (logger.isTraceEnabled()) {
-				logger.trace("From RDF4j {} {} {}", next.getSubject(), next.getPredicate(), next.getObject());
-			}
+			statement = endpointTripleSource.getValueFactory().createStatement(newSubj, newPred, newObject, newContext);
 			return true;
 		}
 		return false;
 	}
 
+	/**
+	 * read the next ids of the HDT iterator in a new batch, the deleted triples
+	 * are skipped
+	 */
+	private void fillBatch() {
+		boolean supportGraphs = endpoint.getHdt().getDictionary().supportGraphs();
+		boolean deleteDisabled = endpoint.isDeleteDisabled();
+		long[] rows = new long[BATCH_SIZE * ROW_SIZE];
+		int count = 0;
+		while (count < BATCH_SIZE && iterator.hasNext()) {
+			TripleID tripleID = iterator.next();
+			if (!deleteDisabled) {
+				TripleComponentOrder order = iterator.isLastTriplePositionBoundToOrder() ? iterator.getOrder()
+						: TripleComponentOrder.SPO;
+				MultiLayerBitmapWrapper.MultiLayerModBitmapWrapper dbm = endpoint.getDeleteBitMap(order);
+				if (dbm != null && dbm.<BitArrayDisk>getHandle().getMaxNumBits() != 0 && dbm
+						.access(tripleID.isQuad() ? tripleID.getGraph() - 1 : 0, iterator.getLastTriplePosition())) {
+					continue;
+				}
+			}
+			int offset = count++ * ROW_SIZE;
+			rows[offset] = tripleID.getSubject();
+			rows[offset + 1] = tripleID.getPredicate();
+			rows[offset + 2] = tripleID.getObject();
+			rows[offset + 3] = supportGraphs && tripleID.isQuad() ? tripleID.getGraph() : 0;
+		}
+		batch = rows;
+		batchSize = count;
+		batchIndex = 0;
+	}
+
 	@Override
 	public Statement next() {
 		if (!hasNext()) {
@@ -127,4 +224,82 @@ public class EndpointStoreTripleIterator implements CloseableIteration<Statement
 		}
 		return null;
 	}
+
+	/**
+	 * Statement of a row of HDT ids, the values are read from the value cache
+	 * when they are accessed. The statement is serialized as a statement of
+	 * plain values because the cache and the HDT values can't be serialized.
+	 */
+	private static class HDTStatement extends AbstractStatement {
+		@Serial
+		private static final long serialVersionUID = 4256174365390846357L;
+		private final transient HDTValueCache cache;
+		private final transient long[] rows;
+		private final transient int offset;
+		private transient Resource subject;
+		private transient IRI predicate;
+		private transient Value object;
+		private transient Resource context;
+
+		private HDTStatement(HDTValueCache cache, long[] rows, int offset) {
+			this.cache = cache;
+			this.rows = rows;
+			this.offset = offset;
+		}
+
+		@Override
+		public Resource getSubject() {
+			if (subject == null) {
+				subject = (Resource) cache.get(TripleComponentRole.SUBJECT, rows[offset]);
+			}
+			return subject;
+		}
+
+		@Override
+		public IRI getPredicate() {
+			if (predicate == null) {
+				predicate = (IRI) cache.get(TripleComponentRole.PREDICATE, rows[offset + 1]);
+			}
+			return predicate;
+		}
+
+		@Override
+		public Value getObject() {
+			if (object == null) {
+				object = cache.get(TripleComponentRole.OBJECT, rows[offset + 2]);
+			}
+			return object;
+		}
+
+		@Override
+		public Resource getContext() {
+			if (context == null && rows[offset + 3] != 0) {
+				context = (Resource) cache.get(TripleComponentRole.GRAPH, rows[offset + 3]);
+			}
+			return context;
+		}
+
+		@Serial
+		private Object writeReplace() {
+			ValueFactory vf = SimpleValueFactory.getInstance();
+			return vf.createStatement((Resource) toPlainValue(vf, getSubject()), (IRI) toPlainValue(vf, getPredicate()),
+					toPlainValue(vf, getObject()), (Resource) toPlainValue(vf, getContext()));
+		}
+
+		private static Value toPlainValue(ValueFactory vf, Value value) {
+			if (value instanceof IRI iri) {
+				return vf.createIRI(iri.stringValue());
+			}
+			if (value instanceof BNode bnode) {
+				return vf.createBNode(bnode.getID());
+			}
+			if (value instanceof Literal literal) {
+				if (literal.getLanguage().isPresent()) {
+					return vf.createLiteral(literal.getLabel(), literal.getLanguage().get());
+				}
+				return vf.createLiteral(literal.getLabel(), literal.getDatatype());
+			}
+			return value;
+		}
+	}
 }
@@ -1,13 +1,20 @@
 package com.the_qa_company.qendpoint.store;
 
+import com.the_qa_company.qendpoint.core.compact.bitmap.MultiLayerBitmapWrapper;
+import com.the_qa_company.qendpoint.core.compact.bitmap.RoaringBitmap64;
+import com.the_qa_company.qendpoint.core.dictionary.impl.LiteralValueIndex;
+import com.the_qa_company.qendpoint.core.enums.ResultEstimationType;
 import com.the_qa_company.qendpoint.core.enums.TripleComponentOrder;
 import com.the_qa_company.qendpoint.core.enums.TripleComponentRole;
+import com.the_qa_company.qendpoint.core.exceptions.NotImplementedException;
 import com.the_qa_company.qendpoint.core.iterator.utils.GraphFilteringTripleId;
+import com.the_qa_company.qendpoint.core.iterator.utils.ObjectFilteringTripleId;
 import com.the_qa_company.qendpoint.core.triples.IteratorTripleID;
 import com.the_qa_company.qendpoint.core.triples.TripleID;
 import com.the_qa_company.qendpoint.core.triples.impl.EmptyTriplesIterator;
 import com.the_qa_company.qendpoint.model.HDTValue;
 import com.the_qa_company.qendpoint.store.exception.EndpointTimeoutException;
+import com.the_qa_company.qendpoint.utils.BitArrayDisk;
 import com.the_qa_company.qendpoint.utils.CombinedNativeStoreResult;
 import org.eclipse.rdf4j.common.iteration.CloseableIteration;
 import org.eclipse.rdf4j.common.iteration.EmptyIteration;
@@ -31,6 +38,7 @@ import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.LongPredicate;
 import java.util.stream.Collectors;
 
 // this is the main class telling how, given a triple pattern, to find the results in HDT and the current stores
@@ -38,6 +46,9 @@ public class EndpointTripleSource implements TripleSource {
 
 	private static final Logger logger = LoggerFactory.getLogger(EndpointTripleSource.class);
 	public static final EmptyIteration<Statement> EMPTY_ITERATION = new EmptyIteration<>();
+	// min ratio between the triples of a pattern and the values of a range to
+	// search the triples by value
+	private static final long VALUE_RANGE_SEARCH_RATIO = 8;
 	private final EndpointStore endpoint;
 	private long numberOfCurrentTriples;
 	// count the number of times rdf4j is called within a triple pattern..
@@ -45,12 +56,16 @@ public class EndpointTripleSource implements TripleSource {
 	private long count = 0;
 	private final EndpointStoreConnection endpointStoreConnection;
 	private final boolean enableMergeJoin;
+	// values read by this connection
+	private final HDTValueCache valueCache;
 
 	public EndpointTripleSource(EndpointStoreConnection endpointStoreConnection, EndpointStore endpoint) {
 		this.endpoint = endpoint;
 		this.numberOfCurrentTriples = endpoint.getHdt().getTriples().getNumberOfElements();
 		this.endpointStoreConnection = endpointStoreConnection;
 		this.enableMergeJoin = endpoint.getHDTSpec().getBoolean(EndpointStore.OPTION_QENDPOINT_MERGE_JOIN, false);
+		this.valueCache = new HDTValueCache(endpoint, endpoint.getHDTSpec().getInt32(
+				EndpointStore.OPTION_QENDPOINT_VALUE_CACHE_SIZE, EndpointStore.DEFAULT_QENDPOINT_VALUE_CACHE_SIZE));
 	}
 
 	private void initHDTIndex() {
@@ -58,16 +73,16 @@ public class EndpointTripleSource implements TripleSource {
 	}
 
 	@Override
-	public CloseableIteration<? extends Statement> getStatements(Resource subj, IRI pred, Value obj,
-			Resource... contexts) throws QueryEvaluationException {
+	public EndpointStoreTripleIterator getStatements(Resource subj, IRI pred, Value obj, Resource... contexts)
+			throws QueryEvaluationException {
 
 		return getStatements(null, subj, pred, obj, contexts);
 
 	}
 
 	@Override
-	public CloseableIteration<? extends Statement> getStatements(StatementOrder statementOrder, Resource subj, IRI pred,
-			Value obj, Resource... contexts) throws SailException {
+	public EndpointStoreTripleIterator getStatements(StatementOrder statementOrder, Resource subj, IRI pred, Value obj,
+			Resource... contexts) throws SailException {
 
 		if (statementOrder != null && logger.isDebugEnabled()) {
 			logger.debug("getStatements(StatementOrder {}, Subject {}, Predicate {}, Object {}, Contexts... {})",
@@ -161,6 +176,515 @@ public class EndpointTripleSource implements TripleSource {
 		return new EndpointStoreTripleIterator(endpointStoreConnection, this, iterator, nativeStoreRepoResults);
 	}
 
+	/**
+	 * count the statements matching a pattern without reading the HDT triples,
+	 * the HDT triples are counted with their range of positions and the deleted
+	 * triples with rank queries over the delete bitmap
+	 *
+	 * @param subj     subject, null for a wildcard
+	 * @param pred     predicate, null for a wildcard
+	 * @param obj      object, null for a wildcard
+	 * @param contexts contexts
+	 * @return the number of statements, -1 if the HDT triples can't be counted
+	 *         without reading them
+	 */
+	public long countStatements(Resource subj, IRI pred, Value obj, Resource... contexts) {
+		HDTRange range = searchRange(subj, pred, obj, contexts);
+		if (range == null) {
+			return -1;
+		}
+		long count = range.countAlive(range.end);
+		try (CloseableIteration<? extends Statement> nativeResults = range.nativeResults) {
+			while (nativeResults.hasNext()) {
+				nativeResults.next();
+				count++;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * get the statements matching a pattern after an offset, the skipped HDT
+	 * triples aren't read, the position of the first statement is found with
+	 * rank queries over the delete bitmap
+	 *
+	 * @param offset   the number of statements to skip
+	 * @param subj     subject, null for a wildcard
+	 * @param pred     predicate, null for a wildcard
+	 * @param obj      object, null for a wildcard
+	 * @param contexts contexts
+	 * @return the statements after the offset, null if the HDT triples can't be
+	 *         skipped without reading them
+	 */
+	public CloseableIteration<? extends Statement> getStatements(long offset, Resource subj, IRI pred, Value obj,
+			Resource... contexts) {
+		HDTRange range = searchRange(subj, pred, obj, contexts);
+		if (range == null) {
+			return null;
+		}
+		long alive = range.countAlive(range.end);
+		long nativeOffset;
+		if (offset >= alive) {
+			// skip all the HDT triples
+			range.iterator.goToTriplePosition(range.end);
+			nativeOffset = offset - alive;
+		} else {
+			// search the first position with offset alive triples before it
+			long start = range.start;
+			long end = range.end;
+			while (start < end) {
+				long mid = (start + end) >>> 1;
+				if (range.countAlive(mid) < offset) {
+					start = mid + 1;
+				} else {
+					end = mid;
+				}
+			}
+			range.iterator.goToTriplePosition(start);
+			nativeOffset = 0;
+		}
+		EndpointStoreTripleIterator it = new EndpointStoreTripleIterator(endpointStoreConnection, this, range.iterator,
+				range.nativeResults);
+		try {
+			for (long i = 0; i < nativeOffset && it.hasNext(); i++) {
+				it.next();
+			}
+		} catch (Throwable t) {
+			it.close();
+			throw t;
+		}
+		return it;
+	}
+
+	/**
+	 * get the statements of a pattern with an object in a range of values, the
+	 * HDT literals of the kind of the range are selected with the
+	 * {@link LiteralValueIndex} of the store. The triples of a small range are
+	 * searched by object, the triples of a large range are read and filtered by
+	 * object id without reading the literals. The statements of the delta and
+	 * the HDT objects of another kind aren't filtered.
+	 *
+	 * @param valueRange the range of values, shared by the searches of a
+	 *                   pattern
+	 * @param subj       subject, null for a wildcard
+	 * @param pred       predicate, null for a wildcard
+	 * @return the statements, null if the store has no value index
+	 */
+	public CloseableIteration<? extends Statement> getValueRangeStatements(ValueRange valueRange, Resource subj,
+			IRI pred) {
+		LiteralValueIndex index = endpoint.getValueIndex();
+		if (index == null || endpoint.getHdt().getDictionary().supportGraphs()) {
+			return null;
+		}
+		if (endpointStoreConnection.isTimeout()) {
+			throw new EndpointTimeoutException();
+		}
+
+		if (this.numberOfCurrentTriples != this.endpoint.getHdt().getTriples().getNumberOfElements()) {
+			initHDTIndex();
+		}
+
+		long subjectID = this.endpoint.getHdtConverter().subjectToID(subj);
+		long predicateID = this.endpoint.getHdtConverter().predicateToID(pred);
+
+		IteratorTripleID iterator;
+		if (subjectID != -1 && predicateID != -1) {
+			LiteralValueIndex.Range range = valueRange.range(index);
+			IteratorTripleID patternIterator = this.endpoint.getHdt().getTriples()
+					.search(new TripleID(subjectID, predicateID, 0));
+			if (range.size() * VALUE_RANGE_SEARCH_RATIO < patternIterator.estimatedNumResults()) {
+				iterator = new ValueRangeTripleIterator(index, range, subjectID, predicateID);
+			} else {
+				iterator = new ObjectFilteringTripleId(patternIterator, valueRange.filter(index));
+			}
+		} else {
+			iterator = new EmptyTriplesIterator(TripleComponentOrder.SPO);
+		}
+
+		var nativeStoreRepoResults = getNativeStoreIterator(null, subj, pred, null, new Resource[0], subjectID,
+				predicateID, 0, false, null);
+
+		return new EndpointStoreTripleIterator(endpointStoreConnection, this, iterator, nativeStoreRepoResults);
+	}
+
+	/**
+	 * get the statements of a pattern for a list of values of one of its
+	 * components, the values are searched in the order of their HDT ids, so the
+	 * HDT triples are read in the order of the index. The values which can't be
+	 * used for the component are skipped.
+	 *
+	 * @param role   the component of the values, subject, predicate or object
+	 * @param values the values
+	 * @param subj   subject, null for a wildcard, ignored for the subject role
+	 * @param pred   predicate, null for a wildcard, ignored for the predicate
+	 *               role
+	 * @param obj    object, null for a wildcard, ignored for the object role
+	 * @return the statements of the values
+	 */
+	public BatchStatements getBatchStatements(TripleComponentRole role, List<? extends Value> values, Resource subj,
+			IRI pred, Value obj) {
+		HDTConverter converter = endpoint.getHdtConverter();
+		int count = 0;
+		int[] indexes = new int[values.size()];
+		long[] ids = new long[values.size()];
+		for (int i = 0; i < values.size(); i++) {
+			Value value = values.get(i);
+			long id;
+			switch (role) {
+			case SUBJECT -> {
+				if (!(value instanceof Resource resource)) {
+					continue;
+				}
+				id = converter.subjectToID(resource);
+			}
+			case PREDICATE -> {
+				if (!(value instanceof IRI iri)) {
+					continue;
+				}
+				id = converter.predicateToID(iri);
+			}
+			case OBJECT -> id = converter.objectToID(value);
+			default -> throw new IllegalArgumentException("bad role: " + role);
+			}
+			ids[i] = id;
+			indexes[count++] = i;
+		}
+		int[] order = Arrays.stream(indexes, 0, count).boxed().sorted(Comparator.comparingLong(i -> ids[i]))
+				.mapToInt(Integer::intValue).toArray();
+		return new BatchStatements(role, values, order, subj, pred, obj);
+	}
+
+	/**
+	 * statements of
+	 * {@link #getBatchStatements(TripleComponentRole, List, Resource, IRI, Value)},
+	 * read row by row like an {@link EndpointStoreTripleIterator}
+	 */
+	public class BatchStatements implements AutoCloseable {
+		private final TripleComponentRole role;
+		private final List<? extends Value> values;
+		private final int[] order;
+		private final Resource subj;
+		private final IRI pred;
+		private final Value obj;
+		private int position = -1;
+		private int valueIndex = -1;
+		private EndpointStoreTripleIterator current;
+
+		private BatchStatements(TripleComponentRole role, List<? extends Value> values, int[] order, Resource subj,
+				IRI pred, Value obj) {
+			this.role = role;
+			this.values = values;
+			this.order = order;
+			this.subj = subj;
+			this.pred = pred;
+			this.obj = obj;
+		}
+
+		/**
+		 * move to the next statement
+		 *
+		 * @return false if there is no more statement
+		 * @see EndpointStoreTripleIterator#nextRow()
+		 */
+		public boolean nextRow() {
+			while (current == null || !current.nextRow()) {
+				close();
+				if (++position >= order.length) {
+					return false;
+				}
+				valueIndex = order[position];
+				Value value = values.get(valueIndex);
+				current = switch (role) {
+				case SUBJECT -> getStatements((Resource) value, pred, obj);
+				case PREDICATE -> getStatements(subj, (IRI) value, obj);
+				default -> getStatements(subj, pred, value);
+				};
+			}
+			return true;
+		}
+
+		/**
+		 * @param role the role of the component
+		 * @return the component of the current statement
+		 * @see EndpointStoreTripleIterator#getComponent(TripleComponentRole)
+		 */
+		public Value getComponent(TripleComponentRole role) {
+			return current.getComponent(role);
+		}
+
+		/**
+		 * @return the index in the values of the value of the current statement
+		 */
+		public int getValueIndex() {
+			return valueIndex;
+		}
+
+		@Override
+		public void close() {
+			if (current != null) {
+				try {
+					current.close();
+				} finally {
+					current = null;
+				}
+			}
+		}
+	}
+
+	/**
+	 * range of values of a kind of the {@link LiteralValueIndex}, the positions
+	 * and the id filter of the range are computed once per value index and
+	 * reused by the searches of the range
+	 */
+	public static class ValueRange {
+		private final LiteralValueIndex.ValueKind kind;
+		private final double min;
+		private final double max;
+		private LiteralValueIndex index;
+		private LiteralValueIndex.Range range;
+		private LongPredicate filter;
+
+		/**
+		 * @param kind the kind of the values
+		 * @param min  the min value (inclusive)
+		 * @param max  the max value (inclusive)
+		 */
+		public ValueRange(LiteralValueIndex.ValueKind kind, double min, double max) {
+			this.kind = kind;
+			this.min = min;
+			this.max = max;
+		}
+
+		/**
+		 * @param index the value index of the store
+		 * @return the positions of the range in the index
+		 */
+		synchronized LiteralValueIndex.Range range(LiteralValueIndex index) {
+			if (this.index != index) {
+				// new HDT
+				this.index = index;
+				range = index.getRange(kind, min, max);
+				filter = null;
+			}
+			return range;
+		}
+
+		/**
+		 * @param index the value index of the store
+		 * @return the filter of the object ids of the range
+		 */
+		synchronized LongPredicate filter(LiteralValueIndex index) {
+			LiteralValueIndex.Range range = range(index);
+			if (filter == null) {
+				filter = valueRangeFilter(index, range);
+			}
+			return filter;
+		}
+	}
+
+	/**
+	 * create a filter of the object ids, the ids of the kind of the range are
+	 * kept if they are in the range, the other ids are kept
+	 *
+	 * @param index the index
+	 * @param range the range
+	 * @return filter
+	 */
+	private static LongPredicate valueRangeFilter(LiteralValueIndex index, LiteralValueIndex.Range range) {
+		LiteralValueIndex.ValueKind kind = range.kind();
+		long count = index.getCount(kind);
+		RoaringBitmap64 ids = new RoaringBitmap64();
+		if (range.size() <= count - range.size()) {
+			// store the ids in the range
+			for (long i = range.start(); i < range.end(); i++) {
+				ids.set(index.getId(kind, i), true);
+			}
+			return id -> ids.access(id) || index.getKind(id) != kind;
+		}
+		// store the ids out of the range
+		for (long i = 0; i < range.start(); i++) {
+			ids.set(index.getId(kind, i), true);
+		}
+		for (long i = range.end(); i < count; i++) {
+			ids.set(index.getId(kind, i), true);
+		}
+		return id -> !ids.access(id);
+	}
+
+	/**
+	 * search the HDT triples of a pattern as a range of positions
+	 *
+	 * @return range, null if the HDT triples aren't a range of positions
+	 */
+	private HDTRange searchRange(Resource subj, IRI pred, Value obj, Resource... contexts) {
+		if (endpointStoreConnection.isTimeout()) {
+			throw new EndpointTimeoutException();
+		}
+		if (contexts.length != 0 || endpoint.getHdt().getDictionary().supportGraphs()) {
+			// the deleted quads are stored by graph
+			return null;
+		}
+
+		if (this.numberOfCurrentTriples != this.endpoint.getHdt().getTriples().getNumberOfElements()) {
+			initHDTIndex();
+		}
+
+		long subjectID = this.endpoint.getHdtConverter().subjectToID(subj);
+		long predicateID = this.endpoint.getHdtConverter().predicateToID(pred);
+		long objectID = this.endpoint.getHdtConverter().objectToID(obj);
+
+		IteratorTripleID iterator;
+		if (subjectID != -1 && predicateID != -1 && objectID != -1) {
+			iterator = this.endpoint.getHdt().getTriples().search(new TripleID(subjectID, predicateID, objectID));
+		} else {
+			iterator = new EmptyTriplesIterator(TripleComponentOrder.SPO);
+		}
+
+		long start = iterator.getFirstTriplePosition();
+		if (start == -1) {
+			return null;
+		}
+
+		BitArrayDisk deleteBitmap;
+		MultiLayerBitmapWrapper.MultiLayerModBitmapWrapper dbm = endpoint.getDeleteBitMap(iterator.getOrder());
+		if (endpoint.isDeleteDisabled() || dbm == null || dbm.<BitArrayDisk>getHandle().getMaxNumBits() == 0) {
+			deleteBitmap = null;
+		} else {
+			// without graphs, the bitmap has only one layer
+			deleteBitmap = dbm.getHandle();
+		}
+
+		var nativeStoreRepoResults = getNativeStoreIterator(null, subj, pred, obj, contexts, subjectID, predicateID,
+				objectID, false, null);
+
+		return new HDTRange(iterator, start, start + iterator.estimatedNumResults(), deleteBitmap,
+				nativeStoreRepoResults);
+	}
+
+	/**
+	 * HDT triples of a pattern in the range of positions [start, end)
+	 *
+	 * @param iterator      the iterator of the triples
+	 * @param start         the position of the first triple
+	 * @param end           the position after the last triple
+	 * @param deleteBitmap  the delete bitmap of the order of the iterator, null
+	 *                      if no triple is deleted
+	 * @param nativeResults the results of the delta
+	 */
+	private record HDTRange(IteratorTripleID iterator, long start, long end, BitArrayDisk deleteBitmap,
+			CloseableIteration<? extends Statement> nativeResults) {
+		/**
+		 * @param position end position
+		 * @return the number of triples not deleted in [start, position)
+		 */
+		long countAlive(long position) {
+			long count = position - start;
+			if (deleteBitmap == null || count == 0) {
+				return count;
+			}
+			return count - (deleteBitmap.rank1(position - 1) - deleteBitmap.rank1(start - 1));
+		}
+	}
+
+	/**
+	 * HDT triples of a pattern with an object in a range of a
+	 * {@link LiteralValueIndex}, the triples are searched for each object of
+	 * the range
+	 */
+	private class ValueRangeTripleIterator implements IteratorTripleID {
+		private final LiteralValueIndex index;
+		private final LiteralValueIndex.Range range;
+		private final long subjectID;
+		private final long predicateID;
+		private long position;
+		private IteratorTripleID current;
+
+		ValueRangeTripleIterator(LiteralValueIndex index, LiteralValueIndex.Range range, long subjectID,
+				long predicateID) {
+			this.index = index;
+			this.range = range;
+			this.subjectID = subjectID;
+			this.predicateID = predicateID;
+			this.position = range.start();
+			this.current = new EmptyTriplesIterator(TripleComponentOrder.SPO);
+		}
+
+		@Override
+		public boolean hasNext() {
+			while (!current.hasNext()) {
+				if (position >= range.end()) {
+					return false;
+				}
+				long objectID = index.getId(range.kind(), position++);
+				current = endpoint.getHdt().getTriples().search(new TripleID(subjectID, predicateID, objectID));
+			}
+			return true;
+		}
+
+		@Override
+		public TripleID next() {
+			if (!hasNext()) {
+				return null;
+			}
+			return current.next();
+		}
+
+		@Override
+		public boolean hasPrevious() {
+			throw new NotImplementedException();
+		}
+
+		@Override
+		public TripleID previous() {
+			throw new NotImplementedException();
+		}
+
+		@Override
+		public void goToStart() {
+			throw new NotImplementedException();
+		}
+
+		@Override
+		public boolean canGoTo() {
+			return false;
+		}
+
+		@Override
+		public void goTo(long pos) {
+			throw new NotImplementedException();
+		}
+
+		@Override
+		public long estimatedNumResults() {
+			return range.size();
+		}
+
+		@Override
+		public ResultEstimationType numResultEstimation() {
+			return ResultEstimationType.APPROXIMATE;
+		}
+
+		@Override
+		public TripleComponentOrder getOrder() {
+			return current.getOrder();
+		}
+
+		@Override
+		public long getLastTriplePosition() {
+			return current.getLastTriplePosition();
+		}
+
+		@Override
+		public boolean isLastTriplePositionBoundToOrder() {
+			return current.isLastTriplePositionBoundToOrder();
+		}
+
+		@Override
+		public void remove() {
+			throw new NotImplementedException();
+		}
+	}
+
 	private CloseableIteration<? extends Statement> getNativeStoreIterator(StatementOrder statementOrder, Resource subj,
 			IRI pred, Value obj, Resource[] contexts, long subjectID, long predicateID, long objectID, boolean graph,
 			long[] graphID) {
@@ -244,8 +768,10 @@ public class EndpointTripleSource implements TripleSource {
 							.access(object - this.endpoint.getHdt().getDictionary().getNshared() - 1);
 				}
 			}
-			logger.debug("Search over native store? {} {} {}", containsSubject, containsPredicate, containsObject);
-			return containsSubject && containsPredicate && containsObject;
+			boolean containsPair = this.endpoint.deltaPairMightExist(subject, predicate, object);
+			logger.debug("Search over native store? {} {} {} {}", containsSubject, containsPredicate, containsObject,
+					containsPair);
+			return containsSubject && containsPredicate && containsObject && containsPair;
 		} else {
 			if (subject != 0 && subject != -1 && !this.endpoint.getBitX().access(subject - 1)) {
 				return false;
@@ -255,14 +781,18 @@ public class EndpointTripleSource implements TripleSource {
 			}
 			if (object != 0 && object != -1) {
 				if (object <= this.endpoint.getHdt().getDictionary().getNshared()) {
-					return this.endpoint.getBitX().access(object - 1);
-				} else {
-					return this.endpoint.getBitZ()
-							.access(object - this.endpoint.getHdt().getDictionary().getNshared() - 1);
+					if (!this.endpoint.getBitX().access(object - 1)) {
+						return false;
+					}
+				} else if (!this.endpoint.getBitZ()
+						.access(object - this.endpoint.getHdt().getDictionary().getNshared() - 1)) {
+					return false;
 				}
 			}
+			// the components are used by the delta, check if they are used
+			// together
+			return this.endpoint.deltaPairMightExist(subject, predicate, object);
 		}
-		return true;
 	}
 
 	@Override
@@ -278,6 +808,13 @@ public class EndpointTripleSource implements TripleSource {
 		return count;
 	}
 
+	/**
+	 * @return the cache of the HDT values read by this connection
+	 */
+	public HDTValueCache getValueCache() {
+		return valueCache;
+	}
+
 	private int getIndexMaskMatchingStatementOrder(StatementOrder statementOrder, Resource subj, IRI pred, Value obj,
 			TripleID t) {
 		List<TripleComponentOrder> tripleComponentOrder = this.endpoint.getHdt().getTriples()
@@ -16,6 +16,12 @@ import org.eclipse.rdf4j.model.Value;
 import org.eclipse.rdf4j.model.ValueFactory;
 import org.eclipse.rdf4j.model.impl.SimpleValueFactory;
 
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+
 // there are 4 types of resources:
 // resources coming from outside,
 // HDT IDs
@@ -96,7 +102,19 @@ public class HDTConverter {
 	}
 
 	public IRI subjectIdToIRI(long id) {
-		if (id <= this.hdt.getDictionary().getNshared()) {
+		return subjectIdToIRI(id, this.hdt.getDictionary().getNshared());
+	}
+
+	/**
+	 * convert a subject id to an IRI using a custom number of shared elements,
+	 * used to create ids of another HDT than the store one
+	 *
+	 * @param id      the subject id
+	 * @param nshared the number of shared elements in the id dictionary
+	 * @return IRI
+	 */
+	public IRI subjectIdToIRI(long id, long nshared) {
+		if (id <= nshared) {
 			return valueFactory.createIRI(HDT_URI + "SO" + id);
 		} else {
 			return valueFactory.createIRI(HDT_URI + "S" + id);
@@ -108,7 +126,19 @@ public class HDTConverter {
 	}
 
 	public IRI objectIdToIRI(long id) {
-		if (id <= this.hdt.getDictionary().getNshared()) {
+		return objectIdToIRI(id, this.hdt.getDictionary().getNshared());
+	}
+
+	/**
+	 * convert an object id to an IRI using a custom number of shared elements,
+	 * used to create ids of another HDT than the store one
+	 *
+	 * @param id      the object id
+	 * @param nshared the number of shared elements in the id dictionary
+	 * @return IRI
+	 */
+	public IRI objectIdToIRI(long id, long nshared) {
+		if (id <= nshared) {
 			return valueFactory.createIRI(HDT_URI + "SO" + id);
 		} else {
 			return valueFactory.createIRI(HDT_URI + "O" + id);
@@ -390,6 +420,34 @@ public class HDTConverter {
 		return statement;
 	}
 
+	/**
+	 * convert values with {@link #convertValue(Value)}, the values are searched
+	 * in their string order to read the dictionary sections sequentially. The
+	 * predicates aren't converted because their HDT value would depend on the
+	 * position where they are used.
+	 *
+	 * @param values the values to convert
+	 * @return map between the values and their HDT values, the values not in
+	 *         the HDT aren't in the map
+	 */
+	public Map<Value, Value> convertValues(Collection<? extends Value> values) {
+		Value[] sorted = values.stream().filter(v -> v != null && !(v instanceof HDTValue)).distinct()
+				.toArray(Value[]::new);
+		Arrays.sort(sorted, Comparator.comparing(Value::toString));
+		Map<Value, Value> converted = new HashMap<>();
+		for (Value value : sorted) {
+			if (value.isIRI()
+					&& hdt.getDictionary().stringToId(value.toString(), TripleComponentRole.PREDICATE) != -1) {
+				continue;
+			}
+			Value hdtValue = convertValue(value);
+			if (hdtValue != null) {
+				converted.put(value, hdtValue);
+			}
+		}
+		return converted;
+	}
+
 	public Value convertValue(Value value) {
 		if (value == null) {
 			return null;
@@ -0,0 +1,293 @@
+package com.the_qa_company.qendpoint.store;
+
+import com.the_qa_company.qendpoint.core.dictionary.Dictionary;
+import com.the_qa_company.qendpoint.core.enums.TripleComponentRole;
+import com.the_qa_company.qendpoint.core.util.string.ByteString;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+
+/**
+ * Map the ids of an old HDT to the ids of a new HDT. The old ids are first
+ * collected with {@link #add(TripleComponentRole, long)}, then sorted and
+ * resolved role by role with {@link #resolve()}. When a role has many ids
+ * compared to the size of its sections, the strings of the old ids are read
+ * with one sequential pass over the old sections, they are then sorted and
+ * merge-joined with one sequential pass over the new sections. Otherwise, the
+ * strings are read and searched one by one in the dictionaries.
+ */
+public class HDTIdMapper {
+	/**
+	 * minimum ratio between the size of the sections of a role and the number
+	 * of ids to search the ids one by one instead of reading the sections
+	 */
+	public static final long LOOKUP_RATIO = 32;
+	private static final int DEFAULT_CAPACITY = 16;
+	private final Dictionary oldDictionary;
+	private final Dictionary newDictionary;
+	private final RoleMap[] maps;
+	private boolean resolved;
+
+	/**
+	 * create a mapper
+	 *
+	 * @param oldDictionary the dictionary of the ids to map
+	 * @param newDictionary the dictionary to map the ids into
+	 */
+	public HDTIdMapper(Dictionary oldDictionary, Dictionary newDictionary) {
+		this.oldDictionary = oldDictionary;
+		this.newDictionary = newDictionary;
+		TripleComponentRole[] roles = TripleComponentRole.values();
+		maps = new RoleMap[roles.length];
+		for (int i = 0; i < roles.length; i++) {
+			maps[i] = new RoleMap(roles[i]);
+		}
+	}
+
+	/**
+	 * add an old id to map, can't be used after {@link #resolve()}
+	 *
+	 * @param role  the role of the id
+	 * @param oldId the id in the old dictionary, ignored if -1
+	 */
+	public void add(TripleComponentRole role, long oldId) {
+		if (oldId == -1) {
+			return;
+		}
+		if (resolved) {
+			throw new IllegalStateException("The mapper was already resolved");
+		}
+		maps[role.ordinal()].add(oldId);
+	}
+
+	/**
+	 * sort the added ids and find their new ids
+	 */
+	public void resolve() {
+		if (resolved) {
+			return;
+		}
+		for (RoleMap map : maps) {
+			map.resolve();
+		}
+		resolved = true;
+	}
+
+	/**
+	 * map an old id to a new id, the mapper should be resolved
+	 *
+	 * @param role  the role of the id
+	 * @param oldId the id in the old dictionary
+	 * @return the id in the new dictionary, -1 if the id wasn't added or if the
+	 *         string doesn't exist in the new dictionary
+	 */
+	public long map(TripleComponentRole role, long oldId) {
+		if (!resolved) {
+			throw new IllegalStateException("The mapper isn't resolved");
+		}
+		if (oldId == -1) {
+			return -1;
+		}
+		return maps[role.ordinal()].map(oldId);
+	}
+
+	/**
+	 * check if an old id was added to the mapper, the mapper should be resolved
+	 *
+	 * @param role  the role of the id
+	 * @param oldId the id in the old dictionary
+	 * @return true if the id was added, false otherwise or if the id is -1
+	 */
+	public boolean contains(TripleComponentRole role, long oldId) {
+		if (!resolved) {
+			throw new IllegalStateException("The mapper isn't resolved");
+		}
+		if (oldId == -1) {
+			return false;
+		}
+		return maps[role.ordinal()].contains(oldId);
+	}
+
+	/**
+	 * @param role the role
+	 * @return the number of distinct ids of this role, the mapper should be
+	 *         resolved
+	 */
+	public long size(TripleComponentRole role) {
+		return maps[role.ordinal()].size;
+	}
+
+	private class RoleMap {
+		private final TripleComponentRole role;
+		private long[] oldIds = new long[DEFAULT_CAPACITY];
+		private long[] newIds;
+		private int size;
+
+		private RoleMap(TripleComponentRole role) {
+			this.role = role;
+		}
+
+		private void add(long oldId) {
+			if (size == oldIds.length) {
+				oldIds = Arrays.copyOf(oldIds, oldIds.length * 2);
+			}
+			oldIds[size++] = oldId;
+		}
+
+		private void resolve() {
+			Arrays.sort(oldIds, 0, size);
+
+			// remove the duplicates
+			int unique = 0;
+			for (int i = 0; i < size; i++) {
+				if (unique == 0 || oldIds[unique - 1] != oldIds[i]) {
+					oldIds[unique++] = oldIds[i];
+				}
+			}
+			size = unique;
+			oldIds = Arrays.copyOf(oldIds, size);
+			newIds = new long[size];
+			Arrays.fill(newIds, -1);
+
+			if (size == 0 || (role == TripleComponentRole.GRAPH
+					&& !(oldDictionary.supportGraphs() && newDictionary.supportGraphs()))) {
+				return;
+			}
+
+			Pending[] pending = useLookups(oldDictionary, size) ? lookupOldStrings() : readOldStrings();
+			if (useLookups(newDictionary, pending.length)) {
+				lookupNewIds(pending);
+			} else {
+				Arrays.sort(pending, Comparator.comparing(Pending::str));
+				mergeNewSections(pending);
+			}
+		}
+
+		/**
+		 * test if a dictionary should be searched id by id instead of being
+		 * read
+		 *
+		 * @param dictionary the dictionary
+		 * @param count      the number of ids to search
+		 * @return true to search the ids one by one, false to read the sections
+		 */
+		private boolean useLookups(Dictionary dictionary, long count) {
+			return count <= dictionary.getNSection(role) / LOOKUP_RATIO;
+		}
+
+		/**
+		 * read the strings of the old ids one by one
+		 *
+		 * @return the strings, the ids without string aren't returned
+		 */
+		private Pending[] lookupOldStrings() {
+			Pending[] pending = new Pending[size];
+			int count = 0;
+			for (int i = 0; i < size; i++) {
+				CharSequence str = oldDictionary.idToString(oldIds[i], role);
+				if (str != null) {
+					pending[count++] = new Pending(ByteString.copy(str), i);
+				}
+			}
+			return count == size ? pending : Arrays.copyOf(pending, count);
+		}
+
+		/**
+		 * search the strings one by one in the new dictionary
+		 *
+		 * @param pending the strings
+		 */
+		private void lookupNewIds(Pending[] pending) {
+			for (Pending p : pending) {
+				long id = newDictionary.stringToId(p.str(), role);
+				if (id > 0) {
+					newIds[p.index()] = id;
+				}
+			}
+		}
+
+		/**
+		 * read the strings of the old ids with a sequential pass over the old
+		 * sections, the string iterator returns the strings in the id order
+		 *
+		 * @return the strings, the ids without string aren't returned
+		 */
+		private Pending[] readOldStrings() {
+			Pending[] pending = new Pending[size];
+			int count = 0;
+			Iterator<? extends CharSequence> it = oldDictionary.stringIterator(role, true);
+			long id = 0;
+			while (count < size && it.hasNext()) {
+				CharSequence str = it.next();
+				id++;
+				if (oldIds[count] == id) {
+					pending[count] = new Pending(ByteString.copy(str), count);
+					count++;
+				}
+			}
+			return count == size ? pending : Arrays.copyOf(pending, count);
+		}
+
+		/**
+		 * merge-join the sorted strings with a sequential pass over the new
+		 * sections, the sections are sorted, but not their concatenation, so
+		 * the position in the strings is searched again when a new section
+		 * starts, the pass ends when all the strings are found
+		 *
+		 * @param pending the sorted strings
+		 */
+		private void mergeNewSections(Pending[] pending) {
+			Iterator<? extends CharSequence> it = newDictionary.stringIterator(role, true);
+			long id = 0;
+			// index of the first string greater or equal to the last read
+			// string
+			int next = 0;
+			int found = 0;
+			while (found < pending.length && it.hasNext()) {
+				ByteString str = ByteString.of(it.next());
+				id++;
+				if (next > 0 && pending[next - 1].str().compareTo(str) >= 0) {
+					// start of a new section
+					next = lowerBound(pending, next, str);
+				}
+				while (next < pending.length && pending[next].str().compareTo(str) < 0) {
+					next++;
+				}
+				if (next < pending.length && pending[next].str().compareTo(str) == 0
+						&& newIds[pending[next].index()] == -1) {
+					newIds[pending[next].index()] = id;
+					found++;
+				}
+			}
+		}
+
+		private static int lowerBound(Pending[] pending, int end, ByteString str) {
+			int low = 0;
+			int high = end;
+			while (low < high) {
+				int mid = (low + high) >>> 1;
+				if (pending[mid].str().compareTo(str) < 0) {
+					low = mid + 1;
+				} else {
+					high = mid;
+				}
+			}
+			return low;
+		}
+
+		private boolean contains(long oldId) {
+			return Arrays.binarySearch(oldIds, 0, size, oldId) >= 0;
+		}
+
+		private long map(long oldId) {
+			int index = Arrays.binarySearch(oldIds, 0, size, oldId);
+			if (index < 0) {
+				return -1;
+			}
+			return newIds[index];
+		}
+	}
+
+	private record Pending(ByteString str, int index) {}
+}
@@ -0,0 +1,455 @@
+package com.the_qa_company.qendpoint.store;
+
+import com.the_qa_company.qendpoint.core.dictionary.Dictionary;
+import com.the_qa_company.qendpoint.core.enums.TripleComponentOrder;
+import com.the_qa_company.qendpoint.core.hdt.HDT;
+import com.the_qa_company.qendpoint.core.triples.IteratorTripleID;
+import com.the_qa_company.qendpoint.core.triples.TripleID;
+import com.the_qa_company.qendpoint.core.util.LRUCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Statistics of an HDT used to estimate the cardinality of the triple patterns.
+ * The per-predicate statistics (triples, distinct subjects, distinct objects
+ * and the characteristic sets) are computed with one scan of the triples and
+ * can be saved next to the HDT, the other patterns are estimated with the HDT
+ * search and cached. The distinct subjects/objects and the characteristic sets
+ * are used to estimate the joins and the star joins.
+ *
+ * @see EndpointStoreEvaluationStatistics
+ */
+public class HDTStatistics {
+	private static final Logger logger = LoggerFactory.getLogger(HDTStatistics.class);
+	private static final long MAGIC = 0x5145505354415453L; // QEPSTATS
+	private static final int VERSION = 1;
+	/**
+	 * max number of characteristic sets kept by the statistics
+	 */
+	public static final int MAX_CHARACTERISTIC_SETS = 10_000;
+
+	/**
+	 * set of predicates used by subjects
+	 *
+	 * @param predicates the sorted predicate ids
+	 * @param subjects   the number of subjects with exactly these predicates
+	 */
+	public record CharacteristicSet(long[] predicates, long subjects) {
+		/**
+		 * @param sortedPredicates sorted predicate ids
+		 * @return if this set contains all the predicates
+		 */
+		public boolean containsAll(long[] sortedPredicates) {
+			int i = 0;
+			for (long predicate : sortedPredicates) {
+				while (i < predicates.length && predicates[i] < predicate) {
+					i++;
+				}
+				if (i == predicates.length || predicates[i] != predicate) {
+					return false;
+				}
+			}
+			return true;
+		}
+	}
+
+	private record PatternKey(long subject, long predicate, long object) {}
+
+	private record PredicateSet(long[] predicates) {
+		@Override
+		public boolean equals(Object o) {
+			return o instanceof PredicateSet other && Arrays.equals(predicates, other.predicates);
+		}
+
+		@Override
+		public int hashCode() {
+			return Arrays.hashCode(predicates);
+		}
+	}
+
+	/**
+	 * create statistics without the per-predicate statistics
+	 *
+	 * @param hdt       the HDT
+	 * @param cacheSize the max number of estimations to cache
+	 * @return statistics
+	 */
+	public static HDTStatistics of(HDT hdt, int cacheSize) {
+		return new HDTStatistics(hdt, cacheSize, null, null, null, List.of());
+	}
+
+	/**
+	 * load the statistics from a file, if the file doesn't exist or if it
+	 * wasn't created for this HDT, the statistics are computed and saved into
+	 * the file
+	 *
+	 * @param hdt       the HDT
+	 * @param file      the statistics file
+	 * @param cacheSize the max number of estimations to cache
+	 * @return statistics
+	 * @throws IOException can't read or write the statistics file
+	 */
+	public static HDTStatistics loadOrCompute(HDT hdt, Path file, int cacheSize) throws IOException {
+		if (Files.exists(file)) {
+			try {
+				HDTStatistics stats = load(hdt, file, cacheSize);
+				if (stats != null) {
+					return stats;
+				}
+				logger.info("The statistics file {} doesn't match the HDT, computing them again", file);
+			} catch (IOException e) {
+				logger.warn("Can't read the statistics file {}, computing them again", file, e);
+			}
+		}
+		HDTStatistics stats = compute(hdt, cacheSize);
+		stats.save(file);
+		return stats;
+	}
+
+	/**
+	 * compute the statistics of an HDT with a full scan of the triples
+	 *
+	 * @param hdt       the HDT
+	 * @param cacheSize the max number of estimations to cache
+	 * @return statistics
+	 */
+	public static HDTStatistics compute(HDT hdt, int cacheSize) {
+		long start = System.currentTimeMillis();
+		int npredicates = (int) hdt.getDictionary().getNpredicates();
+		long[] triples = new long[npredicates];
+		HyperLogLog[] subjects = new HyperLogLog[npredicates];
+		HyperLogLog[] objects = new HyperLogLog[npredicates];
+		for (int i = 0; i < npredicates; i++) {
+			subjects[i] = new HyperLogLog();
+			objects[i] = new HyperLogLog();
+		}
+
+		IteratorTripleID it = hdt.getTriples().searchAll();
+		// the characteristic sets can only be computed if the subjects are
+		// grouped
+		boolean charSets = it.getOrder() == TripleComponentOrder.SPO;
+		Map<PredicateSet, long[]> sets = new HashMap<>();
+		long[] subjectPredicates = new long[16];
+		int subjectPredicatesCount = 0;
+		long lastSubject = 0;
+
+		while (it.hasNext()) {
+			TripleID triple = it.next();
+			int p = (int) triple.getPredicate() - 1;
+			triples[p]++;
+			subjects[p].add(triple.getSubject());
+			objects[p].add(triple.getObject());
+
+			if (!charSets) {
+				continue;
+			}
+
+			if (triple.getSubject() != lastSubject) {
+				addCharacteristicSet(sets, subjectPredicates, subjectPredicatesCount);
+				subjectPredicatesCount = 0;
+				lastSubject = triple.getSubject();
+			}
+			if (subjectPredicatesCount == 0 || subjectPredicates[subjectPredicatesCount - 1] != triple.getPredicate()) {
+				if (subjectPredicatesCount == subjectPredicates.length) {
+					subjectPredicates = Arrays.copyOf(subjectPredicates, subjectPredicatesCount * 2);
+				}
+				subjectPredicates[subjectPredicatesCount++] = triple.getPredicate();
+			}
+		}
+		if (charSets) {
+			addCharacteristicSet(sets, subjectPredicates, subjectPredicatesCount);
+		}
+
+		long[] distinctSubjects = new long[npredicates];
+		long[] distinctObjects = new long[npredicates];
+		for (int i = 0; i < npredicates; i++) {
+			// the estimation can't be above the number of triples
+			distinctSubjects[i] = Math.min(triples[i], subjects[i].estimate());
+			distinctObjects[i] = Math.min(triples[i], objects[i].estimate());
+		}
+
+		List<CharacteristicSet> characteristicSets = new ArrayList<>(sets.size());
+		sets.forEach((set, count) -> characteristicSets.add(new CharacteristicSet(set.predicates, count[0])));
+
+		logger.info("HDT statistics computed in {}ms ({} predicate(s), {} characteristic set(s))",
+				System.currentTimeMillis() - start, npredicates, characteristicSets.size());
+		return new HDTStatistics(hdt, cacheSize, triples, distinctSubjects, distinctObjects, characteristicSets);
+	}
+
+	private static void addCharacteristicSet(Map<PredicateSet, long[]> sets, long[] predicates, int count) {
+		if (count == 0) {
+			return;
+		}
+		PredicateSet key = new PredicateSet(Arrays.copyOf(predicates, count));
+		long[] subjects = sets.get(key);
+		if (subjects != null) {
+			subjects[0]++;
+		} else if (sets.size() < MAX_CHARACTERISTIC_SETS) {
+			sets.put(key, new long[] { 1 });
+		}
+	}
+
+	private static long[] signature(HDT hdt) {
+		Dictionary dict = hdt.getDictionary();
+		return new long[] { hdt.getTriples().getNumberOfElements(), dict.getNsubjects(), dict.getNpredicates(),
+				dict.getNobjects(), dict.getNshared() };
+	}
+
+	private static HDTStatistics load(HDT hdt, Path file, int cacheSize) throws IOException {
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+			if (in.readLong() != MAGIC) {
+				throw new IOException("Bad statistics file magic");
+			}
+			int version = in.readInt();
+			if (version != VERSION) {
+				throw new IOException("Unknown statistics file version: " + version);
+			}
+			long[] signature = signature(hdt);
+			for (long value : signature) {
+				if (in.readLong() != value) {
+					return null;
+				}
+			}
+			int npredicates = in.readInt();
+			long[] triples = readLongs(in, npredicates);
+			long[] distinctSubjects = readLongs(in, npredicates);
+			long[] distinctObjects = readLongs(in, npredicates);
+			int nsets = in.readInt();
+			List<CharacteristicSet> sets = new ArrayList<>(nsets);
+			for (int i = 0; i < nsets; i++) {
+				long[] predicates = readLongs(in, in.readInt());
+				sets.add(new CharacteristicSet(predicates, in.readLong()));
+			}
+			return new HDTStatistics(hdt, cacheSize, triples, distinctSubjects, distinctObjects, sets);
+		}
+	}
+
+	private static long[] readLongs(DataInputStream in, int size) throws IOException {
+		long[] array = new long[size];
+		for (int i = 0; i < size; i++) {
+			array[i] = in.readLong();
+		}
+		return array;
+	}
+
+	private static void writeLongs(DataOutputStream out, long[] array) throws IOException {
+		for (long value : array) {
+			out.writeLong(value);
+		}
+	}
+
+	private final HDT hdt;
+	private final long[] predicateTriples;
+	private final long[] predicateSubjects;
+	private final long[] predicateObjects;
+	private final List<CharacteristicSet> characteristicSets;
+	private final Map<PatternKey, Double> cache;
+
+	private HDTStatistics(HDT hdt, int cacheSize, long[] predicateTriples, long[] predicateSubjects,
+			long[] predicateObjects, List<CharacteristicSet> characteristicSets) {
+		this.hdt = hdt;
+		this.predicateTriples = predicateTriples;
+		this.predicateSubjects = predicateSubjects;
+		this.predicateObjects = predicateObjects;
+		this.characteristicSets = characteristicSets;
+		this.cache = cacheSize > 0 ? Collections.synchronizedMap(new LRUCache<>(cacheSize)) : null;
+	}
+
+	/**
+	 * save the statistics into a file, the per-predicate statistics should be
+	 * computed
+	 *
+	 * @param file the file
+	 * @throws IOException can't write the file
+	 */
+	public void save(Path file) throws IOException {
+		if (!hasPredicateStatistics()) {
+			throw new IllegalStateException("No predicate statistics to save");
+		}
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+			out.writeLong(MAGIC);
+			out.writeInt(VERSION);
+			writeLongs(out, signature(hdt));
+			out.writeInt(predicateTriples.length);
+			writeLongs(out, predicateTriples);
+			writeLongs(out, predicateSubjects);
+			writeLongs(out, predicateObjects);
+			out.writeInt(characteristicSets.size());
+			for (CharacteristicSet set : characteristicSets) {
+				out.writeInt(set.predicates().length);
+				writeLongs(out, set.predicates());
+				out.writeLong(set.subjects());
+			}
+		}
+	}
+
+	/**
+	 * @return if the per-predicate statistics were computed
+	 */
+	public boolean hasPredicateStatistics() {
+		return predicateTriples != null;
+	}
+
+	private static boolean isBound(long id) {
+		return id > 0;
+	}
+
+	private boolean isPredicate(long predicate) {
+		return hasPredicateStatistics() && predicate > 0 && predicate <= predicateTriples.length;
+	}
+
+	/**
+	 * @param predicate the predicate id
+	 * @return the number of triples with this predicate, -1 if unknown
+	 */
+	public long getPredicateTriples(long predicate) {
+		return isPredicate(predicate) ? predicateTriples[(int) predicate - 1] : -1;
+	}
+
+	/**
+	 * @param predicate the predicate id
+	 * @return the estimated number of distinct subjects with this predicate, -1
+	 *         if unknown
+	 */
+	public long getPredicateDistinctSubjects(long predicate) {
+		return isPredicate(predicate) ? predicateSubjects[(int) predicate - 1] : -1;
+	}
+
+	/**
+	 * @param predicate the predicate id
+	 * @return the estimated number of distinct objects with this predicate, -1
+	 *         if unknown
+	 */
+	public long getPredicateDistinctObjects(long predicate) {
+		return isPredicate(predicate) ? predicateObjects[(int) predicate - 1] : -1;
+	}
+
+	/**
+	 * @return the characteristic sets of the HDT, at most
+	 *         {@link #MAX_CHARACTERISTIC_SETS} sets are kept
+	 */
+	public List<CharacteristicSet> getCharacteristicSets() {
+		return Collections.unmodifiableList(characteristicSets);
+	}
+
+	/**
+	 * estimate the number of subjects having all the predicates using the
+	 * characteristic sets
+	 *
+	 * @param predicates the predicate ids
+	 * @return the estimated number of subjects, -1 if unknown
+	 */
+	public long estimateSubjectsWithPredicates(long... predicates) {
+		if (characteristicSets.isEmpty()) {
+			return -1;
+		}
+		long[] sorted = predicates.clone();
+		Arrays.sort(sorted);
+		long count = 0;
+		for (CharacteristicSet set : characteristicSets) {
+			if (set.containsAll(sorted)) {
+				count += set.subjects();
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * estimate the cardinality of a triple pattern, 0 for a wildcard, -1 for a
+	 * component not in the HDT
+	 *
+	 * @param subject   subject id
+	 * @param predicate predicate id
+	 * @param object    object id
+	 * @return estimated number of triples
+	 */
+	public double estimateCardinality(long subject, long predicate, long object) {
+		if (subject == -1 || predicate == -1 || object == -1) {
+			// a component isn't in the HDT
+			return 0;
+		}
+		if (!isBound(subject) && !isBound(predicate) && !isBound(object)) {
+			/*
+			 * apparently we got all variables in the triple so we'll not search
+			 * the whole knowledge base to get the cardinality so put we put a
+			 * high card to put this triple on last in the ordering scenario
+			 */
+			return Double.MAX_VALUE;
+		}
+		if (!isBound(subject) && !isBound(object) && isPredicate(predicate)) {
+			return predicateTriples[(int) predicate - 1];
+		}
+
+		if (cache == null) {
+			return search(subject, predicate, object);
+		}
+		PatternKey key = new PatternKey(subject, predicate, object);
+		Double cardinality = cache.get(key);
+		if (cardinality == null) {
+			cardinality = search(subject, predicate, object);
+			cache.put(key, cardinality);
+		}
+		return cardinality;
+	}
+
+	private double search(long subject, long predicate, long object) {
+		return hdt.getTriples().search(new TripleID(subject, predicate, object)).estimatedNumResults();
+	}
+
+	/**
+	 * Small HyperLogLog implementation to count the distinct elements
+	 */
+	private static class HyperLogLog {
+		private static final int BITS = 8;
+		private static final int REGISTERS = 1 << BITS;
+		private static final double ALPHA = 0.7213 / (1 + 1.079 / REGISTERS);
+		private final byte[] registers = new byte[REGISTERS];
+
+		private static long mix(long value) {
+			// splitmix64 finalizer
+			value = (value ^ (value >>> 30)) * 0xBF58476D1CE4E5B9L;
+			value = (value ^ (value >>> 27)) * 0x94D049BB133111EBL;
+			return value ^ (value >>> 31);
+		}
+
+		void add(long value) {
+			long hash = mix(value);
+			int index = (int) (hash >>> (64 - BITS));
+			byte rank = (byte) (Long.numberOfLeadingZeros((hash << BITS) | (1L << (BITS - 1))) + 1);
+			if (registers[index] < rank) {
+				registers[index] = rank;
+			}
+		}
+
+		long estimate() {
+			double sum = 0;
+			int zeros = 0;
+			for (byte register : registers) {
+				sum += 1.0 / (1L << register);
+				if (register == 0) {
+					zeros++;
+				}
+			}
+			double estimate = ALPHA * REGISTERS * REGISTERS / sum;
+			if (estimate <= 2.5 * REGISTERS && zeros != 0) {
+				// small range correction
+				estimate = REGISTERS * Math.log((double) REGISTERS / zeros);
+			}
+			return Math.round(estimate);
+		}
+	}
+}
@@ -0,0 +1,173 @@
+package com.the_qa_company.qendpoint.store;
+
+import com.the_qa_company.qendpoint.core.enums.TripleComponentRole;
+import com.the_qa_company.qendpoint.core.hdt.HDT;
+import com.the_qa_company.qendpoint.model.SimpleBNodeHDT;
+import com.the_qa_company.qendpoint.model.SimpleIRIHDT;
+import org.eclipse.rdf4j.model.Value;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded cache to reuse the {@link Value} created from an HDT id, it is used
+ * by a connection to avoid decoding the same dictionary strings when the same
+ * ids are read multiple times by a query. The cache is a direct-mapped table
+ * indexed by the (role, id) pair, a new value is replacing the previous value
+ * with the same slot.
+ * <p>
+ * The cached values are returned to each reader, they must not be modified
+ * (delegate, non HDT conversion). The string of an IRI or a blank node is
+ * decoded the second time it is read and the cached value is replaced by a
+ * value with this string.
+ */
+public class HDTValueCache {
+	private static class Entry {
+		private final long key;
+		private final Value value;
+		private final boolean decoded;
+
+		private Entry(long key, Value value, boolean decoded) {
+			this.key = key;
+			this.value = value;
+			this.decoded = decoded;
+		}
+	}
+
+	private static final int MAX_CAPACITY = 1 << 30;
+
+	private final EndpointStore endpoint;
+	private final Entry[] entries;
+	private final int shift;
+	private HDT hdt;
+	private final LongAdder hit = new LongAdder();
+	private final LongAdder miss = new LongAdder();
+
+	/**
+	 * create a cache
+	 *
+	 * @param endpoint the endpoint to read the values
+	 * @param size     the max number of values in the cache, rounded to the
+	 *                 next power of 2, 0 to disable the cache
+	 */
+	public HDTValueCache(EndpointStore endpoint, int size) {
+		if (size < 0) {
+			throw new IllegalArgumentException("negative cache size: " + size);
+		}
+		this.endpoint = endpoint;
+		if (size == 0) {
+			entries = null;
+			shift = 0;
+		} else {
+			int capacity = size >= MAX_CAPACITY ? MAX_CAPACITY : Integer.highestOneBit(size - 1) << 1;
+			if (capacity == 0) {
+				capacity = 1;
+			}
+			entries = new Entry[capacity];
+			shift = Long.numberOfLeadingZeros(capacity) + 1;
+		}
+	}
+
+	private static long key(TripleComponentRole role, long id) {
+		return (id << 2) | role.ordinal();
+	}
+
+	private int slot(long key) {
+		if (shift == 64) {
+			return 0;
+		}
+		// fibonacci hashing, the close ids are spread over the table
+		return (int) ((key * 0x9E3779B97F4A7C15L) >>> shift);
+	}
+
+	private Value create(TripleComponentRole role, long id) {
+		HDTConverter converter = endpoint.getHdtConverter();
+		return switch (role) {
+		case SUBJECT -> converter.idToSubjectHDTResource(id);
+		case PREDICATE -> converter.idToPredicateHDTResource(id);
+		case OBJECT -> converter.idToObjectHDTResource(id);
+		case GRAPH -> converter.idToGraphHDTResource(id);
+		};
+	}
+
+	/**
+	 * get the value of an HDT id
+	 *
+	 * @param role the role of the id
+	 * @param id   the id
+	 * @return value, can be null for the default graph
+	 */
+	public Value get(TripleComponentRole role, long id) {
+		if (entries == null) {
+			return create(role, id);
+		}
+
+		HDT current = endpoint.getHdt();
+		if (hdt != current) {
+			// the HDT was replaced by a merge, the ids aren't valid anymore
+			clear();
+			hdt = current;
+		}
+
+		long key = key(role, id);
+		int slot = slot(key);
+		Entry entry = entries[slot];
+		if (entry != null && entry.key == key) {
+			hit.increment();
+			if (!entry.decoded) {
+				// the id is read again, decode its string once for the next
+				// reads
+				entry = new Entry(key, decode(entry.value), true);
+				entries[slot] = entry;
+			}
+			return entry.value;
+		}
+		miss.increment();
+		Value value = create(role, id);
+		if (value != null) {
+			entries[slot] = new Entry(key, value, false);
+		}
+		return value;
+	}
+
+	private Value decode(Value value) {
+		if (value instanceof SimpleIRIHDT iri) {
+			return new SimpleIRIHDT(hdt, iri.getHDTPosition(), iri.getHDTId(), iri.stringValue());
+		}
+		if (value instanceof SimpleBNodeHDT bnode) {
+			return new SimpleBNodeHDT(hdt, bnode.getHDTPosition(), bnode.getHDTId(), bnode.getID());
+		}
+		// the literals are decoded by their first reader
+		return value;
+	}
+
+	/**
+	 * remove all the values from the cache
+	 */
+	public void clear() {
+		if (entries != null) {
+			Arrays.fill(entries, null);
+		}
+	}
+
+	/**
+	 * @return the max number of values in the cache
+	 */
+	public int getCapacity() {
+		return entries == null ? 0 : entries.length;
+	}
+
+	/**
+	 * @return the number of reads of a cached value
+	 */
+	public long getHitCount() {
+		return hit.sum();
+	}
+
+	/**
+	 * @return the number of reads of a non cached value
+	 */
+	public long getMissCount() {
+		return miss.sum();
+	}
+}
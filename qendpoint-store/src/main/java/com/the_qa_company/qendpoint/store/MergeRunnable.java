@@ -4,9 +4,13 @@ import com.github.jsonldjava.shaded.com.google.common.base.Stopwatch;
 import com.the_qa_company.qendpoint.core.compact.bitmap.MultiLayerBitmapWrapper;
 import com.the_qa_company.qendpoint.core.dictionary.Dictionary;
 import com.the_qa_company.qendpoint.core.enums.TripleComponentOrder;
+import com.the_qa_company.qendpoint.core.listener.MergeMetrics;
+import com.the_qa_company.qendpoint.core.quad.QuadString;
+import com.the_qa_company.qendpoint.core.triples.TripleString;
 import com.the_qa_company.qendpoint.store.exception.EndpointStoreException;
 import com.the_qa_company.qendpoint.utils.BitArrayDisk;
 import com.the_qa_company.qendpoint.utils.OverrideHDTOptions;
+import com.the_qa_company.qendpoint.utils.PipedIterator;
 import org.apache.commons.io.file.PathUtils;
 import org.eclipse.rdf4j.common.concurrent.locks.Lock;
 import org.eclipse.rdf4j.common.concurrent.locks.LockManager;
@@ -16,11 +20,8 @@ import org.eclipse.rdf4j.model.Statement;
 import org.eclipse.rdf4j.model.Value;
 import org.eclipse.rdf4j.repository.RepositoryConnection;
 import org.eclipse.rdf4j.repository.RepositoryResult;
-import org.eclipse.rdf4j.rio.RDFFormat;
-import org.eclipse.rdf4j.rio.RDFWriter;
-import org.eclipse.rdf4j.rio.Rio;
+import com.the_qa_company.qendpoint.core.compact.bitmap.Bitmap;
 import com.the_qa_company.qendpoint.core.compact.bitmap.BitmapFactory;
-import com.the_qa_company.qendpoint.core.enums.RDFNotation;
 import com.the_qa_company.qendpoint.core.enums.TripleComponentRole;
 import com.the_qa_company.qendpoint.core.exceptions.ParserException;
 import com.the_qa_company.qendpoint.core.hdt.HDT;
@@ -30,17 +31,21 @@ import com.the_qa_company.qendpoint.core.util.StopWatch;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.BufferedOutputStream;
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.OpenOption;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
 
 public class MergeRunnable {
 	/**
@@ -77,7 +82,44 @@ public class MergeRunnable {
 		T reload() throws Exception;
 	}
 
+	/**
+	 * phases of a merge, timed by {@link #getLastMergePhaseTimes()}
+	 */
+	public enum MergePhase {
+		/**
+		 * step 1, switch of the native stores and copy of the delete bitmaps
+		 */
+		SWITCH,
+		/**
+		 * dump of the frozen native store into the delta HDT
+		 */
+		DUMP,
+		/**
+		 * diff-cat of the HDT with the delta HDT
+		 */
+		DIFF_CAT,
+		/**
+		 * index generation of the new HDT, done during the {@link #ID_MAPPING}
+		 */
+		INDEX,
+		/**
+		 * mapping of the ids of the delta to the new dictionary, done during
+		 * the {@link #INDEX}
+		 */
+		ID_MAPPING,
+		/**
+		 * conversion of the delta to the ids of the new HDT, the connections
+		 * are locked
+		 */
+		ID_CONVERSION
+	}
+
 	private static final int MERGE_OLD_TO_NEW_SPLIT = 10_000;
+	/**
+	 * number of delta statements buffered between the native store dump and the
+	 * HDT generator
+	 */
+	private static final int MERGE_DUMP_BUFFER = 10_000;
 
 	/////// this part is for testing purposes ///////
 	// it extends the merging process to this amount of seconds. If -1 then it
@@ -351,6 +393,10 @@ public class MergeRunnable {
 					debugLastMergeException = e;
 				e.printStackTrace();
 			} finally {
+				if (metrics.isMerging()) {
+					// the merge crashed
+					metrics.endMerge();
+				}
 				if (MergeRunnableStopPoint.debug) {
 					// MergeRunnableStopPoint.unlockAll();
 					debugLock.release();
@@ -395,6 +441,13 @@ public class MergeRunnable {
 	private final EndpointStore endpoint;
 	// the files to use
 	private final EndpointFiles endpointFiles;
+	// the time of the phases of the last merge in milliseconds
+	private final Map<MergePhase, Long> lastMergePhaseTimes = Collections
+			.synchronizedMap(new EnumMap<>(MergePhase.class));
+	// the progress of the current merge
+	private final MergeMetrics metrics = new MergeMetrics();
+	// the number of triples of the delta to dump, -1 if unknown
+	private long deltaTriples = -1;
 
 	/**
 	 * create a merge runnable handler
@@ -406,6 +459,67 @@ public class MergeRunnable {
 		this.endpointFiles = endpoint.getEndpointFiles();
 	}
 
+	/**
+	 * @return the time of the phases of the last merge in milliseconds, the
+	 *         phases of a running merge are added when they are completed
+	 */
+	public Map<MergePhase, Long> getLastMergePhaseTimes() {
+		synchronized (lastMergePhaseTimes) {
+			return new EnumMap<>(lastMergePhaseTimes);
+		}
+	}
+
+	/**
+	 * @return the progress and timing metrics of the merges
+	 */
+	public MergeMetrics getMetrics() {
+		return metrics;
+	}
+
+	/**
+	 * start a phase of the merge in the metrics
+	 *
+	 * @param phase           the phase
+	 * @param expectedTriples the number of triples processed by the phase, -1
+	 *                        if unknown
+	 * @return the start of the phase, {@link System#nanoTime()}
+	 */
+	private long startPhase(MergePhase phase, long expectedTriples) {
+		metrics.startPhase(phase.name(), expectedTriples);
+		return System.nanoTime();
+	}
+
+	/**
+	 * add the size of written files to the metrics
+	 *
+	 * @param files the files, the files that don't exist are ignored
+	 */
+	private void addBytesWritten(String... files) {
+		for (String file : files) {
+			try {
+				Path path = Path.of(file);
+				if (Files.exists(path)) {
+					metrics.addBytesWritten(Files.size(path));
+				}
+			} catch (IOException e) {
+				logger.warn("Can't read the size of {}", file, e);
+			}
+		}
+	}
+
+	/**
+	 * set the time of a completed phase
+	 *
+	 * @param phase the phase
+	 * @param start the start of the phase, {@link System#nanoTime()}
+	 */
+	private void completedPhase(MergePhase phase, long start) {
+		long time = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+		lastMergePhaseTimes.put(phase, time);
+		metrics.completedPhase(phase.name(), time);
+		logger.info("Merge phase {} completed in {}ms", phase, time);
+	}
+
 	/**
 	 * create a lock to prevent new connection
 	 *
@@ -466,7 +580,12 @@ public class MergeRunnable {
 	 */
 	private void waitForActiveConnections() throws InterruptedException {
 		logger.info("Waiting for connections...");
-		endpoint.locksHoldByConnections.waitForActiveLocks();
+		metrics.startLockWait();
+		try {
+			endpoint.locksHoldByConnections.waitForActiveLocks();
+		} finally {
+			metrics.endLockWait();
+		}
 		logger.info("All connections completed.");
 	}
 
@@ -477,7 +596,12 @@ public class MergeRunnable {
 	 */
 	private void waitForActiveUpdates() throws InterruptedException {
 		logger.info("Waiting for updates...");
-		endpoint.locksHoldByUpdates.waitForActiveLocks();
+		metrics.startLockWait();
+		try {
+			endpoint.locksHoldByUpdates.waitForActiveLocks();
+		} finally {
+			metrics.endLockWait();
+		}
 		logger.info("All updates completed.");
 	}
 
@@ -577,6 +701,10 @@ public class MergeRunnable {
 	private synchronized void step1(boolean restarting, Lock switchLock) throws InterruptedException, IOException {
 		logger.info("Start Merge process...");
 		markRestartStepCompleted(0);
+		lastMergePhaseTimes.clear();
+		metrics.startMerge();
+		metrics.setStep("step1");
+		long switchStart = startPhase(MergePhase.SWITCH, -1);
 
 		debugStepPoint(MergeRunnableStopPoint.STEP1_START);
 
@@ -613,10 +741,12 @@ public class MergeRunnable {
 
 		// switch the store to freeze it
 		this.endpoint.switchStore = !this.endpoint.switchStore;
+		this.endpoint.getDeltaStatistics().startMerge();
 
 		debugStepPoint(MergeRunnableStopPoint.STEP1_TEST_SELECT4);
 
 		// reset the count of triples to 0 after switching the stores
+		deltaTriples = restarting ? -1 : this.endpoint.triplesCount;
 		this.endpoint.setTriplesCount(0);
 
 		sleep(extendsTimeMergeBeginningAfterSwitch, "extendsTimeMergeBeginningAfterSwitch");
@@ -646,6 +776,7 @@ public class MergeRunnable {
 
 		// release the lock so that the connections can continue
 		switchLock.release();
+		completedPhase(MergePhase.SWITCH, switchStart);
 		debugStepPoint(MergeRunnableStopPoint.STEP1_END);
 		logger.debug("Switch-Lock released");
 		logger.info("End merge step 1");
@@ -683,20 +814,31 @@ public class MergeRunnable {
 	private synchronized void step2(boolean restarting, Lock lock, EndpointStoreDump dumpInfo)
 			throws InterruptedException, IOException {
 		debugStepPoint(MergeRunnableStopPoint.STEP2_START);
+		if (restarting) {
+			lastMergePhaseTimes.clear();
+			metrics.startMerge();
+			deltaTriples = -1;
+		}
+		metrics.setStep("step2");
 		// diff hdt indexes...
-		logger.debug("Dump all triples from the native store to file");
+		logger.debug("Create HDT index from the native store");
 		boolean graph = endpoint.getHdt().getDictionary().supportGraphs();
-		try (RepositoryConnection nativeStoreConnection = endpoint.getConnectionToFreezedStore()) {
-			writeTempFile(nativeStoreConnection, endpointFiles.getRDFTempOutput(graph), graph);
-			nativeStoreConnection.commit();
-		}
-
-		logger.debug("Create HDT index from dumped file");
-		createHDTDump(endpointFiles.getRDFTempOutput(graph), endpointFiles.getHDTTempOutput());
-		// cat the original index and the temp index
+		long dumpStart = startPhase(MergePhase.DUMP, deltaTriples);
+		createHDTDump(endpointFiles.getHDTTempOutput(), graph);
+		addBytesWritten(endpointFiles.getHDTTempOutput());
+		completedPhase(MergePhase.DUMP, dumpStart);
+		// cat the original index, the temp index and the loaded HDT if any
 		logger.debug("HDT diffcat");
+		long catStart = startPhase(MergePhase.DIFF_CAT, -1);
+		List<String> hdts = new ArrayList<>(List.of(endpointFiles.getHDTTempOutput()));
+		if (exists(endpointFiles.getHDTLoadOutput())) {
+			logger.info("Merge the loaded HDT {}", endpointFiles.getHDTLoadOutput());
+			hdts.add(endpointFiles.getHDTLoadOutput());
+		}
 		catDiffIndexes(endpointFiles.getHDTIndex(), endpointFiles.getTripleDeleteCopyArr(TripleComponentOrder.SPO),
-				endpointFiles.getHDTTempOutput(), endpointFiles.getHDTNewIndex());
+				hdts, endpointFiles.getHDTNewIndex());
+		addBytesWritten(endpointFiles.getHDTNewIndex());
+		completedPhase(MergePhase.DIFF_CAT, catStart);
 		logger.debug("CAT completed {}", endpointFiles.getLocationHdt());
 
 		// #391: save DUMP HDT
@@ -709,8 +851,10 @@ public class MergeRunnable {
 
 		// delete the file after the mark if the shutdown occurs during the
 		// deletes
-		delete(endpointFiles.getRDFTempOutput(graph));
+		// previous versions were dumping the native store into a RDF file
+		deleteIfExists(endpointFiles.getRDFTempOutput(graph));
 		delete(endpointFiles.getHDTTempOutput());
+		deleteIfExists(endpointFiles.getHDTLoadOutput());
 		for (TripleComponentOrder order : endpoint.getValidOrders()) {
 			delete(endpointFiles.getTripleDeleteCopyArr(order));
 			delete(endpointFiles.getTripleDeleteArr(order));
@@ -820,17 +964,54 @@ public class MergeRunnable {
 			throws InterruptedException, IOException {
 		logger.debug("Start Step 3");
 		debugStepPoint(MergeRunnableStopPoint.STEP3_START);
+		if (restarting) {
+			lastMergePhaseTimes.clear();
+			metrics.startMerge();
+		}
+		metrics.setStep("step3");
 		// index the new file
 
 		Lock translateLock;
 
+		// the indexes of the new HDT are generated while the ids of the delta
+		// are mapped to its dictionary
+		FutureTask<HDT> indexTask = new FutureTask<>(() -> {
+			long indexStart = System.nanoTime();
+			HDT indexed = HDTManager.mapIndexedHDT(endpointFiles.getHDTNewIndex(), endpoint.getHDTSpec(), null);
+			addBytesWritten(endpointFiles.getHDTNewIndexV11());
+			completedPhase(MergePhase.INDEX, indexStart);
+			return indexed;
+		});
+		Thread indexThread = new Thread(indexTask, "MergeIndexThread");
+		indexThread.setDaemon(true);
+		indexThread.start();
+
+		HDTIdMapper deltaMapper;
+		try {
+			metrics.startPhase(MergePhase.ID_MAPPING.name(), -1);
+			deltaMapper = mapDeltaIds(endpointFiles.getHDTNewIndex());
+		} catch (Throwable t) {
+			try {
+				getIndexedHDT(indexTask).close();
+			} catch (Throwable t2) {
+				t.addSuppressed(t2);
+			}
+			throw t;
+		}
+
 		boolean graph;
-		try (HDT newHdt = HDTManager.mapIndexedHDT(endpointFiles.getHDTNewIndex(), endpoint.getHDTSpec(), null)) {
+		metrics.startPhase(MergePhase.INDEX.name(), -1);
+		try (HDT newHdt = getIndexedHDT(indexTask)) {
 			if (dumpInfo != null) {
 				dumpInfo.afterIndexing(endpoint, endpointFiles.getHDTNewIndexNamesPath());
 				endpoint.setDumping(endpoint.getDumpRef().get() != null);
 			}
 			graph = newHdt.getDictionary().supportGraphs();
+			// compute the statistics and the value index of the new HDT
+			// before locking the connections, they are loaded by the reset of
+			// the HDT
+			endpoint.saveStatistics(newHdt);
+			endpoint.createValueIndex(newHdt);
 			// convert all triples added to the merge store to new IDs of the
 			// new
 			// generated HDT
@@ -862,24 +1043,33 @@ public class MergeRunnable {
 
 		// rename new hdt to old hdt name so that they are replaces
 		// BEFORE_ALL
+		metrics.setSubStep(Step3SubStep.BEFORE_ALL.name());
 		for (TripleComponentOrder order : endpoint.getValidOrders()) {
 			renameToOld(endpointFiles.getTripleDeleteTempArr(order));
 		}
 		// AFTER_TRIPLEDEL_TMP_OLD_RENAME
+		metrics.setSubStep(Step3SubStep.AFTER_TRIPLEDEL_TMP_OLD_RENAME.name());
 		renameToOld(endpointFiles.getHDTIndex());
 		debugStepPoint(MergeRunnableStopPoint.STEP3_FILES_MID1);
 		// AFTER_INDEX_OLD_RENAME
+		metrics.setSubStep(Step3SubStep.AFTER_INDEX_OLD_RENAME.name());
 		renameToOld(endpointFiles.getHDTIndexV11());
 		// AFTER_INDEX_V11_OLD_RENAME
+		metrics.setSubStep(Step3SubStep.AFTER_INDEX_V11_OLD_RENAME.name());
 		rename(endpointFiles.getHDTNewIndex(), endpointFiles.getHDTIndex());
 		debugStepPoint(MergeRunnableStopPoint.STEP3_FILES_MID2);
 		// AFTER_INDEX_RENAME
+		metrics.setSubStep(Step3SubStep.AFTER_INDEX_RENAME.name());
 		rename(endpointFiles.getHDTNewIndexNames(), endpointFiles.getHDTIndexNames());
 		// AFTER_INDEX_V11_RENAME
+		metrics.setSubStep(Step3SubStep.AFTER_INDEX_V11_RENAME.name());
 
 		HDT tempHdt = endpoint.loadIndex();
 
-		convertOldToNew(tempHdt, graph);
+		long conversionStart = startPhase(MergePhase.ID_CONVERSION, -1);
+		convertOldToNew(tempHdt, graph, deltaMapper);
+		completedPhase(MergePhase.ID_CONVERSION, conversionStart);
+		this.endpoint.getDeltaStatistics().endMerge(endpoint.getHdt().getDictionary(), tempHdt.getDictionary());
 		this.endpoint.resetHDT(tempHdt, true);
 
 		// mark the triples as deleted from the temp file stored while merge
@@ -912,13 +1102,73 @@ public class MergeRunnable {
 		debugStepPoint(MergeRunnableStopPoint.MERGE_END_OLD_SLEEP);
 
 		logger.info("Merge finished");
+		metrics.endMerge();
 		if (restartAnother) {
 			// recurse to the step1 to dump
 			step1(false, null);
 		}
 	}
 
-	private void catDiffIndexes(String hdtInput1, String bitArray, String hdtInput2, String hdtOutput)
+	/**
+	 * wait for the index generation of the new HDT
+	 *
+	 * @param indexTask the index task
+	 * @return the indexed HDT
+	 * @throws IOException          if the index generation failed
+	 * @throws InterruptedException in case of interruption
+	 */
+	private static HDT getIndexedHDT(FutureTask<HDT> indexTask) throws IOException, InterruptedException {
+		try {
+			return indexTask.get();
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof IOException ioe) {
+				throw ioe;
+			}
+			if (cause instanceof RuntimeException re) {
+				throw re;
+			}
+			if (cause instanceof Error err) {
+				throw err;
+			}
+			throw new IOException(cause);
+		}
+	}
+
+	/**
+	 * map the ids of the statements of the changing store to the dictionary of
+	 * the new HDT, the connections aren't locked, the statements added after
+	 * are mapped during the conversion.
+	 *
+	 * @param newIndex the new HDT, without its indexes
+	 * @return the resolved mapper
+	 * @throws IOException if the HDT can't be mapped
+	 */
+	private HDTIdMapper mapDeltaIds(String newIndex) throws IOException {
+		long start = System.nanoTime();
+		try (HDT newHdt = HDTManager.mapHDT(newIndex)) {
+			boolean graph = newHdt.getDictionary().supportGraphs();
+			HDTConverter iriConverter = new HDTConverter(this.endpoint);
+			HDTIdMapper mapper = new HDTIdMapper(endpoint.getHdt().getDictionary(), newHdt.getDictionary());
+			try (RepositoryConnection connectionChanging = this.endpoint.getConnectionToChangingStore();
+					RepositoryResult<Statement> statements = connectionChanging.getStatements(null, null, null)) {
+				for (Statement s : statements) {
+					mapper.add(TripleComponentRole.SUBJECT, iriConverter.rdf4jSubjectToHdtID(s.getSubject()));
+					mapper.add(TripleComponentRole.PREDICATE, iriConverter.rdf4jPredicateToHdtID(s.getPredicate()));
+					mapper.add(TripleComponentRole.OBJECT, iriConverter.rdf4jObjectToHdtID(s.getObject()));
+					if (graph && s.getContext() != null) {
+						mapper.add(TripleComponentRole.GRAPH, iriConverter.rdf4jContextToHdtID(s.getContext()));
+					}
+				}
+			}
+			// the new dictionary is only read by the resolution
+			mapper.resolve();
+			completedPhase(MergePhase.ID_MAPPING, start);
+			return mapper;
+		}
+	}
+
+	private void catDiffIndexes(String hdtInput1, String bitArray, List<String> hdtInputs, String hdtOutput)
 			throws IOException {
 		File file = new File(hdtOutput);
 		File theDir = new File(file.getAbsolutePath() + "_tmp");
@@ -926,7 +1176,7 @@ public class MergeRunnable {
 		String location = theDir.getAbsolutePath() + File.separator;
 		logger.info(location);
 		logger.info(hdtInput1);
-		logger.info(hdtInput2);
+		hdtInputs.forEach(logger::info);
 		// @todo: should we not use the already mapped HDT file instead of
 		// remapping
 		StopWatch sw;
@@ -938,8 +1188,15 @@ public class MergeRunnable {
 		try (MultiLayerBitmapWrapper deleteBitmap = MultiLayerBitmapWrapper.of(
 				new BitArrayDisk(endpoint.getHdt().getTriples().getNumberOfElements() * graphs, new File(bitArray)),
 				graphs)) {
-			try (HDT hdt = HDTManager.diffBitCatHDT(List.of(hdtInput1, hdtInput2),
-					List.of(deleteBitmap, BitmapFactory.empty()), catOpt, null)) {
+			List<String> hdts = new ArrayList<>();
+			List<Bitmap> deleteBitmaps = new ArrayList<>();
+			hdts.add(hdtInput1);
+			deleteBitmaps.add(deleteBitmap);
+			for (String hdtInput : hdtInputs) {
+				hdts.add(hdtInput);
+				deleteBitmaps.add(BitmapFactory.empty());
+			}
+			try (HDT hdt = HDTManager.diffBitCatHDT(hdts, deleteBitmaps, catOpt, metrics)) {
 				sw = new StopWatch();
 				// useless to copy the file if it's already there (future
 				// location set)
@@ -951,8 +1208,18 @@ public class MergeRunnable {
 		logger.info("HDT saved to file in: " + sw.stopAndShow());
 	}
 
-	private void createHDTDump(String rdfInput, String hdtOutput) throws IOException {
-		String baseURI = EndpointStoreUtils.baseURIFromFilename(rdfInput);
+	/**
+	 * create the delta HDT from the content of the frozen native store, the
+	 * statements are read and converted by another thread while the HDT
+	 * generator is consuming them, without intermediate RDF file
+	 *
+	 * @param hdtOutput the HDT output file
+	 * @param graph     if the HDT should contain graphs
+	 * @throws IOException          io exception
+	 * @throws InterruptedException interruption while waiting for the dump
+	 */
+	private void createHDTDump(String hdtOutput, boolean graph) throws IOException, InterruptedException {
+		String baseURI = EndpointStoreUtils.baseURIFromFilename(hdtOutput);
 		StopWatch sw = new StopWatch();
 		Path location = endpointFiles.getLocationHdtPath().resolve("merger");
 
@@ -960,16 +1227,52 @@ public class MergeRunnable {
 		oopt.setOverride(HDTOptionsKeys.LOADER_TYPE_KEY, HDTOptionsKeys.LOADER_TYPE_VALUE_DISK);
 		oopt.setOverride(HDTOptionsKeys.LOADER_DISK_LOCATION_KEY, location.resolve("gen"));
 		oopt.setOverride(HDTOptionsKeys.LOADER_DISK_FUTURE_HDT_LOCATION_KEY, location.resolve("wip.hdt"));
+		// the mapped triples are already new String instances
+		oopt.setOverride(HDTOptionsKeys.LOADER_DISK_NO_COPY_ITERATOR_KEY, true);
+
+		PipedIterator<TripleString> pipe = new PipedIterator<>(MERGE_DUMP_BUFFER);
+		Thread dumpThread = new Thread(() -> {
+			try {
+				try (RepositoryConnection connection = endpoint.getConnectionToFreezedStore()) {
+					try (RepositoryResult<Statement> repositoryResult = connection.getStatements(null, null, null,
+							false)) {
+						for (Statement stm : repositoryResult) {
+							pipe.addElement(toTripleString(stm, graph));
+							metrics.addTriplesProcessed(1);
+						}
+					}
+					connection.commit();
+				}
+				// the pipe is closed after the connection, the generator can't
+				// end before the store is released
+				pipe.closePipe();
+			} catch (Throwable t) {
+				if (t instanceof PipedIterator.PipedIteratorException && t.getCause() instanceof InterruptedException) {
+					// the HDT generator stopped, nobody is reading the pipe
+					return;
+				}
+				pipe.closePipe(t);
+			}
+		}, "MergeDumpThread");
+		dumpThread.setDaemon(true);
+		dumpThread.start();
+		boolean generated = false;
 		try {
-			try (HDT hdt = HDTManager.generateHDT(new File(rdfInput).getAbsolutePath(), baseURI,
-					RDFNotation.guess(rdfInput), oopt, null)) {
-				logger.info("File converted in: " + sw.stopAndShow());
+			logger.debug("Content dumped to the HDT generator");
+			try (HDT hdt = HDTManager.generateHDT(pipe, baseURI, oopt, null)) {
+				logger.info("Native store converted in: " + sw.stopAndShow());
 				hdt.saveToHDT(hdtOutput, null);
 				logger.info("HDT saved to file in: " + sw.stopAndShow());
 			} catch (ParserException e) {
 				throw new IOException(e);
 			}
+			generated = true;
 		} finally {
+			if (!generated) {
+				// stop the dump if the generator crashed
+				dumpThread.interrupt();
+			}
+			dumpThread.join();
 			try {
 				if (Files.exists(location)) {
 					PathUtils.deleteDirectory(location);
@@ -981,43 +1284,76 @@ public class MergeRunnable {
 		}
 	}
 
-	private void writeTempFile(RepositoryConnection connection, String file, boolean graph) throws IOException {
-		try (OutputStream out = new BufferedOutputStream(new FileOutputStream(file))) {
-			RDFWriter writer = Rio.createWriter(
-					endpoint.getHdt().getDictionary().supportGraphs() ? RDFFormat.NQUADS : RDFFormat.NTRIPLES, out);
-			RepositoryResult<Statement> repositoryResult = connection.getStatements(null, null, null, false);
-			writer.startRDF();
-			logger.debug("Content dumped file");
-			while (repositoryResult.hasNext()) {
-				Statement stm = repositoryResult.next();
-
-				Resource newSubjIRI = this.endpoint.getHdtConverter().rdf4jToHdtIDsubject(stm.getSubject());
-				newSubjIRI = this.endpoint.getHdtConverter().subjectHdtResourceToResource(newSubjIRI);
-
-				IRI newPredIRI = this.endpoint.getHdtConverter().rdf4jToHdtIDpredicate(stm.getPredicate());
-				newPredIRI = this.endpoint.getHdtConverter().predicateHdtResourceToResource(newPredIRI);
-
-				Value newObjIRI = this.endpoint.getHdtConverter().rdf4jToHdtIDobject(stm.getObject());
-				newObjIRI = this.endpoint.getHdtConverter().objectHdtResourceToResource(newObjIRI);
-
-				Statement stmConverted;
-				if (graph) {
-					Resource newCtxIRI = this.endpoint.getHdtConverter().rdf4jToHdtIDcontext(stm.getContext());
-					newCtxIRI = this.endpoint.getHdtConverter().subjectHdtResourceToResource(newCtxIRI);
-
-					stmConverted = this.endpoint.getValueFactory().createStatement(newSubjIRI, newPredIRI, newObjIRI,
-							newCtxIRI);
-				} else {
-					stmConverted = this.endpoint.getValueFactory().createStatement(newSubjIRI, newPredIRI, newObjIRI);
-				}
+	/**
+	 * convert a native store statement to a triple string, the HDT ids are
+	 * directly read from the dictionary
+	 *
+	 * @param stm   the statement
+	 * @param graph if the graph should be read
+	 * @return triple string
+	 */
+	private TripleString toTripleString(Statement stm, boolean graph) {
+		HDTConverter converter = endpoint.getHdtConverter();
+		Dictionary dict = endpoint.getHdt().getDictionary();
+
+		String subject = componentString(dict, stm.getSubject(), converter.rdf4jSubjectToHdtID(stm.getSubject()),
+				TripleComponentRole.SUBJECT);
+		String predicate = componentString(dict, stm.getPredicate(),
+				converter.rdf4jPredicateToHdtID(stm.getPredicate()), TripleComponentRole.PREDICATE);
+		String object = componentString(dict, stm.getObject(), converter.rdf4jObjectToHdtID(stm.getObject()),
+				TripleComponentRole.OBJECT);
+
+		if (graph) {
+			Resource ctx = stm.getContext();
+			String context = ctx == null ? ""
+					: componentString(dict, ctx, converter.rdf4jContextToHdtID(ctx), TripleComponentRole.GRAPH);
+			return new QuadString(subject, predicate, object, context);
+		}
+		return new TripleString(subject, predicate, object);
+	}
 
-				writer.handleStatement(stmConverted);
-			}
-			writer.endRDF();
+	private static String componentString(Dictionary dict, Value value, long id, TripleComponentRole role) {
+		if (id != -1) {
+			return dict.idToString(id, role).toString();
 		}
+		return value.toString();
 	}
 
-	private void convertOldToNew(HDT newHDT, boolean graph) throws IOException {
+	/**
+	 * map an old id to the new dictionary, the ids added after
+	 * {@link #mapDeltaIds(String)} are searched in the dictionaries
+	 *
+	 * @param deltaMapper the mapper of the delta
+	 * @param oldDict     the old dictionary
+	 * @param newDict     the new dictionary
+	 * @param role        the role of the id
+	 * @param oldId       the old id
+	 * @return the new id, -1 if the string isn't in the new dictionary
+	 */
+	private static long map(HDTIdMapper deltaMapper, Dictionary oldDict, Dictionary newDict, TripleComponentRole role,
+			long oldId) {
+		if (deltaMapper.contains(role, oldId)) {
+			return deltaMapper.map(role, oldId);
+		}
+		CharSequence str = oldDict.idToString(oldId, role);
+		if (str == null) {
+			return -1;
+		}
+		long id = newDict.stringToId(str, role);
+		return id <= 0 ? -1 : id;
+	}
+
+	/**
+	 * convert the statements of the changing store to the ids of the new HDT
+	 * and write them into the freezed store
+	 *
+	 * @param newHDT      the new HDT
+	 * @param graph       if the HDT contains graphs
+	 * @param deltaMapper the mapper created by {@link #mapDeltaIds(String)}
+	 *                    before locking the connections
+	 * @throws IOException io exception
+	 */
+	private void convertOldToNew(HDT newHDT, boolean graph, HDTIdMapper deltaMapper) throws IOException {
 		logger.info("Started converting IDs in the merge store");
 		try {
 			Stopwatch stopwatch = Stopwatch.createStarted();
@@ -1025,47 +1361,71 @@ public class MergeRunnable {
 			try (RepositoryConnection connectionChanging = this.endpoint.getConnectionToChangingStore(); // B
 					RepositoryConnection connectionFreezed = this.endpoint.getConnectionToFreezedStore() // A
 			) {
+				HDTConverter iriConverter = new HDTConverter(this.endpoint);
+				Dictionary oldDict = endpoint.getHdt().getDictionary();
+				Dictionary newDict = newHDT.getDictionary();
+
+				// the ids of the statements added since the mapping of the
+				// delta are searched one by one in the dictionaries
+				long nshared = newDict.getNshared();
 				connectionFreezed.begin();
 				try (RepositoryResult<Statement> statements = connectionChanging.getStatements(null, null, null)) {
 					long count = 0;
 					for (Statement s : statements) {
 						count++;
-						// get the string
-						// convert the string using the new dictionary
-
-						// get the old IRIs with old IDs
-						HDTConverter iriConverter = new HDTConverter(this.endpoint);
-						Resource oldSubject = iriConverter.rdf4jToHdtIDsubject(s.getSubject());
-						IRI oldPredicate = iriConverter.rdf4jToHdtIDpredicate(s.getPredicate());
-						Value oldObject = iriConverter.rdf4jToHdtIDobject(s.getObject());
-						Resource oldContext = graph ? iriConverter.rdf4jToHdtIDcontext(s.getContext()) : null;
-
-						// if the old string cannot be converted than we can
-						// keep the
-						// same
-						Resource newSubjIRI = oldSubject;
-						long id = newHDT.getDictionary().stringToId(oldSubject.toString(), TripleComponentRole.SUBJECT);
+						metrics.addTriplesProcessed(1);
+						// convert the ids using the new dictionary, if the old
+						// id can't be converted, we keep the old string
+
+						Resource newSubjIRI;
+						long oldId = iriConverter.rdf4jSubjectToHdtID(s.getSubject());
+						long id = oldId == -1
+								? newDict.stringToId(s.getSubject().toString(), TripleComponentRole.SUBJECT)
+								: map(deltaMapper, oldDict, newDict, TripleComponentRole.SUBJECT, oldId);
 						if (id != -1) {
-							newSubjIRI = iriConverter.subjectIdToIRI(id);
+							newSubjIRI = iriConverter.subjectIdToIRI(id, nshared);
+						} else if (oldId != -1) {
+							newSubjIRI = iriConverter.idToSubjectHDTResource(oldId);
+						} else {
+							newSubjIRI = s.getSubject();
 						}
 
-						IRI newPredIRI = oldPredicate;
-						id = newHDT.getDictionary().stringToId(oldPredicate.toString(), TripleComponentRole.PREDICATE);
-
+						IRI newPredIRI;
+						oldId = iriConverter.rdf4jPredicateToHdtID(s.getPredicate());
+						id = oldId == -1
+								? newDict.stringToId(s.getPredicate().toString(), TripleComponentRole.PREDICATE)
+								: map(deltaMapper, oldDict, newDict, TripleComponentRole.PREDICATE, oldId);
 						if (id != -1) {
 							newPredIRI = iriConverter.predicateIdToIRI(id);
+						} else if (oldId != -1) {
+							newPredIRI = iriConverter.idToPredicateHDTResource(oldId);
+						} else {
+							newPredIRI = s.getPredicate();
 						}
-						Value newObjIRI = oldObject;
-						id = newHDT.getDictionary().stringToId(oldObject.toString(), TripleComponentRole.OBJECT);
+
+						Value newObjIRI;
+						oldId = iriConverter.rdf4jObjectToHdtID(s.getObject());
+						id = oldId == -1 ? newDict.stringToId(s.getObject().toString(), TripleComponentRole.OBJECT)
+								: map(deltaMapper, oldDict, newDict, TripleComponentRole.OBJECT, oldId);
 						if (id != -1) {
-							newObjIRI = iriConverter.objectIdToIRI(id);
+							newObjIRI = iriConverter.objectIdToIRI(id, nshared);
+						} else if (oldId != -1) {
+							newObjIRI = iriConverter.idToObjectHDTResource(oldId);
+						} else {
+							newObjIRI = s.getObject();
 						}
 
-						Resource newCtxIRI = oldContext;
-						if (newCtxIRI != null) {
-							id = newHDT.getDictionary().stringToId(oldContext.toString(), TripleComponentRole.GRAPH);
+						Resource newCtxIRI = null;
+						if (graph && s.getContext() != null) {
+							oldId = iriConverter.rdf4jContextToHdtID(s.getContext());
+							id = oldId == -1 ? newDict.stringToId(s.getContext().toString(), TripleComponentRole.GRAPH)
+									: map(deltaMapper, oldDict, newDict, TripleComponentRole.GRAPH, oldId);
 							if (id != -1) {
 								newCtxIRI = iriConverter.graphIdToIRI(id);
+							} else if (oldId != -1) {
+								newCtxIRI = iriConverter.idToGraphHDTResource(oldId);
+							} else {
+								newCtxIRI = s.getContext();
 							}
 						}
 
@@ -1074,12 +1434,6 @@ public class MergeRunnable {
 						} else {
 							connectionFreezed.add(newSubjIRI, newPredIRI, newObjIRI);
 						}
-						// alternative, i.e. make inplace replacements
-						// connectionChanging.remove(s.getSubject(),
-						// s.getPredicate(),
-						// s.getObject());
-						// connectionChanging.add(newSubjIRI, newPredIRI,
-						// newObjIRI);
 
 						if (count % MERGE_OLD_TO_NEW_SPLIT == 0) {
 							connectionFreezed.commit();
@@ -0,0 +1,67 @@
+package com.the_qa_company.qendpoint.store;
+
+import org.eclipse.rdf4j.query.algebra.Group;
+import org.eclipse.rdf4j.query.algebra.QueryModelVisitor;
+import org.eclipse.rdf4j.query.algebra.StatementPattern;
+import org.eclipse.rdf4j.query.algebra.UnaryTupleOperator;
+
+/**
+ * Count of the statements of a pattern, the group is only evaluated if the
+ * statements can't be counted from the positions of the HDT triples.
+ *
+ * @see StatementPatternPushdownOptimizer
+ * @see EndpointTripleSource#countStatements(org.eclipse.rdf4j.model.Resource,
+ *      org.eclipse.rdf4j.model.IRI, org.eclipse.rdf4j.model.Value,
+ *      org.eclipse.rdf4j.model.Resource...)
+ */
+public class StatementPatternCount extends UnaryTupleOperator {
+	/**
+	 * create the node
+	 *
+	 * @param group the group without group by and with one count of the pattern
+	 */
+	public StatementPatternCount(Group group) {
+		super(group);
+	}
+
+	/**
+	 * @return the group counting the statements
+	 */
+	public Group getGroup() {
+		return (Group) getArg();
+	}
+
+	/**
+	 * @return the counted pattern
+	 */
+	public StatementPattern getStatementPattern() {
+		return (StatementPattern) getGroup().getArg();
+	}
+
+	/**
+	 * @return the name of the count binding
+	 */
+	public String getCountName() {
+		return getGroup().getGroupElements().get(0).getName();
+	}
+
+	@Override
+	public <X extends Exception> void visit(QueryModelVisitor<X> visitor) throws X {
+		visitor.meetOther(this);
+	}
+
+	@Override
+	public boolean equals(Object other) {
+		return other instanceof StatementPatternCount && super.equals(other);
+	}
+
+	@Override
+	public int hashCode() {
+		return super.hashCode() ^ "StatementPatternCount".hashCode();
+	}
+
+	@Override
+	public StatementPatternCount clone() {
+		return (StatementPatternCount) super.clone();
+	}
+}
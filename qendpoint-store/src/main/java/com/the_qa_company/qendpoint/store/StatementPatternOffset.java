@@ -0,0 +1,75 @@
+package com.the_qa_company.qendpoint.store;
+
+import org.eclipse.rdf4j.query.algebra.QueryModelVisitor;
+import org.eclipse.rdf4j.query.algebra.StatementPattern;
+import org.eclipse.rdf4j.query.algebra.UnaryTupleOperator;
+
+/**
+ * Statements of a pattern after an offset, the skipped HDT triples aren't read
+ * if the statements of the pattern are a range of positions of the HDT.
+ *
+ * @see StatementPatternPushdownOptimizer
+ * @see EndpointTripleSource#getStatements(long,
+ *      org.eclipse.rdf4j.model.Resource, org.eclipse.rdf4j.model.IRI,
+ *      org.eclipse.rdf4j.model.Value, org.eclipse.rdf4j.model.Resource...)
+ */
+public class StatementPatternOffset extends UnaryTupleOperator {
+	private long offset;
+
+	/**
+	 * create the node
+	 *
+	 * @param pattern the pattern
+	 * @param offset  the number of results to skip
+	 */
+	public StatementPatternOffset(StatementPattern pattern, long offset) {
+		super(pattern);
+		this.offset = offset;
+	}
+
+	/**
+	 * @return the pattern
+	 */
+	public StatementPattern getStatementPattern() {
+		return (StatementPattern) getArg();
+	}
+
+	/**
+	 * @return the number of results to skip
+	 */
+	public long getOffset() {
+		return offset;
+	}
+
+	/**
+	 * @param offset the number of results to skip
+	 */
+	public void setOffset(long offset) {
+		this.offset = offset;
+	}
+
+	@Override
+	public <X extends Exception> void visit(QueryModelVisitor<X> visitor) throws X {
+		visitor.meetOther(this);
+	}
+
+	@Override
+	public String getSignature() {
+		return super.getSignature() + " (offset=" + offset + ")";
+	}
+
+	@Override
+	public boolean equals(Object other) {
+		return other instanceof StatementPatternOffset o && offset == o.offset && super.equals(other);
+	}
+
+	@Override
+	public int hashCode() {
+		return super.hashCode() ^ Long.hashCode(offset);
+	}
+
+	@Override
+	public StatementPatternOffset clone() {
+		return (StatementPatternOffset) super.clone();
+	}
+}
@@ -0,0 +1,224 @@
+package com.the_qa_company.qendpoint.store;
+
+import com.the_qa_company.qendpoint.core.dictionary.impl.LiteralValueIndex;
+import org.eclipse.rdf4j.model.Literal;
+import org.eclipse.rdf4j.model.Value;
+import org.eclipse.rdf4j.query.BindingSet;
+import org.eclipse.rdf4j.query.Dataset;
+import org.eclipse.rdf4j.query.algebra.And;
+import org.eclipse.rdf4j.query.algebra.Compare;
+import org.eclipse.rdf4j.query.algebra.Count;
+import org.eclipse.rdf4j.query.algebra.Filter;
+import org.eclipse.rdf4j.query.algebra.Group;
+import org.eclipse.rdf4j.query.algebra.GroupElem;
+import org.eclipse.rdf4j.query.algebra.Projection;
+import org.eclipse.rdf4j.query.algebra.QueryModelNode;
+import org.eclipse.rdf4j.query.algebra.Slice;
+import org.eclipse.rdf4j.query.algebra.StatementPattern;
+import org.eclipse.rdf4j.query.algebra.TupleExpr;
+import org.eclipse.rdf4j.query.algebra.ValueConstant;
+import org.eclipse.rdf4j.query.algebra.ValueExpr;
+import org.eclipse.rdf4j.query.algebra.Var;
+import org.eclipse.rdf4j.query.algebra.evaluation.QueryOptimizer;
+import org.eclipse.rdf4j.query.algebra.helpers.AbstractSimpleQueryModelVisitor;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Optimizer pushing the counts, the offsets and the value ranges of single
+ * statement patterns to the {@link EndpointTripleSource}, the HDT triples of
+ * these patterns are counted or skipped with their positions or selected with
+ * the ids of their objects instead of being read.
+ * <ul>
+ * <li>{@code SELECT (COUNT(*) AS ?c) { ?s ?p ?o }} is evaluated with a
+ * {@link StatementPatternCount}</li>
+ * <li>{@code SELECT * { ?s ?p ?o } OFFSET n} is evaluated with a
+ * {@link StatementPatternOffset}</li>
+ * <li>{@code SELECT * { ?s ?p ?o FILTER(?o > 10) }} is evaluated with a
+ * {@link StatementPatternValueRange} under the filter</li>
+ * </ul>
+ */
+public class StatementPatternPushdownOptimizer implements QueryOptimizer {
+
+	@Override
+	public void optimize(TupleExpr tupleExpr, Dataset dataset, BindingSet bindings) {
+		if (dataset != null && (!dataset.getDefaultGraphs().isEmpty() || !dataset.getNamedGraphs().isEmpty())) {
+			// the statements are filtered by graph
+			return;
+		}
+		tupleExpr.visit(new PushdownVisitor());
+	}
+
+	/**
+	 * @param expr expression
+	 * @return the names of the variables of the pattern, null if the expression
+	 *         isn't a pattern of the default graph or if a variable is used
+	 *         twice
+	 */
+	private static Set<String> patternVarNames(TupleExpr expr) {
+		if (!(expr instanceof StatementPattern pattern) || pattern.getContextVar() != null
+				|| pattern.getScope() != StatementPattern.Scope.DEFAULT_CONTEXTS) {
+			return null;
+		}
+		Set<String> names = new HashSet<>();
+		for (Var var : new Var[] { pattern.getSubjectVar(), pattern.getPredicateVar(), pattern.getObjectVar() }) {
+			if (!var.hasValue() && !names.add(var.getName())) {
+				// the pattern is filtering the statements
+				return null;
+			}
+		}
+		return names;
+	}
+
+	/**
+	 * range of values of a variable
+	 *
+	 * @param kind the kind of the values
+	 * @param min  the min value (inclusive)
+	 * @param max  the max value (inclusive)
+	 */
+	private record ValueRange(LiteralValueIndex.ValueKind kind, double min, double max) {
+		/**
+		 * intersect a range with the range of a condition over a variable
+		 *
+		 * @param condition the condition
+		 * @param varName   the variable
+		 * @param range     the range, null for no range
+		 * @return the intersection, null for no range
+		 */
+		static ValueRange of(ValueExpr condition, String varName, ValueRange range) {
+			if (condition instanceof And and) {
+				return of(and.getRightArg(), varName, of(and.getLeftArg(), varName, range));
+			}
+			if (!(condition instanceof Compare compare)) {
+				return range;
+			}
+			Compare.CompareOp op = compare.getOperator();
+			Value constant;
+			if (isVar(compare.getLeftArg(), varName)) {
+				constant = constantValue(compare.getRightArg());
+			} else if (isVar(compare.getRightArg(), varName)) {
+				constant = constantValue(compare.getLeftArg());
+				op = switch (op) {
+				case LT -> Compare.CompareOp.GT;
+				case LE -> Compare.CompareOp.GE;
+				case GT -> Compare.CompareOp.LT;
+				case GE -> Compare.CompareOp.LE;
+				default -> op;
+				};
+			} else {
+				return range;
+			}
+			if (!(constant instanceof Literal literal) || op == Compare.CompareOp.NE) {
+				return range;
+			}
+			LiteralValueIndex.ValueKind kind = LiteralValueIndex.ValueKind
+					.ofDatatype("<" + literal.getDatatype() + ">");
+			if (kind == null || (range != null && range.kind != kind)) {
+				return range;
+			}
+			double value = kind.parse(literal.getLabel());
+			if (Double.isNaN(value)) {
+				return range;
+			}
+			// the inclusive bounds are also used for the strict comparisons,
+			// the range only has to contain the matching values
+			double min = value;
+			double max = value;
+			if (kind == LiteralValueIndex.ValueKind.TEMPORAL) {
+				// the values without timezone can be compared with a shift
+				min -= LiteralValueIndex.ValueKind.TEMPORAL_TIMEZONE_SHIFT;
+				max += LiteralValueIndex.ValueKind.TEMPORAL_TIMEZONE_SHIFT;
+			}
+			switch (op) {
+			case LT, LE -> min = Double.NEGATIVE_INFINITY;
+			case GT, GE -> max = Double.POSITIVE_INFINITY;
+			default -> {
+			}
+			}
+			if (range == null) {
+				return new ValueRange(kind, min, max);
+			}
+			return new ValueRange(kind, Math.max(range.min, min), Math.min(range.max, max));
+		}
+
+		private static boolean isVar(ValueExpr expr, String varName) {
+			return expr instanceof Var var && !var.hasValue() && var.getName().equals(varName);
+		}
+
+		private static Value constantValue(ValueExpr expr) {
+			if (expr instanceof ValueConstant constant) {
+				return constant.getValue();
+			}
+			if (expr instanceof Var var && var.hasValue()) {
+				return var.getValue();
+			}
+			return null;
+		}
+	}
+
+	private static class PushdownVisitor extends AbstractSimpleQueryModelVisitor<RuntimeException> {
+		@Override
+		public void meet(Filter node) {
+			super.meet(node);
+			if (!(node.getArg() instanceof StatementPattern pattern) || patternVarNames(pattern) == null
+					|| pattern.getObjectVar().hasValue()) {
+				return;
+			}
+			// the range of the object in the filters over the pattern
+			String objectName = pattern.getObjectVar().getName();
+			ValueRange range = null;
+			for (QueryModelNode filter = node; filter instanceof Filter f; filter = f.getParentNode()) {
+				range = ValueRange.of(f.getCondition(), objectName, range);
+			}
+			if (range == null) {
+				return;
+			}
+			node.replaceChildNode(pattern, new StatementPatternValueRange(pattern, range.kind, range.min, range.max));
+		}
+
+		@Override
+		public void meet(Group node) {
+			Set<String> names = patternVarNames(node.getArg());
+			if (names == null || !node.getGroupBindingNames().isEmpty() || node.getGroupElements().size() != 1) {
+				super.meet(node);
+				return;
+			}
+			GroupElem elem = node.getGroupElements().get(0);
+			if (!(elem.getOperator() instanceof Count count) || count.isDistinct()) {
+				return;
+			}
+			ValueExpr arg = count.getArg();
+			if (arg != null && !(arg instanceof Var var && !var.hasValue() && names.contains(var.getName()))) {
+				// the count of an expression can be lower than the number of
+				// statements
+				return;
+			}
+			QueryModelNode parent = node.getParentNode();
+			parent.replaceChildNode(node, new StatementPatternCount(node));
+		}
+
+		@Override
+		public void meet(Slice node) {
+			super.meet(node);
+			if (node.getOffset() <= 0) {
+				return;
+			}
+			TupleExpr arg = node.getArg();
+			if (arg instanceof Projection projection) {
+				arg = projection.getArg();
+			}
+			if (patternVarNames(arg) == null) {
+				return;
+			}
+			QueryModelNode parent = arg.getParentNode();
+			parent.replaceChildNode(arg, new StatementPatternOffset((StatementPattern) arg, node.getOffset()));
+			if (node.hasLimit()) {
+				node.setOffset(0);
+			} else {
+				node.replaceWith(node.getArg());
+			}
+		}
+	}
+}
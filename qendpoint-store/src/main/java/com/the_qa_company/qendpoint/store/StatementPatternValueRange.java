@@ -0,0 +1,93 @@
+package com.the_qa_company.qendpoint.store;
+
+import com.the_qa_company.qendpoint.core.dictionary.impl.LiteralValueIndex;
+import org.eclipse.rdf4j.query.algebra.QueryModelVisitor;
+import org.eclipse.rdf4j.query.algebra.StatementPattern;
+import org.eclipse.rdf4j.query.algebra.UnaryTupleOperator;
+
+import java.util.Objects;
+
+/**
+ * Statements of a pattern with an object in a range of values, the HDT literals
+ * of the kind of the range out of the range aren't read. The statements can
+ * still be out of the range, the filter of the range is kept over this node.
+ *
+ * @see StatementPatternPushdownOptimizer
+ * @see EndpointTripleSource#getValueRangeStatements(EndpointTripleSource.ValueRange,
+ *      org.eclipse.rdf4j.model.Resource, org.eclipse.rdf4j.model.IRI)
+ */
+public class StatementPatternValueRange extends UnaryTupleOperator {
+	private final LiteralValueIndex.ValueKind kind;
+	private final double min;
+	private final double max;
+
+	/**
+	 * create the node
+	 *
+	 * @param pattern the pattern
+	 * @param kind    the kind of the values
+	 * @param min     the min value (inclusive)
+	 * @param max     the max value (inclusive)
+	 */
+	public StatementPatternValueRange(StatementPattern pattern, LiteralValueIndex.ValueKind kind, double min,
+			double max) {
+		super(pattern);
+		this.kind = Objects.requireNonNull(kind, "kind can't be null!");
+		this.min = min;
+		this.max = max;
+	}
+
+	/**
+	 * @return the pattern
+	 */
+	public StatementPattern getStatementPattern() {
+		return (StatementPattern) getArg();
+	}
+
+	/**
+	 * @return the kind of the values
+	 */
+	public LiteralValueIndex.ValueKind getKind() {
+		return kind;
+	}
+
+	/**
+	 * @return the min value (inclusive)
+	 */
+	public double getMin() {
+		return min;
+	}
+
+	/**
+	 * @return the max value (inclusive)
+	 */
+	public double getMax() {
+		return max;
+	}
+
+	@Override
+	public <X extends Exception> void visit(QueryModelVisitor<X> visitor) throws X {
+		visitor.meetOther(this);
+	}
+
+	@Override
+	public String getSignature() {
+		return super.getSignature() + " (" + kind + " [" + min + ", " + max + "])";
+	}
+
+	@Override
+	public boolean equals(Object other) {
+		return other instanceof StatementPatternValueRange o && kind == o.kind && Double.compare(min, o.min) == 0
+				&& Double.compare(max, o.max) == 0 && super.equals(other);
+	}
+
+	@Override
+	public int hashCode() {
+		return super.hashCode() ^ Objects.hash(kind, min, max);
+	}
+
+	@Override
+	public StatementPatternValueRange clone() {
+		return (StatementPatternValueRange) super.clone();
+	}
+}
@@ -13,16 +13,44 @@ import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
 import java.nio.file.Files;
 import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 /**
- * Implementation of {@link ModifiableBitmap} write on disk
+ * Implementation of {@link ModifiableBitmap} write on disk.
+ * <p>
+ * The bits can be set by multiple threads at the same time, the words are
+ * updated with compare and set operations and the count of ones is maintained
+ * with each update, only the resize of the words array is exclusive.
+ * <p>
+ * The rank directory is a Fenwick tree of the popcounts of the superblocks, an
+ * update adds its delta to the O(log n) nodes covering its superblock and a
+ * rank reads the tree and the words of its superblock without locking. A rank
+ * includes the updates of the bits before it once their writers have returned.
+ * The directory isn't saved with the words, it is built while the words are
+ * read from the file on load, so saving it wouldn't save any read and would add
+ * a write to each update.
  */
 public class BitArrayDisk implements ModifiableBitmap, Closeable {
 
 	protected final static int LOGW = 6;
 	protected final static int W = 64;
+	private static final VarHandle WORDS = MethodHandles.arrayElementVarHandle(long[].class);
+	// one superblock is one cache line of words
+	private static final int BLOCKS_PER_SUPER = 8;
+	private static final VarHandle NUMBITS;
+
+	static {
+		try {
+			NUMBITS = MethodHandles.lookup().findVarHandle(BitArrayDisk.class, "numbits", long.class);
+		} catch (ReflectiveOperationException e) {
+			throw new ExceptionInInitializerError(e);
+		}
+	}
 
 	/**
 	 * compute the number of the highest bit of a value
@@ -45,18 +73,62 @@ public class BitArrayDisk implements ModifiableBitmap, Closeable {
 		return log;
 	}
 
-	protected long numbits;
-	protected long allBits;
-	protected long[] words;
+	/**
+	 * words array with the Fenwick tree of the popcounts of its superblocks,
+	 * replaced together on resize
+	 */
+	private static final class RankedWords {
+		final long[] words;
+		final long[] tree;
+
+		RankedWords(long[] words) {
+			this.words = words;
+			int superBlocks = (words.length + BLOCKS_PER_SUPER - 1) / BLOCKS_PER_SUPER;
+			tree = new long[superBlocks];
+			for (int i = 0; i < words.length; i++) {
+				tree[i / BLOCKS_PER_SUPER] += Long.bitCount(words[i]);
+			}
+			for (int i = 0; i < tree.length; i++) {
+				int parent = i | (i + 1);
+				if (parent < tree.length) {
+					tree[parent] += tree[i];
+				}
+			}
+		}
 
-	private static final int BLOCKS_PER_SUPER = 4;
+		/**
+		 * add a delta to the popcount of a superblock
+		 *
+		 * @param superBlock the superblock
+		 * @param delta      the delta
+		 */
+		void add(int superBlock, long delta) {
+			for (int i = superBlock; i < tree.length; i |= i + 1) {
+				WORDS.getAndAdd(tree, i, delta);
+			}
+		}
 
-	// Variables
-	private long pop;
-	private long[] superBlocksLong;
-	private int[] superBlocksInt;
-	private byte[] blocks;
-	private boolean indexUpToDate;
+		/**
+		 * @param superBlocks the number of superblocks
+		 * @return the number of ones in the first superblocks
+		 */
+		long prefix(int superBlocks) {
+			long sum = 0;
+			for (int i = superBlocks - 1; i >= 0; i = (i & (i + 1)) - 1) {
+				sum += (long) WORDS.getAcquire(tree, i);
+			}
+			return sum;
+		}
+	}
+
+	protected volatile long numbits;
+	protected long allBits;
+	private volatile RankedWords ranked;
+	// lock on the words array, shared for the updates of the words, exclusive
+	// to replace the array
+	private final ReentrantReadWriteLock wordsLock = new ReentrantReadWriteLock();
+	// number of ones, maintained by the updates
+	private final AtomicLong ones = new AtomicLong();
 
 	NioFile output;
 
@@ -110,6 +182,7 @@ public class BitArrayDisk implements ModifiableBitmap, Closeable {
 		this.output = new NioFile(file);
 		writeBits();
 
+		long[] words = ranked.words;
 		for (int offset = 0; offset < words.length; offset++) {
 			output.writeLong(words[offset], 8L * (offset + 1));
 		}
@@ -131,12 +204,12 @@ public class BitArrayDisk implements ModifiableBitmap, Closeable {
 		if (!inMemory) {
 			if (output.size() == 0) { // file empty
 				int nwords = (int) numWords(allBits);
-				this.words = new long[nwords];
+				this.ranked = new RankedWords(new long[nwords]);
 				writeBits();
 			} else {
 				// read the length of the array from the beginning
 				long length = numWords(allBits);
-				this.words = new long[(int) length];
+				long[] words = new long[(int) length];
 
 				int lastNonZero = -1;
 				// read previous values
@@ -144,22 +217,24 @@ public class BitArrayDisk implements ModifiableBitmap, Closeable {
 						Files.newInputStream(this.output.getFile().toPath()))) {
 					// skip header
 					is.skipNBytes(8);
-					for (int i = 0; i < this.words.length; i++) {
+					for (int i = 0; i < words.length; i++) {
 						long v = IOUtil.readLongBigEndian(is);
 						if (v != 0) {
-							this.words[i] = v;
+							words[i] = v;
+							ones.addAndGet(Long.bitCount(v));
 							lastNonZero = i;
 						}
 					}
 				} catch (EOFException ignore) {
 				}
+				this.ranked = new RankedWords(words);
 				// recompute numbits if we have at least one bit
 				if (lastNonZero != -1)
-					numbits = 8L * lastNonZero + log2(words[lastNonZero]);
+					numbits = (long) W * lastNonZero + log2(words[lastNonZero]);
 			}
 		} else {
 			int nwords = (int) numWords(nbits);
-			this.words = new long[nwords];
+			this.ranked = new RankedWords(new long[nwords]);
 		}
 	}
 
@@ -177,43 +252,98 @@ public class BitArrayDisk implements ModifiableBitmap, Closeable {
 			throw new IndexOutOfBoundsException("bitIndex < 0: " + bitIndex);
 
 		int wordIndex = wordIndex(bitIndex);
+		long[] words = ranked.words;
 		if (wordIndex >= words.length) {
 			return false;
 		}
 
-		return (words[wordIndex] & (1L << bitIndex)) != 0;
+		return ((long) WORDS.getAcquire(words, wordIndex) & (1L << bitIndex)) != 0;
 	}
 
+	/**
+	 * ensure the words array can contain a number of words, the caller
+	 * shouldn't own the read lock of the words
+	 *
+	 * @param wordsRequired the number of words
+	 */
 	protected final void ensureSize(int wordsRequired) {
-		if (words.length < wordsRequired) {
-			long[] newWords = new long[Math.max(words.length * 2, wordsRequired)];
-			System.arraycopy(words, 0, newWords, 0, Math.min(words.length, newWords.length));
-			words = newWords;
+		if (ranked.words.length >= wordsRequired) {
+			return;
+		}
+		wordsLock.writeLock().lock();
+		try {
+			long[] words = ranked.words;
+			if (words.length < wordsRequired) {
+				long[] newWords = new long[Math.max(words.length * 2, wordsRequired)];
+				System.arraycopy(words, 0, newWords, 0, Math.min(words.length, newWords.length));
+				ranked = new RankedWords(newWords);
+			}
+		} finally {
+			wordsLock.writeLock().unlock();
 		}
 	}
 
 	@Override
 	public void set(long bitIndex, boolean value) {
-		indexUpToDate = false;
+		update(bitIndex, value);
+	}
+
+	/**
+	 * set the value of a bit, the check of the previous value and the update
+	 * are atomic, only one of the threads setting the same bit sees the change
+	 *
+	 * @param bitIndex the bit index
+	 * @param value    the new value
+	 * @return true if the bit was changed, false if it already had this value
+	 */
+	public boolean update(long bitIndex, boolean value) {
 		if (bitIndex < 0)
 			throw new IndexOutOfBoundsException("bitIndex < 0: " + bitIndex);
 
 		int wordIndex = wordIndex(bitIndex);
+		long mask = 1L << bitIndex;
 		ensureSize(wordIndex + 1);
 
-		if (value) {
-			words[wordIndex] |= (1L << bitIndex);
-		} else {
-			words[wordIndex] &= ~(1L << bitIndex);
-		}
-
-		this.numbits = Math.max(this.numbits, bitIndex + 1);
-		if (!inMemory) {
-			try {
-				writeToDisk(words[wordIndex], wordIndex);
-			} catch (IOException e) {
-				throw new EndpointStoreException(e);
+		wordsLock.readLock().lock();
+		try {
+			RankedWords ranked = this.ranked;
+			long[] words = ranked.words;
+			long old;
+			long newValue;
+			do {
+				old = (long) WORDS.getVolatile(words, wordIndex);
+				newValue = value ? old | mask : old & ~mask;
+			} while (old != newValue && !WORDS.compareAndSet(words, wordIndex, old, newValue));
+
+			long end = bitIndex + 1;
+			long bits;
+			do {
+				bits = numbits;
+			} while (bits < end && !NUMBITS.compareAndSet(this, bits, end));
+
+			if (old == newValue) {
+				return false;
 			}
+			ones.addAndGet(value ? 1 : -1);
+			ranked.add(wordIndex / BLOCKS_PER_SUPER, value ? 1 : -1);
+
+			if (!inMemory) {
+				try {
+					// another thread can update the word while we are
+					// writing, the last value is written again
+					long written;
+					do {
+						written = newValue;
+						writeToDisk(written, wordIndex);
+						newValue = (long) WORDS.getVolatile(words, wordIndex);
+					} while (newValue != written);
+				} catch (IOException e) {
+					throw new EndpointStoreException(e);
+				}
+			}
+			return true;
+		} finally {
+			wordsLock.readLock().unlock();
 		}
 	}
 
@@ -228,44 +358,27 @@ public class BitArrayDisk implements ModifiableBitmap, Closeable {
 	}
 
 	public void trimToSize() {
-		int wordNum = (int) numWords(allBits) + 1;
-		if (wordNum != words.length) {
-			words = Arrays.copyOf(words, wordNum);
+		wordsLock.writeLock().lock();
+		try {
+			long[] words = ranked.words;
+			int wordNum = (int) numWords(allBits) + 1;
+			if (wordNum != words.length) {
+				// the ones of the removed words aren't in the bitmap anymore
+				for (int i = wordNum; i < words.length; i++) {
+					ones.addAndGet(-Long.bitCount(words[i]));
+				}
+				ranked = new RankedWords(Arrays.copyOf(words, wordNum));
+			}
+		} finally {
+			wordsLock.writeLock().unlock();
 		}
 	}
 
+	/**
+	 * trim the words array, the rank directory is maintained by the updates
+	 */
 	public void updateIndex() {
 		trimToSize();
-		if (numbits > Integer.MAX_VALUE) {
-			superBlocksLong = new long[1 + (words.length - 1) / BLOCKS_PER_SUPER];
-		} else {
-			superBlocksInt = new int[1 + (words.length - 1) / BLOCKS_PER_SUPER];
-		}
-		blocks = new byte[words.length];
-
-		long countBlock = 0, countSuperBlock = 0;
-		int blockIndex = 0, superBlockIndex = 0;
-
-		while (blockIndex < words.length) {
-			if ((blockIndex % BLOCKS_PER_SUPER) == 0) {
-				countSuperBlock += countBlock;
-				if (superBlocksLong != null) {
-					if (superBlockIndex < superBlocksLong.length) {
-						superBlocksLong[superBlockIndex++] = countSuperBlock;
-					}
-				} else {
-					if (superBlockIndex < superBlocksInt.length) {
-						superBlocksInt[superBlockIndex++] = (int) countSuperBlock;
-					}
-				}
-				countBlock = 0;
-			}
-			blocks[blockIndex] = (byte) countBlock;
-			countBlock += Long.bitCount(words[blockIndex]);
-			blockIndex++;
-		}
-		pop = countSuperBlock + countBlock;
-		indexUpToDate = true;
 	}
 
 	@Override
@@ -273,29 +386,24 @@ public class BitArrayDisk implements ModifiableBitmap, Closeable {
 		if (pos < 0) {
 			return 0;
 		}
-		if (!indexUpToDate) {
-			updateIndex();
-		}
 		if (pos >= numbits) {
-			return pop;
+			return ones.get();
 		}
-
-		long superBlockIndex = pos / (BLOCKS_PER_SUPER * W);
-		long superBlockRank;
-		if (superBlocksLong != null) {
-			superBlockRank = superBlocksLong[(int) superBlockIndex];
-		} else {
-			superBlockRank = superBlocksInt[(int) superBlockIndex];
+		RankedWords ranked = this.ranked;
+		long[] words = ranked.words;
+		int wordIndex = wordIndex(pos);
+		if (wordIndex >= words.length) {
+			// trimmed words
+			return ranked.prefix(ranked.tree.length);
 		}
 
-		long blockIndex = pos / W;
-		long blockRank = 0xFF & blocks[(int) blockIndex];
-
-		long chunkIndex = W - 1 - pos % W;
-		long block = words[(int) blockIndex] << chunkIndex;
-		long chunkRank = Long.bitCount(block);
-
-		return superBlockRank + blockRank + chunkRank;
+		int superBlock = wordIndex / BLOCKS_PER_SUPER;
+		long rank = ranked.prefix(superBlock);
+		for (int i = superBlock * BLOCKS_PER_SUPER; i < wordIndex; i++) {
+			rank += Long.bitCount((long) WORDS.getAcquire(words, i));
+		}
+		long word = (long) WORDS.getAcquire(words, wordIndex) << (W - 1 - pos % W);
+		return rank + Long.bitCount(word);
 	}
 
 	@Override
@@ -325,7 +433,7 @@ public class BitArrayDisk implements ModifiableBitmap, Closeable {
 
 	@Override
 	public long countOnes() {
-		return rank1(numbits);
+		return ones.get();
 	}
 
 	@Override
@@ -335,7 +443,7 @@ public class BitArrayDisk implements ModifiableBitmap, Closeable {
 
 	@Override
 	public long getSizeBytes() {
-		return words.length * 8L;
+		return ranked.words.length * 8L;
 	}
 
 	@Override
@@ -359,7 +467,7 @@ public class BitArrayDisk implements ModifiableBitmap, Closeable {
 	}
 
 	public int getNumWords() {
-		return this.words.length;
+		return ranked.words.length;
 	}
 
 	@Override
@@ -2,20 +2,29 @@ package com.the_qa_company.qendpoint.utils;
 
 import com.the_qa_company.qendpoint.core.enums.TripleComponentRole;
 import com.the_qa_company.qendpoint.core.hdt.HDT;
+import com.the_qa_company.qendpoint.model.HDTValue;
 import com.the_qa_company.qendpoint.model.SimpleIRIHDT;
 import com.the_qa_company.qendpoint.store.EndpointStore;
 import com.the_qa_company.qendpoint.store.HDTConverter;
 import org.eclipse.rdf4j.model.IRI;
 import org.eclipse.rdf4j.model.Resource;
+import org.eclipse.rdf4j.model.Value;
+import org.eclipse.rdf4j.query.Binding;
 import org.eclipse.rdf4j.query.BindingSet;
 import org.eclipse.rdf4j.query.Dataset;
 import org.eclipse.rdf4j.query.algebra.BindingSetAssignment;
 import org.eclipse.rdf4j.query.algebra.StatementPattern;
 import org.eclipse.rdf4j.query.algebra.TupleExpr;
 import org.eclipse.rdf4j.query.algebra.Var;
+import org.eclipse.rdf4j.query.algebra.evaluation.QueryBindingSet;
 import org.eclipse.rdf4j.query.algebra.evaluation.QueryOptimizer;
 import org.eclipse.rdf4j.query.algebra.helpers.AbstractQueryModelVisitor;
 
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
 /**
  * QueryOptimizer to replace Var by IRIHDT Var in a query
  *
@@ -121,9 +130,64 @@ public class VariableToIdSubstitution implements QueryOptimizer {
 
 		@Override
 		public void meet(BindingSetAssignment bindings) {
-			for (BindingSet binding : bindings.getBindingSets()) {
-				binding.getBindingNames().iterator();
+			if (hdt.getDictionary().supportGraphs()) {
+				// the values can be graphs
+				return;
+			}
+			List<BindingSet> bindingSets = new ArrayList<>();
+			List<Value> values = new ArrayList<>();
+			for (BindingSet bindingSet : bindings.getBindingSets()) {
+				bindingSets.add(bindingSet);
+				for (Binding binding : bindingSet) {
+					values.add(binding.getValue());
+				}
+			}
+			if (bindingSets.isEmpty()) {
+				return;
+			}
+
+			// resolve all the values at once in the string order
+			Map<Value, Value> converted = converter.convertValues(values);
+			if (converted.isEmpty()) {
+				return;
+			}
+
+			List<BindingSet> newBindingSets = new ArrayList<>(bindingSets.size());
+			for (BindingSet bindingSet : bindingSets) {
+				QueryBindingSet newBindingSet = new QueryBindingSet(bindingSet.size());
+				for (Binding binding : bindingSet) {
+					Value value = binding.getValue();
+					newBindingSet.addBinding(binding.getName(), converted.getOrDefault(value, value));
+				}
+				newBindingSets.add(newBindingSet);
+			}
+
+			if (!bindings.getBindingNames().isEmpty()) {
+				// sort the rows by id to read the HDT triples in order during
+				// the join with the rows
+				String name = bindings.getBindingNames().iterator().next();
+				if (isSingleSection(newBindingSets, name)) {
+					newBindingSets.sort(Comparator.comparingLong(bs -> ((HDTValue) bs.getValue(name)).getHDTId()));
+				}
+			}
+
+			bindings.setBindingSets(newBindingSets);
+		}
+
+		/**
+		 * check if all the rows bind a variable to an HDT id of the same
+		 * section, the ids of different sections can't be compared
+		 */
+		private boolean isSingleSection(List<BindingSet> bindingSets, String name) {
+			int position = -1;
+			for (BindingSet bindingSet : bindingSets) {
+				if (!(bindingSet.getValue(name) instanceof HDTValue hdtValue) || !hdtValue.isValidHDTId()
+						|| (position != -1 && hdtValue.getHDTPosition() != position)) {
+					return false;
+				}
+				position = hdtValue.getHDTPosition();
 			}
+			return true;
 		}
 	}
 }
@@ -0,0 +1,166 @@
+package com.the_qa_company.qendpoint.compiler;
+
+import com.the_qa_company.qendpoint.store.EndpointFiles;
+import com.the_qa_company.qendpoint.store.EndpointStore;
+import org.eclipse.rdf4j.model.Model;
+import org.eclipse.rdf4j.model.ValueFactory;
+import org.eclipse.rdf4j.model.impl.LinkedHashModel;
+import org.eclipse.rdf4j.model.impl.SimpleValueFactory;
+import org.eclipse.rdf4j.model.vocabulary.FOAF;
+import org.eclipse.rdf4j.model.vocabulary.RDF;
+import org.eclipse.rdf4j.repository.sail.SailRepositoryConnection;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class QueryResultCacheTest {
+	private static final String EX = "http://example.com/";
+	private static final ValueFactory VF = SimpleValueFactory.getInstance();
+	private static final String SELECT = "PREFIX foaf: <" + FOAF.NAMESPACE + ">\nSELECT ?s { ?s a foaf:Person }";
+	private static final String ASK = "ASK { <" + EX + "Ali> a <" + FOAF.PERSON + "> }";
+	private static final String CONSTRUCT = "CONSTRUCT { ?s a <" + FOAF.AGENT + "> } WHERE { ?s a <" + FOAF.PERSON
+			+ "> }";
+
+	@Rule
+	public TemporaryFolder tempDir = TemporaryFolder.builder().assureDeletion().build();
+
+	private record Result(byte[] bytes, String mime) {
+		String text() {
+			return new String(bytes, StandardCharsets.UTF_8);
+		}
+	}
+
+	private static Result execute(SparqlRepository repository, String query, String accept) {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		String[] mime = new String[1];
+		repository.execute(query, 0, accept, m -> mime[0] = m, out);
+		return new Result(out.toByteArray(), mime[0]);
+	}
+
+	private SparqlRepository createRepository(int cacheSize) throws Exception {
+		Model config = new LinkedHashModel();
+		config.add(SailCompilerSchema.MAIN, SailCompilerSchema.QUERY_CACHE_SIZE.getIri(), VF.createLiteral(cacheSize));
+		return CompiledSail.compiler().withConfig(config)
+				.withEndpointFiles(new EndpointFiles(tempDir.newFolder().toPath())).compileToSparqlRepository();
+	}
+
+	private static void addPerson(SparqlRepository repository, String name) {
+		try (SailRepositoryConnection connection = repository.getConnection()) {
+			connection.add(VF.createIRI(EX, name), RDF.TYPE, FOAF.PERSON);
+		}
+	}
+
+	@Test
+	public void cacheTest() throws Exception {
+		SparqlRepository repository = createRepository(1_000_000);
+		try {
+			QueryResultCache cache = repository.getQueryResultCache();
+			assertNotNull(cache);
+			addPerson(repository, "Guo");
+
+			for (String accept : new String[] { "application/sparql-results+json", "text/csv" }) {
+				Result miss = execute(repository, SELECT, accept);
+				Result hit = execute(repository, "  " + SELECT + "\n", accept);
+				assertTrue(miss.text().contains(EX + "Guo"));
+				assertArrayEquals(miss.bytes(), hit.bytes());
+				assertEquals(miss.mime(), hit.mime());
+			}
+			assertEquals(2, cache.size());
+
+			Result ask = execute(repository, ASK, "application/sparql-results+json");
+			assertTrue(ask.text().contains("false"));
+			assertArrayEquals(ask.bytes(), execute(repository, ASK, "application/sparql-results+json").bytes());
+
+			Result construct = execute(repository, CONSTRUCT, "text/turtle");
+			assertTrue(construct.text().contains(EX + "Guo"));
+			assertArrayEquals(construct.bytes(), execute(repository, CONSTRUCT, "text/turtle").bytes());
+			assertEquals(4, cache.size());
+
+			// a change of the store invalidates the results
+			addPerson(repository, "Ali");
+			assertTrue(execute(repository, SELECT, "text/csv").text().contains(EX + "Ali"));
+			assertTrue(execute(repository, ASK, "application/sparql-results+json").text().contains("true"));
+			assertTrue(execute(repository, CONSTRUCT, "text/turtle").text().contains(EX + "Ali"));
+
+			try (SailRepositoryConnection connection = repository.getConnection()) {
+				connection.remove(VF.createIRI(EX, "Ali"), RDF.TYPE, FOAF.PERSON);
+			}
+			assertTrue(execute(repository, ASK, "application/sparql-results+json").text().contains("false"));
+		} finally {
+			repository.shutDown();
+		}
+	}
+
+	@Test
+	public void disabledTest() throws Exception {
+		SparqlRepository repository = createRepository(0);
+		try {
+			assertNull(repository.getQueryResultCache());
+			addPerson(repository, "Guo");
+			assertTrue(execute(repository, SELECT, "text/csv").text().contains(EX + "Guo"));
+		} finally {
+			repository.shutDown();
+		}
+	}
+
+	@Test
+	public void evictionTest() {
+		QueryResultCache cache = new QueryResultCache(1000, 60);
+		QueryResultCache.Key key1 = new QueryResultCache.Key("q1", "", "text/csv", null);
+		QueryResultCache.Key key2 = new QueryResultCache.Key("q2", "", "text/csv", null);
+		QueryResultCache.Key key3 = new QueryResultCache.Key("q3", "", "text/csv", null);
+
+		cache.put(key1, 0, new byte[400], "text/csv");
+		cache.put(key2, 0, new byte[400], "text/csv");
+		// key1 is now the most recently used
+		assertNotNull(cache.get(key1, 0));
+		cache.put(key3, 0, new byte[400], "text/csv");
+		assertEquals(2, cache.size());
+		assertTrue(cache.getSizeBytes() <= 1000);
+		assertNull(cache.get(key2, 0));
+		assertNotNull(cache.get(key1, 0));
+		assertNotNull(cache.get(key3, 0));
+
+		// bigger than the cache
+		cache.put(key2, 0, new byte[2000], "text/csv");
+		assertNull(cache.get(key2, 0));
+
+		// new data version
+		assertNull(cache.get(key1, 1));
+		assertEquals(1, cache.size());
+	}
+
+	@Test
+	public void keyTest() throws Exception {
+		SparqlRepository repository = createRepository(1_000_000);
+		try {
+			QueryResultCache cache = repository.getQueryResultCache();
+			addPerson(repository, "Guo");
+			String json = "application/sparql-results+json";
+
+			Result result = execute(repository, SELECT, json);
+			assertArrayEquals(result.bytes(), execute(repository, "\n " + SELECT + " ", json).bytes());
+			assertEquals(1, cache.size());
+
+			// the config lines are read after the trim
+			Result plan = execute(repository, "\n #" + EndpointStore.QUERY_CONFIG_FETCH_QUERY_PLAN + "\n" + SELECT,
+					json);
+			assertTrue(plan.text().contains("\"plan\""));
+			assertArrayEquals(plan.bytes(),
+					execute(repository, "#" + EndpointStore.QUERY_CONFIG_FETCH_QUERY_PLAN + "\n" + SELECT, json)
+							.bytes());
+			assertEquals(2, cache.size());
+		} finally {
+			repository.shutDown();
+		}
+	}
+}
@@ -0,0 +1,111 @@
+package com.the_qa_company.qendpoint.federation;
+
+import com.the_qa_company.qendpoint.core.options.HDTOptions;
+import com.the_qa_company.qendpoint.core.options.HDTOptionsKeys;
+import com.the_qa_company.qendpoint.store.EndpointFiles;
+import com.the_qa_company.qendpoint.store.EndpointStore;
+import org.eclipse.rdf4j.model.IRI;
+import org.eclipse.rdf4j.model.Value;
+import org.eclipse.rdf4j.model.ValueFactory;
+import org.eclipse.rdf4j.model.impl.SimpleValueFactory;
+import org.eclipse.rdf4j.model.vocabulary.RDF;
+import org.eclipse.rdf4j.model.vocabulary.RDFS;
+import org.eclipse.rdf4j.model.vocabulary.SKOS;
+import org.eclipse.rdf4j.query.BindingSet;
+import org.eclipse.rdf4j.query.TupleQueryResult;
+import org.eclipse.rdf4j.repository.sail.SailRepository;
+import org.eclipse.rdf4j.repository.sail.SailRepositoryConnection;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+
+public class WikibaseLabelServiceTest {
+	private static final String EX = "http://example.com/";
+	private static final ValueFactory VF = SimpleValueFactory.getInstance();
+	private static final IRI TYPE = VF.createIRI(EX, "Type");
+	private static final IRI DESCRIPTION = VF.createIRI("https://schema.org/description");
+
+	@Rule
+	public TemporaryFolder tempDir = TemporaryFolder.builder().assureDeletion().build();
+
+	private static Map<String, List<String>> labels(SailRepositoryConnection connection, String languages) {
+		String query = """
+				PREFIX wikibase: <http://wikiba.se/ontology#>
+				PREFIX bd: <http://www.bigdata.com/rdf#>
+				SELECT ?item ?itemLabel ?itemAltLabel ?itemDescription ?other ?otherLabel {
+				  ?item a <%sType> .
+				  OPTIONAL { ?item <%sother> ?other }
+				  SERVICE wikibase:label { bd:serviceParam wikibase:language "%s" . }
+				}
+				""".formatted(EX, EX, languages);
+		Map<String, List<String>> labels = new HashMap<>();
+		try (TupleQueryResult result = connection.prepareTupleQuery(query).evaluate()) {
+			for (BindingSet bindings : result) {
+				labels.put(bindings.getValue("item").stringValue(),
+						List.of(label(bindings, "itemLabel"), label(bindings, "itemAltLabel"),
+								label(bindings, "itemDescription"), label(bindings, "otherLabel")));
+			}
+		}
+		return labels;
+	}
+
+	private static String label(BindingSet bindings, String name) {
+		Value value = bindings.getValue(name);
+		return value == null ? null : value.stringValue();
+	}
+
+	@Test
+	public void labelTest() throws Exception {
+		HDTOptions spec = HDTOptions.of(HDTOptionsKeys.DICTIONARY_TYPE_KEY,
+				HDTOptionsKeys.DICTIONARY_TYPE_VALUE_MULTI_OBJECTS_LANG);
+		EndpointStore store = new EndpointStore(new EndpointFiles(tempDir.newFolder().toPath()), spec);
+		SailRepository repository = new SailRepository(store);
+		try {
+			try (SailRepositoryConnection connection = repository.getConnection()) {
+				for (int i = 0; i < 100; i++) {
+					IRI item = VF.createIRI(EX, "item" + i);
+					connection.add(item, RDF.TYPE, TYPE);
+					connection.add(item, RDFS.LABEL, VF.createLiteral("label" + i, "en"));
+					if (i % 2 == 0) {
+						connection.add(item, RDFS.LABEL, VF.createLiteral("libelle" + i, "fr"));
+					}
+					connection.add(item, RDFS.LABEL, VF.createLiteral("Beschriftung" + i, "de"));
+					connection.add(item, SKOS.ALT_LABEL, VF.createLiteral("alt" + i, "en"));
+					connection.add(item, DESCRIPTION, VF.createLiteral("description" + i));
+					connection.add(item, VF.createIRI(EX, "other"), VF.createIRI(EX, "item" + (i + 1) % 10));
+				}
+			}
+			store.mergeStore();
+			while (store.isMergeTriggered || store.isMerging()) {
+				Thread.sleep(10);
+			}
+
+			try (SailRepositoryConnection connection = repository.getConnection()) {
+				// the labels of the delta store
+				connection.add(VF.createIRI(EX, "item1"), RDFS.LABEL, VF.createLiteral("libelle1", "fr"));
+				connection.remove(VF.createIRI(EX, "item2"), RDFS.LABEL, VF.createLiteral("libelle2", "fr"));
+
+				Map<String, List<String>> labels = labels(connection, "fr,en");
+				assertEquals(100, labels.size());
+				assertEquals(List.of("libelle0", "alt0", "", "libelle1"), labels.get(EX + "item0"));
+				assertEquals(List.of("libelle1", "alt1", "", "label2"), labels.get(EX + "item1"));
+				assertEquals(List.of("label2", "alt2", "", "label3"), labels.get(EX + "item2"));
+				assertEquals(List.of("label3", "alt3", "", "libelle4"), labels.get(EX + "item3"));
+				assertEquals(List.of("libelle12", "alt12", "", "label3"), labels.get(EX + "item12"));
+
+				labels = labels(connection, "de");
+				assertEquals(List.of("Beschriftung5", "", "", "Beschriftung6"), labels.get(EX + "item5"));
+				labels = labels(connection, "[AUTO_LANGUAGE],en");
+				assertEquals(List.of("label5", "alt5", "", "label6"), labels.get(EX + "item5"));
+			}
+		} finally {
+			repository.shutDown();
+		}
+	}
+}
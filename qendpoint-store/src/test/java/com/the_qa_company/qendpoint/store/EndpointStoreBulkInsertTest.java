@@ -0,0 +1,165 @@
+package com.the_qa_company.qendpoint.store;
+
+import com.the_qa_company.qendpoint.core.exceptions.ParserException;
+import com.the_qa_company.qendpoint.core.hdt.HDT;
+import com.the_qa_company.qendpoint.core.hdt.HDTManager;
+import com.the_qa_company.qendpoint.core.options.HDTOptions;
+import com.the_qa_company.qendpoint.core.triples.TripleString;
+import org.eclipse.rdf4j.model.IRI;
+import org.eclipse.rdf4j.model.Statement;
+import org.eclipse.rdf4j.model.ValueFactory;
+import org.eclipse.rdf4j.model.impl.SimpleValueFactory;
+import org.eclipse.rdf4j.model.vocabulary.FOAF;
+import org.eclipse.rdf4j.model.vocabulary.RDF;
+import org.eclipse.rdf4j.repository.RepositoryConnection;
+import org.eclipse.rdf4j.repository.sail.SailRepository;
+import org.eclipse.rdf4j.sail.SailConnection;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class EndpointStoreBulkInsertTest {
+	private static final String EX = "http://example.com/";
+	private static final ValueFactory VF = SimpleValueFactory.getInstance();
+
+	@Rule
+	public TemporaryFolder tempDir = TemporaryFolder.builder().assureDeletion().build();
+
+	private EndpointStore createStore(int bufferSize) throws IOException {
+		File nativeStore = tempDir.newFolder();
+		File hdtStore = tempDir.newFolder();
+		HDTOptions spec = HDTOptions.of(EndpointStore.OPTION_QENDPOINT_BULK_INSERT_BUFFER, bufferSize);
+		try (HDT hdt = Utility.createTempHdtIndex(tempDir, false, false, spec)) {
+			assert hdt != null;
+			hdt.saveToHDT(hdtStore.getAbsolutePath() + File.separatorChar + EndpointStoreTest.HDT_INDEX_NAME, null);
+		}
+		EndpointStore store = new EndpointStore(hdtStore.getAbsolutePath() + File.separatorChar,
+				EndpointStoreTest.HDT_INDEX_NAME, spec, nativeStore.getAbsolutePath() + File.separatorChar, true);
+		store.setThreshold(100_000);
+		return store;
+	}
+
+	private long nativeSize(EndpointStore store) {
+		try (SailConnection connectionA = store.getNativeStoreA().getConnection();
+				SailConnection connectionB = store.getNativeStoreB().getConnection()) {
+			return connectionA.size() + connectionB.size();
+		}
+	}
+
+	private void bulkInsert(int bufferSize) throws IOException {
+		EndpointStore store = createStore(bufferSize);
+		SailRepository repository = new SailRepository(store);
+		try (RepositoryConnection connection = repository.getConnection()) {
+			IRI guo = VF.createIRI(EX, "Guo");
+			connection.begin();
+			for (int i = 0; i < 100; i++) {
+				connection.add(VF.createIRI(EX, "s" + (i % 10)), FOAF.KNOWS, VF.createIRI(EX, "o" + i));
+			}
+			// already in the HDT
+			connection.add(guo, RDF.TYPE, FOAF.PERSON);
+			// HDT subject, new triple
+			connection.add(guo, FOAF.NAME, VF.createLiteral("Guo"));
+			// duplicates
+			connection.add(guo, RDF.TYPE, FOAF.PERSON);
+			connection.add(guo, FOAF.NAME, VF.createLiteral("Guo"));
+			// the buffered statement is inserted before the remove
+			connection.add(guo, FOAF.KNOWS, VF.createIRI(EX, "o1"));
+			connection.remove(guo, FOAF.KNOWS, VF.createIRI(EX, "o1"));
+			connection.commit();
+
+			assertEquals(101, nativeSize(store));
+			assertEquals(102, connection.size());
+			assertFalse(connection.hasStatement(guo, FOAF.KNOWS, VF.createIRI(EX, "o1"), false));
+
+			// a deleted HDT triple is added again in the native store
+			connection.remove(guo, RDF.TYPE, FOAF.PERSON);
+			assertFalse(connection.hasStatement(guo, RDF.TYPE, FOAF.PERSON, false));
+			connection.begin();
+			connection.add(guo, RDF.TYPE, FOAF.PERSON);
+			connection.add(guo, RDF.TYPE, FOAF.PERSON);
+			connection.commit();
+			assertTrue(connection.hasStatement(guo, RDF.TYPE, FOAF.PERSON, false));
+			assertEquals(102, nativeSize(store));
+		} finally {
+			repository.shutDown();
+		}
+	}
+
+	@Test
+	public void bufferedInsertTest() throws IOException {
+		bulkInsert(EndpointStore.DEFAULT_QENDPOINT_BULK_INSERT_BUFFER);
+	}
+
+	@Test
+	public void smallBufferInsertTest() throws IOException {
+		bulkInsert(7);
+	}
+
+	@Test
+	public void unbufferedInsertTest() throws IOException {
+		bulkInsert(0);
+	}
+
+	@Test
+	public void sameSubjectInsertTest() throws IOException, ParserException {
+		File nativeStore = tempDir.newFolder();
+		File hdtStore = tempDir.newFolder();
+		List<TripleString> triples = new ArrayList<>();
+		for (int p = 0; p < 5; p++) {
+			for (int o = 0; o < 10; o++) {
+				triples.add(new TripleString(EX + "s0", EX + "p" + p, EX + "o" + o));
+			}
+		}
+		for (int o = 10; o < 15; o++) {
+			triples.add(new TripleString(EX + "s1", EX + "p0", EX + "o" + o));
+		}
+		triples.add(new TripleString(EX + "s1", EX + "p5", EX + "o0"));
+		HDTOptions spec = HDTOptions.of(EndpointStore.OPTION_QENDPOINT_BULK_INSERT_BUFFER,
+				EndpointStore.DEFAULT_QENDPOINT_BULK_INSERT_BUFFER);
+		try (HDT hdt = HDTManager.generateHDT(triples.iterator(), EX, spec, null)) {
+			hdt.saveToHDT(hdtStore.getAbsolutePath() + File.separatorChar + EndpointStoreTest.HDT_INDEX_NAME, null);
+		}
+		EndpointStore store = new EndpointStore(hdtStore.getAbsolutePath() + File.separatorChar,
+				EndpointStoreTest.HDT_INDEX_NAME, spec, nativeStore.getAbsolutePath() + File.separatorChar, true);
+		store.setThreshold(100_000);
+		SailRepository repository = new SailRepository(store);
+		try (RepositoryConnection connection = repository.getConnection()) {
+			connection.remove(VF.createIRI(EX, "s0"), VF.createIRI(EX, "p2"), VF.createIRI(EX, "o3"));
+			connection.remove(VF.createIRI(EX, "s0"), VF.createIRI(EX, "p4"), VF.createIRI(EX, "o9"));
+
+			List<Statement> statements = new ArrayList<>();
+			for (TripleString triple : triples) {
+				statements.add(VF.createStatement(VF.createIRI(triple.getSubject().toString()),
+						VF.createIRI(triple.getPredicate().toString()), VF.createIRI(triple.getObject().toString())));
+			}
+			// HDT components, but not HDT triples
+			statements.add(VF.createStatement(VF.createIRI(EX, "s0"), VF.createIRI(EX, "p1"), VF.createIRI(EX, "o10")));
+			statements.add(VF.createStatement(VF.createIRI(EX, "s0"), VF.createIRI(EX, "p3"), VF.createIRI(EX, "o12")));
+			statements.add(VF.createStatement(VF.createIRI(EX, "s0"), VF.createIRI(EX, "p5"), VF.createIRI(EX, "o1")));
+			Collections.shuffle(statements, new Random(42));
+
+			connection.begin();
+			connection.add(statements);
+			connection.commit();
+
+			// the 2 deleted triples and the 3 new triples
+			assertEquals(5, nativeSize(store));
+			assertEquals(statements.size(), connection.size());
+			assertTrue(connection.hasStatement(VF.createIRI(EX, "s0"), VF.createIRI(EX, "p4"), VF.createIRI(EX, "o9"),
+					false));
+		} finally {
+			repository.shutDown();
+		}
+	}
+}
@@ -0,0 +1,127 @@
+package com.the_qa_company.qendpoint.store;
+
+import com.the_qa_company.qendpoint.core.hdt.HDT;
+import com.the_qa_company.qendpoint.core.options.HDTOptions;
+import org.eclipse.rdf4j.common.iteration.CloseableIteration;
+import org.eclipse.rdf4j.model.IRI;
+import org.eclipse.rdf4j.model.Statement;
+import org.eclipse.rdf4j.model.ValueFactory;
+import org.eclipse.rdf4j.model.impl.SimpleValueFactory;
+import org.eclipse.rdf4j.model.vocabulary.FOAF;
+import org.eclipse.rdf4j.model.vocabulary.RDF;
+import org.eclipse.rdf4j.repository.RepositoryConnection;
+import org.eclipse.rdf4j.repository.sail.SailRepository;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class EndpointStoreDeltaFilterTest {
+	private static final String EX = "http://example.com/";
+	private static final ValueFactory VF = SimpleValueFactory.getInstance();
+
+	@Rule
+	public TemporaryFolder tempDir = TemporaryFolder.builder().assureDeletion().build();
+
+	@Test
+	public void filterTest() {
+		EndpointStoreDeltaFilter filter = new EndpointStoreDeltaFilter(1 << 16);
+		assertEquals(1 << 13, filter.getSizeBytes());
+
+		Random random = new Random(42);
+		long[][] triples = new long[1000][];
+		for (int i = 0; i < triples.length; i++) {
+			triples[i] = new long[] { 1 + random.nextInt(100_000), 1 + random.nextInt(100),
+					1 + random.nextInt(100_000) };
+			filter.add(triples[i][0], triples[i][1], triples[i][2]);
+		}
+		// no false negative
+		for (long[] triple : triples) {
+			assertTrue(filter.mightContain(triple[0], triple[1], triple[2]));
+			assertTrue(filter.mightContain(triple[0], triple[1], 0));
+			assertTrue(filter.mightContain(0, triple[1], triple[2]));
+			assertTrue(filter.mightContain(-1, triple[1], -1));
+		}
+		// the patterns without pair are always accepted
+		assertTrue(filter.mightContain(200_000, 0, 200_000));
+		assertTrue(filter.mightContain(200_000, -1, 200_000));
+
+		int falsePositives = 0;
+		for (int i = 0; i < 10_000; i++) {
+			if (filter.mightContain(200_000 + i, 1 + random.nextInt(100), 0)) {
+				falsePositives++;
+			}
+		}
+		assertTrue("too many false positives: " + falsePositives, falsePositives < 500);
+	}
+
+	private long countNativeSearches(EndpointStore endpoint, IRI subject, IRI predicate, IRI object,
+			Set<String> subjects) {
+		try (EndpointStoreConnection connection = (EndpointStoreConnection) endpoint.getConnection()) {
+			EndpointTripleSource tripleSource = new EndpointTripleSource(connection, endpoint);
+			try (CloseableIteration<? extends Statement> it = tripleSource.getStatements(subject, predicate, object)) {
+				while (it.hasNext()) {
+					subjects.add(it.next().getSubject().stringValue());
+				}
+			}
+			return tripleSource.getCount();
+		}
+	}
+
+	@Test
+	public void storeTest() throws IOException {
+		File nativeStore = tempDir.newFolder("native-store");
+		File hdtStore = tempDir.newFolder("hdt-store");
+		HDTOptions spec = HDTOptions.of();
+		try (HDT hdt = Utility.createTempHdtIndex(tempDir, false, false, spec)) {
+			assert hdt != null;
+			hdt.saveToHDT(hdtStore.getAbsolutePath() + File.separatorChar + EndpointStoreTest.HDT_INDEX_NAME, null);
+		}
+		EndpointStore store = new EndpointStore(hdtStore.getAbsolutePath() + File.separatorChar,
+				EndpointStoreTest.HDT_INDEX_NAME, spec, nativeStore.getAbsolutePath() + File.separatorChar, false);
+		store.setThreshold(1000);
+		SailRepository repository = new SailRepository(store);
+		try (RepositoryConnection connection = repository.getConnection()) {
+			// rdf:type and foaf:Person are used by the delta, but not together
+			connection.add(VF.createIRI(EX, "Ali"), RDF.TYPE, VF.createIRI(EX, "Cat"));
+			connection.add(VF.createIRI(EX, "Dennis"), FOAF.KNOWS, FOAF.PERSON);
+		}
+
+		Set<String> subjects = new HashSet<>();
+		assertEquals(0, countNativeSearches(store, null, RDF.TYPE, FOAF.PERSON, subjects));
+		assertEquals(Set.of(EX + "Guo"), subjects);
+		subjects.clear();
+		assertEquals(1, countNativeSearches(store, null, RDF.TYPE, null, subjects));
+		assertEquals(Set.of(EX + "Guo", EX + "Ali"), subjects);
+		assertFalse(store.deltaPairMightExist(1, 1, 1));
+		repository.shutDown();
+
+		// the filter is filled with the native stores at restart
+		store = new EndpointStore(hdtStore.getAbsolutePath() + File.separatorChar, EndpointStoreTest.HDT_INDEX_NAME,
+				spec, nativeStore.getAbsolutePath() + File.separatorChar, false);
+		repository = new SailRepository(store);
+		try {
+			subjects.clear();
+			assertEquals(0, countNativeSearches(store, null, RDF.TYPE, FOAF.PERSON, subjects));
+			assertEquals(Set.of(EX + "Guo"), subjects);
+
+			try (RepositoryConnection connection = repository.getConnection()) {
+				connection.add(VF.createIRI(EX, "Ali"), RDF.TYPE, FOAF.PERSON);
+			}
+			subjects.clear();
+			assertEquals(1, countNativeSearches(store, null, RDF.TYPE, FOAF.PERSON, subjects));
+			assertEquals(Set.of(EX + "Guo", EX + "Ali"), subjects);
+		} finally {
+			repository.shutDown();
+		}
+	}
+}
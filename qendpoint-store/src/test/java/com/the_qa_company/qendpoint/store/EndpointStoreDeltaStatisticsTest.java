@@ -0,0 +1,139 @@
+package com.the_qa_company.qendpoint.store;
+
+import com.the_qa_company.qendpoint.core.hdt.HDT;
+import com.the_qa_company.qendpoint.core.options.HDTOptions;
+import org.eclipse.rdf4j.model.IRI;
+import org.eclipse.rdf4j.model.ValueFactory;
+import org.eclipse.rdf4j.model.vocabulary.FOAF;
+import org.eclipse.rdf4j.model.vocabulary.RDF;
+import org.eclipse.rdf4j.repository.RepositoryConnection;
+import org.eclipse.rdf4j.repository.sail.SailRepository;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class EndpointStoreDeltaStatisticsTest {
+	@Rule
+	public TemporaryFolder tempDir = TemporaryFolder.builder().assureDeletion().build();
+
+	private static long predicateId(EndpointStore store, IRI predicate) {
+		long id = store.getHdtConverter().predicateToID(predicate);
+		return id > 0 ? id : -1;
+	}
+
+	@Test
+	public void countersTest() {
+		EndpointStoreDeltaStatistics stats = new EndpointStoreDeltaStatistics(true);
+		assertTrue(stats.isComplete());
+
+		// 1 is in the HDT, FOAF.NAME isn't
+		long type = 1;
+		EndpointStoreDeltaStatistics.Update update = new EndpointStoreDeltaStatistics.Update();
+		update.add(type, RDF.TYPE, 1);
+		update.add(type, RDF.TYPE, 1);
+		update.add(-1, FOAF.NAME, 1);
+		// not committed
+		assertEquals(0, stats.getInserted(0, null));
+		stats.apply(false, update);
+		assertTrue(update.isEmpty());
+		stats.hdtTripleDeleted(type);
+		assertEquals(2, stats.getInserted(type, RDF.TYPE));
+		assertEquals(1, stats.getInserted(-1, FOAF.NAME));
+		assertEquals(3, stats.getInserted(0, null));
+		assertEquals(1, stats.getDeleted(type));
+		assertEquals(0, stats.getDeleted(2));
+		assertEquals(0, stats.getDeleted(-1));
+
+		stats.startMerge();
+		// the store is frozen, the new triples are in another generation
+		update.add(type, RDF.TYPE, 1);
+		stats.apply(false, update);
+		update.add(-1, FOAF.NAME, -1);
+		stats.apply(true, update);
+		stats.hdtTripleDeleted(2);
+		assertEquals(3, stats.getInserted(type, RDF.TYPE));
+		assertEquals(0, stats.getInserted(-1, FOAF.NAME));
+		assertEquals(1, stats.getDeleted(type));
+		assertEquals(1, stats.getDeleted(2));
+		assertTrue(stats.isComplete());
+	}
+
+	@Test
+	public void incompleteTest() {
+		EndpointStoreDeltaStatistics stats = new EndpointStoreDeltaStatistics(false);
+		assertFalse(stats.isComplete());
+		stats.startMerge();
+		assertFalse(stats.isComplete());
+		stats.endMerge(null, null);
+		assertTrue(stats.isComplete());
+	}
+
+	@Test
+	public void storeTest() throws IOException, InterruptedException {
+		File nativeStore = tempDir.newFolder("native-store");
+		File hdtStore = tempDir.newFolder("hdt-store");
+		HDTOptions spec = HDTOptions.of();
+		try (HDT hdt = Utility.createTempHdtIndex(tempDir, false, false, spec)) {
+			assert hdt != null;
+			hdt.saveToHDT(hdtStore.getAbsolutePath() + File.separatorChar + EndpointStoreTest.HDT_INDEX_NAME, null);
+		}
+		EndpointStore store = new EndpointStore(hdtStore.getAbsolutePath() + File.separatorChar,
+				EndpointStoreTest.HDT_INDEX_NAME, spec, nativeStore.getAbsolutePath() + File.separatorChar, false);
+		store.setThreshold(1000);
+		SailRepository repository = new SailRepository(store);
+		try {
+			EndpointStoreDeltaStatistics stats = store.getDeltaStatistics();
+			assertTrue(stats.isComplete());
+			long type = predicateId(store, RDF.TYPE);
+			long name = predicateId(store, FOAF.NAME);
+			ValueFactory vf = repository.getValueFactory();
+			String ex = "http://example.com/";
+			IRI ali = vf.createIRI(ex, "Ali");
+			IRI dennis = vf.createIRI(ex, "Dennis");
+			try (RepositoryConnection connection = repository.getConnection()) {
+				// the rollback changes aren't counted
+				connection.begin();
+				connection.add(ali, RDF.TYPE, FOAF.PERSON);
+				connection.add(ali, FOAF.NAME, vf.createLiteral("Ali"));
+				// the read inserts the buffered statements in the native store
+				connection.hasStatement(ali, FOAF.NAME, null, false);
+				assertEquals(0, stats.getInserted(name, FOAF.NAME));
+				connection.rollback();
+			}
+			assertEquals(0, stats.getInserted(type, RDF.TYPE));
+			assertEquals(0, stats.getInserted(name, FOAF.NAME));
+
+			try (RepositoryConnection connection = repository.getConnection()) {
+				connection.add(ali, RDF.TYPE, FOAF.PERSON);
+				connection.add(dennis, RDF.TYPE, FOAF.PERSON);
+				connection.add(dennis, FOAF.NAME, vf.createLiteral("Dennis"));
+				connection.remove(dennis, FOAF.NAME, vf.createLiteral("Dennis"));
+				// HDT triple
+				connection.remove(vf.createIRI(ex, "Guo"), RDF.TYPE, FOAF.PERSON);
+			}
+			assertEquals(2, stats.getInserted(type, RDF.TYPE));
+			assertEquals(0, stats.getInserted(name, FOAF.NAME));
+			assertEquals(1, stats.getDeleted(type));
+
+			store.mergeStore();
+			while (store.isMergeTriggered || store.isMerging()) {
+				Thread.sleep(10);
+			}
+
+			// the delta was merged into the HDT
+			type = predicateId(store, RDF.TYPE);
+			assertEquals(0, stats.getInserted(type, RDF.TYPE));
+			assertEquals(0, stats.getDeleted(type));
+			assertTrue(stats.isComplete());
+		} finally {
+			repository.shutDown();
+		}
+	}
+}
@@ -0,0 +1,89 @@
+package com.the_qa_company.qendpoint.store;
+
+import com.the_qa_company.qendpoint.core.hdt.HDT;
+import com.the_qa_company.qendpoint.core.hdt.HDTManager;
+import com.the_qa_company.qendpoint.core.options.HDTOptions;
+import com.the_qa_company.qendpoint.core.triples.TripleString;
+import org.eclipse.rdf4j.query.algebra.Join;
+import org.eclipse.rdf4j.query.algebra.TupleExpr;
+import org.eclipse.rdf4j.query.algebra.evaluation.impl.EvaluationStatistics;
+import org.eclipse.rdf4j.query.algebra.helpers.AbstractQueryModelVisitor;
+import org.eclipse.rdf4j.query.parser.sparql.SPARQLParser;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+public class EndpointStoreEvaluationStatisticsTest {
+	private static final String NS = "http://ex.org/";
+
+	@Rule
+	public TemporaryFolder tempDir = TemporaryFolder.builder().assureDeletion().build();
+
+	private EndpointStore createStore(boolean statistics) throws Exception {
+		File nativeStore = tempDir.newFolder();
+		File hdtStore = tempDir.newFolder();
+		List<TripleString> triples = new ArrayList<>();
+		for (int i = 0; i < 10; i++) {
+			triples.add(new TripleString(NS + "s" + i, NS + "type", NS + "Class" + (i % 2)));
+			triples.add(new TripleString(NS + "s" + i, NS + "name", "\"name" + i + "\""));
+			if (i % 2 == 0) {
+				triples.add(new TripleString(NS + "s" + i, NS + "link", NS + "s" + (i + 1)));
+			}
+		}
+		HDTOptions spec = HDTOptions.of(EndpointStore.OPTION_QENDPOINT_STATISTICS, statistics);
+		try (HDT hdt = HDTManager.generateHDT(triples.iterator(), NS, spec, null)) {
+			hdt.saveToHDT(hdtStore.getAbsolutePath() + File.separatorChar + EndpointStoreTest.HDT_INDEX_NAME, null);
+		}
+		return new EndpointStore(hdtStore.getAbsolutePath() + File.separatorChar, EndpointStoreTest.HDT_INDEX_NAME,
+				spec, nativeStore.getAbsolutePath() + File.separatorChar, true);
+	}
+
+	private static double joinCardinality(EndpointStore store, String where) {
+		TupleExpr expr = new SPARQLParser().parseQuery("SELECT * WHERE {" + where + "}", NS).getTupleExpr();
+		Join[] join = new Join[1];
+		expr.visit(new AbstractQueryModelVisitor<RuntimeException>() {
+			@Override
+			public void meet(Join node) {
+				if (join[0] == null) {
+					join[0] = node;
+				}
+			}
+		});
+		assertNotNull(join[0]);
+		EvaluationStatistics statistics = new EndpointStoreEvaluationStatistics(
+				new EndpointStoreEvaluationStatisticsHDT(store), store.getCurrentSailStore().getEvaluationStatistics(),
+				store.getDeltaStatistics());
+		return statistics.getCardinality(join[0]);
+	}
+
+	@Test
+	public void joinTest() throws Exception {
+		EndpointStore store = createStore(true);
+		try {
+			// star, 5 subjects have the 2 predicates
+			assertEquals(5, joinCardinality(store, "?s <type> ?t . ?s <link> ?l"), 0.01);
+			// path, 5 distinct link objects
+			assertEquals(5, joinCardinality(store, "?s <link> ?x . ?x <name> ?n"), 0.01);
+		} finally {
+			store.shutDown();
+		}
+	}
+
+	@Test
+	public void noStatisticsTest() throws Exception {
+		EndpointStore store = createStore(false);
+		try {
+			// the product of the cardinalities
+			assertEquals(50, joinCardinality(store, "?s <type> ?t . ?s <link> ?l"), 0.01);
+		} finally {
+			store.shutDown();
+		}
+	}
+}
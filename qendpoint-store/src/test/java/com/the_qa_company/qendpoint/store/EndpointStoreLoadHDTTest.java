@@ -0,0 +1,95 @@
+package com.the_qa_company.qendpoint.store;
+
+import com.the_qa_company.qendpoint.compiler.CompiledSail;
+import com.the_qa_company.qendpoint.compiler.SparqlRepository;
+import com.the_qa_company.qendpoint.core.options.HDTOptions;
+import org.eclipse.rdf4j.model.ValueFactory;
+import org.eclipse.rdf4j.model.impl.SimpleValueFactory;
+import org.eclipse.rdf4j.model.vocabulary.FOAF;
+import org.eclipse.rdf4j.repository.sail.SailRepositoryConnection;
+import org.eclipse.rdf4j.sail.SailConnection;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class EndpointStoreLoadHDTTest {
+	private static final String EX = "http://example.com/";
+	private static final ValueFactory VF = SimpleValueFactory.getInstance();
+
+	@Rule
+	public TemporaryFolder tempDir = TemporaryFolder.builder().assureDeletion().build();
+
+	private static ByteArrayInputStream ntFile(int start, int count) {
+		StringBuilder builder = new StringBuilder();
+		for (int i = start; i < start + count; i++) {
+			builder.append("<").append(EX).append("s").append(i % 7).append("> <").append(FOAF.KNOWS).append("> <")
+					.append(EX).append("o").append(i).append("> .\n");
+		}
+		return new ByteArrayInputStream(builder.toString().getBytes(StandardCharsets.UTF_8));
+	}
+
+	private static long nativeSize(EndpointStore store) {
+		try (SailConnection connectionA = store.getNativeStoreA().getConnection();
+				SailConnection connectionB = store.getNativeStoreB().getConnection()) {
+			return connectionA.size() + connectionB.size();
+		}
+	}
+
+	@Test
+	public void loadTest() throws Exception {
+		HDTOptions spec = HDTOptions.of(EndpointStore.OPTION_QENDPOINT_LOAD_HDT_THRESHOLD, 20);
+		SparqlRepository sparqlRepository = CompiledSail.compiler()
+				.withEndpointFiles(new EndpointFiles(tempDir.getRoot().toPath())).withHDTSpec(spec)
+				.compileToSparqlRepository();
+		EndpointStore store = (EndpointStore) ((CompiledSail) sparqlRepository.getRepository().getSail()).getSource();
+		try {
+			// small file, added to the native store
+			sparqlRepository.loadFile(ntFile(0, 10), "small.nt");
+			assertEquals(10, nativeSize(store));
+
+			// big file, converted to an HDT and merged with the delta
+			sparqlRepository.loadFile(ntFile(10, 100), "big.nt");
+			assertEquals(0, nativeSize(store));
+			assertEquals(110, store.getHdt().getTriples().getNumberOfElements());
+			assertFalse(Files.exists(Path.of(store.getEndpointFiles().getHDTLoadOutput())));
+			assertFalse(Files.exists(store.getEndpointFiles().getLocationHdtPath().resolve("loader")));
+
+			try (SailRepositoryConnection connection = sparqlRepository.getConnection()) {
+				assertEquals(110, connection.size());
+				assertTrue(connection.hasStatement(VF.createIRI(EX, "s3"), FOAF.KNOWS, VF.createIRI(EX, "o3"), false));
+				assertTrue(connection.hasStatement(VF.createIRI(EX, "s5"), FOAF.KNOWS, VF.createIRI(EX, "o54"), false));
+
+				// the store can be updated after the load
+				connection.remove(VF.createIRI(EX, "s5"), FOAF.KNOWS, VF.createIRI(EX, "o54"));
+				assertEquals(109, connection.size());
+			}
+		} finally {
+			sparqlRepository.shutDown();
+		}
+	}
+
+	@Test
+	public void disabledLoadTest() throws IOException {
+		HDTOptions spec = HDTOptions.of(EndpointStore.OPTION_QENDPOINT_LOAD_HDT_THRESHOLD, 0);
+		SparqlRepository sparqlRepository = CompiledSail.compiler()
+				.withEndpointFiles(new EndpointFiles(tempDir.getRoot().toPath())).withHDTSpec(spec)
+				.compileToSparqlRepository();
+		EndpointStore store = (EndpointStore) ((CompiledSail) sparqlRepository.getRepository().getSail()).getSource();
+		try {
+			sparqlRepository.loadFile(ntFile(0, 100), "big.nt");
+			assertEquals(100, nativeSize(store));
+		} finally {
+			sparqlRepository.shutDown();
+		}
+	}
+}
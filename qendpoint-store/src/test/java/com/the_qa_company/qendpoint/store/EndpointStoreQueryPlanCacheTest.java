@@ -0,0 +1,196 @@
+package com.the_qa_company.qendpoint.store;
+
+import com.the_qa_company.qendpoint.compiler.CompiledSail;
+import com.the_qa_company.qendpoint.compiler.SparqlRepository;
+import com.the_qa_company.qendpoint.core.options.HDTOptions;
+import com.the_qa_company.qendpoint.utils.rdf.ClosableResult;
+import org.eclipse.rdf4j.model.IRI;
+import org.eclipse.rdf4j.model.Value;
+import org.eclipse.rdf4j.model.ValueFactory;
+import org.eclipse.rdf4j.model.impl.SimpleNamespace;
+import org.eclipse.rdf4j.model.impl.SimpleValueFactory;
+import org.eclipse.rdf4j.model.vocabulary.FOAF;
+import org.eclipse.rdf4j.query.BindingSet;
+import org.eclipse.rdf4j.query.GraphQueryResult;
+import org.eclipse.rdf4j.query.TupleQuery;
+import org.eclipse.rdf4j.query.TupleQueryResult;
+import org.eclipse.rdf4j.query.parser.sparql.SPARQLParser;
+import org.eclipse.rdf4j.repository.RepositoryConnection;
+import org.eclipse.rdf4j.repository.sail.SailRepository;
+import org.eclipse.rdf4j.repository.sail.SailRepositoryConnection;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class EndpointStoreQueryPlanCacheTest {
+	private static final String EX = "http://example.com/";
+	private static final ValueFactory VF = SimpleValueFactory.getInstance();
+	private static final IRI S1 = VF.createIRI(EX, "s1");
+	private static final IRI S2 = VF.createIRI(EX, "s2");
+	private static final String QUERY = "SELECT ?o { ?s <" + FOAF.KNOWS + "> ?o }";
+
+	@Rule
+	public TemporaryFolder tempDir = TemporaryFolder.builder().assureDeletion().build();
+
+	private static Set<Value> objects(TupleQueryResult result) {
+		Set<Value> values = new HashSet<>();
+		try (result) {
+			for (BindingSet bindings : result) {
+				values.add(bindings.getValue("o"));
+			}
+		}
+		return values;
+	}
+
+	private static Set<Value> select(RepositoryConnection connection, IRI subject) {
+		TupleQuery query = connection.prepareTupleQuery(QUERY);
+		if (subject != null) {
+			query.setBinding("s", subject);
+		}
+		return objects(query.evaluate());
+	}
+
+	private static void addData(RepositoryConnection connection) {
+		connection.add(S1, FOAF.KNOWS, VF.createIRI(EX, "o1"));
+		connection.add(S1, FOAF.KNOWS, VF.createIRI(EX, "o2"));
+		connection.add(S2, FOAF.KNOWS, VF.createIRI(EX, "o3"));
+	}
+
+	@Test
+	public void planTest() throws Exception {
+		EndpointStore store = new EndpointStore(new EndpointFiles(tempDir.newFolder().toPath()));
+		SailRepository repository = new SailRepository(store);
+		try {
+			EndpointStoreQueryPlanCache planCache = store.getQueryPlanCache();
+			assertNotNull(planCache);
+
+			try (SailRepositoryConnection connection = repository.getConnection()) {
+				addData(connection);
+
+				// the plan is reused with other bindings
+				assertEquals(Set.of(VF.createIRI(EX, "o1"), VF.createIRI(EX, "o2")), select(connection, S1));
+				assertEquals(1, planCache.size());
+				assertEquals(Set.of(VF.createIRI(EX, "o3")), select(connection, S2));
+				assertEquals(3, select(connection, null).size());
+				assertEquals(1, planCache.size());
+			}
+			try (SailRepositoryConnection connection = repository.getConnection()) {
+				// the plans are shared by the connections
+				assertEquals(Set.of(VF.createIRI(EX, "o3")), select(connection, S2));
+				assertEquals(1, planCache.size());
+			}
+
+			store.mergeStore();
+			while (store.isMergeTriggered || store.isMerging()) {
+				Thread.sleep(10);
+			}
+
+			// new HDT, the plans are recreated with the new ids
+			assertEquals(0, planCache.size());
+			try (SailRepositoryConnection connection = repository.getConnection()) {
+				assertEquals(Set.of(VF.createIRI(EX, "o1"), VF.createIRI(EX, "o2")), select(connection, S1));
+				assertEquals(Set.of(VF.createIRI(EX, "o3")), select(connection, S2));
+				assertEquals(1, planCache.size());
+			}
+		} finally {
+			repository.shutDown();
+		}
+	}
+
+	@Test
+	public void nowTest() throws Exception {
+		EndpointStore store = new EndpointStore(new EndpointFiles(tempDir.newFolder().toPath()));
+		SailRepository repository = new SailRepository(store);
+		try {
+			EndpointStoreQueryPlanCache planCache = store.getQueryPlanCache();
+			try (SailRepositoryConnection connection = repository.getConnection()) {
+				addData(connection);
+				String query = "SELECT ?now { ?s <" + FOAF.KNOWS + "> ?o BIND(NOW() AS ?now) } LIMIT 1";
+				Value now1;
+				try (TupleQueryResult result = connection.prepareTupleQuery(query).evaluate()) {
+					now1 = result.next().getValue("now");
+				}
+				Thread.sleep(10);
+				Value now2;
+				try (TupleQueryResult result = connection.prepareTupleQuery(query).evaluate()) {
+					now2 = result.next().getValue("now");
+				}
+				assertNotEquals(now1, now2);
+				assertEquals(0, planCache.size());
+			}
+		} finally {
+			repository.shutDown();
+		}
+	}
+
+	@Test
+	public void cacheableTest() {
+		SPARQLParser parser = new SPARQLParser();
+		assertTrue(EndpointStoreQueryPlanCache.isCacheable(parser.parseQuery(QUERY, EX).getTupleExpr()));
+		for (String function : new String[] { "NOW()", "RAND()", "UUID()", "STRUUID()", "BNODE()", "BNODE(?o)" }) {
+			String query = "SELECT * { ?s <" + FOAF.KNOWS + "> ?o FILTER(?o != " + function + ") }";
+			assertFalse(function, EndpointStoreQueryPlanCache.isCacheable(parser.parseQuery(query, EX).getTupleExpr()));
+		}
+	}
+
+	@Test
+	public void disabledTest() throws Exception {
+		EndpointStore store = new EndpointStore(new EndpointFiles(tempDir.newFolder().toPath()),
+				HDTOptions.of(EndpointStore.OPTION_QENDPOINT_QUERY_PLAN_CACHE_SIZE, 0));
+		SailRepository repository = new SailRepository(store);
+		try {
+			assertNull(store.getQueryPlanCache());
+			try (SailRepositoryConnection connection = repository.getConnection()) {
+				addData(connection);
+				assertEquals(Set.of(VF.createIRI(EX, "o1"), VF.createIRI(EX, "o2")), select(connection, S1));
+				assertEquals(Set.of(VF.createIRI(EX, "o3")), select(connection, S2));
+			}
+		} finally {
+			repository.shutDown();
+		}
+	}
+
+	@Test
+	public void parsedQueryTest() throws Exception {
+		SparqlRepository sparqlRepository = CompiledSail.compiler()
+				.withEndpointFiles(new EndpointFiles(tempDir.newFolder().toPath())).compileToSparqlRepository();
+		try {
+			try (SailRepositoryConnection connection = sparqlRepository.getConnection()) {
+				addData(connection);
+			}
+			sparqlRepository.setDefaultPrefixes(new SimpleNamespace("ex", EX));
+
+			String select = "SELECT ?o { ex:s1 <" + FOAF.KNOWS + "> ?o }";
+			String ask = "ASK { ex:s2 <" + FOAF.KNOWS + "> ex:o3 }";
+			String construct = "CONSTRUCT { ?o <" + FOAF.KNOWS + "> ex:s1 } WHERE { ex:s1 <" + FOAF.KNOWS + "> ?o }";
+			for (int i = 0; i < 2; i++) {
+				try (ClosableResult<TupleQueryResult> result = sparqlRepository.executeTupleQuery(select, 0)) {
+					assertEquals(Set.of(VF.createIRI(EX, "o1"), VF.createIRI(EX, "o2")), objects(result.getResult()));
+				}
+				assertTrue(sparqlRepository.executeBooleanQuery(ask, 0));
+				try (ClosableResult<GraphQueryResult> result = sparqlRepository.executeGraphQuery(construct, 0)) {
+					assertEquals(2, result.getResult().stream().count());
+				}
+			}
+
+			// the queries are parsed again with the new prefixes
+			sparqlRepository.setDefaultPrefixes(new SimpleNamespace("ex", "http://example.org/"));
+			try (ClosableResult<TupleQueryResult> result = sparqlRepository.executeTupleQuery(select, 0)) {
+				assertTrue(objects(result.getResult()).isEmpty());
+			}
+			assertFalse(sparqlRepository.executeBooleanQuery(ask, 0));
+		} finally {
+			sparqlRepository.shutDown();
+		}
+	}
+}
@@ -45,12 +45,17 @@ import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.lang.reflect.Field;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Random;
@@ -995,4 +1000,62 @@ public class EndpointStoreTest {
 			System.out.println(it.next());
 		}
 	}
+
+	@Test
+	public void hdtStatementTest() throws IOException, ParserException, ClassNotFoundException {
+		File nativeStore = tempDir.newFolder("native-store");
+		File hdtStore = tempDir.newFolder("hdt-store");
+		String ex = "http://example.com/";
+		List<TripleString> triples = new ArrayList<>();
+		for (int i = 0; i < 600; i++) {
+			triples.add(new TripleString(ex + "s" + i, ex + "p" + (i % 3),
+					i % 2 == 0 ? ex + "o" + i : "\"label" + i + "\"@en"));
+		}
+		try (HDT hdt = HDTManager.generateHDT(triples.iterator(), ex, spec, null)) {
+			hdt.saveToHDT(hdtStore.getAbsolutePath() + File.separatorChar + HDT_INDEX_NAME, null);
+		}
+		SailRepository repository = new SailRepository(
+				new EndpointStore(hdtStore.getAbsolutePath() + File.separatorChar, HDT_INDEX_NAME, spec,
+						nativeStore.getAbsolutePath() + File.separatorChar, true));
+		try (SailRepositoryConnection connection = repository.getConnection()) {
+			ValueFactory vf = SimpleValueFactory.getInstance();
+			Set<Statement> expected = new HashSet<>();
+			for (TripleString triple : triples) {
+				String object = triple.getObject().toString();
+				expected.add(vf.createStatement(vf.createIRI(triple.getSubject().toString()),
+						vf.createIRI(triple.getPredicate().toString()),
+						object.startsWith("\"") ? vf.createLiteral(object.substring(1, object.length() - 4), "en")
+								: vf.createIRI(object)));
+			}
+			// remove triples in the batches of the iterator
+			for (int i = 0; i < 600; i += 14) {
+				TripleString triple = triples.get(i);
+				Statement statement = vf.createStatement(vf.createIRI(triple.getSubject().toString()),
+						vf.createIRI(triple.getPredicate().toString()), vf.createIRI(triple.getObject().toString()));
+				connection.remove(statement);
+				assertTrue(expected.remove(statement));
+			}
+
+			Set<Statement> actual = new HashSet<>();
+			try (RepositoryResult<Statement> it = connection.getStatements(null, null, null, false)) {
+				while (it.hasNext()) {
+					Statement statement = it.next();
+					// the statements can be serialized without the store
+					ByteArrayOutputStream out = new ByteArrayOutputStream();
+					try (ObjectOutputStream stream = new ObjectOutputStream(out)) {
+						stream.writeObject(statement);
+					}
+					try (ObjectInputStream stream = new ObjectInputStream(
+							new ByteArrayInputStream(out.toByteArray()))) {
+						Statement copy = (Statement) stream.readObject();
+						assertEquals(statement, copy);
+						actual.add(copy);
+					}
+				}
+			}
+			assertEquals(expected, actual);
+		} finally {
+			repository.shutDown();
+		}
+	}
 }
@@ -0,0 +1,177 @@
+package com.the_qa_company.qendpoint.store;
+
+import com.the_qa_company.qendpoint.core.dictionary.Dictionary;
+import com.the_qa_company.qendpoint.core.enums.TripleComponentRole;
+import com.the_qa_company.qendpoint.core.exceptions.ParserException;
+import com.the_qa_company.qendpoint.core.hdt.HDT;
+import com.the_qa_company.qendpoint.core.hdt.HDTManager;
+import com.the_qa_company.qendpoint.core.options.HDTOptions;
+import com.the_qa_company.qendpoint.core.options.HDTOptionsKeys;
+import com.the_qa_company.qendpoint.core.triples.TripleString;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+public class HDTIdMapperTest {
+	private static HDT createHDT(List<TripleString> triples) throws IOException, ParserException {
+		return createHDT(triples, HDTOptions.of());
+	}
+
+	private static HDT createHDT(List<TripleString> triples, HDTOptions spec) throws IOException, ParserException {
+		return HDTManager.generateHDT(triples.iterator(), "http://example.org/#", spec, null);
+	}
+
+	@Test
+	public void mapTest() throws IOException, ParserException {
+		try (HDT oldHDT = createHDT(List.of(new TripleString("http://ex.org/b", "http://ex.org/p1", "\"lit\""),
+				new TripleString("http://ex.org/c", "http://ex.org/p2", "http://ex.org/b"),
+				new TripleString("http://ex.org/d", "http://ex.org/p2", "http://ex.org/e")));
+				HDT newHDT = createHDT(List.of(new TripleString("http://ex.org/a", "http://ex.org/p1", "\"lit\""),
+						new TripleString("http://ex.org/b", "http://ex.org/p0", "http://ex.org/c"),
+						new TripleString("http://ex.org/c", "http://ex.org/p2", "http://ex.org/b")))) {
+			Dictionary oldDict = oldHDT.getDictionary();
+			Dictionary newDict = newHDT.getDictionary();
+
+			HDTIdMapper mapper = new HDTIdMapper(oldDict, newDict);
+
+			long oldB = oldDict.stringToId("http://ex.org/b", TripleComponentRole.SUBJECT);
+			long oldD = oldDict.stringToId("http://ex.org/d", TripleComponentRole.SUBJECT);
+			long oldP2 = oldDict.stringToId("http://ex.org/p2", TripleComponentRole.PREDICATE);
+			long oldLit = oldDict.stringToId("\"lit\"", TripleComponentRole.OBJECT);
+
+			// add with duplicates and in a random order
+			mapper.add(TripleComponentRole.SUBJECT, oldD);
+			mapper.add(TripleComponentRole.SUBJECT, oldB);
+			mapper.add(TripleComponentRole.SUBJECT, oldD);
+			mapper.add(TripleComponentRole.PREDICATE, oldP2);
+			mapper.add(TripleComponentRole.OBJECT, oldLit);
+			mapper.add(TripleComponentRole.OBJECT, -1);
+
+			assertThrows(IllegalStateException.class, () -> mapper.map(TripleComponentRole.SUBJECT, oldB));
+
+			mapper.resolve();
+
+			assertEquals(2, mapper.size(TripleComponentRole.SUBJECT));
+			assertEquals(1, mapper.size(TripleComponentRole.PREDICATE));
+			assertEquals(1, mapper.size(TripleComponentRole.OBJECT));
+
+			assertEquals(newDict.stringToId("http://ex.org/b", TripleComponentRole.SUBJECT),
+					mapper.map(TripleComponentRole.SUBJECT, oldB));
+			// not in the new HDT
+			assertEquals(-1, mapper.map(TripleComponentRole.SUBJECT, oldD));
+			assertEquals(newDict.stringToId("http://ex.org/p2", TripleComponentRole.PREDICATE),
+					mapper.map(TripleComponentRole.PREDICATE, oldP2));
+			assertEquals(newDict.stringToId("\"lit\"", TripleComponentRole.OBJECT),
+					mapper.map(TripleComponentRole.OBJECT, oldLit));
+			// not added
+			assertEquals(-1, mapper.map(TripleComponentRole.OBJECT,
+					oldDict.stringToId("http://ex.org/e", TripleComponentRole.OBJECT)));
+
+			// added ids, even if they aren't in the new HDT
+			assertTrue(mapper.contains(TripleComponentRole.SUBJECT, oldD));
+			assertTrue(mapper.contains(TripleComponentRole.OBJECT, oldLit));
+			assertFalse(mapper.contains(TripleComponentRole.OBJECT,
+					oldDict.stringToId("http://ex.org/e", TripleComponentRole.OBJECT)));
+			assertFalse(mapper.contains(TripleComponentRole.OBJECT, -1));
+
+			assertThrows(IllegalStateException.class, () -> mapper.add(TripleComponentRole.SUBJECT, oldB));
+		}
+	}
+
+	@Test
+	public void multiSectionTest() throws IOException, ParserException {
+		// the object sections of the dictionary aren't sorted together
+		HDTOptions spec = HDTOptions.of(HDTOptionsKeys.DICTIONARY_TYPE_KEY,
+				HDTOptionsKeys.DICTIONARY_TYPE_VALUE_MULTI_OBJECTS_LANG);
+		String[] suffixes = { "", "@en", "@fr", "^^<http://ex.org/dt>", "^^<http://ex.org/dt2>" };
+		Random rnd = new Random(34);
+		List<TripleString> oldTriples = new ArrayList<>();
+		List<TripleString> newTriples = new ArrayList<>();
+		for (int i = 0; i < 500; i++) {
+			String s = "http://ex.org/s" + rnd.nextInt(50);
+			String p = "http://ex.org/p" + rnd.nextInt(4);
+			String o = rnd.nextBoolean() ? "http://ex.org/s" + rnd.nextInt(80)
+					: "\"v" + rnd.nextInt(30) + "\"" + suffixes[rnd.nextInt(suffixes.length)];
+			(rnd.nextBoolean() ? oldTriples : newTriples).add(new TripleString(s, p, o));
+		}
+
+		try (HDT oldHDT = createHDT(oldTriples, spec); HDT newHDT = createHDT(newTriples, spec)) {
+			Dictionary oldDict = oldHDT.getDictionary();
+			Dictionary newDict = newHDT.getDictionary();
+			assertTrue(oldDict.isMultiSectionDictionary());
+
+			HDTIdMapper mapper = new HDTIdMapper(oldDict, newDict);
+			for (TripleComponentRole role : List.of(TripleComponentRole.SUBJECT, TripleComponentRole.PREDICATE,
+					TripleComponentRole.OBJECT)) {
+				for (long id = oldDict.getNSection(role); id >= 1; id--) {
+					mapper.add(role, id);
+				}
+			}
+			mapper.resolve();
+
+			int found = 0;
+			for (TripleComponentRole role : List.of(TripleComponentRole.SUBJECT, TripleComponentRole.PREDICATE,
+					TripleComponentRole.OBJECT)) {
+				Iterator<? extends CharSequence> it = oldDict.stringIterator(role, true);
+				for (long id = 1; it.hasNext(); id++) {
+					CharSequence str = it.next();
+					long expected = newDict.stringToId(str, role);
+					assertEquals(str.toString(), expected <= 0 ? -1 : expected, mapper.map(role, id));
+					if (expected > 0) {
+						found++;
+					}
+				}
+			}
+			assertTrue(found > 0);
+		}
+	}
+
+	@Test
+	public void lookupTest() throws IOException, ParserException {
+		HDTOptions spec = HDTOptions.of(HDTOptionsKeys.DICTIONARY_TYPE_KEY,
+				HDTOptionsKeys.DICTIONARY_TYPE_VALUE_MULTI_OBJECTS_LANG);
+		String[] suffixes = { "", "@en", "^^<http://ex.org/dt>" };
+		List<TripleString> oldTriples = new ArrayList<>();
+		List<TripleString> newTriples = new ArrayList<>();
+		for (int i = 0; i < 2000; i++) {
+			TripleString triple = new TripleString("http://ex.org/s" + i, "http://ex.org/p" + (i % 3),
+					"\"v" + i + "\"" + suffixes[i % suffixes.length]);
+			oldTriples.add(triple);
+			if (i % 4 != 0) {
+				newTriples.add(triple);
+			}
+		}
+
+		try (HDT oldHDT = createHDT(oldTriples, spec); HDT newHDT = createHDT(newTriples, spec)) {
+			Dictionary oldDict = oldHDT.getDictionary();
+			Dictionary newDict = newHDT.getDictionary();
+
+			// few ids compared to the sections, searched one by one
+			HDTIdMapper mapper = new HDTIdMapper(oldDict, newDict);
+			List<Long> ids = List.of(1L, 2L, 300L, 1999L, 2000L);
+			for (long id : ids) {
+				mapper.add(TripleComponentRole.SUBJECT, id);
+				mapper.add(TripleComponentRole.OBJECT, id);
+			}
+			assertTrue(ids.size() <= oldDict.getNSection(TripleComponentRole.SUBJECT) / HDTIdMapper.LOOKUP_RATIO);
+			mapper.resolve();
+
+			for (TripleComponentRole role : List.of(TripleComponentRole.SUBJECT, TripleComponentRole.OBJECT)) {
+				for (long id : ids) {
+					CharSequence str = oldDict.idToString(id, role);
+					long expected = newDict.stringToId(str, role);
+					assertEquals(str.toString(), expected <= 0 ? -1 : expected, mapper.map(role, id));
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,119 @@
+package com.the_qa_company.qendpoint.store;
+
+import com.the_qa_company.qendpoint.core.dictionary.Dictionary;
+import com.the_qa_company.qendpoint.core.enums.TripleComponentRole;
+import com.the_qa_company.qendpoint.core.exceptions.ParserException;
+import com.the_qa_company.qendpoint.core.hdt.HDT;
+import com.the_qa_company.qendpoint.core.hdt.HDTManager;
+import com.the_qa_company.qendpoint.core.options.HDTOptions;
+import com.the_qa_company.qendpoint.core.triples.TripleID;
+import com.the_qa_company.qendpoint.core.triples.TripleString;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class HDTStatisticsTest {
+	private static final String NS = "http://ex.org/";
+
+	@Rule
+	public TemporaryFolder tempDir = TemporaryFolder.builder().assureDeletion().build();
+
+	private static HDT createHDT(int subjects) throws IOException, ParserException {
+		List<TripleString> triples = new ArrayList<>();
+		for (int i = 0; i < subjects; i++) {
+			triples.add(new TripleString(NS + "s" + i, NS + "type", NS + "Class" + (i % 2)));
+			triples.add(new TripleString(NS + "s" + i, NS + "name", "\"name" + i + "\""));
+			if (i % 2 == 0) {
+				triples.add(new TripleString(NS + "s" + i, NS + "link", NS + "s" + ((i + 1) % subjects)));
+			}
+		}
+		return HDTManager.generateHDT(triples.iterator(), NS, HDTOptions.of(), null);
+	}
+
+	private static long predicate(HDT hdt, String name) {
+		return hdt.getDictionary().stringToId(NS + name, TripleComponentRole.PREDICATE);
+	}
+
+	@Test
+	public void computeTest() throws IOException, ParserException {
+		try (HDT hdt = createHDT(10)) {
+			HDTStatistics stats = HDTStatistics.compute(hdt, 10);
+			assertTrue(stats.hasPredicateStatistics());
+
+			long type = predicate(hdt, "type");
+			long name = predicate(hdt, "name");
+			long link = predicate(hdt, "link");
+
+			assertEquals(10, stats.getPredicateTriples(type));
+			assertEquals(10, stats.getPredicateTriples(name));
+			assertEquals(5, stats.getPredicateTriples(link));
+			assertEquals(-1, stats.getPredicateTriples(42));
+
+			assertEquals(10, stats.getPredicateDistinctSubjects(type));
+			assertEquals(2, stats.getPredicateDistinctObjects(type));
+			assertEquals(10, stats.getPredicateDistinctObjects(name));
+			assertEquals(5, stats.getPredicateDistinctSubjects(link));
+
+			// {type, name} and {type, name, link}
+			assertEquals(2, stats.getCharacteristicSets().size());
+			assertEquals(10, stats.estimateSubjectsWithPredicates(type, name));
+			assertEquals(5, stats.estimateSubjectsWithPredicates(link, type));
+
+			assertEquals(10, stats.estimateCardinality(0, type, 0), 0);
+			assertEquals(0, stats.estimateCardinality(0, -1, 0), 0);
+			assertEquals(Double.MAX_VALUE, stats.estimateCardinality(0, 0, 0), 0);
+
+			Dictionary dict = hdt.getDictionary();
+			long s0 = dict.stringToId(NS + "s0", TripleComponentRole.SUBJECT);
+			assertEquals(hdt.getTriples().search(new TripleID(s0, 0, 0)).estimatedNumResults(),
+					stats.estimateCardinality(s0, 0, 0), 0);
+			// cached value
+			assertEquals(hdt.getTriples().search(new TripleID(s0, 0, 0)).estimatedNumResults(),
+					stats.estimateCardinality(s0, 0, 0), 0);
+		}
+	}
+
+	@Test
+	public void noStatisticsTest() throws IOException, ParserException {
+		try (HDT hdt = createHDT(10)) {
+			HDTStatistics stats = HDTStatistics.of(hdt, 0);
+			assertFalse(stats.hasPredicateStatistics());
+			long type = predicate(hdt, "type");
+			assertEquals(-1, stats.getPredicateTriples(type));
+			assertEquals(-1, stats.estimateSubjectsWithPredicates(type));
+			assertEquals(hdt.getTriples().search(new TripleID(0, type, 0)).estimatedNumResults(),
+					stats.estimateCardinality(0, type, 0), 0);
+		}
+	}
+
+	@Test
+	public void saveLoadTest() throws IOException, ParserException {
+		Path file = tempDir.getRoot().toPath().resolve("index.hdt.stats");
+		try (HDT hdt = createHDT(10)) {
+			HDTStatistics.loadOrCompute(hdt, file, 10);
+			assertTrue(Files.exists(file));
+
+			HDTStatistics loaded = HDTStatistics.loadOrCompute(hdt, file, 10);
+			long link = predicate(hdt, "link");
+			assertEquals(5, loaded.getPredicateTriples(link));
+			assertEquals(5, loaded.getPredicateDistinctSubjects(link));
+			assertEquals(2, loaded.getCharacteristicSets().size());
+		}
+		// the file was created for another HDT, the statistics are computed
+		// again
+		try (HDT hdt = createHDT(20)) {
+			HDTStatistics stats = HDTStatistics.loadOrCompute(hdt, file, 10);
+			assertEquals(10, stats.getPredicateTriples(predicate(hdt, "link")));
+		}
+	}
+}
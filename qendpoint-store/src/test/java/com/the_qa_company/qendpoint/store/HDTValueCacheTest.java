@@ -0,0 +1,178 @@
+package com.the_qa_company.qendpoint.store;
+
+import com.the_qa_company.qendpoint.core.enums.TripleComponentRole;
+import com.the_qa_company.qendpoint.core.hdt.HDT;
+import com.the_qa_company.qendpoint.core.options.HDTOptions;
+import com.the_qa_company.qendpoint.model.SimpleIRIHDT;
+import org.eclipse.rdf4j.common.iteration.CloseableIteration;
+import org.eclipse.rdf4j.model.IRI;
+import org.eclipse.rdf4j.model.Literal;
+import org.eclipse.rdf4j.model.Statement;
+import org.eclipse.rdf4j.model.Value;
+import org.eclipse.rdf4j.model.vocabulary.FOAF;
+import org.eclipse.rdf4j.model.vocabulary.RDF;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class HDTValueCacheTest {
+	@Rule
+	public TemporaryFolder tempDir = TemporaryFolder.builder().assureDeletion().build();
+
+	private EndpointStore createStore() throws IOException {
+		File nativeStore = tempDir.newFolder("native-store");
+		File hdtStore = tempDir.newFolder("hdt-store");
+		HDTOptions spec = HDTOptions.of();
+		try (HDT hdt = Utility.createTempHdtIndex(tempDir, false, false, spec)) {
+			assert hdt != null;
+			hdt.saveToHDT(hdtStore.getAbsolutePath() + File.separatorChar + EndpointStoreTest.HDT_INDEX_NAME, null);
+		}
+		return new EndpointStore(hdtStore.getAbsolutePath() + File.separatorChar, EndpointStoreTest.HDT_INDEX_NAME,
+				spec, nativeStore.getAbsolutePath() + File.separatorChar, true);
+	}
+
+	@Test
+	public void cacheTest() throws IOException {
+		EndpointStore endpoint = createStore();
+		try {
+			HDTValueCache cache = new HDTValueCache(endpoint, 10);
+			assertEquals(16, cache.getCapacity());
+
+			Value subject = cache.get(TripleComponentRole.SUBJECT, 1);
+			Value predicate = cache.get(TripleComponentRole.PREDICATE, 1);
+			Value object = cache.get(TripleComponentRole.OBJECT, 1);
+			assertEquals(3, cache.getMissCount());
+			assertEquals(0, cache.getHitCount());
+
+			assertEquals(subject, cache.get(TripleComponentRole.SUBJECT, 1));
+			assertEquals(predicate, cache.get(TripleComponentRole.PREDICATE, 1));
+			assertEquals(object, cache.get(TripleComponentRole.OBJECT, 1));
+			assertEquals(3, cache.getMissCount());
+			assertEquals(3, cache.getHitCount());
+
+			assertEquals(endpoint.getHdtConverter().idToSubjectHDTResource(1), subject);
+			assertEquals(endpoint.getHdtConverter().idToPredicateHDTResource(1), predicate);
+			assertEquals(endpoint.getHdtConverter().idToObjectHDTResource(1), object);
+
+			cache.clear();
+			assertNotSame(subject, cache.get(TripleComponentRole.SUBJECT, 1));
+			assertEquals(4, cache.getMissCount());
+		} finally {
+			endpoint.shutDown();
+		}
+	}
+
+	@Test
+	public void sharedValueTest() throws IOException {
+		EndpointStore endpoint = createStore();
+		try {
+			HDTValueCache cache = new HDTValueCache(endpoint, 10);
+			IRI expected = endpoint.getHdtConverter().idToPredicateHDTResource(1);
+			int hashCode = expected.hashCode();
+
+			// the second read decodes the string, the next reads share it
+			Value first = cache.get(TripleComponentRole.PREDICATE, 1);
+			SimpleIRIHDT second = (SimpleIRIHDT) cache.get(TripleComponentRole.PREDICATE, 1);
+			assertEquals(first, second);
+			assertEquals(expected.stringValue(), second.getIriString());
+			assertSame(second, cache.get(TripleComponentRole.PREDICATE, 1));
+
+			// creating a literal with a shared datatype doesn't modify it
+			Literal literal = endpoint.getValueFactory().createLiteral("1", second);
+			assertFalse(literal.getDatatype() instanceof SimpleIRIHDT);
+			assertEquals(expected, literal.getDatatype());
+			SimpleIRIHDT third = (SimpleIRIHDT) cache.get(TripleComponentRole.PREDICATE, 1);
+			assertSame(second, third);
+
+			assertEquals(1, third.getHDTId());
+			assertFalse(third.isDelegate());
+			assertEquals(hashCode, third.hashCode());
+			assertEquals(expected, third);
+			assertEquals(1, cache.getMissCount());
+			assertEquals(3, cache.getHitCount());
+		} finally {
+			endpoint.shutDown();
+		}
+	}
+
+	@Test
+	public void lazyStatementTest() throws IOException {
+		EndpointStore endpoint = createStore();
+		try (EndpointStoreConnection connection = (EndpointStoreConnection) endpoint.getConnection()) {
+			EndpointTripleSource tripleSource = new EndpointTripleSource(connection, endpoint);
+			HDTValueCache cache = tripleSource.getValueCache();
+			try (CloseableIteration<? extends Statement> it = tripleSource.getStatements(null, RDF.TYPE, null)) {
+				assertTrue(it.hasNext());
+				Statement statement = it.next();
+				// only the read components are created
+				assertEquals(0, cache.getMissCount());
+				assertEquals("http://example.com/Guo", statement.getSubject().stringValue());
+				assertEquals(1, cache.getMissCount());
+				assertEquals(RDF.TYPE, statement.getPredicate());
+				assertEquals(FOAF.PERSON, statement.getObject());
+				assertEquals(3, cache.getMissCount());
+			}
+		} finally {
+			endpoint.shutDown();
+		}
+	}
+
+	@Test
+	public void rowTest() throws IOException {
+		EndpointStore endpoint = createStore();
+		try (EndpointStoreConnection connection = (EndpointStoreConnection) endpoint.getConnection()) {
+			EndpointTripleSource tripleSource = new EndpointTripleSource(connection, endpoint);
+			HDTValueCache cache = tripleSource.getValueCache();
+			try (EndpointStoreTripleIterator it = (EndpointStoreTripleIterator) tripleSource.getStatements(null,
+					RDF.TYPE, null)) {
+				assertTrue(it.nextRow());
+				// the row is read without statement, only the read components
+				// are created
+				assertEquals(0, cache.getMissCount());
+				assertEquals("http://example.com/Guo", it.getComponent(TripleComponentRole.SUBJECT).stringValue());
+				assertEquals(FOAF.PERSON, it.getComponent(TripleComponentRole.OBJECT));
+				assertNull(it.getComponent(TripleComponentRole.GRAPH));
+				assertEquals(2, cache.getMissCount());
+
+				// the rows are the statements of the iterator
+				try (CloseableIteration<? extends Statement> statements = tripleSource.getStatements(null, RDF.TYPE,
+						null)) {
+					Statement first = statements.next();
+					assertEquals(first.getSubject(), it.getComponent(TripleComponentRole.SUBJECT));
+					while (it.nextRow()) {
+						Statement statement = statements.next();
+						assertEquals(statement.getSubject(), it.getComponent(TripleComponentRole.SUBJECT));
+						assertEquals(statement.getObject(), it.getComponent(TripleComponentRole.OBJECT));
+					}
+					assertFalse(statements.hasNext());
+				}
+			}
+		} finally {
+			endpoint.shutDown();
+		}
+	}
+
+	@Test
+	public void disabledCacheTest() throws IOException {
+		EndpointStore endpoint = createStore();
+		try {
+			HDTValueCache cache = new HDTValueCache(endpoint, 0);
+			assertEquals(0, cache.getCapacity());
+			Value subject = cache.get(TripleComponentRole.SUBJECT, 1);
+			assertNotSame(subject, cache.get(TripleComponentRole.SUBJECT, 1));
+			assertEquals(endpoint.getHdtConverter().idToSubjectHDTResource(1), subject);
+		} finally {
+			endpoint.shutDown();
+		}
+	}
+}
@@ -2,6 +2,7 @@ package com.the_qa_company.qendpoint.store;
 
 import com.the_qa_company.qendpoint.core.exceptions.NotFoundException;
 import com.the_qa_company.qendpoint.core.hdt.HDT;
+import com.the_qa_company.qendpoint.core.listener.MergeMetrics;
 import com.the_qa_company.qendpoint.core.options.HDTOptions;
 import com.the_qa_company.qendpoint.core.options.HDTOptionsKeys;
 import org.eclipse.rdf4j.model.ValueFactory;
@@ -15,6 +16,8 @@ import org.junit.rules.TemporaryFolder;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.EnumSet;
+import java.util.Map;
 
 public class MergeMethodTest {
 	private EndpointStore store;
@@ -99,6 +102,25 @@ public class MergeMethodTest {
 		assertSizeEquals(0);
 	}
 
+	@Test
+	public void phaseTimesTest() throws InterruptedException {
+		addMockElements(20, "test");
+		store.mergeStore();
+		MergeRunnable.debugWaitMerge();
+		assertSizeEquals(0);
+
+		Map<MergeRunnable.MergePhase, Long> times = store.getMergeRunnable().getLastMergePhaseTimes();
+		Assert.assertEquals(EnumSet.allOf(MergeRunnable.MergePhase.class), times.keySet());
+		times.values().forEach(time -> Assert.assertTrue(time >= 0));
+
+		MergeMetrics metrics = store.getMergeMetrics();
+		Assert.assertFalse(metrics.isMerging());
+		Assert.assertEquals(1, metrics.getMergeCount());
+		Assert.assertEquals("step3", metrics.getStep());
+		Assert.assertTrue(metrics.getBytesWritten() > 0);
+		Assert.assertEquals(times.size(), metrics.getPhaseTimes().size());
+	}
+
 	@Test
 	public void multiMergeTest() throws InterruptedException {
 		int elements = 20;
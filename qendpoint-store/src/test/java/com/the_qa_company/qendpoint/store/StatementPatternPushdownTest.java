@@ -0,0 +1,232 @@
+package com.the_qa_company.qendpoint.store;
+
+import com.the_qa_company.qendpoint.core.dictionary.impl.LiteralValueIndex;
+import com.the_qa_company.qendpoint.core.options.HDTOptions;
+import com.the_qa_company.qendpoint.core.options.HDTOptionsKeys;
+import org.eclipse.rdf4j.common.iteration.CloseableIteration;
+import org.eclipse.rdf4j.model.IRI;
+import org.eclipse.rdf4j.model.Literal;
+import org.eclipse.rdf4j.model.Statement;
+import org.eclipse.rdf4j.model.Value;
+import org.eclipse.rdf4j.model.ValueFactory;
+import org.eclipse.rdf4j.model.impl.SimpleValueFactory;
+import org.eclipse.rdf4j.model.vocabulary.FOAF;
+import org.eclipse.rdf4j.model.vocabulary.XSD;
+import org.eclipse.rdf4j.query.BindingSet;
+import org.eclipse.rdf4j.query.TupleQuery;
+import org.eclipse.rdf4j.query.TupleQueryResult;
+import org.eclipse.rdf4j.query.explanation.Explanation;
+import org.eclipse.rdf4j.repository.RepositoryConnection;
+import org.eclipse.rdf4j.repository.RepositoryResult;
+import org.eclipse.rdf4j.repository.sail.SailRepository;
+import org.eclipse.rdf4j.repository.sail.SailRepositoryConnection;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class StatementPatternPushdownTest {
+	private static final String EX = "http://example.com/";
+	private static final ValueFactory VF = SimpleValueFactory.getInstance();
+	private static final IRI S1 = VF.createIRI(EX, "s1");
+	private static final IRI S2 = VF.createIRI(EX, "s2");
+
+	@Rule
+	public TemporaryFolder tempDir = TemporaryFolder.builder().assureDeletion().build();
+
+	private static long countStatements(RepositoryConnection connection, IRI subject, IRI predicate) {
+		try (RepositoryResult<?> statements = connection.getStatements(subject, predicate, null)) {
+			return statements.stream().count();
+		}
+	}
+
+	private static List<Value> objects(RepositoryConnection connection, IRI subject) {
+		try (RepositoryResult<Statement> statements = connection.getStatements(subject, FOAF.KNOWS, null)) {
+			return statements.stream().map(Statement::getObject).toList();
+		}
+	}
+
+	private static List<BindingSet> evaluate(TupleQuery query) {
+		List<BindingSet> results = new ArrayList<>();
+		try (TupleQueryResult result = query.evaluate()) {
+			result.forEach(results::add);
+		}
+		return results;
+	}
+
+	private static void assertPushdown(TupleQuery query, String node) {
+		assertTrue(query.explain(Explanation.Level.Optimized).toString().contains(node));
+	}
+
+	private static void assertCount(SailRepositoryConnection connection, String pattern, long expected) {
+		TupleQuery query = connection.prepareTupleQuery("SELECT (COUNT(*) AS ?c) { " + pattern + " }");
+		assertPushdown(query, StatementPatternCount.class.getSimpleName());
+		List<BindingSet> results = evaluate(query);
+		assertEquals(1, results.size());
+		assertEquals(VF.createLiteral(String.valueOf(expected), XSD.INTEGER), results.get(0).getValue("c"));
+	}
+
+	@Test
+	public void pushdownTest() throws Exception {
+		EndpointStore store = new EndpointStore(new EndpointFiles(tempDir.newFolder().toPath()));
+		SailRepository repository = new SailRepository(store);
+		try {
+			try (SailRepositoryConnection connection = repository.getConnection()) {
+				for (int i = 0; i < 50; i++) {
+					connection.add(S1, FOAF.KNOWS, VF.createIRI(EX, "o" + i));
+				}
+				for (int i = 0; i < 30; i++) {
+					connection.add(S2, FOAF.KNOWS, VF.createIRI(EX, "o" + i));
+				}
+			}
+			store.mergeStore();
+			while (store.isMergeTriggered || store.isMerging()) {
+				Thread.sleep(10);
+			}
+
+			try (SailRepositoryConnection connection = repository.getConnection()) {
+				// deleted HDT triples and triples of the delta
+				for (int i = 0; i < 50; i += 3) {
+					connection.remove(S1, FOAF.KNOWS, VF.createIRI(EX, "o" + i));
+				}
+				for (int i = 50; i < 55; i++) {
+					connection.add(S1, FOAF.KNOWS, VF.createIRI(EX, "o" + i));
+				}
+
+				long countS1 = countStatements(connection, S1, FOAF.KNOWS);
+				assertEquals(50 - 17 + 5, countS1);
+				assertCount(connection, "<" + S1 + "> <" + FOAF.KNOWS + "> ?o", countS1);
+				assertCount(connection, "<" + S2 + "> ?p ?o", 30);
+				assertCount(connection, "?s ?p ?o", countStatements(connection, null, null));
+				assertCount(connection, "?s <" + FOAF.KNOWS + "> ?o", countStatements(connection, null, FOAF.KNOWS));
+				assertCount(connection, "<" + EX + "unknown> ?p ?o", 0);
+
+				// the count with bindings
+				TupleQuery bound = connection.prepareTupleQuery("SELECT (COUNT(?o) AS ?c) { ?s ?p ?o }");
+				bound.setBinding("s", S2);
+				assertEquals(30, ((Literal) evaluate(bound).get(0).getValue("c")).longValue());
+
+				List<Value> all = objects(connection, S1);
+
+				// the HDT triples are counted and skipped with their positions
+				try (EndpointStoreConnection storeConnection = (EndpointStoreConnection) store.getConnection()) {
+					EndpointTripleSource tripleSource = new EndpointTripleSource(storeConnection, store);
+					assertEquals(countS1, tripleSource.countStatements(S1, FOAF.KNOWS, null));
+					try (CloseableIteration<? extends Statement> it = tripleSource.getStatements(5, S1, FOAF.KNOWS,
+							null)) {
+						assertNotNull(it);
+						assertEquals(all.get(5), it.next().getObject());
+					}
+				}
+				for (int offset = 0; offset <= all.size() + 1; offset++) {
+					TupleQuery query = connection.prepareTupleQuery(
+							"SELECT ?o { <" + S1 + "> <" + FOAF.KNOWS + "> ?o } OFFSET " + offset + " LIMIT 10");
+					if (offset > 0) {
+						assertPushdown(query, StatementPatternOffset.class.getSimpleName());
+					}
+					List<Value> expected = all.subList(Math.min(offset, all.size()), Math.min(offset + 10, all.size()));
+					assertEquals("offset " + offset, expected,
+							evaluate(query).stream().map(b -> b.getValue("o")).toList());
+				}
+			}
+		} finally {
+			repository.shutDown();
+		}
+	}
+
+	private static Set<BindingSet> evaluateSet(SailRepositoryConnection connection, String query) {
+		return new HashSet<>(evaluate(connection.prepareTupleQuery(query)));
+	}
+
+	private static void assertValueRange(SailRepositoryConnection connection, String pattern, String filter,
+			int expected) {
+		String prefixes = "PREFIX ex: <" + EX + "> PREFIX xsd: <" + XSD.NAMESPACE + "> ";
+		TupleQuery query = connection
+				.prepareTupleQuery(prefixes + "SELECT * { " + pattern + " FILTER(" + filter + ") }");
+		assertPushdown(query, StatementPatternValueRange.class.getSimpleName());
+		Set<BindingSet> results = new HashSet<>(evaluate(query));
+		// the disjunction isn't pushed
+		assertEquals(filter,
+				evaluateSet(connection, prefixes + "SELECT * { " + pattern + " FILTER((" + filter + ") || false) }"),
+				results);
+		assertEquals(filter, expected, results.size());
+	}
+
+	@Test
+	public void valueRangePushdownTest() throws Exception {
+		HDTOptions spec = HDTOptions.of(HDTOptionsKeys.DICTIONARY_TYPE_KEY,
+				HDTOptionsKeys.DICTIONARY_TYPE_VALUE_MULTI_OBJECTS_LANG, EndpointStore.OPTION_QENDPOINT_VALUE_INDEX,
+				true);
+		EndpointFiles files = new EndpointFiles(tempDir.newFolder().toPath());
+		EndpointStore store = new EndpointStore(files, spec);
+		SailRepository repository = new SailRepository(store);
+		IRI age = VF.createIRI(EX, "age");
+		IRI date = VF.createIRI(EX, "date");
+		try {
+			try (SailRepositoryConnection connection = repository.getConnection()) {
+				for (int i = 0; i < 200; i++) {
+					IRI subject = VF.createIRI(EX, "s" + i);
+					connection.add(subject, age, VF.createLiteral(i));
+					connection
+							.add(subject, date,
+									VF.createLiteral(LocalDateTime.of(2000, 1, 1, 0, 0).plusDays(i)
+											.atOffset(ZoneOffset.UTC).format(DateTimeFormatter.ISO_OFFSET_DATE_TIME),
+											XSD.DATETIME));
+				}
+				connection.add(S1, age, VF.createLiteral("10.5", XSD.DECIMAL));
+				connection.add(S1, age, VF.createLiteral("bad", XSD.INTEGER));
+				connection.add(S2, age, VF.createLiteral("25"));
+				connection.add(S2, date, VF.createLiteral("2000-01-15T00:00:00", XSD.DATETIME));
+			}
+			store.mergeStore();
+			while (store.isMergeTriggered || store.isMerging()) {
+				Thread.sleep(10);
+			}
+			assertNotNull(store.getValueIndex());
+			// created before the reset of the HDT, then moved
+			assertTrue(Files.exists(Path.of(files.getHDTValueIndex())));
+			assertFalse(Files.exists(Path.of(files.getHDTNewValueIndex())));
+			// the filter of a range is created once per value index
+			EndpointTripleSource.ValueRange valueRange = new EndpointTripleSource.ValueRange(
+					LiteralValueIndex.ValueKind.NUMERIC, 150, 1000);
+			assertSame(valueRange.filter(store.getValueIndex()), valueRange.filter(store.getValueIndex()));
+
+			try (SailRepositoryConnection connection = repository.getConnection()) {
+				// deleted HDT triples and triples of the delta
+				connection.remove(VF.createIRI(EX, "s22"), age, VF.createLiteral(22));
+				connection.add(VF.createIRI(EX, "s300"), age, VF.createLiteral(25));
+				connection.add(VF.createIRI(EX, "s301"), age, VF.createLiteral(1000));
+
+				// searched by value
+				assertValueRange(connection, "?s ex:age ?v", "?v >= 20 && ?v < 30", 10);
+				assertValueRange(connection, "?s ex:age ?v", "?v = 42", 1);
+				assertValueRange(connection, "?s ex:age ?v", "10 < ?v && ?v < 11", 1);
+				// filtered by id
+				assertValueRange(connection, "?s ex:age ?v", "?v > 150", 50);
+				assertValueRange(connection, "?s ex:age ?v", "?v > -1", 202);
+				assertValueRange(connection, "<" + EX + "s5> ex:age ?v", "?v > 2", 1);
+				assertValueRange(connection, "?s ex:date ?d",
+						"?d >= \"2000-01-10T00:00:00Z\"^^xsd:dateTime && ?d < \"2000-01-20T00:00:00Z\"^^xsd:dateTime",
+						11);
+				assertValueRange(connection, "?s ex:age ?v . ?s ex:date ?d", "?v < 5", 6);
+			}
+		} finally {
+			repository.shutDown();
+		}
+	}
+}
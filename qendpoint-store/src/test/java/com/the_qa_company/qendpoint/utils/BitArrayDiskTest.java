@@ -7,8 +7,15 @@ import org.junit.rules.TemporaryFolder;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 public class BitArrayDiskTest {
@@ -60,6 +67,179 @@ public class BitArrayDiskTest {
 		}
 	}
 
+	@Test
+	public void testCountOnesTrim() throws IOException {
+		try (BitArrayDisk bitArrayDisk = new BitArrayDisk(100)) {
+			bitArrayDisk.set(10, true);
+			// outside the allocated words, removed by the trim
+			bitArrayDisk.set(1000, true);
+			bitArrayDisk.set(1001, true);
+			assertEquals(3, bitArrayDisk.countOnes());
+			bitArrayDisk.trimToSize();
+			assertEquals(1, bitArrayDisk.countOnes());
+			assertEquals(1, bitArrayDisk.rank1(bitArrayDisk.getNumWords() * 64L - 1));
+		}
+	}
+
+	@Test
+	public void testConcurrentSet() throws IOException, InterruptedException {
+		File file = tempDir.newFile("triples-delete.arr");
+		int threads = 8;
+		int bits = 10_000;
+		try (BitArrayDisk bitArrayDisk = new BitArrayDisk(bits, file)) {
+			List<Thread> workers = new ArrayList<>();
+			for (int t = 0; t < threads; t++) {
+				int shift = t;
+				// the threads are writing in the same words
+				workers.add(new Thread(() -> {
+					for (int i = shift; i < bits; i += threads) {
+						bitArrayDisk.set(i, true);
+					}
+				}));
+			}
+			workers.forEach(Thread::start);
+			for (Thread worker : workers) {
+				worker.join();
+			}
+			assertEquals(bits, bitArrayDisk.countOnes());
+			assertEquals(bits, bitArrayDisk.getNumBits());
+			assertEquals(bits / 2, bitArrayDisk.rank1(bits / 2 - 1));
+
+			bitArrayDisk.set(42, false);
+			assertEquals(bits - 1, bitArrayDisk.countOnes());
+			assertEquals(bits - 1, bitArrayDisk.rank1(bits));
+		}
+
+		// the last value of each word was written
+		try (BitArrayDisk bitArrayDisk = new BitArrayDisk(bits, file)) {
+			assertEquals(bits - 1, bitArrayDisk.countOnes());
+			for (int i = 0; i < bits; i++) {
+				assertEquals(i != 42, bitArrayDisk.access(i));
+			}
+		}
+	}
+
+	@Test
+	public void testConcurrentUpdateAndRank() throws IOException, InterruptedException {
+		int threads = 8;
+		int bits = 10_000;
+		try (BitArrayDisk bitArrayDisk = new BitArrayDisk(bits, tempDir.newFile("triples-delete.arr"))) {
+			bitArrayDisk.set(bits - 1, true);
+			AtomicLong changed = new AtomicLong(1);
+			AtomicBoolean writing = new AtomicBoolean(true);
+			List<String> errors = new CopyOnWriteArrayList<>();
+			List<Thread> workers = new ArrayList<>();
+			for (int t = 0; t < threads; t++) {
+				// all the threads are setting the same bits
+				workers.add(new Thread(() -> {
+					for (int i = 0; i < bits - 1; i++) {
+						if (bitArrayDisk.update(i, true)) {
+							changed.incrementAndGet();
+						}
+					}
+				}));
+			}
+			// the ranks are read without locking while the bits are set
+			Thread reader = new Thread(() -> {
+				long last = 0;
+				while (writing.get()) {
+					long rank = bitArrayDisk.rank1(bits - 1);
+					if (rank < last || rank > bits) {
+						errors.add("rank " + rank + " after " + last);
+					}
+					last = rank;
+				}
+			});
+			reader.start();
+			workers.forEach(Thread::start);
+			for (Thread worker : workers) {
+				worker.join();
+			}
+			writing.set(false);
+			reader.join();
+
+			assertEquals(List.of(), errors);
+			// only one thread has seen the change of each bit
+			assertEquals(bits, changed.get());
+			assertEquals(bits, bitArrayDisk.countOnes());
+			assertEquals(bits, bitArrayDisk.rank1(bits - 1));
+			assertEquals(bits / 2, bitArrayDisk.rank1(bits / 2 - 1));
+			assertFalse(bitArrayDisk.update(42, true));
+			assertTrue(bitArrayDisk.update(42, false));
+			assertEquals(bits - 1, bitArrayDisk.rank1(bits - 1));
+		}
+	}
+
+	@Test
+	public void testIncrementalRank() throws IOException {
+		int bits = 5_000;
+		boolean[] expected = new boolean[bits];
+		Random random = new Random(42);
+		try (BitArrayDisk bitArrayDisk = new BitArrayDisk(bits)) {
+			for (int step = 0; step < 50; step++) {
+				// update a few superblocks between two ranks
+				for (int i = 0; i < 1 + step % 5; i++) {
+					int index = random.nextInt(bits);
+					boolean value = random.nextBoolean();
+					expected[index] = value;
+					bitArrayDisk.set(index, value);
+				}
+
+				long count = 0;
+				for (int i = 0; i < bitArrayDisk.getNumBits(); i++) {
+					if (expected[i]) {
+						count++;
+					}
+					assertEquals("rank " + i + " at step " + step, count, bitArrayDisk.rank1(i));
+				}
+				assertEquals(count, bitArrayDisk.countOnes());
+			}
+		}
+	}
+
+	@Test
+	public void testRankAfterReload() throws IOException {
+		File file = tempDir.newFile("triples-delete.arr");
+		int bits = 20_000;
+		boolean[] expected = new boolean[bits];
+		Random random = new Random(42);
+		try (BitArrayDisk bitArrayDisk = new BitArrayDisk(bits, file)) {
+			for (int i = 0; i < bits / 10; i++) {
+				int index = random.nextInt(bits);
+				expected[index] = true;
+				bitArrayDisk.set(index, true);
+			}
+		}
+
+		// the rank directory is built with the words read from the file
+		try (BitArrayDisk bitArrayDisk = new BitArrayDisk(bits, file)) {
+			long count = 0;
+			for (int i = 0; i < bitArrayDisk.getNumBits(); i++) {
+				if (expected[i]) {
+					count++;
+				}
+				assertEquals("rank " + i, count, bitArrayDisk.rank1(i));
+			}
+			assertEquals(count, bitArrayDisk.countOnes());
+		}
+	}
+
+	@Test
+	public void testReinitializeNumBits() throws IOException {
+		File file = tempDir.newFile("triples-delete.arr");
+
+		try (BitArrayDisk bitArrayDisk = new BitArrayDisk(1000, file)) {
+			bitArrayDisk.set(3, true);
+			bitArrayDisk.set(700, true);
+		}
+
+		try (BitArrayDisk bitArrayDisk = new BitArrayDisk(1000, file)) {
+			assertEquals(701, bitArrayDisk.getNumBits());
+			assertEquals(1, bitArrayDisk.rank1(699));
+			assertEquals(2, bitArrayDisk.rank1(700));
+		}
+	}
+
 	@Test
 	public void testLog2() {
 		Assert.assertEquals(64, BitArrayDisk.log2(-1));
@@ -0,0 +1,221 @@
+package com.the_qa_company.qendpoint.utils;
+
+import com.the_qa_company.qendpoint.core.enums.TripleComponentRole;
+import com.the_qa_company.qendpoint.core.exceptions.ParserException;
+import com.the_qa_company.qendpoint.core.hdt.HDT;
+import com.the_qa_company.qendpoint.core.hdt.HDTManager;
+import com.the_qa_company.qendpoint.core.options.HDTOptions;
+import com.the_qa_company.qendpoint.core.triples.TripleString;
+import com.the_qa_company.qendpoint.model.HDTValue;
+import com.the_qa_company.qendpoint.store.EndpointStore;
+import com.the_qa_company.qendpoint.store.EndpointStoreConnection;
+import com.the_qa_company.qendpoint.store.EndpointTripleSource;
+import org.eclipse.rdf4j.model.IRI;
+import org.eclipse.rdf4j.model.Value;
+import org.eclipse.rdf4j.model.ValueFactory;
+import org.eclipse.rdf4j.model.impl.SimpleValueFactory;
+import org.eclipse.rdf4j.model.vocabulary.XSD;
+import org.eclipse.rdf4j.query.BindingSet;
+import org.eclipse.rdf4j.query.TupleQuery;
+import org.eclipse.rdf4j.query.TupleQueryResult;
+import org.eclipse.rdf4j.query.algebra.BindingSetAssignment;
+import org.eclipse.rdf4j.query.algebra.evaluation.QueryBindingSet;
+import org.eclipse.rdf4j.repository.RepositoryConnection;
+import org.eclipse.rdf4j.repository.sail.SailRepository;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class VariableToIdSubstitutionTest {
+	private static final String NS = "http://example.org/";
+	private static final ValueFactory VF = SimpleValueFactory.getInstance();
+
+	@Rule
+	public TemporaryFolder tempDir = TemporaryFolder.builder().assureDeletion().build();
+
+	private EndpointStore createStore() throws IOException, ParserException {
+		File nativeStore = tempDir.newFolder("native-store");
+		File hdtStore = tempDir.newFolder("hdt-store");
+		List<TripleString> triples = new ArrayList<>();
+		for (int i = 0; i < 10; i++) {
+			triples.add(new TripleString(NS + "s" + i, NS + "p", "\"o" + i + "\""));
+		}
+		try (HDT hdt = HDTManager.generateHDT(triples.iterator(), NS, HDTOptions.of(), null)) {
+			hdt.saveToHDT(hdtStore.getAbsolutePath() + File.separatorChar + "index.hdt", null);
+		}
+		return new EndpointStore(hdtStore.getAbsolutePath() + File.separatorChar, "index.hdt", HDTOptions.of(),
+				nativeStore.getAbsolutePath() + File.separatorChar, true);
+	}
+
+	private static BindingSet row(String name, Value value) {
+		QueryBindingSet bs = new QueryBindingSet();
+		bs.addBinding(name, value);
+		return bs;
+	}
+
+	private static List<Value> substitute(EndpointStore store, Value... values) {
+		BindingSetAssignment assignment = new BindingSetAssignment();
+		assignment.setBindingNames(Set.of("s"));
+		List<BindingSet> rows = new ArrayList<>();
+		for (Value value : values) {
+			rows.add(row("s", value));
+		}
+		assignment.setBindingSets(rows);
+
+		new VariableToIdSubstitution(store).optimize(assignment, null, null);
+
+		List<Value> substituted = new ArrayList<>();
+		assignment.getBindingSets().forEach(bs -> substituted.add(bs.getValue("s")));
+		return substituted;
+	}
+
+	@Test
+	public void valuesSubstitutionTest() throws IOException, ParserException {
+		EndpointStore store = createStore();
+		try {
+			List<Value> values = substitute(store, VF.createIRI(NS, "s7"), VF.createIRI(NS, "s2"),
+					VF.createIRI(NS, "s5"));
+			assertEquals(3, values.size());
+
+			// the HDT values of the same section are sorted by id
+			long last = 0;
+			for (Value value : values) {
+				assertTrue(value instanceof HDTValue);
+				long id = ((HDTValue) value).getHDTId();
+				assertTrue(id > last);
+				last = id;
+			}
+			assertEquals(List.of(NS + "s2", NS + "s5", NS + "s7"), values.stream().map(Value::stringValue).toList());
+		} finally {
+			store.shutDown();
+		}
+	}
+
+	@Test
+	public void valuesNotSortedTest() throws IOException, ParserException {
+		EndpointStore store = createStore();
+		try {
+			// unknown value, the order is kept
+			IRI unknown = VF.createIRI(NS, "unknown");
+			List<Value> values = substitute(store, VF.createIRI(NS, "s7"), unknown, VF.createIRI(NS, "s2"));
+			assertTrue(values.get(0) instanceof HDTValue);
+			assertFalse(values.get(1) instanceof HDTValue);
+			assertEquals(List.of(NS + "s7", NS + "unknown", NS + "s2"),
+					values.stream().map(Value::stringValue).toList());
+
+			// subject and object ids, the order is kept
+			values = substitute(store, VF.createIRI(NS, "s7"), VF.createLiteral("o1"), VF.createIRI(NS, "s2"));
+			assertTrue(values.get(1) instanceof HDTValue);
+			assertEquals(List.of(NS + "s7", "o1", NS + "s2"), values.stream().map(Value::stringValue).toList());
+		} finally {
+			store.shutDown();
+		}
+	}
+
+	@Test
+	public void valuesQueryTest() throws IOException, ParserException {
+		SailRepository repository = new SailRepository(createStore());
+		try (RepositoryConnection connection = repository.getConnection()) {
+			Set<String> objects = new HashSet<>();
+			try (TupleQueryResult result = connection.prepareTupleQuery("SELECT ?s ?o { VALUES ?s { <" + NS + "s7> <"
+					+ NS + "unknown> <" + NS + "s2> } ?s <" + NS + "p> ?o }").evaluate()) {
+				result.forEach(bs -> objects.add(bs.getValue("o").stringValue()));
+			}
+			assertEquals(Set.of("o7", "o2"), objects);
+
+			// the predicates aren't converted
+			Set<String> subjects = new HashSet<>();
+			try (TupleQueryResult result = connection
+					.prepareTupleQuery("SELECT ?s ?p { VALUES (?p ?o) { (<" + NS + "p> \"o3\") } ?s ?p ?o }")
+					.evaluate()) {
+				result.forEach(bs -> subjects.add(bs.getValue("s").stringValue()));
+			}
+			assertEquals(Set.of(NS + "s3"), subjects);
+		} finally {
+			repository.shutDown();
+		}
+	}
+
+	@Test
+	public void batchStatementsTest() throws IOException, ParserException {
+		EndpointStore store = createStore();
+		SailRepository repository = new SailRepository(store);
+		try {
+			IRI unknown = VF.createIRI(NS, "unknown");
+			IRI p = VF.createIRI(NS, "p");
+			try (RepositoryConnection connection = repository.getConnection()) {
+				connection.add(unknown, p, VF.createLiteral("d"));
+			}
+			List<Value> values = substitute(store, VF.createIRI(NS, "s7"), unknown, VF.createLiteral("o1"),
+					VF.createIRI(NS, "s2"), VF.createIRI(NS, "s7"));
+
+			List<String> rows = new ArrayList<>();
+			try (EndpointStoreConnection connection = (EndpointStoreConnection) store.getConnection();
+					EndpointTripleSource.BatchStatements statements = new EndpointTripleSource(connection, store)
+							.getBatchStatements(TripleComponentRole.SUBJECT, values, null, p, null)) {
+				while (statements.nextRow()) {
+					assertEquals(values.get(statements.getValueIndex()),
+							statements.getComponent(TripleComponentRole.SUBJECT));
+					rows.add(statements.getValueIndex() + " "
+							+ statements.getComponent(TripleComponentRole.OBJECT).stringValue());
+				}
+			}
+			// the values are searched by id, the unknown value only in the
+			// delta and the literal can't be a subject
+			assertEquals(List.of("1 d", "3 o2", "0 o7", "4 o7"), rows);
+		} finally {
+			repository.shutDown();
+		}
+	}
+
+	private static List<Map<String, String>> evaluate(TupleQuery query) {
+		List<Map<String, String>> results = new ArrayList<>();
+		try (TupleQueryResult result = query.evaluate()) {
+			result.forEach(bs -> {
+				Map<String, String> row = new TreeMap<>();
+				bs.forEach(binding -> row.put(binding.getName(), binding.getValue().stringValue()));
+				results.add(row);
+			});
+		}
+		results.sort(Comparator.comparing(Object::toString));
+		return results;
+	}
+
+	@Test
+	public void valuesJoinTest() throws IOException, ParserException {
+		SailRepository repository = new SailRepository(createStore());
+		try (RepositoryConnection connection = repository.getConnection()) {
+			connection.add(VF.createIRI(NS, "unknown"), VF.createIRI(NS, "p"), VF.createLiteral("d"));
+			TupleQuery query = connection.prepareTupleQuery("SELECT ?s ?x ?o { VALUES (?s ?x) { (<" + NS + "s7> 1) (<"
+					+ NS + "s2> 2) (<" + NS + "s7> 3) (<" + NS + "unknown> 4) (\"o1\" 5) } ?s <" + NS + "p> ?o }");
+			assertEquals(List.of(Map.of("s", NS + "unknown", "x", "4", "o", "d"),
+					Map.of("s", NS + "s2", "x", "2", "o", "o2"), Map.of("s", NS + "s7", "x", "1", "o", "o7"),
+					Map.of("s", NS + "s7", "x", "3", "o", "o7")), evaluate(query));
+
+			// the rows not compatible with the bindings are removed
+			query.setBinding("x", VF.createLiteral("3", XSD.INTEGER));
+			assertEquals(List.of(Map.of("s", NS + "s7", "x", "3", "o", "o7")), evaluate(query));
+			query.clearBindings();
+			query.setBinding("o", VF.createLiteral("o7"));
+			assertEquals(
+					List.of(Map.of("s", NS + "s7", "x", "1", "o", "o7"), Map.of("s", NS + "s7", "x", "3", "o", "o7")),
+					evaluate(query));
+		} finally {
+			repository.shutDown();
+		}
+	}
+}